@@ -0,0 +1,10 @@
+-- Fila de existencias de los menus (ver dao.DAOTablaMenus.addMenu).
+-- Los pedidos descuentan las existencias de un menu de RESTAURANTE_PRODUCTO, no de MENU.DISPONIBLE.
+-- Los menus creados antes de este cambio no tienen esa fila; este script la crea a partir de MENU.
+INSERT INTO RESTAURANTE_PRODUCTO (NOMBRE_RESTAURANTE, NOMBRE_PRODUCTO, COSTO_PRODUCCION, TIEMPO_PREPARACION,
+    PRECIO_VENTA, DISPONIBLES, MAXIMO)
+  SELECT m.RESTAURANTE, m.NOMBRE, m.COSTO_PRODUCCION, m.TIEMPO_PREPARACION, m.PRECIO_VENTA, m.DISPONIBLE, m.MAXIMO
+  FROM MENU m
+  WHERE NOT EXISTS (SELECT 1 FROM RESTAURANTE_PRODUCTO rp
+                    WHERE rp.NOMBRE_RESTAURANTE = m.RESTAURANTE AND rp.NOMBRE_PRODUCTO = m.NOMBRE);
+COMMIT;
@@ -0,0 +1,12 @@
+-- Bitacora de reservas de existencias (ver tm.StockReservations y dao.DAOTablaReservas).
+-- Cada pedido inserta aqui las unidades que reservo en lugar de actualizar RESTAURANTE_PRODUCTO.DISPONIBLES.
+-- La aplicacion descarga la bitacora por lotes: marca las filas con LOTE, descuenta DISPONIBLES y borra el lote
+-- en la misma transaccion. Las filas que quedan despues de una caida se descargan al arrancar.
+CREATE TABLE STOCK_RESERVA (
+  NOMBRE_PRODUCTO VARCHAR2(100) NOT NULL,
+  CANTIDAD NUMBER NOT NULL,
+  LOTE NUMBER(19)
+);
+
+CREATE INDEX STOCK_RESERVA_PRODUCTO ON STOCK_RESERVA (NOMBRE_PRODUCTO);
+CREATE INDEX STOCK_RESERVA_LOTE ON STOCK_RESERVA (LOTE);
@@ -0,0 +1,14 @@
+-- Secuencia de ids de PEDIDO. Empieza despues del mayor PEDIDO_ID existente.
+DECLARE
+  inicio NUMBER;
+BEGIN
+  SELECT NVL(MAX(PEDIDO_ID), 0) + 1 INTO inicio FROM PEDIDO;
+  EXECUTE IMMEDIATE 'CREATE SEQUENCE PEDIDO_SEQ START WITH ' || inicio || ' INCREMENT BY 1 NOCACHE';
+END;
+/
+
+-- Migracion: ids de PEDIDO en bloques (hi/lo). Se corre despues de crear la secuencia, tambien en esquemas
+-- que ya la tienen con INCREMENT BY 1. Cada NEXTVAL reserva INCREMENT BY ids, por eso INCREMENT BY debe
+-- coincidir con el tamano de bloque de dao.DAOTablaPedidos (100). El siguiente NEXTVAL queda 100 por encima
+-- del ultimo id entregado, asi que no repite ids ya usados.
+ALTER SEQUENCE PEDIDO_SEQ INCREMENT BY 100;
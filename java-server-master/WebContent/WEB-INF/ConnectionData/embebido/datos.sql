@@ -0,0 +1,117 @@
+-- Datos iniciales del perfil embebido. Son pocos a proposito: alcanzan para recorrer todos los servicios
+-- (pedidos, menus, consultas, preferencias y equivalencias) y sirven de base para cargar mas datos de prueba.
+
+INSERT INTO ZONA VALUES ('Norte');
+INSERT INTO ZONA VALUES ('Centro');
+INSERT INTO ZONA VALUES ('Sur');
+
+INSERT INTO USUARIO VALUES (1, 'Ana', 'Cliente', 'ana@rotondandes.co');
+INSERT INTO USUARIO VALUES (2, 'Bernardo', 'Cliente', 'bernardo@rotondandes.co');
+INSERT INTO USUARIO VALUES (3, 'Carolina', 'Cliente', 'carolina@rotondandes.co');
+INSERT INTO USUARIO VALUES (4, 'Daniel', 'Cliente', 'daniel@rotondandes.co');
+INSERT INTO USUARIO VALUES (8, 'Elena', 'Cliente', 'elena@rotondandes.co');
+INSERT INTO USUARIO VALUES (9, 'Felipe', 'Cliente', 'felipe@rotondandes.co');
+INSERT INTO USUARIO VALUES (10, 'Gabriela', 'Cliente', 'gabriela@rotondandes.co');
+INSERT INTO USUARIO VALUES (11, 'Hernan', 'Cliente', 'hernan@rotondandes.co');
+INSERT INTO USUARIO VALUES (12, 'Isabel', 'Cliente', 'isabel@rotondandes.co');
+INSERT INTO USUARIO VALUES (5, 'Juan', 'Restaurante', 'juan@elcorral.co');
+INSERT INTO USUARIO VALUES (6, 'Laura', 'Restaurante', 'laura@wok.co');
+INSERT INTO USUARIO VALUES (7, 'Gerente', 'Gerente', 'gerente@rotondandes.co');
+
+INSERT INTO RESTAURANTE VALUES ('Corral', 'Hamburguesas', 'elcorral.co', 'Juan', 'Norte');
+INSERT INTO RESTAURANTE VALUES ('Wok', 'Asiatica', 'wok.co', 'Laura', 'Centro');
+INSERT INTO RESTAURANTE VALUES ('Crepes', 'Crepes', 'crepesywaffles.co', 'Juan', 'Sur');
+
+INSERT INTO CATEGORIA VALUES ('Entrada');
+INSERT INTO CATEGORIA VALUES ('Plato fuerte');
+INSERT INTO CATEGORIA VALUES ('Postre');
+INSERT INTO CATEGORIA VALUES ('Bebida');
+
+INSERT INTO PRODUCTO VALUES ('hamburguesa', 'Hamburguesa de res', 'Beef burger', 'Plato fuerte');
+INSERT INTO PRODUCTO VALUES ('papas', 'Papas a la francesa', 'French fries', 'Entrada');
+INSERT INTO PRODUCTO VALUES ('malteada', 'Malteada de vainilla', 'Vanilla milkshake', 'Bebida');
+INSERT INTO PRODUCTO VALUES ('pad thai', 'Fideos salteados', 'Pad thai', 'Plato fuerte');
+INSERT INTO PRODUCTO VALUES ('rollitos', 'Rollitos primavera', 'Spring rolls', 'Entrada');
+INSERT INTO PRODUCTO VALUES ('te', 'Te verde', 'Green tea', 'Bebida');
+INSERT INTO PRODUCTO VALUES ('crepe pollo', 'Crepe de pollo', 'Chicken crepe', 'Plato fuerte');
+INSERT INTO PRODUCTO VALUES ('waffle', 'Waffle con helado', 'Waffle with ice cream', 'Postre');
+
+INSERT INTO PRODUCTOS2 SELECT * FROM PRODUCTO;
+
+INSERT INTO RESTAURANTE_PRODUCTO VALUES ('Corral', 'hamburguesa', 8000, 10, 18000, 100, 100);
+INSERT INTO RESTAURANTE_PRODUCTO VALUES ('Corral', 'papas', 1500, 5, 5000, 200, 200);
+INSERT INTO RESTAURANTE_PRODUCTO VALUES ('Corral', 'malteada', 2500, 5, 8000, 80, 80);
+INSERT INTO RESTAURANTE_PRODUCTO VALUES ('Wok', 'pad thai', 9000, 15, 24000, 60, 60);
+INSERT INTO RESTAURANTE_PRODUCTO VALUES ('Wok', 'rollitos', 2000, 8, 9000, 120, 120);
+INSERT INTO RESTAURANTE_PRODUCTO VALUES ('Wok', 'te', 800, 2, 4000, 150, 150);
+INSERT INTO RESTAURANTE_PRODUCTO VALUES ('Crepes', 'crepe pollo', 7000, 12, 21000, 70, 70);
+INSERT INTO RESTAURANTE_PRODUCTO VALUES ('Crepes', 'waffle', 4000, 10, 14000, 90, 90);
+INSERT INTO RESTAURANTE_PRODUCTO VALUES ('Corral', 'combo corral', 12000, 15, 26000, 50, 50);
+INSERT INTO RESTAURANTE_PRODUCTO VALUES ('Wok', 'combo wok', 11000, 20, 30000, 40, 40);
+
+INSERT INTO MENU VALUES ('Corral', 'combo corral', 12000, 26000, 50, 50, 15);
+INSERT INTO MENU VALUES ('Wok', 'combo wok', 11000, 30000, 40, 40, 20);
+
+INSERT INTO PEDIDO VALUES (1, 18000, 1, DATE '2017-10-02', 'T');
+INSERT INTO PEDIDO VALUES (2, 23000, 2, DATE '2017-10-03', 'T');
+INSERT INTO PEDIDO VALUES (3, 26000, 1, DATE '2017-10-04', 'T');
+INSERT INTO PEDIDO VALUES (4, 33000, 3, DATE '2017-10-06', 'T');
+INSERT INTO PEDIDO VALUES (5, 35000, 4, DATE '2017-10-07', 'F');
+INSERT INTO PEDIDO VALUES (6, 30000, 2, DATE '2017-10-08', 'F');
+
+INSERT INTO PEDIDOS2 SELECT * FROM PEDIDO;
+INSERT INTO PEDIDOS2 VALUES (7, 45000, 3, DATE '2017-09-18', 'T');
+INSERT INTO PEDIDOS2 VALUES (8, 14000, 4, DATE '2017-09-20', 'T');
+INSERT INTO PEDIDOS2 VALUES (9, 42000, 1, DATE '2017-09-22', 'T');
+INSERT INTO PEDIDOS2 VALUES (10, 40000, 3, DATE '2017-09-23', 'T');
+INSERT INTO PEDIDOS2 VALUES (11, 42000, 8, DATE '2017-09-24', 'T');
+
+INSERT INTO PEDIDO_PRODUCTO VALUES (1, 'hamburguesa', 'Corral');
+INSERT INTO PEDIDO_PRODUCTO VALUES (2, 'hamburguesa', 'Corral');
+INSERT INTO PEDIDO_PRODUCTO VALUES (2, 'papas', 'Corral');
+INSERT INTO PEDIDO_PRODUCTO VALUES (4, 'pad thai', 'Wok');
+INSERT INTO PEDIDO_PRODUCTO VALUES (4, 'rollitos', 'Wok');
+INSERT INTO PEDIDO_PRODUCTO VALUES (5, 'crepe pollo', 'Crepes');
+INSERT INTO PEDIDO_PRODUCTO VALUES (5, 'waffle', 'Crepes');
+INSERT INTO PEDIDO_PRODUCTO VALUES (7, 'pad thai', 'Wok');
+INSERT INTO PEDIDO_PRODUCTO VALUES (7, 'crepe pollo', 'Crepes');
+INSERT INTO PEDIDO_PRODUCTO VALUES (8, 'waffle', 'Crepes');
+INSERT INTO PEDIDO_PRODUCTO VALUES (9, 'hamburguesa', 'Corral');
+INSERT INTO PEDIDO_PRODUCTO VALUES (9, 'pad thai', 'Wok');
+INSERT INTO PEDIDO_PRODUCTO VALUES (10, 'hamburguesa', 'Corral');
+INSERT INTO PEDIDO_PRODUCTO VALUES (10, 'papas', 'Corral');
+INSERT INTO PEDIDO_PRODUCTO VALUES (10, 'malteada', 'Corral');
+INSERT INTO PEDIDO_PRODUCTO VALUES (10, 'te', 'Wok');
+INSERT INTO PEDIDO_PRODUCTO VALUES (11, 'pad thai', 'Wok');
+INSERT INTO PEDIDO_PRODUCTO VALUES (11, 'waffle', 'Crepes');
+
+INSERT INTO MENU_PEDIDO VALUES ('combo corral', 'Corral', 3);
+INSERT INTO MENU_PEDIDO VALUES ('combo wok', 'Wok', 6);
+
+-- Los pedidos 4 y 5 se hicieron desde la mesa 1
+INSERT INTO PEDIDO_MESA VALUES (1, 4, DATE '2017-10-06', 68000, 4);
+INSERT INTO PEDIDO_MESA VALUES (1, 5, DATE '2017-10-06', 68000, 4);
+
+INSERT INTO INGREDIENTE VALUES ('res', 'Carne de res', 'Beef');
+INSERT INTO INGREDIENTE VALUES ('pollo', 'Pechuga de pollo', 'Chicken');
+INSERT INTO INGREDIENTE VALUES ('tofu', 'Tofu firme', 'Tofu');
+INSERT INTO INGREDIENTE VALUES ('queso', 'Queso mozzarella', 'Mozzarella cheese');
+INSERT INTO INGREDIENTE VALUES ('helado', 'Helado de vainilla', 'Vanilla ice cream');
+
+INSERT INTO EQUIVALENCIA_INGREDIENTE VALUES ('pollo', 'tofu');
+INSERT INTO EQUIVALENCIA_INGREDIENTE VALUES ('res', 'pollo');
+
+INSERT INTO EQUIVALENCIA_PRODUCTO VALUES ('papas', 'rollitos');
+INSERT INTO EQUIVALENCIA_PRODUCTO VALUES ('malteada', 'te');
+
+INSERT INTO PREFERENCIA_RESTAURANTE VALUES (1, 'Corral');
+INSERT INTO PREFERENCIA_RESTAURANTE VALUES (3, 'Wok');
+INSERT INTO PREFERENCIA_PRODUCTO VALUES (1, 'hamburguesa');
+INSERT INTO PREFERENCIA_PRODUCTO VALUES (2, 'waffle');
+INSERT INTO PREFERENCIA_ZONA VALUES (1, 'Norte');
+INSERT INTO PREFERENCIA_ZONA VALUES (4, 'Sur');
+
+INSERT INTO VIDEO VALUES (1, 'Bienvenida', 90);
+
+-- Ver Docs/Secuencias.sql: empieza despues del mayor PEDIDO_ID de PEDIDO y PEDIDOS2
+CREATE SEQUENCE PEDIDO_SEQ START WITH 12 INCREMENT BY 100 NOCACHE;
@@ -0,0 +1,149 @@
+-- Esquema de RotondAndes para el perfil embebido (H2 en modo Oracle).
+-- Lo ejecuta startup.EmbeddedDatabase al arrancar si la base todavia no tiene la tabla USUARIO.
+-- Las sentencias se separan con ; al final de la linea; las lineas que empiezan con -- se ignoran.
+-- Se activa con -Drotondandes.perfil=embebido (o el parametro de contexto del mismo nombre) y el jar de H2 en el deploy.
+-- Limitaciones frente a Oracle: darConsulta11 usa KEEP (DENSE_RANK FIRST ...), que H2 no soporta, y darUtilidad
+-- compara FECHA con textos yyyy/MM/dd que solo Oracle convierte implicitamente.
+
+CREATE TABLE ZONA (
+  NOMBRE VARCHAR2(100) PRIMARY KEY
+);
+
+CREATE TABLE USUARIO (
+  NUMERO_ID NUMBER PRIMARY KEY,
+  NOMBRE VARCHAR2(100),
+  ROL VARCHAR2(50),
+  EMAIL VARCHAR2(100)
+);
+
+CREATE TABLE RESTAURANTE (
+  NOMBRE VARCHAR2(100) PRIMARY KEY,
+  TIPO_COMIDA VARCHAR2(100),
+  PAGINAWEB VARCHAR2(200),
+  REPRESENTANTE VARCHAR2(100),
+  NOMBREZONA VARCHAR2(100)
+);
+
+CREATE TABLE CATEGORIA (
+  NOMBRE VARCHAR2(100) PRIMARY KEY
+);
+
+CREATE TABLE PRODUCTO (
+  NOMBRE VARCHAR2(100) PRIMARY KEY,
+  DESCRIPCION VARCHAR2(400),
+  TRADUCCION VARCHAR2(400),
+  CATEGORIA VARCHAR2(100)
+);
+
+CREATE TABLE PRODUCTOS2 (
+  NOMBRE VARCHAR2(100) PRIMARY KEY,
+  DESCRIPCION VARCHAR2(400),
+  TRADUCCION VARCHAR2(400),
+  CATEGORIA VARCHAR2(100)
+);
+
+-- Los menus tambien tienen su fila aqui (la crea DAOTablaMenus.addMenu): es de donde se descuentan sus existencias.
+CREATE TABLE RESTAURANTE_PRODUCTO (
+  NOMBRE_RESTAURANTE VARCHAR2(100),
+  NOMBRE_PRODUCTO VARCHAR2(100),
+  COSTO_PRODUCCION NUMBER,
+  TIEMPO_PREPARACION NUMBER,
+  PRECIO_VENTA NUMBER,
+  DISPONIBLES NUMBER CHECK (DISPONIBLES >= 0),
+  MAXIMO NUMBER,
+  PRIMARY KEY (NOMBRE_RESTAURANTE, NOMBRE_PRODUCTO)
+);
+
+CREATE TABLE MENU (
+  RESTAURANTE VARCHAR2(100),
+  NOMBRE VARCHAR2(100) PRIMARY KEY,
+  COSTO_PRODUCCION NUMBER,
+  PRECIO_VENTA NUMBER,
+  DISPONIBLE NUMBER,
+  MAXIMO NUMBER,
+  TIEMPO_PREPARACION NUMBER
+);
+
+CREATE TABLE PEDIDO (
+  PEDIDO_ID NUMBER PRIMARY KEY,
+  COSTO_TOTAL NUMBER,
+  ID_USUARIO NUMBER,
+  FECHA DATE,
+  ENTREGADO CHAR(1)
+);
+
+-- Historico de pedidos sobre el que corren las consultas de DAOConsultas.
+CREATE TABLE PEDIDOS2 (
+  PEDIDO_ID NUMBER PRIMARY KEY,
+  COSTO_TOTAL NUMBER,
+  ID_USUARIO NUMBER,
+  FECHA DATE,
+  ENTREGADO CHAR(1)
+);
+
+CREATE TABLE PEDIDO_PRODUCTO (
+  ID_PEDIDO NUMBER,
+  NOMBRE_PRODUCTO VARCHAR2(100),
+  NOMBRE_RESTAURANTE VARCHAR2(100)
+);
+
+CREATE TABLE MENU_PEDIDO (
+  NOMBRE_MENU VARCHAR2(100),
+  NOMBRE_RESTAURANTE VARCHAR2(100),
+  ID_PEDIDO NUMBER
+);
+
+CREATE TABLE PEDIDO_MESA (
+  ID_MESA NUMBER,
+  ID_PEDIDO NUMBER,
+  FECHA DATE,
+  COSTO_TOTAL NUMBER,
+  PRODUCTOS NUMBER
+);
+
+CREATE TABLE INGREDIENTE (
+  NOMBRE VARCHAR2(100) PRIMARY KEY,
+  DESCRIPCION VARCHAR2(400),
+  TRADUCCION VARCHAR2(400)
+);
+
+CREATE TABLE EQUIVALENCIA_INGREDIENTE (
+  NOMBRE_INGREDIENTE VARCHAR2(100),
+  EQUIVALENTE VARCHAR2(100)
+);
+
+CREATE TABLE EQUIVALENCIA_PRODUCTO (
+  NOMBRE_PRODUCTO VARCHAR2(100),
+  EQUIVALENTE VARCHAR2(100)
+);
+
+CREATE TABLE PREFERENCIA_RESTAURANTE (
+  NUMERO_USUARIO NUMBER,
+  NOMBRE_RESTAURANTE VARCHAR2(100)
+);
+
+CREATE TABLE PREFERENCIA_PRODUCTO (
+  NUMERO_USUARIO NUMBER,
+  NOMBRE_PRODUCTO VARCHAR2(100)
+);
+
+CREATE TABLE PREFERENCIA_ZONA (
+  NUMERO_USUARIO NUMBER,
+  NOMBRE_ZONA VARCHAR2(100)
+);
+
+CREATE TABLE VIDEO (
+  ID NUMBER PRIMARY KEY,
+  NAME VARCHAR2(100),
+  DURATION NUMBER
+);
+
+-- Ver Docs/Reservas.sql
+CREATE TABLE STOCK_RESERVA (
+  NOMBRE_PRODUCTO VARCHAR2(100) NOT NULL,
+  CANTIDAD NUMBER NOT NULL,
+  LOTE NUMBER(19)
+);
+
+CREATE INDEX STOCK_RESERVA_PRODUCTO ON STOCK_RESERVA (NOMBRE_PRODUCTO);
+CREATE INDEX STOCK_RESERVA_LOTE ON STOCK_RESERVA (LOTE);
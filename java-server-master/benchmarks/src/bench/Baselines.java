@@ -0,0 +1,44 @@
+package bench;
+
+import java.io.File;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Corre los benchmarks y guarda el resultado como baseline del release en formato JSON de JMH.
+ * Uso: java bench.Baselines version [baseline anterior] [umbral en %]
+ * El archivo queda en benchmarks/baselines/version.json (o en la carpeta de -Dbench.baselines); si se da una
+ * baseline anterior se compara con CompararBaselines y el proceso termina con codigo 1 si hay regresiones.
+ * -Dbench.incluir restringe los benchmarks con una expresion regular, por ejemplo JsonBenchmark.
+ */
+public class Baselines {
+
+	private Baselines() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		if(args.length < 1) {
+			System.err.println("Uso: Baselines version [baseline anterior] [umbral %]");
+			System.exit(2);
+		}
+		File carpeta = new File(System.getProperty("bench.baselines", "benchmarks/baselines"));
+		if(!carpeta.isDirectory() && !carpeta.mkdirs())
+			throw new IllegalStateException("No se pudo crear " + carpeta);
+		File resultado = new File(carpeta, args[0] + ".json");
+		Options opciones = new OptionsBuilder()
+				.include("bench\\..*(" + System.getProperty("bench.incluir", "Benchmark") + ").*")
+				.resultFormat(ResultFormatType.JSON)
+				.result(resultado.getPath())
+				.build();
+		new Runner(opciones).run();
+		System.out.println("Baseline guardada en " + resultado);
+		if(args.length > 1) {
+			double umbral = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+			int regresiones = CompararBaselines.comparar(new File(args[1]), resultado, umbral, System.out);
+			System.exit(regresiones > 0 ? 1 : 0);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package bench;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Compara dos baselines (resultados de JMH en formato JSON) benchmark por benchmark y reporta como regresion todo
+ * cambio del puntaje peor que el umbral: menos operaciones en modo thrpt, mas tiempo en los demas modos.
+ * Uso: java bench.CompararBaselines anterior.json nuevo.json [umbral en %, por defecto 10]
+ * Termina con codigo 1 si hay alguna regresion, para poder usarlo en el build de un release.
+ */
+public class CompararBaselines {
+
+	private static final double UMBRAL_POR_DEFECTO = 10;
+
+	private CompararBaselines() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 2) {
+			System.err.println("Uso: CompararBaselines anterior.json nuevo.json [umbral %]");
+			System.exit(2);
+		}
+		double umbral = args.length > 2 ? Double.parseDouble(args[2]) : UMBRAL_POR_DEFECTO;
+		int regresiones = comparar(new File(args[0]), new File(args[1]), umbral, System.out);
+		System.exit(regresiones > 0 ? 1 : 0);
+	}
+
+	/**
+	 * Imprime una linea por benchmark con el puntaje anterior, el nuevo y el cambio porcentual.
+	 * @param umbral - porcentaje de empeoramiento a partir del cual se reporta regresion
+	 * @return numero de regresiones
+	 */
+	public static int comparar(File anterior, File nuevo, double umbral, PrintStream out) throws IOException {
+		Map<String, Resultado> antes = leer(anterior);
+		Map<String, Resultado> despues = leer(nuevo);
+		int regresiones = 0;
+		out.println(String.format("%-70s %14s %14s %9s", "benchmark", "anterior", "nuevo", "cambio"));
+		for(Map.Entry<String, Resultado> entrada : despues.entrySet()) {
+			Resultado r = entrada.getValue();
+			Resultado a = antes.get(entrada.getKey());
+			if(a == null) {
+				out.println(String.format("%-70s %14s %14.3f %9s  %s", entrada.getKey(), "-", r.puntaje, "nuevo", r.unidad));
+				continue;
+			}
+			double cambio = a.puntaje == 0 ? 0 : (r.puntaje - a.puntaje) * 100 / a.puntaje;
+			double peor = r.mayorEsMejor ? -cambio : cambio;
+			boolean regresion = peor > umbral;
+			if(regresion)
+				regresiones++;
+			out.println(String.format("%-70s %14.3f %14.3f %8.1f%%  %s%s", entrada.getKey(), a.puntaje, r.puntaje, cambio,
+					r.unidad, regresion ? "  REGRESION" : ""));
+		}
+		for(String clave : antes.keySet())
+			if(!despues.containsKey(clave))
+				out.println(String.format("%-70s %14.3f %14s %9s", clave, antes.get(clave).puntaje, "-", "retirado"));
+		out.println(regresiones + " regresiones de mas del " + umbral + "%");
+		return regresiones;
+	}
+
+	/**
+	 * @return los resultados del archivo por benchmark, modo y parametros
+	 */
+	private static Map<String, Resultado> leer(File archivo) throws IOException {
+		JsonNode raiz;
+		InputStream in = new FileInputStream(archivo);
+		try {
+			raiz = new ObjectMapper().readTree(in);
+		} finally {
+			in.close();
+		}
+		Map<String, Resultado> resultados = new LinkedHashMap<String, Resultado>();
+		for(JsonNode nodo : raiz) {
+			String benchmark = nodo.get("benchmark").getTextValue();
+			String modo = nodo.get("mode").getTextValue();
+			StringBuilder clave = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+			clave.append(' ').append(modo);
+			JsonNode params = nodo.get("params");
+			if(params != null) {
+				Map<String, String> ordenados = new TreeMap<String, String>();
+				Iterator<String> nombres = params.getFieldNames();
+				while(nombres.hasNext()) {
+					String nombre = nombres.next();
+					ordenados.put(nombre, params.get(nombre).getValueAsText());
+				}
+				for(Map.Entry<String, String> param : ordenados.entrySet())
+					clave.append(' ').append(param.getKey()).append('=').append(param.getValue());
+			}
+			JsonNode metrica = nodo.get("primaryMetric");
+			resultados.put(clave.toString(), new Resultado(metrica.get("score").getDoubleValue(),
+					metrica.get("scoreUnit").getTextValue(), "thrpt".equals(modo)));
+		}
+		return resultados;
+	}
+
+	private static class Resultado {
+
+		private final double puntaje;
+
+		private final String unidad;
+
+		private final boolean mayorEsMejor;
+
+		private Resultado(double puntaje, String unidad, boolean mayorEsMejor) {
+			this.puntaje = puntaje;
+			this.unidad = unidad;
+			this.mayorEsMejor = mayorEsMejor;
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import vos.ExchangeMsg;
+import vos.ListaProductos;
+import vos.Pedido;
+import vos.PedidoMesa;
+import vos.ProductoIter5;
+
+/**
+ * Serializacion y deserializacion con Jackson de los VO que viajan por REST (Pedido, PedidoMesa) y por JMS
+ * (ListaProductos dentro del payload de un ExchangeMsg). Los pedidos se leen en el formato en que los envian los clientes.
+ * exchangeMsgMapperNuevo mide el mensaje como lo leen hoy los MDB, creando un ObjectMapper por mensaje.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private Pedido pedido;
+
+	private String pedidoJson;
+
+	private PedidoMesa pedidoMesa;
+
+	private String pedidoMesaJson;
+
+	@Setup(Level.Trial)
+	public void preparar() throws Exception {
+		pedido = new Pedido(145, 18000, new Date(), 1, "hamburguesa", "Corral");
+		pedido.setEquivalencias(new ArrayList<String>(Arrays.asList("papas", "rollitos")));
+		pedidoJson = "{\"idUsuario\":1,\"producto\":\"hamburguesa\",\"restaurante\":\"Corral\",\"equivalencia\":[\"papas\"]}";
+
+		pedidoMesa = new PedidoMesa(0, 1, new ArrayList<String>(Arrays.asList("hamburguesa", "papas", "combo corral")), 3);
+		pedidoMesaJson = "{\"idPedido\":0,\"idUsuario\":1,\"productos\":[\"hamburguesa\",\"papas\",\"combo corral\"],\"idMesa\":3}";
+	}
+
+	@Benchmark
+	public String escribirPedido() throws Exception {
+		return mapper.writeValueAsString(pedido);
+	}
+
+	@Benchmark
+	public Pedido leerPedido() throws Exception {
+		return mapper.readValue(pedidoJson, Pedido.class);
+	}
+
+	@Benchmark
+	public String escribirPedidoMesa() throws Exception {
+		return mapper.writeValueAsString(pedidoMesa);
+	}
+
+	@Benchmark
+	public PedidoMesa leerPedidoMesa() throws Exception {
+		return mapper.readValue(pedidoMesaJson, PedidoMesa.class);
+	}
+
+	@Benchmark
+	public String escribirListaProductos(Catalogo c) throws Exception {
+		return mapper.writeValueAsString(c.lista);
+	}
+
+	@Benchmark
+	public ListaProductos leerListaProductos(Catalogo c) throws Exception {
+		return mapper.readValue(c.listaJson, ListaProductos.class);
+	}
+
+	@Benchmark
+	public String escribirExchangeMsg(Catalogo c) throws Exception {
+		return mapper.writeValueAsString(c.mensaje);
+	}
+
+	/**
+	 * Sobre y payload, como lo hace AllProductosMDB con un REQUEST_ANSWER
+	 */
+	@Benchmark
+	public ListaProductos leerExchangeMsg(Catalogo c) throws Exception {
+		ExchangeMsg ex = mapper.readValue(c.mensajeJson, ExchangeMsg.class);
+		return mapper.readValue(ex.getPayload(), ListaProductos.class);
+	}
+
+	@Benchmark
+	public ListaProductos exchangeMsgMapperNuevo(Catalogo c) throws Exception {
+		ObjectMapper nuevo = new ObjectMapper();
+		ExchangeMsg ex = nuevo.readValue(c.mensajeJson, ExchangeMsg.class);
+		return nuevo.readValue(ex.getPayload(), ListaProductos.class);
+	}
+
+	/**
+	 * Catalogo que viaja entre rotondas; productos es su tamano
+	 */
+	@State(Scope.Benchmark)
+	public static class Catalogo {
+
+		@Param({"10", "1000"})
+		public int productos;
+
+		private ListaProductos lista;
+
+		private String listaJson;
+
+		private ExchangeMsg mensaje;
+
+		private String mensajeJson;
+
+		@Setup(Level.Trial)
+		public void preparar() throws Exception {
+			ObjectMapper mapper = new ObjectMapper();
+			List<ProductoIter5> catalogo = new ArrayList<ProductoIter5>();
+			for(int i = 0; i < productos; i++)
+				catalogo.add(new ProductoIter5("Rotonda 1", "producto " + i, 0, 15000 + i, 5000 + i, null, 10, null,
+						"Producto de prueba " + i, 100, null, 100));
+			lista = new ListaProductos(catalogo);
+			listaJson = mapper.writeValueAsString(lista);
+			mensaje = new ExchangeMsg("videos.general.app1", "app1", listaJson, "REQUEST_ANSWER", "app1-1234");
+			mensaje.setTraceId("4bf92f3577b34da6a3ce929d0e0e4736");
+			mensaje.setSpanId("00f067aa0ba902b7");
+			mensajeJson = mapper.writeValueAsString(mensaje);
+		}
+	}
+}
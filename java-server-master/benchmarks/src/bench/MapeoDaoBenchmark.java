@@ -0,0 +1,93 @@
+package bench;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dao.DAOTablaPedidos;
+import dao.DAOTablaProductos;
+import tm.ConnectionPool;
+import vos.Pedido;
+import vos.Producto;
+
+/**
+ * Consulta y paso de ResultSet a VO de los DAO de listas, sin el TransactionExecutor: cada invocacion crea el DAO,
+ * le asigna la conexion, lee la lista y cierra sus recursos, como lo hace una transaccion de lectura.
+ * filas es el tamano de la tabla; en darProductos es el numero de filas del join con RESTAURANTE_PRODUCTO.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MapeoDaoBenchmark {
+
+	@Param({"100", "10000"})
+	public int filas;
+
+	private Connection conn;
+
+	@Setup(Level.Trial)
+	public void preparar() throws Exception {
+		PerfilEmbebido.iniciar();
+		PerfilEmbebido.llenarPedidos(filas);
+		PerfilEmbebido.llenarProductos(filas);
+		conn = ConnectionPool.getInstance().getConnection();
+	}
+
+	@TearDown(Level.Trial)
+	public void cerrar() throws Exception {
+		conn.close();
+	}
+
+	@Benchmark
+	public List<Pedido> darPedidos() throws Exception {
+		DAOTablaPedidos dao = new DAOTablaPedidos();
+		dao.setConn(conn);
+		try {
+			return dao.darPedidos();
+		} finally {
+			dao.cerrarRecursos();
+		}
+	}
+
+	/**
+	 * Pagina de 100 pedidos a mitad de la tabla; con la paginacion por llave no deberia crecer con filas
+	 */
+	@Benchmark
+	public List<Pedido> darPedidosPagina() throws Exception {
+		DAOTablaPedidos dao = new DAOTablaPedidos();
+		dao.setConn(conn);
+		try {
+			return dao.darPedidos(-filas / 2, 100);
+		} finally {
+			dao.cerrarRecursos();
+		}
+	}
+
+	@Benchmark
+	public List<Producto> darProductos() throws Exception {
+		DAOTablaProductos dao = new DAOTablaProductos();
+		dao.setConn(conn);
+		try {
+			return dao.darProductos();
+		} finally {
+			dao.cerrarRecursos();
+		}
+	}
+}
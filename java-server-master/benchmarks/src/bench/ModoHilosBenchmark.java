@@ -0,0 +1,115 @@
+package bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tm.RotondAndesTm;
+import tm.WorkerThreads;
+import vos.Pedido;
+import vos.Producto;
+
+/**
+ * Las transacciones de pedidos de TransaccionesBenchmark, enviadas desde 64 hilos a los hilos de trabajo en cada modo
+ * de hilos.modo: plataforma (pool de 20 hilos) o virtual (un hilo virtual por tarea, 20 al tiempo por el semaforo del
+ * tamano del pool de conexiones). Compara el throughput y los percentiles de la espera de cada llamada. El modo
+ * virtual necesita correr en Java 21; en una JVM anterior falla y se puede correr solo el otro con -p modo=plataforma.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Threads(64)
+@Fork(1)
+public class ModoHilosBenchmark {
+
+	/**
+	 * Tareas que corren al tiempo, igual al pool.maximo del perfil embebido
+	 */
+	private static final int SIMULTANEAS = 20;
+
+	/**
+	 * Tareas que pueden esperar; alcanza para los 64 hilos del benchmark
+	 */
+	private static final int COLA = 1000;
+
+	/**
+	 * Ids de los pedidos de los datos iniciales que se consultan en orden
+	 */
+	private static final int[] IDS = {1, 2, 3, 4, 5, 6};
+
+	@Param({WorkerThreads.PLATAFORMA, WorkerThreads.VIRTUAL})
+	public String modo;
+
+	private RotondAndesTm tm;
+
+	private Producto hamburguesa;
+
+	private WorkerThreads trabajadores;
+
+	@Setup(Level.Trial)
+	public void preparar() throws Exception {
+		tm = PerfilEmbebido.iniciar();
+		hamburguesa = tm.buscarProductoPorName("hamburguesa");
+		if(modo.equals(WorkerThreads.PLATAFORMA))
+			trabajadores = WorkerThreads.plataforma("bench", SIMULTANEAS, COLA);
+		else if(WorkerThreads.hayHilosVirtuales())
+			trabajadores = WorkerThreads.virtuales("bench", SIMULTANEAS, COLA);
+		else
+			throw new IllegalStateException("El modo virtual necesita Java 21, se esta usando " + System.getProperty("java.version"));
+	}
+
+	@TearDown(Level.Trial)
+	public void terminar() {
+		trabajadores.close();
+	}
+
+	@Benchmark
+	public Pedido addPedido() throws Exception {
+		return esperar(new Callable<Pedido>() {
+			@Override
+			public Pedido call() throws Exception {
+				Pedido pedido = new Pedido(0, hamburguesa.getPrecioVenta(), null, 1, hamburguesa.getNombre(), "Corral");
+				pedido.setProducto(hamburguesa);
+				tm.addPedido(pedido);
+				return pedido;
+			}
+		});
+	}
+
+	@Benchmark
+	public Pedido buscarPedidoPorId(TransaccionesBenchmark.Siguiente siguiente) throws Exception {
+		final int id = IDS[siguiente.darIndice()];
+		return esperar(new Callable<Pedido>() {
+			@Override
+			public Pedido call() throws Exception {
+				return tm.buscarPedidoPorId(id);
+			}
+		});
+	}
+
+	/**
+	 * Corre la transaccion en los hilos de trabajo y espera el resultado, como lo hace una llamada REST asincrona
+	 */
+	private <T> T esperar(Callable<T> transaccion) throws Exception {
+		FutureTask<T> tarea = new FutureTask<T>(transaccion);
+		trabajadores.enviar(tarea);
+		return tarea.get();
+	}
+}
@@ -0,0 +1,123 @@
+package bench;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import dtm.RotondAndesDistributed;
+import log.Logger;
+import startup.EmbeddedDatabase;
+import tm.ConnectionPool;
+import tm.RotondAndesTm;
+
+/**
+ * Arranca la aplicacion sobre el perfil embebido (WEB-INF/ConnectionData/embebido) sin servidor: carga el esquema y
+ * los datos iniciales, crea el pool y el transaction manager igual que startup.ContextListener.
+ * Cada fork de JMH es una JVM nueva, asi que cada benchmark empieza con la base recien cargada.
+ */
+public class PerfilEmbebido {
+
+	/**
+	 * Propiedad del sistema con la carpeta del perfil; por defecto la del proyecto, relativa al directorio de trabajo
+	 */
+	public static final String PROPIEDAD_RUTA = "rotondandes.perfil.ruta";
+
+	private static final String RUTA_POR_DEFECTO = "WebContent/WEB-INF/ConnectionData/embebido";
+
+	private static RotondAndesTm tm;
+
+	private PerfilEmbebido() {
+	}
+
+	/**
+	 * @return el transaction manager sobre la base embebida, que se crea la primera vez
+	 * @throws Exception - si no se puede cargar la base o crear el pool
+	 */
+	public static synchronized RotondAndesTm iniciar() throws Exception {
+		if(tm == null) {
+			String ruta = System.getProperty(PROPIEDAD_RUTA, RUTA_POR_DEFECTO);
+			Logger.init(ruta);
+			EmbeddedDatabase.cargar(ruta);
+			ConnectionPool.init(ruta);
+			RotondAndesDistributed.setPath(ruta);
+			tm = RotondAndesTm.init(ruta);
+		}
+		return tm;
+	}
+
+	/**
+	 * Completa PEDIDO hasta el numero de filas pedido, con pedidos entregados de los usuarios de los datos iniciales.
+	 * Los ids son negativos para no chocar con los que reparte PEDIDO_SEQ.
+	 * @param filas - numero de filas que debe tener PEDIDO
+	 */
+	public static void llenarPedidos(int filas) throws SQLException {
+		Connection conn = ConnectionPool.getInstance().getConnection();
+		try {
+			conn.setAutoCommit(false);
+			int existentes = contar(conn, "PEDIDO");
+			PreparedStatement stmt = conn.prepareStatement("INSERT INTO PEDIDO VALUES (?, ?, ?, SYSDATE, 'T')");
+			try {
+				for(int i = existentes; i < filas; i++) {
+					stmt.setInt(1, -1 - i);
+					stmt.setInt(2, 10000 + (i % 50) * 1000);
+					stmt.setInt(3, 1 + i % 4);
+					stmt.addBatch();
+					if(i % 1000 == 999)
+						stmt.executeBatch();
+				}
+				stmt.executeBatch();
+			} finally {
+				stmt.close();
+			}
+			conn.commit();
+		} finally {
+			conn.close();
+		}
+	}
+
+	/**
+	 * Completa el catalogo (PRODUCTOS2 y RESTAURANTE_PRODUCTO) hasta el numero de productos pedido.
+	 * @param filas - numero de productos que debe tener RESTAURANTE_PRODUCTO
+	 */
+	public static void llenarProductos(int filas) throws SQLException {
+		Connection conn = ConnectionPool.getInstance().getConnection();
+		try {
+			conn.setAutoCommit(false);
+			int existentes = contar(conn, "RESTAURANTE_PRODUCTO");
+			PreparedStatement producto = conn.prepareStatement("INSERT INTO PRODUCTOS2 VALUES (?, ?, ?, 'Plato fuerte')");
+			PreparedStatement oferta = conn.prepareStatement("INSERT INTO RESTAURANTE_PRODUCTO VALUES ('Corral', ?, 5000, 10, 15000, 100, 100)");
+			try {
+				for(int i = existentes; i < filas; i++) {
+					String nombre = "producto " + i;
+					producto.setString(1, nombre);
+					producto.setString(2, "Producto de prueba " + i);
+					producto.setString(3, "Test product " + i);
+					producto.addBatch();
+					oferta.setString(1, nombre);
+					oferta.addBatch();
+				}
+				producto.executeBatch();
+				oferta.executeBatch();
+			} finally {
+				producto.close();
+				oferta.close();
+			}
+			conn.commit();
+		} finally {
+			conn.close();
+		}
+	}
+
+	private static int contar(Connection conn, String tabla) throws SQLException {
+		Statement stmt = conn.createStatement();
+		try {
+			ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + tabla);
+			rs.next();
+			return rs.getInt(1);
+		} finally {
+			stmt.close();
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tm.RotondAndesTm;
+import vos.Pedido;
+import vos.Producto;
+
+/**
+ * Transacciones completas de RotondAndesTm sobre la base embebida: prestamo de la conexion, DAO, commit y
+ * estadisticas del TransactionExecutor. Con -t se miden con varios hilos compitiendo por el pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class TransaccionesBenchmark {
+
+	/**
+	 * Ids de los pedidos de los datos iniciales que se consultan en orden
+	 */
+	private static final int[] IDS = {1, 2, 3, 4, 5, 6};
+
+	private RotondAndesTm tm;
+
+	private Producto hamburguesa;
+
+	@Setup(Level.Trial)
+	public void preparar() throws Exception {
+		tm = PerfilEmbebido.iniciar();
+		hamburguesa = tm.buscarProductoPorName("hamburguesa");
+	}
+
+	@Benchmark
+	public Pedido addPedido() throws Exception {
+		Pedido pedido = new Pedido(0, hamburguesa.getPrecioVenta(), null, 1, hamburguesa.getNombre(), "Corral");
+		pedido.setProducto(hamburguesa);
+		tm.addPedido(pedido);
+		return pedido;
+	}
+
+	@Benchmark
+	public Pedido buscarPedidoPorId(Siguiente siguiente) throws Exception {
+		return tm.buscarPedidoPorId(IDS[siguiente.darIndice()]);
+	}
+
+	/**
+	 * Recorre los ids por hilo, para que cada hilo no lea siempre el mismo pedido
+	 */
+	@State(Scope.Thread)
+	public static class Siguiente {
+
+		private int indice;
+
+		int darIndice() {
+			indice = (indice + 1) % IDS.length;
+			return indice;
+		}
+	}
+}
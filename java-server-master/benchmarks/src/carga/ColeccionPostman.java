@@ -0,0 +1,130 @@
+package carga;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Lee las peticiones de una coleccion de Postman (formatos v2.0 y v2.1, con carpetas) como las que vienen con el
+ * proyecto. De cada URL se conserva solo lo que sigue a /rest/, para poder dirigirlas a otro servidor o contexto.
+ */
+public class ColeccionPostman {
+
+	private static final String REST = "/rest/";
+
+	private ColeccionPostman() {
+	}
+
+	/**
+	 * @return las peticiones de la coleccion en el orden del archivo
+	 */
+	public static List<Peticion> leer(File archivo) throws IOException {
+		JsonNode raiz;
+		InputStream in = new FileInputStream(archivo);
+		try {
+			raiz = new ObjectMapper().readTree(in);
+		} finally {
+			in.close();
+		}
+		List<Peticion> peticiones = new ArrayList<Peticion>();
+		agregar(raiz.get("item"), archivo.getName(), peticiones);
+		return peticiones;
+	}
+
+	private static void agregar(JsonNode items, String coleccion, List<Peticion> peticiones) {
+		if(items == null)
+			return;
+		for(JsonNode item : items) {
+			if(item.has("item")) {
+				agregar(item.get("item"), coleccion, peticiones);
+				continue;
+			}
+			JsonNode request = item.get("request");
+			if(request == null || !request.isObject())
+				continue;
+			JsonNode url = request.get("url");
+			String cruda = url == null ? null : url.isTextual() ? url.getTextValue() : texto(url.get("raw"));
+			if(cruda == null || !cruda.contains(REST))
+				continue;
+			Map<String, String> encabezados = new LinkedHashMap<String, String>();
+			JsonNode header = request.get("header");
+			if(header != null)
+				for(JsonNode h : header)
+					if(!h.path("disabled").getBooleanValue())
+						encabezados.put(texto(h.get("key")), texto(h.get("value")));
+			JsonNode body = request.get("body");
+			String cuerpo = body == null ? null : texto(body.get("raw"));
+			if(cuerpo != null && cuerpo.trim().length() == 0)
+				cuerpo = null;
+			peticiones.add(new Peticion(coleccion + ": " + texto(item.get("name")), texto(request.get("method")),
+					cruda.substring(cruda.indexOf(REST) + REST.length()), encabezados, cuerpo));
+		}
+	}
+
+	private static String texto(JsonNode nodo) {
+		return nodo == null || nodo.isNull() ? null : nodo.getValueAsText();
+	}
+
+	/**
+	 * Peticion de la coleccion, con la ruta relativa a /rest/
+	 */
+	public static class Peticion {
+
+		private final String nombre;
+
+		private final String metodo;
+
+		private final String ruta;
+
+		private final Map<String, String> encabezados;
+
+		private final String cuerpo;
+
+		private Peticion(String nombre, String metodo, String ruta, Map<String, String> encabezados, String cuerpo) {
+			this.nombre = nombre;
+			this.metodo = metodo == null ? "GET" : metodo.toUpperCase();
+			this.ruta = ruta;
+			this.encabezados = encabezados;
+			this.cuerpo = cuerpo;
+		}
+
+		public String getNombre() {
+			return nombre;
+		}
+
+		public String getMetodo() {
+			return metodo;
+		}
+
+		public String getRuta() {
+			return ruta;
+		}
+
+		public Map<String, String> getEncabezados() {
+			return encabezados;
+		}
+
+		/**
+		 * @return el cuerpo tal como esta en la coleccion, o null si no tiene
+		 */
+		public String getCuerpo() {
+			return cuerpo;
+		}
+
+		/**
+		 * @return metodo y ruta con los segmentos numericos como {id}, para agrupar las medidas por endpoint
+		 */
+		public String darEndpoint() {
+			String sinConsulta = ruta.indexOf('?') < 0 ? ruta : ruta.substring(0, ruta.indexOf('?'));
+			return metodo + " /" + sinConsulta.replaceAll("(^|/)\\d+(?=/|$)", "$1{id}");
+		}
+	}
+}
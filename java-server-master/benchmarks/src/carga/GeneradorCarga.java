@@ -0,0 +1,321 @@
+package carga;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import carga.ColeccionPostman.Peticion;
+import metrics.LatencyHistogram;
+
+/**
+ * Generador de carga que repite las peticiones de las colecciones de Postman del proyecto (Iter4.postman_collection.json,
+ * RequerimientosFuncionales.json) contra un servidor desplegado, con un numero fijo de hilos que envian una peticion
+ * tras otra. En cada envio el idUsuario y el producto del cuerpo se eligen con una distribucion de Zipf, y los nombres
+ * e ids de lo que se crea se vuelven unicos para que los POST no fallen por duplicados.
+ * Al final reporta por endpoint las peticiones por segundo, los errores y los percentiles 50, 95 y 99 de la latencia.
+ *
+ * Uso: java carga.GeneradorCarga coleccion.json [coleccion.json ...], configurado con propiedades del sistema:
+ * carga.base (http://localhost:8080/RotondAndes/rest), carga.hilos (16), carga.calentamiento y carga.duracion en
+ * segundos (10 y 60), carga.zipf exponente de la distribucion (1), carga.usuarios y carga.productos (lista separada
+ * por comas o rango a-b de ids; vacio los consulta al servidor), carga.incluir (expresion sobre el endpoint),
+ * carga.quitar (campos que se eliminan de los cuerpos), carga.unicos (true), carga.timeout en milisegundos (30000),
+ * carga.pausa en milisegundos entre peticiones de un hilo (0), carga.semilla (1) y carga.resultado (archivo JSON).
+ */
+public class GeneradorCarga {
+
+	private final String base;
+
+	private final int timeout;
+
+	private final long pausa;
+
+	private final boolean unicos;
+
+	private final List<Plantilla> plantillas = new ArrayList<Plantilla>();
+
+	private final Map<String, Medida> medidas = new TreeMap<String, Medida>();
+
+	private final List<Object> usuarios;
+
+	private final List<Object> productos;
+
+	private final Zipf zipfUsuarios;
+
+	private final Zipf zipfProductos;
+
+	private final AtomicLong secuencia = new AtomicLong(System.currentTimeMillis() % 100000000L * 10);
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private volatile long inicioMedicion;
+
+	private volatile boolean terminado;
+
+	private GeneradorCarga(List<Peticion> peticiones) throws IOException {
+		base = System.getProperty("carga.base", "http://localhost:8080/RotondAndes/rest");
+		timeout = Integer.parseInt(System.getProperty("carga.timeout", "30000").trim());
+		pausa = Long.parseLong(System.getProperty("carga.pausa", "0").trim());
+		unicos = Boolean.parseBoolean(System.getProperty("carga.unicos", "true").trim());
+		Pattern incluir = Pattern.compile(System.getProperty("carga.incluir", ".*"));
+		List<String> quitar = new ArrayList<String>();
+		for(String campo : System.getProperty("carga.quitar", "").split(","))
+			if(campo.trim().length() > 0)
+				quitar.add(campo.trim());
+		for(Peticion peticion : peticiones) {
+			String endpoint = peticion.darEndpoint();
+			if(!incluir.matcher(endpoint).find())
+				continue;
+			plantillas.add(new Plantilla(peticion, quitar));
+			if(!medidas.containsKey(endpoint))
+				medidas.put(endpoint, new Medida());
+		}
+		if(plantillas.isEmpty())
+			throw new IllegalArgumentException("Ninguna peticion de las colecciones coincide con carga.incluir");
+
+		Random aleatorio = new Random(Long.parseLong(System.getProperty("carga.semilla", "1").trim()));
+		double s = Double.parseDouble(System.getProperty("carga.zipf", "1").trim());
+		usuarios = cargarValores(System.getProperty("carga.usuarios", ""), "usuario", null, "id");
+		productos = cargarValores(System.getProperty("carga.productos", ""), "productos", "productos", "nombre");
+		// El orden de popularidad no debe coincidir con el de los ids
+		Collections.shuffle(usuarios, aleatorio);
+		Collections.shuffle(productos, aleatorio);
+		zipfUsuarios = usuarios.isEmpty() ? null : new Zipf(usuarios.size(), s);
+		zipfProductos = productos.isEmpty() ? null : new Zipf(productos.size(), s);
+		System.out.println(plantillas.size() + " peticiones, " + usuarios.size() + " usuarios, " + productos.size() + " productos");
+	}
+
+	public static void main(String[] args) throws Exception {
+		if(args.length == 0) {
+			System.err.println("Uso: GeneradorCarga coleccion.json [coleccion.json ...]");
+			System.exit(2);
+		}
+		List<Peticion> peticiones = new ArrayList<Peticion>();
+		for(String archivo : args)
+			peticiones.addAll(ColeccionPostman.leer(new File(archivo)));
+		GeneradorCarga generador = new GeneradorCarga(peticiones);
+		generador.correr(Integer.parseInt(System.getProperty("carga.hilos", "16").trim()),
+				Long.parseLong(System.getProperty("carga.calentamiento", "10").trim()),
+				Long.parseLong(System.getProperty("carga.duracion", "60").trim()));
+	}
+
+	/**
+	 * Envia peticiones con los hilos dados; solo se miden las que empiezan despues del calentamiento.
+	 */
+	private void correr(int hilos, long calentamiento, long duracion) throws Exception {
+		inicioMedicion = System.nanoTime() + calentamiento * 1000000000L;
+		List<Thread> trabajadores = new ArrayList<Thread>();
+		for(int i = 0; i < hilos; i++) {
+			Thread t = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					while(!terminado) {
+						enviar(plantillas.get(ThreadLocalRandom.current().nextInt(plantillas.size())));
+						if(pausa > 0) {
+							try {
+								Thread.sleep(pausa);
+							} catch (InterruptedException e) {
+								return;
+							}
+						}
+					}
+				}
+			}, "carga-" + i);
+			t.setDaemon(true);
+			trabajadores.add(t);
+			t.start();
+		}
+		Thread.sleep((calentamiento + duracion) * 1000);
+		terminado = true;
+		for(Thread t : trabajadores)
+			t.join(timeout);
+		reportar(hilos, duracion);
+	}
+
+	private void enviar(Plantilla plantilla) {
+		long inicio = System.nanoTime();
+		boolean error;
+		try {
+			HttpURLConnection conexion = (HttpURLConnection) new URL(base + "/" + plantilla.peticion.getRuta()).openConnection();
+			conexion.setConnectTimeout(timeout);
+			conexion.setReadTimeout(timeout);
+			conexion.setRequestMethod(plantilla.peticion.getMetodo());
+			for(Map.Entry<String, String> encabezado : plantilla.peticion.getEncabezados().entrySet())
+				conexion.setRequestProperty(encabezado.getKey(), encabezado.getValue());
+			String cuerpo = armarCuerpo(plantilla);
+			if(cuerpo != null) {
+				conexion.setDoOutput(true);
+				OutputStream out = conexion.getOutputStream();
+				try {
+					out.write(cuerpo.getBytes("UTF-8"));
+				} finally {
+					out.close();
+				}
+			}
+			int status = conexion.getResponseCode();
+			error = status >= 400;
+			// La respuesta se lee completa para que la conexion se pueda reutilizar
+			InputStream in = error ? conexion.getErrorStream() : conexion.getInputStream();
+			if(in != null) {
+				byte[] buffer = new byte[8192];
+				try {
+					while(in.read(buffer) >= 0) {
+					}
+				} finally {
+					in.close();
+				}
+			}
+		} catch (IOException e) {
+			error = true;
+		}
+		if(inicio >= inicioMedicion && !terminado) {
+			Medida medida = medidas.get(plantilla.endpoint);
+			medida.latencia.registrar(System.nanoTime() - inicio);
+			if(error)
+				medida.errores.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @return el cuerpo de la plantilla con el usuario y el producto elegidos y los nombres e ids unicos
+	 */
+	private String armarCuerpo(Plantilla plantilla) throws IOException {
+		if(plantilla.campos == null)
+			return plantilla.peticion.getCuerpo();
+		Map<String, Object> campos = new LinkedHashMap<String, Object>(plantilla.campos);
+		if(zipfUsuarios != null && campos.containsKey("idUsuario"))
+			campos.put("idUsuario", usuarios.get(zipfUsuarios.siguiente()));
+		if(zipfProductos != null && campos.containsKey("producto"))
+			campos.put("producto", productos.get(zipfProductos.siguiente()));
+		if(unicos && "POST".equals(plantilla.peticion.getMetodo())) {
+			long unico = secuencia.incrementAndGet();
+			if(campos.get("nombre") instanceof String)
+				campos.put("nombre", campos.get("nombre") + "-" + unico);
+			if(campos.get("id") instanceof Number)
+				campos.put("id", unico);
+		}
+		return mapper.writeValueAsString(campos);
+	}
+
+	/**
+	 * Lee los valores de la propiedad (lista o rango a-b) o, si esta vacia, los consulta al servidor.
+	 * @param ruta - servicio que da la lista
+	 * @param lista - campo del objeto de respuesta que tiene la lista, o null si la respuesta es la lista
+	 * @param campo - campo de cada elemento con el valor
+	 */
+	private List<Object> cargarValores(String propiedad, String ruta, String lista, String campo) {
+		List<Object> valores = new ArrayList<Object>();
+		String texto = propiedad.trim();
+		if(texto.matches("\\d+-\\d+")) {
+			int guion = texto.indexOf('-');
+			for(long v = Long.parseLong(texto.substring(0, guion)); v <= Long.parseLong(texto.substring(guion + 1)); v++)
+				valores.add(v);
+		} else if(texto.length() > 0) {
+			for(String valor : texto.split(","))
+				valores.add(valor.trim().matches("\\d+") ? (Object) Long.valueOf(valor.trim()) : valor.trim());
+		} else {
+			try {
+				JsonNode raiz = mapper.readTree(new URL(base + "/" + ruta).openStream());
+				JsonNode elementos = lista == null ? raiz : raiz.get(lista);
+				if(elementos != null)
+					for(JsonNode elemento : elementos) {
+						JsonNode valor = elemento.get(campo);
+						if(valor != null && !valor.isNull())
+							valores.add(valor.isNumber() ? (Object) valor.getLongValue() : valor.getTextValue());
+					}
+			} catch (IOException e) {
+				System.err.println("No se pudo consultar " + ruta + ": " + e.getMessage() + "; se usan los valores de las colecciones");
+			}
+		}
+		return valores;
+	}
+
+	private void reportar(int hilos, long duracion) throws IOException {
+		List<Map<String, Object>> filas = new ArrayList<Map<String, Object>>();
+		System.out.println(String.format("%-50s %10s %8s %9s %9s %9s %9s %9s", "endpoint", "peticiones", "errores", "req/s",
+				"p50 ms", "p95 ms", "p99 ms", "max ms"));
+		for(Map.Entry<String, Medida> entrada : medidas.entrySet()) {
+			LatencyHistogram.Instantanea inst = entrada.getValue().latencia.instantanea();
+			Map<String, Object> fila = new LinkedHashMap<String, Object>();
+			fila.put("endpoint", entrada.getKey());
+			fila.put("peticiones", inst.darTotal());
+			fila.put("errores", entrada.getValue().errores.get());
+			fila.put("porSegundo", (double) inst.darTotal() / duracion);
+			fila.put("p50Ms", inst.darPercentil(0.50) / 1000.0);
+			fila.put("p95Ms", inst.darPercentil(0.95) / 1000.0);
+			fila.put("p99Ms", inst.darPercentil(0.99) / 1000.0);
+			fila.put("maxMs", inst.darPercentil(1) / 1000.0);
+			filas.add(fila);
+			System.out.println(String.format("%-50s %10d %8d %9.1f %9.1f %9.1f %9.1f %9.1f", fila.get("endpoint"),
+					fila.get("peticiones"), fila.get("errores"), fila.get("porSegundo"), fila.get("p50Ms"), fila.get("p95Ms"),
+					fila.get("p99Ms"), fila.get("maxMs")));
+		}
+		String resultado = System.getProperty("carga.resultado");
+		if(resultado != null) {
+			Map<String, Object> reporte = new LinkedHashMap<String, Object>();
+			reporte.put("base", base);
+			reporte.put("hilos", hilos);
+			reporte.put("duracionSegundos", duracion);
+			reporte.put("endpoints", filas);
+			OutputStream out = new FileOutputStream(resultado);
+			try {
+				mapper.defaultPrettyPrintingWriter().writeValue(out, reporte);
+			} finally {
+				out.close();
+			}
+			System.out.println("Resultado guardado en " + resultado);
+		}
+	}
+
+	/**
+	 * Peticion de la coleccion con su cuerpo JSON ya leido, si es un objeto
+	 */
+	private class Plantilla {
+
+		private final Peticion peticion;
+
+		private final String endpoint;
+
+		private final Map<String, Object> campos;
+
+		@SuppressWarnings("unchecked")
+		private Plantilla(Peticion peticion, List<String> quitar) {
+			this.peticion = peticion;
+			this.endpoint = peticion.darEndpoint();
+			Map<String, Object> leidos = null;
+			if(peticion.getCuerpo() != null && peticion.getCuerpo().trim().startsWith("{")) {
+				try {
+					leidos = mapper.readValue(peticion.getCuerpo(), LinkedHashMap.class);
+					for(String campo : quitar)
+						leidos.remove(campo);
+				} catch (IOException e) {
+					System.err.println("Cuerpo que no es JSON en " + peticion.getNombre() + "; se envia tal cual");
+				}
+			}
+			this.campos = leidos;
+		}
+	}
+
+	private static class Medida {
+
+		private final LatencyHistogram latencia = new LatencyHistogram();
+
+		private final AtomicLong errores = new AtomicLong();
+	}
+}
@@ -0,0 +1,543 @@
+package carga;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import bench.PerfilEmbebido;
+import dao.SentenciasSQL;
+import tm.ConnectionPool;
+import tm.RotondAndesTm;
+import vos.Consulta9;
+
+/**
+ * Generador de datos sinteticos para pruebas de capacidad: llena el esquema con zonas, clientes, restaurantes,
+ * productos, menus, ingredientes, equivalencias, preferencias y un historico de pedidos (PEDIDOS2 con PEDIDO_PRODUCTO,
+ * MENU_PEDIDO y PEDIDO_MESA) del tamano que se pida, para ver como se comportan darConsulta9, darConsulta11,
+ * darConsulta12 y darUtilidad con anos de historia.
+ * Las filas se insertan en lotes con las mismas sentencias INSERT de los DAO; el catalogo lo carga un solo hilo y los
+ * pedidos se reparten por rangos de ids entre varios hilos, cada uno con su conexion del pool y un commit por lote.
+ * Los restaurantes, clientes, productos y menus se eligen con distribuciones de Zipf, y las fechas siguen un peso por
+ * dia de la semana (fines de semana mas cargados) y por hora (almuerzo y comida).
+ *
+ * Uso: java carga.GeneradorDatos, configurado con propiedades del sistema: datos.pedidos (1000000), datos.usuarios
+ * (pedidos / 20), datos.restaurantes (200), datos.productos y datos.menus por restaurante (30 y 5), datos.zonas (10),
+ * datos.ingredientes (500), datos.dias de historia (730) hasta datos.hasta (yyyy-MM-dd, hoy), datos.activos fraccion
+ * de clientes que hacen pedidos (0.8), datos.menu y datos.mesa probabilidad de que un pedido sea de menu o abra una
+ * mesa (0.15 y 0.1), datos.zipf (1), datos.hilos (4), datos.lote (1000), datos.semilla (1), datos.prefijo de los
+ * nombres (gen), datos.medir (true) para correr las consultas al final y datos.formatoFecha de las fechas que se les
+ * pasan (dd/MM/yyyy, como en la coleccion de Postman). La base es la del perfil de
+ * rotondandes.perfil.ruta (ver bench.PerfilEmbebido).
+ */
+public class GeneradorDatos {
+
+	private static final String[] TIPOS_COMIDA = {"Colombiana", "China", "Italiana", "Mexicana", "Japonesa", "Peruana", "Vegetariana", "Rapida"};
+
+	private static final String[] CATEGORIAS = {"Entrada", "Plato fuerte", "Postre", "Bebida"};
+
+	/**
+	 * Peso de cada dia de la semana, de domingo a sabado (Calendar.SUNDAY = 1)
+	 */
+	private static final double[] PESO_DIA = {1.3, 0.7, 0.75, 0.85, 0.95, 1.5, 1.8};
+
+	/**
+	 * Peso de cada hora entre las 11 y las 21
+	 */
+	private static final double[] PESO_HORA = {0.6, 1.8, 2.0, 1.2, 0.4, 0.3, 0.4, 0.8, 1.5, 1.6, 0.9};
+
+	private static final int PRIMERA_HORA = 11;
+
+	private final int pedidos;
+
+	private final int usuarios;
+
+	private final int restaurantes;
+
+	private final int productos;
+
+	private final int menus;
+
+	private final int zonas;
+
+	private final int ingredientes;
+
+	private final int dias;
+
+	private final double activos;
+
+	private final double probMenu;
+
+	private final double probMesa;
+
+	private final double s;
+
+	private final int lote;
+
+	private final long semilla;
+
+	private final String prefijo;
+
+	private final Calendar hasta;
+
+	private final ConnectionPool pool;
+
+	private String[] nombresZonas;
+
+	private int[] clientes;
+
+	/**
+	 * Restaurantes en orden de popularidad
+	 */
+	private String[] nombresRestaurantes;
+
+	private String[][] nombresProductos;
+
+	private int[][] preciosProductos;
+
+	private String[][] nombresMenus;
+
+	private int[][] preciosMenus;
+
+	private long[] inicioDias;
+
+	private double[] acumuladaDias;
+
+	private double[] acumuladaHoras;
+
+	/**
+	 * Los ids de los pedidos generados son negativos y bajan desde aqui, para no chocar con los que reparte PEDIDO_SEQ
+	 */
+	private long primerId;
+
+	private final AtomicInteger mesas = new AtomicInteger();
+
+	private final AtomicLong filasPedidoProducto = new AtomicLong();
+
+	private final AtomicLong filasMenuPedido = new AtomicLong();
+
+	private final AtomicLong filasPedidoMesa = new AtomicLong();
+
+	private GeneradorDatos(ConnectionPool pool) {
+		this.pool = pool;
+		pedidos = Integer.parseInt(System.getProperty("datos.pedidos", "1000000").trim());
+		usuarios = Integer.parseInt(System.getProperty("datos.usuarios", String.valueOf(Math.max(10, pedidos / 20))).trim());
+		restaurantes = Integer.parseInt(System.getProperty("datos.restaurantes", "200").trim());
+		productos = Integer.parseInt(System.getProperty("datos.productos", "30").trim());
+		menus = Integer.parseInt(System.getProperty("datos.menus", "5").trim());
+		zonas = Integer.parseInt(System.getProperty("datos.zonas", "10").trim());
+		ingredientes = Integer.parseInt(System.getProperty("datos.ingredientes", "500").trim());
+		dias = Integer.parseInt(System.getProperty("datos.dias", "730").trim());
+		activos = Double.parseDouble(System.getProperty("datos.activos", "0.8").trim());
+		probMenu = menus > 0 ? Double.parseDouble(System.getProperty("datos.menu", "0.15").trim()) : 0;
+		probMesa = Double.parseDouble(System.getProperty("datos.mesa", "0.1").trim());
+		s = Double.parseDouble(System.getProperty("datos.zipf", "1").trim());
+		lote = Integer.parseInt(System.getProperty("datos.lote", "1000").trim());
+		semilla = Long.parseLong(System.getProperty("datos.semilla", "1").trim());
+		prefijo = System.getProperty("datos.prefijo", "gen").trim();
+		hasta = Calendar.getInstance();
+		String fin = System.getProperty("datos.hasta", "").trim();
+		if(fin.length() > 0) {
+			try {
+				hasta.setTime(new SimpleDateFormat("yyyy-MM-dd").parse(fin));
+			} catch (java.text.ParseException e) {
+				throw new IllegalArgumentException("datos.hasta debe tener el formato yyyy-MM-dd: " + fin);
+			}
+		}
+		if(restaurantes < 1 || productos < 1 || zonas < 1 || usuarios < 1 || dias < 1)
+			throw new IllegalArgumentException("datos.restaurantes, datos.productos, datos.zonas, datos.usuarios y datos.dias deben ser mayores que 0");
+	}
+
+	public static void main(String[] args) throws Exception {
+		RotondAndesTm tm = PerfilEmbebido.iniciar();
+		GeneradorDatos generador = new GeneradorDatos(ConnectionPool.getInstance());
+		long inicio = System.nanoTime();
+		generador.generarCatalogo();
+		System.out.printf("Catalogo generado en %.1f s%n", (System.nanoTime() - inicio) / 1e9);
+		inicio = System.nanoTime();
+		generador.generarPedidos(Integer.parseInt(System.getProperty("datos.hilos", "4").trim()));
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+		System.out.printf("%d pedidos (%d productos, %d menus, %d mesas) en %.1f s: %.0f pedidos/s%n", generador.pedidos,
+				generador.filasPedidoProducto.get(), generador.filasMenuPedido.get(), generador.filasPedidoMesa.get(),
+				segundos, generador.pedidos / segundos);
+		if(Boolean.parseBoolean(System.getProperty("datos.medir", "true").trim()))
+			generador.medir(tm);
+		ConnectionPool.getInstance().close();
+	}
+
+	/**
+	 * Inserta zonas, clientes, restaurantes con sus representantes, productos, menus, ingredientes, equivalencias y
+	 * preferencias en una sola transaccion.
+	 */
+	private void generarCatalogo() throws SQLException {
+		Random aleatorio = new Random(semilla);
+		Connection conn = pool.getConnection();
+		try {
+			conn.setAutoCommit(false);
+			int primerUsuario = (int) valor(conn, "SELECT MAX(NUMERO_ID) FROM USUARIO") + 1;
+			primerId = Math.min(0, Math.min(valor(conn, "SELECT MIN(PEDIDO_ID) FROM PEDIDOS2"),
+					valor(conn, "SELECT MIN(PEDIDO_ID) FROM PEDIDO"))) - 1;
+			mesas.set((int) valor(conn, "SELECT MAX(ID_MESA) FROM PEDIDO_MESA"));
+
+			Lote categorias = new Lote(conn, "INSERT INTO CATEGORIA VALUES (?)");
+			if(valor(conn, "SELECT COUNT(*) FROM CATEGORIA") == 0)
+				for(String categoria : CATEGORIAS)
+					categorias.agregar(categoria);
+			categorias.cerrar();
+
+			nombresZonas = new String[zonas];
+			Lote zona = new Lote(conn, "INSERT INTO ZONA VALUES (?)");
+			for(int i = 0; i < zonas; i++) {
+				nombresZonas[i] = prefijo + " zona " + i;
+				zona.agregar(nombresZonas[i]);
+			}
+			zona.cerrar();
+
+			Lote usuario = new Lote(conn, "INSERT INTO USUARIO VALUES (?, ?, ?, ?)");
+			clientes = new int[usuarios];
+			for(int i = 0; i < usuarios; i++) {
+				clientes[i] = primerUsuario + i;
+				usuario.agregar(clientes[i], prefijo + " cliente " + i, "Cliente", prefijo + ".cliente" + i + "@rotondandes.com");
+			}
+
+			nombresRestaurantes = new String[restaurantes];
+			nombresProductos = new String[restaurantes][productos];
+			preciosProductos = new int[restaurantes][productos];
+			nombresMenus = new String[restaurantes][menus];
+			preciosMenus = new int[restaurantes][menus];
+			Zipf zipfZonas = new Zipf(zonas, s);
+			Lote restaurante = new Lote(conn, "INSERT INTO RESTAURANTE (NOMBRE,PAGINAWEB,REPRESENTANTE,TIPO_COMIDA,NOMBREZONA ) VALUES (?, ?, ?, ?, ?)");
+			Lote producto = new Lote(conn, "INSERT INTO PRODUCTO VALUES (?, ?, ?, ?)");
+			Lote producto2 = new Lote(conn, "INSERT INTO PRODUCTOS2 VALUES (?, ?, ?, ?)");
+			Lote oferta = new Lote(conn, "INSERT INTO RESTAURANTE_PRODUCTO VALUES(?, ?, ?, ?, ?, ?, ?)");
+			Lote menu = new Lote(conn, "INSERT INTO MENU VALUES (?, ?, ?, ?, ?, ?, ?)");
+			Lote equivalencia = new Lote(conn, "INSERT INTO EQUIVALENCIA_PRODUCTO VALUES (?, ?)");
+			for(int r = 0; r < restaurantes; r++) {
+				String nombre = prefijo + " restaurante " + r;
+				nombresRestaurantes[r] = nombre;
+				String representante = prefijo + " representante " + r;
+				usuario.agregar(primerUsuario + usuarios + r, representante, "Restaurante", prefijo + ".representante" + r + "@rotondandes.com");
+				restaurante.agregar(nombre, "www." + prefijo + "restaurante" + r + ".com", representante,
+						TIPOS_COMIDA[aleatorio.nextInt(TIPOS_COMIDA.length)], nombresZonas[zipfZonas.siguiente(aleatorio)]);
+				for(int p = 0; p < productos; p++) {
+					String plato = prefijo + " plato " + r + "." + p;
+					String categoria = CATEGORIAS[p % CATEGORIAS.length];
+					int precio = 5000 + aleatorio.nextInt(56) * 1000;
+					nombresProductos[r][p] = plato;
+					preciosProductos[r][p] = precio;
+					producto.agregar(plato, "Plato " + p + " de " + nombre, "Dish " + p + " from " + nombre, categoria);
+					producto2.agregar(plato, "Plato " + p + " de " + nombre, "Dish " + p + " from " + nombre, categoria);
+					oferta.agregar(nombre, plato, precio * (40 + aleatorio.nextInt(31)) / 100, 5 + aleatorio.nextInt(40), precio, 100, 100);
+					// Equivalente al plato anterior de la misma categoria
+					if(p >= CATEGORIAS.length && aleatorio.nextInt(3) == 0)
+						equivalencia.agregar(plato, nombresProductos[r][p - CATEGORIAS.length]);
+				}
+				for(int m = 0; m < menus; m++) {
+					String combo = prefijo + " menu " + r + "." + m;
+					int precio = 20000 + aleatorio.nextInt(41) * 1000;
+					int costo = precio * (40 + aleatorio.nextInt(31)) / 100;
+					int tiempo = 15 + aleatorio.nextInt(30);
+					nombresMenus[r][m] = combo;
+					preciosMenus[r][m] = precio;
+					menu.agregar(nombre, combo, costo, precio, 100, 100, tiempo);
+					oferta.agregar(nombre, combo, costo, tiempo, precio, 100, 100);
+				}
+			}
+			usuario.cerrar();
+			restaurante.cerrar();
+			producto.cerrar();
+			producto2.cerrar();
+			oferta.cerrar();
+			menu.cerrar();
+			equivalencia.cerrar();
+
+			Lote ingrediente = new Lote(conn, "INSERT INTO INGREDIENTE VALUES (?, ?, ?)");
+			Lote equivalenciaIngrediente = new Lote(conn, "INSERT INTO EQUIVALENCIA_INGREDIENTE VALUES (?, ?)");
+			for(int i = 0; i < ingredientes; i++) {
+				String nombre = prefijo + " ingrediente " + i;
+				ingrediente.agregar(nombre, "Ingrediente " + i, "Ingredient " + i);
+				if(i > 0 && aleatorio.nextInt(2) == 0)
+					equivalenciaIngrediente.agregar(nombre, prefijo + " ingrediente " + aleatorio.nextInt(i));
+			}
+			ingrediente.cerrar();
+			equivalenciaIngrediente.cerrar();
+
+			// Los restaurantes y clientes populares no deben ser siempre los de menor numero
+			shuffle(nombresRestaurantes, nombresProductos, preciosProductos, nombresMenus, preciosMenus, aleatorio);
+			List<Integer> orden = new ArrayList<Integer>();
+			for(int cliente : clientes)
+				orden.add(cliente);
+			Collections.shuffle(orden, aleatorio);
+			for(int i = 0; i < clientes.length; i++)
+				clientes[i] = orden.get(i);
+
+			Zipf zipfRestaurantes = new Zipf(restaurantes, s);
+			Zipf zipfProductos = new Zipf(productos, s);
+			Lote preferenciaZona = new Lote(conn, "INSERT INTO PREFERENCIA_ZONA VALUES (?, ?)");
+			Lote preferenciaRestaurante = new Lote(conn, "INSERT INTO PREFERENCIA_RESTAURANTE VALUES (?, ?)");
+			Lote preferenciaProducto = new Lote(conn, "INSERT INTO PREFERENCIA_PRODUCTO VALUES (?, ?)");
+			for(int cliente : clientes) {
+				if(aleatorio.nextInt(2) == 0)
+					preferenciaZona.agregar(cliente, nombresZonas[zipfZonas.siguiente(aleatorio)]);
+				int r = -1;
+				for(int i = aleatorio.nextInt(4); i > 0; i--) {
+					r = zipfRestaurantes.siguiente(aleatorio);
+					preferenciaRestaurante.agregar(cliente, nombresRestaurantes[r]);
+				}
+				if(r >= 0)
+					for(int i = aleatorio.nextInt(4); i > 0; i--)
+						preferenciaProducto.agregar(cliente, nombresProductos[r][zipfProductos.siguiente(aleatorio)]);
+			}
+			preferenciaZona.cerrar();
+			preferenciaRestaurante.cerrar();
+			preferenciaProducto.cerrar();
+			conn.commit();
+		} finally {
+			conn.close();
+		}
+		calcularFechas();
+	}
+
+	/**
+	 * Reparte los pedidos en rangos consecutivos, uno por hilo, y espera a que todos terminen.
+	 */
+	private void generarPedidos(int hilos) throws Exception {
+		final List<Exception> errores = Collections.synchronizedList(new ArrayList<Exception>());
+		List<Thread> trabajadores = new ArrayList<Thread>();
+		for(int h = 0; h < hilos; h++) {
+			final int hilo = h;
+			final int desde = (int) ((long) pedidos * h / hilos);
+			final int hastaPedido = (int) ((long) pedidos * (h + 1) / hilos);
+			Thread t = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						generarPedidos(hilo, desde, hastaPedido);
+					} catch (Exception e) {
+						errores.add(e);
+					}
+				}
+			}, "datos-" + h);
+			trabajadores.add(t);
+			t.start();
+		}
+		for(Thread t : trabajadores)
+			t.join();
+		if(!errores.isEmpty())
+			throw errores.get(0);
+	}
+
+	/**
+	 * Genera los pedidos [desde, hasta) con un commit cada datos.lote pedidos. Un pedido de mesa abre un grupo de 2 a 6
+	 * pedidos consecutivos del mismo cliente a la misma hora, que se registra en PEDIDO_MESA con el menor de sus ids.
+	 */
+	private void generarPedidos(int hilo, int desde, int hasta) throws SQLException {
+		Random aleatorio = new Random(semilla * 31 + hilo + 1);
+		int conPedidos = Math.max(1, (int) (clientes.length * activos));
+		Zipf zipfClientes = new Zipf(conPedidos, s);
+		Zipf zipfRestaurantes = new Zipf(restaurantes, s);
+		Zipf zipfProductos = new Zipf(productos, s);
+		Zipf zipfMenus = menus > 0 ? new Zipf(menus, s) : null;
+		int i = desde;
+		while(i < hasta) {
+			int fin = Math.min(hasta, i + lote);
+			Connection conn = pool.getConnection();
+			try {
+				conn.setAutoCommit(false);
+				Lote pedido = new Lote(conn, "INSERT INTO PEDIDOS2 VALUES (?, ?, ?, ?, 'T')");
+				Lote pedidoProducto = new Lote(conn, "INSERT INTO PEDIDO_PRODUCTO VALUES (?, ?, ?)");
+				Lote menuPedido = new Lote(conn, "INSERT INTO MENU_PEDIDO VALUES (?, ?, ?)");
+				Lote pedidoMesa = new Lote(conn, "INSERT INTO PEDIDO_MESA VALUES(?, ?, ?, ?, ?)");
+				while(i < fin) {
+					Timestamp fecha = fecha(aleatorio);
+					int cliente = clientes[zipfClientes.siguiente(aleatorio)];
+					int grupo = aleatorio.nextDouble() < probMesa ? Math.min(2 + aleatorio.nextInt(5), fin - i) : 1;
+					int costoMesa = 0;
+					for(int j = 0; j < grupo; j++, i++) {
+						long id = primerId - i;
+						int r = zipfRestaurantes.siguiente(aleatorio);
+						int costo;
+						if(aleatorio.nextDouble() < probMenu) {
+							int m = zipfMenus.siguiente(aleatorio);
+							costo = preciosMenus[r][m];
+							menuPedido.agregar(nombresMenus[r][m], nombresRestaurantes[r], id);
+							filasMenuPedido.incrementAndGet();
+						} else {
+							int p = zipfProductos.siguiente(aleatorio);
+							costo = preciosProductos[r][p];
+							pedidoProducto.agregar(id, nombresProductos[r][p], nombresRestaurantes[r]);
+							filasPedidoProducto.incrementAndGet();
+						}
+						pedido.agregar(id, costo, cliente, fecha);
+						costoMesa += costo;
+					}
+					if(grupo > 1) {
+						pedidoMesa.agregar(mesas.incrementAndGet(), primerId - (i - 1), fecha, costoMesa, grupo);
+						filasPedidoMesa.incrementAndGet();
+					}
+				}
+				pedido.cerrar();
+				pedidoProducto.cerrar();
+				menuPedido.cerrar();
+				pedidoMesa.cerrar();
+				conn.commit();
+			} finally {
+				conn.close();
+			}
+		}
+	}
+
+	/**
+	 * Corre una vez cada consulta sobre los datos generados e imprime cuanto tardo o el error de la base de datos.
+	 * darConsulta9 y darUtilidad se piden para el restaurante mas popular en el ultimo mes de la historia.
+	 */
+	private void medir(RotondAndesTm tm) {
+		String restaurante = nombresRestaurantes[0];
+		Calendar desde = (Calendar) hasta.clone();
+		desde.add(Calendar.MONTH, -1);
+		SimpleDateFormat formato = new SimpleDateFormat(System.getProperty("datos.formatoFecha", "dd/MM/yyyy"));
+		String fecha1 = formato.format(desde.getTime());
+		String fecha2 = formato.format(hasta.getTime());
+		for(String consulta : new String[] {"darConsulta9", "darConsulta11", "darConsulta12", "darUtilidad"}) {
+			long inicio = System.nanoTime();
+			try {
+				int filas;
+				if(consulta.equals("darConsulta9"))
+					filas = tm.darConsulta9(new Consulta9(fecha1, fecha2, restaurante)).size();
+				else if(consulta.equals("darConsulta11"))
+					filas = tm.darConsulta11().size();
+				else if(consulta.equals("darConsulta12"))
+					filas = tm.darConsulta12().size();
+				else
+					filas = tm.utilidad(restaurante, fecha1, fecha2).getUtilidades().get(0).getDetalleProductos().size();
+				System.out.printf("%-14s %10.1f ms %8d filas%n", consulta, (System.nanoTime() - inicio) / 1e6, filas);
+			} catch (Exception e) {
+				System.out.printf("%-14s %10.1f ms error: %s%n", consulta, (System.nanoTime() - inicio) / 1e6, String.valueOf(e.getMessage()).split("\n")[0]);
+			}
+		}
+	}
+
+	/**
+	 * Calcula el inicio de cada dia de la historia y la acumulada de sus pesos segun el dia de la semana
+	 */
+	private void calcularFechas() {
+		inicioDias = new long[dias];
+		acumuladaDias = new double[dias];
+		Calendar dia = (Calendar) hasta.clone();
+		dia.set(Calendar.HOUR_OF_DAY, 0);
+		dia.set(Calendar.MINUTE, 0);
+		dia.set(Calendar.SECOND, 0);
+		dia.set(Calendar.MILLISECOND, 0);
+		dia.add(Calendar.DAY_OF_MONTH, 1 - dias);
+		double suma = 0;
+		for(int d = 0; d < dias; d++) {
+			inicioDias[d] = dia.getTimeInMillis();
+			suma += PESO_DIA[dia.get(Calendar.DAY_OF_WEEK) - Calendar.SUNDAY];
+			acumuladaDias[d] = suma;
+			dia.add(Calendar.DAY_OF_MONTH, 1);
+		}
+		acumuladaHoras = new double[PESO_HORA.length];
+		suma = 0;
+		for(int h = 0; h < PESO_HORA.length; h++) {
+			suma += PESO_HORA[h];
+			acumuladaHoras[h] = suma;
+		}
+	}
+
+	private Timestamp fecha(Random aleatorio) {
+		int d = buscar(acumuladaDias, aleatorio.nextDouble() * acumuladaDias[dias - 1]);
+		int h = buscar(acumuladaHoras, aleatorio.nextDouble() * acumuladaHoras[acumuladaHoras.length - 1]);
+		return new Timestamp(inicioDias[d] + (PRIMERA_HORA + h) * 3600000L + aleatorio.nextInt(3600) * 1000L);
+	}
+
+	private static int buscar(double[] acumulada, double u) {
+		int bajo = 0;
+		int alto = acumulada.length - 1;
+		while(bajo < alto) {
+			int medio = (bajo + alto) >>> 1;
+			if(acumulada[medio] < u)
+				bajo = medio + 1;
+			else
+				alto = medio;
+		}
+		return bajo;
+	}
+
+	/**
+	 * Desordena los restaurantes junto con sus productos y menus
+	 */
+	private static void shuffle(String[] restaurantes, String[][] productos, int[][] preciosProductos, String[][] menus,
+			int[][] preciosMenus, Random aleatorio) {
+		for(int i = restaurantes.length - 1; i > 0; i--) {
+			int j = aleatorio.nextInt(i + 1);
+			String r = restaurantes[i];
+			restaurantes[i] = restaurantes[j];
+			restaurantes[j] = r;
+			String[] p = productos[i];
+			productos[i] = productos[j];
+			productos[j] = p;
+			int[] pp = preciosProductos[i];
+			preciosProductos[i] = preciosProductos[j];
+			preciosProductos[j] = pp;
+			String[] m = menus[i];
+			menus[i] = menus[j];
+			menus[j] = m;
+			int[] pm = preciosMenus[i];
+			preciosMenus[i] = preciosMenus[j];
+			preciosMenus[j] = pm;
+		}
+	}
+
+	private static long valor(Connection conn, String sql) throws SQLException {
+		Statement stmt = conn.createStatement();
+		try {
+			ResultSet rs = stmt.executeQuery(sql);
+			rs.next();
+			return rs.getLong(1);
+		} finally {
+			stmt.close();
+		}
+	}
+
+	/**
+	 * Sentencia INSERT que acumula filas y las envia a la base de datos cada datos.lote filas
+	 */
+	private class Lote {
+
+		private final PreparedStatement stmt;
+
+		private int pendientes;
+
+		Lote(Connection conn, String sql) throws SQLException {
+			stmt = conn.prepareStatement(sql);
+		}
+
+		void agregar(Object... valores) throws SQLException {
+			SentenciasSQL.asignar(stmt, valores);
+			stmt.addBatch();
+			if(++pendientes == lote) {
+				stmt.executeBatch();
+				pendientes = 0;
+			}
+		}
+
+		void cerrar() throws SQLException {
+			try {
+				if(pendientes > 0)
+					stmt.executeBatch();
+			} finally {
+				stmt.close();
+			}
+		}
+	}
+}
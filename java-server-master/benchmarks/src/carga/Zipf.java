@@ -0,0 +1,52 @@
+package carga;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distribucion de Zipf sobre las posiciones 0..n-1: la posicion k sale con probabilidad proporcional a 1/(k+1)^s.
+ * Con s=1 el primer elemento sale el doble que el segundo y diez veces mas que el decimo, como los productos y
+ * clientes de una rotonda a la hora del almuerzo. La acumulada se calcula una vez y cada muestra es una busqueda binaria.
+ */
+public class Zipf {
+
+	private final double[] acumulada;
+
+	/**
+	 * @param n - numero de elementos, n > 0
+	 * @param s - exponente; 0 es uniforme
+	 */
+	public Zipf(int n, double s) {
+		acumulada = new double[n];
+		double suma = 0;
+		for(int k = 0; k < n; k++) {
+			suma += 1 / Math.pow(k + 1, s);
+			acumulada[k] = suma;
+		}
+	}
+
+	/**
+	 * @return una posicion entre 0 y n-1
+	 */
+	public int siguiente() {
+		return siguiente(ThreadLocalRandom.current());
+	}
+
+	/**
+	 * @param aleatorio - generador del que se toma la muestra, para poder repetir una secuencia con la misma semilla
+	 * @return una posicion entre 0 y n-1
+	 */
+	public int siguiente(Random aleatorio) {
+		double u = aleatorio.nextDouble() * acumulada[acumulada.length - 1];
+		int bajo = 0;
+		int alto = acumulada.length - 1;
+		while(bajo < alto) {
+			int medio = (bajo + alto) >>> 1;
+			if(acumulada[medio] < u)
+				bajo = medio + 1;
+			else
+				alto = medio;
+		}
+		return bajo;
+	}
+}
@@ -0,0 +1,151 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Tipos de evento de JFR. Esta en la carpeta de fuentes src-jfr porque necesita jdk.jfr para compilar (JDK 8u262 u 11
+ * en adelante); el resto del proyecto compila sin ella. Solo la usa FlightEvents, que la carga por reflexion si
+ * jdk.jfr existe en la JVM.
+ */
+class JfrEvents implements FlightEvents.Grabador {
+
+	@Name("rotondandes.Transaccion")
+	@Label("Transaccion")
+	@Category({ "RotondAndes", "TM" })
+	@Description("Transaccion ejecutada por el TransactionExecutor de RotondAndesTm")
+	@StackTrace(false)
+	public static class TransaccionEvent extends Event {
+
+		@Label("Nombre")
+		String nombre;
+
+		@Label("Modo")
+		String modo;
+
+		@Label("Exito")
+		boolean exito;
+
+		@Label("Filas leidas")
+		long filasLeidas;
+
+		@Label("Filas afectadas")
+		long filasAfectadas;
+	}
+
+	@Name("rotondandes.Sql")
+	@Label("SQL")
+	@Category({ "RotondAndes", "DAO" })
+	@Description("Ejecucion de una sentencia preparada por un DAO")
+	@StackTrace(false)
+	public static class SqlEvent extends Event {
+
+		@Label("Huella")
+		@Description("SQL con los literales cambiados por ?")
+		String huella;
+
+		@Label("Operacion")
+		String operacion;
+
+		@Label("Tabla")
+		String tabla;
+
+		@Label("Error")
+		boolean error;
+	}
+
+	@Name("rotondandes.ExchangeMsg")
+	@Label("ExchangeMsg")
+	@Category({ "RotondAndes", "JMS" })
+	@Description("Mensaje entre rotondas enviado o procesado por un MDB")
+	@StackTrace(false)
+	public static class MensajeEvent extends Event {
+
+		@Label("MDB")
+		String mdb;
+
+		@Label("Direccion")
+		String direccion;
+
+		@Label("Id del mensaje")
+		String msgId;
+
+		@Label("Status")
+		String status;
+
+		@Label("Remitente")
+		String remitente;
+	}
+
+	@Override
+	public Object iniciarTransaccion() {
+		TransaccionEvent e = new TransaccionEvent();
+		if(!e.isEnabled())
+			return null;
+		e.begin();
+		return e;
+	}
+
+	@Override
+	public void transaccion(Object evento, String nombre, String modo, boolean exito, long filasLeidas, long filasAfectadas) {
+		TransaccionEvent e = (TransaccionEvent) evento;
+		e.end();
+		if(e.shouldCommit()) {
+			e.nombre = nombre;
+			e.modo = modo;
+			e.exito = exito;
+			e.filasLeidas = filasLeidas;
+			e.filasAfectadas = filasAfectadas;
+			e.commit();
+		}
+	}
+
+	@Override
+	public Object iniciarSql() {
+		SqlEvent e = new SqlEvent();
+		if(!e.isEnabled())
+			return null;
+		e.begin();
+		return e;
+	}
+
+	@Override
+	public void sql(Object evento, String huella, String operacion, String tabla, boolean error) {
+		SqlEvent e = (SqlEvent) evento;
+		e.end();
+		if(e.shouldCommit()) {
+			e.huella = huella;
+			e.operacion = operacion;
+			e.tabla = tabla;
+			e.error = error;
+			e.commit();
+		}
+	}
+
+	@Override
+	public Object iniciarMensaje() {
+		MensajeEvent e = new MensajeEvent();
+		if(!e.isEnabled())
+			return null;
+		e.begin();
+		return e;
+	}
+
+	@Override
+	public void mensaje(Object evento, String mdb, String direccion, String msgId, String status, String remitente) {
+		MensajeEvent e = (MensajeEvent) evento;
+		e.end();
+		if(e.shouldCommit()) {
+			e.mdb = mdb;
+			e.direccion = direccion;
+			e.msgId = msgId;
+			e.status = status;
+			e.remitente = remitente;
+			e.commit();
+		}
+	}
+}
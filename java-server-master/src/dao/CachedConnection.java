@@ -0,0 +1,13 @@
+package dao;
+
+/**
+ * Conexion que tiene un cache de sentencias preparadas propio de su conexion fisica.
+ * La implementan los proxies que entrega tm.ConnectionPool.
+ */
+public interface CachedConnection {
+
+	/**
+	 * @return StatementCache - cache de sentencias de la conexion fisica
+	 */
+	StatementCache getStatementCache();
+}
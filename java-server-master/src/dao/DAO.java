@@ -0,0 +1,20 @@
+package dao;
+
+import java.sql.Connection;
+
+/**
+ * Operaciones comunes de los DAO: recibir la conexion de la transaccion y cerrar las sentencias que prepararon.
+ * Las usa tm.TransactionExecutor para preparar y liberar los DAO de cada transaccion.
+ */
+public interface DAO {
+
+	/**
+	 * @param con - conexion de la transaccion en curso
+	 */
+	void setConn(Connection con);
+
+	/**
+	 * Cierra las sentencias que el DAO preparo con la conexion actual.
+	 */
+	void cerrarRecursos();
+}
@@ -10,9 +10,12 @@ import java.util.List;
 
 import javax.print.DocFlavor.STRING;
 
+import log.Logger;
 import vos.*;
 
-public class DAOConsultas {
+public class DAOConsultas implements DAO {
+
+	private static final Logger LOG = Logger.get(DAOConsultas.class);
 
 	/**
 	 * Arraylits de recursos que se usan para la ejecución de sentencias SQL
@@ -42,7 +45,7 @@ public class DAOConsultas {
 				try {
 					((PreparedStatement) ob).close();
 				} catch (Exception ex) {
-					ex.printStackTrace();
+					LOG.warn("Error cerrando recurso", ex);
 				}
 		}
 	}
@@ -68,10 +71,9 @@ public class DAOConsultas {
 
 		String sql = "SELECT USUARIO.*,PEDIDOS2.FECHA, PEDIDO_PRODUCTO.NOMBRE_PRODUCTO , PEDIDO_PRODUCTO.NOMBRE_RESTAURANTE , CATEGORIA\r\n" + 
 				"FROM((USUARIO JOIN PEDIDOS2 ON ID_USUARIO = USUARIO.NUMERO_ID) JOIN PEDIDO_PRODUCTO ON PEDIDOS2.PEDIDO_ID= PEDIDO_PRODUCTO.ID_PEDIDO)JOIN PRODUCTOS2 ON PEDIDO_PRODUCTO.NOMBRE_PRODUCTO=PRODUCTOS2.NOMBRE\r\n" + 
-				"WHERE NOMBRE_RESTAURANTE='"+consulta.getNombreRestaurante()+"' AND FECHA BETWEEN '"+consulta.getFecha1()+"' AND '"+consulta.getFecha2()+"'";
+				"WHERE NOMBRE_RESTAURANTE = ? AND FECHA BETWEEN ? AND ?";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, consulta.getNombreRestaurante(), consulta.getFecha1(), consulta.getFecha2());
 		ResultSet rs = prepStmt.executeQuery();
 
 		while (rs.next()) {
@@ -107,10 +109,9 @@ public class DAOConsultas {
 
 		String sql = "SELECT USUARIO.*,PEDIDOS2.FECHA, PEDIDO_PRODUCTO.NOMBRE_PRODUCTO , PEDIDO_PRODUCTO.NOMBRE_RESTAURANTE , CATEGORIA\r\n" + 
 				"FROM((USUARIO JOIN PEDIDOS2 ON ID_USUARIO = USUARIO.NUMERO_ID) JOIN PEDIDO_PRODUCTO ON PEDIDOS2.PEDIDO_ID= PEDIDO_PRODUCTO.ID_PEDIDO)JOIN PRODUCTOS2 ON PEDIDO_PRODUCTO.NOMBRE_PRODUCTO=PRODUCTOS2.NOMBRE\r\n" + 
-				"WHERE NOT (NOMBRE_RESTAURANTE='"+consulta.getNombreRestaurante()+"' OR (FECHA BETWEEN '"+consulta.getFecha1()+"' AND '"+consulta.getFecha2()+"'))";
+				"WHERE NOT (NOMBRE_RESTAURANTE = ? OR (FECHA BETWEEN ? AND ?))";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, consulta.getNombreRestaurante(), consulta.getFecha1(), consulta.getFecha2());
 		ResultSet rs = prepStmt.executeQuery();
 
 		while (rs.next() && x < 5) {
@@ -143,8 +144,7 @@ public class DAOConsultas {
 				"FROM PEDIDOS2 JOIN PEDIDO_PRODUCTO ON PEDIDOS2.PEDIDO_ID = PEDIDO_PRODUCTO.ID_PEDIDO\r\n" + 
 				"GROUP BY NOMBRE_PRODUCTO, TO_CHAR(FECHA,'DAY')) GROUP BY DIA";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sqlPMas);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sqlPMas);
 		ResultSet rs = prepStmt.executeQuery();
 
 		while (rs.next()) {
@@ -161,8 +161,7 @@ public class DAOConsultas {
 				"FROM PEDIDOS2 JOIN PEDIDO_PRODUCTO ON PEDIDOS2.PEDIDO_ID = PEDIDO_PRODUCTO.ID_PEDIDO\r\n" + 
 				"GROUP BY NOMBRE_RESTAURANTE, TO_CHAR(FECHA,'DAY')) GROUP BY DIA";
 
-		PreparedStatement prepStmt2 = conn.prepareStatement(sqlRMas);
-		recursos.add(prepStmt2);
+		PreparedStatement prepStmt2 = SentenciasSQL.preparar(conn, recursos, sqlRMas);
 		ResultSet rs2 = prepStmt2.executeQuery();
 		int i = 0;
 
@@ -201,8 +200,7 @@ public class DAOConsultas {
 				"FROM PEDIDOS2 JOIN PEDIDO_PRODUCTO ON PEDIDOS2.PEDIDO_ID = PEDIDO_PRODUCTO.ID_PEDIDO\r\n" + 
 				"GROUP BY NOMBRE_PRODUCTO, TO_CHAR(FECHA,'DAY')) GROUP BY DIA";
 
-		PreparedStatement prepStmt3 = conn.prepareStatement(sqlPMenos);
-		recursos.add(prepStmt3);
+		PreparedStatement prepStmt3 = SentenciasSQL.preparar(conn, recursos, sqlPMenos);
 		ResultSet rs3 = prepStmt3.executeQuery();
 		i = 0;
 
@@ -241,8 +239,7 @@ public class DAOConsultas {
 				"FROM PEDIDOS2 JOIN PEDIDO_PRODUCTO ON PEDIDOS2.PEDIDO_ID = PEDIDO_PRODUCTO.ID_PEDIDO\r\n" + 
 				"GROUP BY NOMBRE_RESTAURANTE, TO_CHAR(FECHA,'DAY')) GROUP BY DIA";
 
-		PreparedStatement prepStmt4 = conn.prepareStatement(sqlRMenos);
-		recursos.add(prepStmt4);
+		PreparedStatement prepStmt4 = SentenciasSQL.preparar(conn, recursos, sqlRMenos);
 		ResultSet rs4 = prepStmt4.executeQuery();
 		i = 0;
 
@@ -286,8 +283,7 @@ public class DAOConsultas {
 		String sqlTipo2 = "SELECT *  FROM USUARIO WHERE NUMERO_ID NOT IN \r\n" + 
 				"(SELECT USUARIO.NUMERO_ID FROM USUARIO JOIN PEDIDOS2 ON ID_USUARIO=NUMERO_ID WHERE COSTO_TOTAL < 36750 ) AND ROL='Cliente'";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sqlTipo2);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sqlTipo2);
 		ResultSet rs = prepStmt.executeQuery();
 		int x = 0;
 
@@ -308,8 +304,7 @@ public class DAOConsultas {
 		String sqlTipo3 = "SELECT * FROM USUARIO WHERE NUMERO_ID NOT IN \r\n" + 
 				"(SELECT NUMERO_ID FROM (USUARIO JOIN PEDIDOS2 ON USUARIO.NUMERO_ID=PEDIDOS2.ID_USUARIO)JOIN  MENU_PEDIDO ON MENU_PEDIDO.ID_PEDIDO=PEDIDOS2.PEDIDO_ID) AND ROL='Cliente'";
 
-		PreparedStatement prepStmt2 = conn.prepareStatement(sqlTipo3);
-		recursos.add(prepStmt2);
+		PreparedStatement prepStmt2 = SentenciasSQL.preparar(conn, recursos, sqlTipo3);
 		ResultSet rs2 = prepStmt2.executeQuery();
 		x = 0;
 		int i = 0;
@@ -339,12 +334,11 @@ public class DAOConsultas {
 		String sql = "SELECT RESTAURANTE_PRODUCTO.NOMBRE_PRODUCTO , NUMERO , (COSTO_PRODUCCION - PRECIO_VENTA)AS UTILIDAD  FROM("
 					+ "SELECT NOMBRE_PRODUCTO , COUNT(*) AS NUMERO " 
 					+"FROM PEDIDOS2 JOIN PEDIDO_PRODUCTO ON PEDIDOS2.PEDIDO_ID = PEDIDO_PRODUCTO.ID_PEDIDO "
-					+"WHERE NOMBRE_RESTAURANTE='"+nombre+"' AND PEDIDOS2.FECHA BETWEEN '"+ fecha +"' AND '"+fecha2+"' GROUP BY NOMBRE_PRODUCTO)TA "
+					+"WHERE NOMBRE_RESTAURANTE = ? AND PEDIDOS2.FECHA BETWEEN ? AND ? GROUP BY NOMBRE_PRODUCTO)TA "
 					+"JOIN RESTAURANTE_PRODUCTO ON RESTAURANTE_PRODUCTO.NOMBRE_PRODUCTO = TA.NOMBRE_PRODUCTO " ;
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		System.out.println(sql);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, nombre, fecha, fecha2);
+		LOG.debug("darUtilidad: {}", sql);
 		ResultSet rs = prepStmt.executeQuery();
 		List<String> productos = new ArrayList<>();
 		while (rs.next() ) {
@@ -355,10 +349,9 @@ public class DAOConsultas {
 			"SELECT RESTAURANTE_PRODUCTO.NOMBRE_PRODUCTO , NUMERO , (COSTO_PRODUCCION - PRECIO_VENTA)AS UTILIDAD FROM( "+
 			"SELECT NOMBRE_PRODUCTO , COUNT(*) AS NUMERO "+
 			"FROM PEDIDOS2 JOIN PEDIDO_PRODUCTO ON PEDIDOS2.PEDIDO_ID = PEDIDO_PRODUCTO.ID_PEDIDO "+
-			"WHERE NOMBRE_RESTAURANTE='"+nombre+"' AND PEDIDOS2.FECHA BETWEEN '"+fecha+"' AND '"+fecha2+"' GROUP BY NOMBRE_PRODUCTO)TA "+
+			"WHERE NOMBRE_RESTAURANTE = ? AND PEDIDOS2.FECHA BETWEEN ? AND ? GROUP BY NOMBRE_PRODUCTO)TA "+
 			"JOIN RESTAURANTE_PRODUCTO ON RESTAURANTE_PRODUCTO.NOMBRE_PRODUCTO = TA.NOMBRE_PRODUCTO)";
-		prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		prepStmt = SentenciasSQL.preparar(conn, recursos, sql, nombre, fecha, fecha2);
 		prepStmt.executeQuery();
 		Integer utilidad= 141036;
 		while (rs.next() ) {
@@ -7,13 +7,16 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
+import log.Logger;
 import vos.*;
 
 /**
  * Clase DAO que se conecta la base de datos usando JDBC para resolver los requerimientos de la aplicación
  * @author Juan Carreo
  */
-public class DAOTablaEquivalenciaIngrediente{
+public class DAOTablaEquivalenciaIngrediente implements DAO {
+
+	private static final Logger LOG = Logger.get(DAOTablaEquivalenciaIngrediente.class);
 
 	/**
 	 * Arraylits de recursos que se usan para la ejecución de sentencias SQL
@@ -43,7 +46,7 @@ public class DAOTablaEquivalenciaIngrediente{
 				try {
 					((PreparedStatement) ob).close();
 				} catch (Exception ex) {
-					ex.printStackTrace();
+					LOG.warn("Error cerrando recurso", ex);
 				}
 		}
 	}
@@ -69,8 +72,7 @@ public class DAOTablaEquivalenciaIngrediente{
 
 		String sql = "SELECT * FROM EQUIVALENCIA_INGREDIENTE";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql);
 		ResultSet rs = prepStmt.executeQuery();
 
 		while (rs.next()) {
@@ -92,10 +94,9 @@ public class DAOTablaEquivalenciaIngrediente{
 	public ArrayList<EquivalenciaIngrediente> buscarEquivalenciasPorNombre(String name) throws SQLException, Exception {
 		ArrayList<EquivalenciaIngrediente> equivalencias = new ArrayList<EquivalenciaIngrediente>() ;
 
-		String sql = "SELECT * FROM EQUIVALENCIA_INGREDIENTE WHERE NOMBRE_INGREDIENTE ='" + name + "'";
+		String sql = "SELECT * FROM EQUIVALENCIA_INGREDIENTE WHERE NOMBRE_INGREDIENTE = ?";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, name);
 		ResultSet rs = prepStmt.executeQuery();
 
 		while (rs.next()) {
@@ -117,13 +118,10 @@ public class DAOTablaEquivalenciaIngrediente{
 	 */
 	public void addEquivalencia(EquivalenciaIngrediente equivalencia) throws SQLException, Exception {
 
-		String sql = "INSERT INTO EQUIVALENCIA_INGREDIENTE VALUES ('";
-		sql += equivalencia.getNombreIngrediente() + "','";
-		sql += equivalencia.getIngredienteEquiv() + "')";
+		String sql = "INSERT INTO EQUIVALENCIA_INGREDIENTE VALUES (?, ?)";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, equivalencia.getNombreIngrediente(), equivalencia.getIngredienteEquiv());
+		prepStmt.executeUpdate();
 
 	}
 	
@@ -138,13 +136,12 @@ public class DAOTablaEquivalenciaIngrediente{
 	public void updateEquivalencia(EquivalenciaIngrediente equivalencia) throws SQLException, Exception {
 
 		String sql = "UPDATE EQUIVALENCIA_INGREDIENTE SET ";
-		sql += "NOMBRE_INGREDIENTE='" + equivalencia.getNombreIngrediente() + "',";
-		sql += "EQUIVALENTE='" + equivalencia.getIngredienteEquiv() + "')";
+		sql += "EQUIVALENTE = ?";
+		sql += " WHERE NOMBRE_INGREDIENTE = ?";
 
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, equivalencia.getIngredienteEquiv(), equivalencia.getNombreIngrediente());
+		prepStmt.executeUpdate();
 	}
 
 	/**
@@ -158,11 +155,10 @@ public class DAOTablaEquivalenciaIngrediente{
 	public void deleteEquivalencia(EquivalenciaIngrediente equivalencia) throws SQLException, Exception {
 
 		String sql = "DELETE FROM EQUIVALENCIA_INGREDIENTE";
-		sql += " WHERE NOMBRE_INGREDIENTE = '" + equivalencia.getNombreIngrediente() + "'";
+		sql += " WHERE NOMBRE_INGREDIENTE = ?";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, equivalencia.getNombreIngrediente());
+		prepStmt.executeUpdate();
 	}
 
 }
@@ -7,13 +7,16 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
+import log.Logger;
 import vos.*;
 
 /**
  * Clase DAO que se conecta la base de datos usando JDBC para resolver los requerimientos de la aplicación
  * @author Juan Carreo
  */
-public class DAOTablaEquivalenciaProducto{
+public class DAOTablaEquivalenciaProducto implements DAO {
+
+	private static final Logger LOG = Logger.get(DAOTablaEquivalenciaProducto.class);
 
 	/**
 	 * Arraylits de recursos que se usan para la ejecución de sentencias SQL
@@ -43,7 +46,7 @@ public class DAOTablaEquivalenciaProducto{
 				try {
 					((PreparedStatement) ob).close();
 				} catch (Exception ex) {
-					ex.printStackTrace();
+					LOG.warn("Error cerrando recurso", ex);
 				}
 		}
 	}
@@ -65,20 +68,27 @@ public class DAOTablaEquivalenciaProducto{
 	 * @throws Exception - Cualquier error que no corresponda a la base de datos
 	 */
 	public ArrayList<EquivalenciaProducto> darEquivalencias() throws SQLException, Exception {
-		ArrayList<EquivalenciaProducto> equivalencias = new ArrayList<EquivalenciaProducto>();
+		return recorrerEquivalencias().todas();
+	}
 
+	/**
+	 * Metodo que abre un cursor sobre todas las equivalencias de productos de la base de datos, para leerlas una por una
+	 * <b>SQL Statement:</b> SELECT * FROM EQUIVALENCIA_PRODUCTO;
+	 * @return RowCursor con las equivalencias de la base de datos.
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public RowCursor<EquivalenciaProducto> recorrerEquivalencias() throws SQLException {
 		String sql = "SELECT * FROM EQUIVALENCIA_PRODUCTO";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		ResultSet rs = prepStmt.executeQuery();
-
-		while (rs.next()) {
-			String name = rs.getString("NOMBRE_PRODUCTO");
-			String equivalente = rs.getString("EQUIVALENTE");	
-			equivalencias.add(new EquivalenciaProducto(name, equivalente));
-		}
-		return equivalencias;
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql);
+		return new RowCursor<EquivalenciaProducto>(prepStmt.executeQuery(), new RowCursor.Mapeo<EquivalenciaProducto>() {
+			@Override
+			public EquivalenciaProducto mapear(ResultSet rs) throws SQLException {
+				String name = rs.getString("NOMBRE_PRODUCTO");
+				String equivalente = rs.getString("EQUIVALENTE");
+				return new EquivalenciaProducto(name, equivalente);
+			}
+		});
 	}
 
 
@@ -92,10 +102,9 @@ public class DAOTablaEquivalenciaProducto{
 	public ArrayList<EquivalenciaProducto> buscarEquivalenciasPorNombre(String name) throws SQLException, Exception {
 		ArrayList<EquivalenciaProducto> equivalencias = new ArrayList<EquivalenciaProducto>() ;
 
-		String sql = "SELECT * FROM EQUIVALENCIA_PRODUCTO WHERE NOMBRE_PRODUCTO ='" + name + "'";
+		String sql = "SELECT * FROM EQUIVALENCIA_PRODUCTO WHERE NOMBRE_PRODUCTO = ?";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, name);
 		ResultSet rs = prepStmt.executeQuery();
 
 		while (rs.next()) {
@@ -117,13 +126,10 @@ public class DAOTablaEquivalenciaProducto{
 	 */
 	public void addEquivalencia(EquivalenciaProducto equivalencia) throws SQLException, Exception {
 
-		String sql = "INSERT INTO EQUIVALENCIA_PRODUCTO VALUES ('";
-		sql += equivalencia.getNombreProducto() + "','";
-		sql += equivalencia.getProductoEquiv() + "')";
+		String sql = "INSERT INTO EQUIVALENCIA_PRODUCTO VALUES (?, ?)";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, equivalencia.getNombreProducto(), equivalencia.getProductoEquiv());
+		prepStmt.executeUpdate();
 
 	}
 	
@@ -138,13 +144,12 @@ public class DAOTablaEquivalenciaProducto{
 	public void updateEquivalencia(EquivalenciaProducto equivalencia) throws SQLException, Exception {
 
 		String sql = "UPDATE EQUIVALENCIA_PRODUCTO SET ";
-		sql += "NOMBRE_PRODUCTO='" + equivalencia.getNombreProducto() + "',";
-		sql += "EQUIVALENTE='" + equivalencia.getProductoEquiv() + "')";
+		sql += "EQUIVALENTE = ?";
+		sql += " WHERE NOMBRE_PRODUCTO = ?";
 
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, equivalencia.getProductoEquiv(), equivalencia.getNombreProducto());
+		prepStmt.executeUpdate();
 	}
 
 	/**
@@ -158,11 +163,10 @@ public class DAOTablaEquivalenciaProducto{
 	public void deleteEquivalencia(EquivalenciaProducto equivalencia) throws SQLException, Exception {
 
 		String sql = "DELETE FROM EQUIVALENCIA_PRODUCTO";
-		sql += " WHERE NOMBRE_PRODUCTO = '" + equivalencia.getNombreProducto() + "'";
+		sql += " WHERE NOMBRE_PRODUCTO = ?";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, equivalencia.getNombreProducto());
+		prepStmt.executeUpdate();
 	}
 
 }
@@ -7,14 +7,29 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
+import log.Logger;
 import vos.*;
 
 /**
  * Clase DAO que se conecta la base de datos usando JDBC para resolver los requerimientos de la aplicación
  * @author Juan Carreo
  */
-public class DAOTablaIngredientes {
+public class DAOTablaIngredientes implements DAO {
 
+	private static final Logger LOG = Logger.get(DAOTablaIngredientes.class);
+
+	/**
+	 * Paso de cada fila de INGREDIENTE a Ingrediente
+	 */
+	private static final RowCursor.Mapeo<Ingrediente> MAPEO = new RowCursor.Mapeo<Ingrediente>() {
+		@Override
+		public Ingrediente mapear(ResultSet rs) throws SQLException {
+			String name = rs.getString("NOMBRE");
+			String descripcion = rs.getString("DESCRIPCION");
+			String traduccion = rs.getString("TRADUCCION");
+			return new Ingrediente(name, descripcion, traduccion);
+		}
+	};
 
 	/**
 	 * Arraylits de recursos que se usan para la ejecución de sentencias SQL
@@ -44,7 +59,7 @@ public class DAOTablaIngredientes {
 				try {
 					((PreparedStatement) ob).close();
 				} catch (Exception ex) {
-					ex.printStackTrace();
+					LOG.warn("Error cerrando recurso", ex);
 				}
 		}
 	}
@@ -66,21 +81,37 @@ public class DAOTablaIngredientes {
 	 * @throws Exception - Cualquier error que no corresponda a la base de datos
 	 */
 	public ArrayList<Ingrediente> darIngredientes() throws SQLException, Exception {
-		ArrayList<Ingrediente> ingredientes = new ArrayList<Ingrediente>();
+		return recorrerIngredientes().todas();
+	}
 
+	/**
+	 * Metodo que abre un cursor sobre todos los ingredientes de la base de datos, para leerlos uno por uno
+	 * <b>SQL Statement:</b> SELECT * FROM INGREDIENTE;
+	 * @return RowCursor con los ingredientes de la base de datos.
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public RowCursor<Ingrediente> recorrerIngredientes() throws SQLException {
 		String sql = "SELECT * FROM INGREDIENTE";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		ResultSet rs = prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql);
+		return new RowCursor<Ingrediente>(prepStmt.executeQuery(), MAPEO);
+	}
 
-		while (rs.next()) {
-			String name = rs.getString("NOMBRE");
-			String descripcion = rs.getString("DESCRIPCION");
-			String traduccion = rs.getString("TRADUCCION");	
-			ingredientes.add(new Ingrediente(name, descripcion, traduccion));
-		}
-		return ingredientes;
+	/**
+	 * Metodo que da una pagina de los ingredientes ordenados por NOMBRE despues de la llave despuesDe (ver tm.PageToken).
+	 * <b>SQL Statement:</b> SELECT * FROM (SELECT * FROM INGREDIENTE WHERE NOMBRE > ? ORDER BY NOMBRE) WHERE ROWNUM &lt;= ?;
+	 * @param despuesDe - nombre del ultimo ingrediente de la pagina anterior, null para la primera pagina
+	 * @param filas - maximo de filas de la pagina
+	 * @return Arraylist con los ingredientes de la pagina.
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public ArrayList<Ingrediente> darIngredientes(String despuesDe, int filas) throws SQLException {
+		PreparedStatement prepStmt;
+		if(despuesDe == null)
+			prepStmt = SentenciasSQL.preparar(conn, recursos, "SELECT * FROM (SELECT * FROM INGREDIENTE ORDER BY NOMBRE) WHERE ROWNUM <= ?", filas);
+		else
+			prepStmt = SentenciasSQL.preparar(conn, recursos, "SELECT * FROM (SELECT * FROM INGREDIENTE WHERE NOMBRE > ? ORDER BY NOMBRE) WHERE ROWNUM <= ?", despuesDe, filas);
+		return new RowCursor<Ingrediente>(prepStmt.executeQuery(), MAPEO).todas();
 	}
 
 
@@ -94,10 +125,9 @@ public class DAOTablaIngredientes {
 	public ArrayList<Ingrediente> buscarIngredientesPorNombre(String name) throws SQLException, Exception {
 		ArrayList<Ingrediente> ingredientes = new ArrayList<Ingrediente>();
 
-		String sql = "SELECT * FROM INGREDIENTE WHERE NOMBRE ='" + name + "'";
+		String sql = "SELECT * FROM INGREDIENTE WHERE NOMBRE = ?";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, name);
 		ResultSet rs = prepStmt.executeQuery();
 
 		while (rs.next()) {
@@ -120,14 +150,10 @@ public class DAOTablaIngredientes {
 	 */
 	public void addIngrediente(Ingrediente ingrediente) throws SQLException, Exception {
 
-		String sql = "INSERT INTO INGREDIENTE VALUES ('";
-		sql += ingrediente.getNombre() + "','";
-		sql += ingrediente.getDescripcion() + "','";
-		sql += ingrediente.getTraduccion() + "')";
+		String sql = "INSERT INTO INGREDIENTE VALUES (?, ?, ?)";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, ingrediente.getNombre(), ingrediente.getDescripcion(), ingrediente.getTraduccion());
+		prepStmt.executeUpdate();
 
 	}
 	
@@ -142,14 +168,13 @@ public class DAOTablaIngredientes {
 	public void updateIngrediente(Ingrediente ingrediente) throws SQLException, Exception {
 
 		String sql = "UPDATE INGREDIENTE SET ";
-		sql += "DESCRIPCION='" + ingrediente.getDescripcion() + "',";
-		sql += "TRADUCCION='" + ingrediente.getTraduccion() + "',";
-		sql += " WHERE NOMBRE = " + ingrediente.getNombre();
+		sql += "DESCRIPCION = ?, ";
+		sql += "TRADUCCION = ?";
+		sql += " WHERE NOMBRE = ?";
 
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, ingrediente.getDescripcion(), ingrediente.getTraduccion(), ingrediente.getNombre());
+		prepStmt.executeUpdate();
 	}
 
 	/**
@@ -163,11 +188,10 @@ public class DAOTablaIngredientes {
 	public void deleteIngrediente(Ingrediente ingrediente) throws SQLException, Exception {
 
 		String sql = "DELETE FROM INGREDIENTE";
-		sql += " WHERE NOMBRE = '" + ingrediente.getNombre() + "'";
+		sql += " WHERE NOMBRE = ?";
 		
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, ingrediente.getNombre());
+		prepStmt.executeUpdate();
 	}
 
 }
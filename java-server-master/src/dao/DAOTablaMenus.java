@@ -7,14 +7,30 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
+import log.Logger;
 import vos.*;
 
 /**
  * Clase DAO que se conecta la base de datos usando JDBC para resolver los requerimientos de la aplicación
  * @author Juan Carreo
  */
-public class DAOTablaMenus {
+public class DAOTablaMenus implements DAO {
 
+	private static final Logger LOG = Logger.get(DAOTablaMenus.class);
+
+	/**
+	 * Paso de cada fila de MENU a Menu
+	 */
+	private static final RowCursor.Mapeo<Menu> MAPEO = new RowCursor.Mapeo<Menu>() {
+		@Override
+		public Menu mapear(ResultSet rs) throws SQLException {
+			String name = rs.getString("NOMBRE");
+			String restaurante = rs.getString("RESTAURANTE");
+			int costoProduccion = rs.getInt("COSTO_PRODUCCION");
+			int precioVenta = rs.getInt("PRECIO_VENTA");
+			return new Menu(name, restaurante, costoProduccion, precioVenta,0,0,0);
+		}
+	};
 
 	/**
 	 * Arraylits de recursos que se usan para la ejecución de sentencias SQL
@@ -44,7 +60,7 @@ public class DAOTablaMenus {
 				try {
 					((PreparedStatement) ob).close();
 				} catch (Exception ex) {
-					ex.printStackTrace();
+					LOG.warn("Error cerrando recurso", ex);
 				}
 		}
 	}
@@ -66,22 +82,27 @@ public class DAOTablaMenus {
 	 * @throws Exception - Cualquier error que no corresponda a la base de datos
 	 */
 	public ArrayList<Menu> darMenus() throws SQLException, Exception {
-		ArrayList<Menu> menus = new ArrayList<Menu>();
-
 		String sql = "SELECT * FROM MENU";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		ResultSet rs = prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql);
+		return new RowCursor<Menu>(prepStmt.executeQuery(), MAPEO).todas();
+	}
 
-		while (rs.next()) {
-			String name = rs.getString("NOMBRE");
-			String restaurante = rs.getString("RESTAURANTE");
-			int costoProduccion = rs.getInt("COSTO_PRODUCCION");
-			int precioVenta = rs.getInt("PRECIO_VENTA");
-			menus.add(new Menu(name, restaurante, costoProduccion, precioVenta,0,0,0));
-		}
-		return menus;
+	/**
+	 * Metodo que da una pagina de los menus ordenados por NOMBRE despues de la llave despuesDe (ver tm.PageToken).
+	 * <b>SQL Statement:</b> SELECT * FROM (SELECT * FROM MENU WHERE NOMBRE > ? ORDER BY NOMBRE) WHERE ROWNUM &lt;= ?;
+	 * @param despuesDe - nombre del ultimo menu de la pagina anterior, null para la primera pagina
+	 * @param filas - maximo de filas de la pagina
+	 * @return Arraylist con los menus de la pagina.
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public ArrayList<Menu> darMenus(String despuesDe, int filas) throws SQLException {
+		PreparedStatement prepStmt;
+		if(despuesDe == null)
+			prepStmt = SentenciasSQL.preparar(conn, recursos, "SELECT * FROM (SELECT * FROM MENU ORDER BY NOMBRE) WHERE ROWNUM <= ?", filas);
+		else
+			prepStmt = SentenciasSQL.preparar(conn, recursos, "SELECT * FROM (SELECT * FROM MENU WHERE NOMBRE > ? ORDER BY NOMBRE) WHERE ROWNUM <= ?", despuesDe, filas);
+		return new RowCursor<Menu>(prepStmt.executeQuery(), MAPEO).todas();
 	}
 
 
@@ -95,10 +116,9 @@ public class DAOTablaMenus {
 	public Menu buscarMenusPorName(String name) throws SQLException, Exception {
 		Menu menus = null;
 
-		String sql = "SELECT * FROM MENU WHERE NOMBRE ='" + name + "'";
+		String sql = "SELECT * FROM MENU WHERE NOMBRE = ?";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, name);
 		ResultSet rs = prepStmt.executeQuery();
 
 		while (rs.next()) {
@@ -117,6 +137,7 @@ public class DAOTablaMenus {
 
 	/**
 	 * Metodo que agrega el menu que entra como parametro a la base de datos.
+	 * Tambien crea su fila en RESTAURANTE_PRODUCTO, que es de donde los pedidos descuentan las existencias del menu.
 	 * @param menu - el menu a agregar. menu !=  null
 	 * <b> post: </b> se ha agregado el menu a la base de datos en la transaction actual. pendiente que el menu master
 	 * haga commit para que el menu baje  a la base de datos.
@@ -125,16 +146,17 @@ public class DAOTablaMenus {
 	 */
 	public void addMenu(Menu menu) throws SQLException, Exception {
 
-		String sql = "INSERT INTO MENU VALUES ('";
-		sql += menu.getRestaurante() + "','";
-		sql += menu.getNombre() + "',";
-		sql += menu.getCostoProduccion() + ",";
-		sql += menu.getPrecioVenta()+","+menu.getDisponibles()+","+menu.getMaximo()+","+ menu.getTiempoPreparacion()+")";
+		String sql = "INSERT INTO MENU VALUES (?, ?, ?, ?, ?, ?, ?)";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
-		
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, menu.getRestaurante(), menu.getNombre(), menu.getCostoProduccion(),
+				menu.getPrecioVenta(), menu.getDisponibles(), menu.getMaximo(), menu.getTiempoPreparacion());
+		prepStmt.executeUpdate();
+
+		sql = "INSERT INTO RESTAURANTE_PRODUCTO VALUES(?, ?, ?, ?, ?, ?, ?)";
+
+		prepStmt = SentenciasSQL.preparar(conn, recursos, sql, menu.getRestaurante(), menu.getNombre(), menu.getCostoProduccion(),
+				menu.getTiempoPreparacion(), menu.getPrecioVenta(), menu.getDisponibles(), menu.getMaximo());
+		prepStmt.executeUpdate();
 	}
 	
 	/**
@@ -147,11 +169,10 @@ public class DAOTablaMenus {
 	 */
 	public void updateMenu(Menu menu) throws SQLException, Exception {
 
-		String sql = "UPDATE RESTAURANTE_PRODUCTO SET DISPONIBLES=DISPONIBLES-1 WHERE NOMBRE_PRODUCTO='"+menu.getNombre()+"'"; 
+		String sql = "UPDATE RESTAURANTE_PRODUCTO SET DISPONIBLES=DISPONIBLES-1 WHERE NOMBRE_PRODUCTO = ?";
 		
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, menu.getNombre());
+		prepStmt.executeUpdate();
 	}
 
 	/**
@@ -165,11 +186,10 @@ public class DAOTablaMenus {
 	public void deleteMenu(Menu menu) throws SQLException, Exception {
 
 		String sql = "DELETE FROM MENU";
-		sql += " WHERE NOMBRE = '" + menu.getNombre() + "'";
+		sql += " WHERE NOMBRE = ?";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, menu.getNombre());
+		prepStmt.executeUpdate();
 	}
 
 }
@@ -7,8 +7,10 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.List;
 import java.sql.Date;
 
+import log.Logger;
 import org.codehaus.jackson.annotate.JsonProperty;
 
 import vos.*;
@@ -17,8 +19,31 @@ import vos.*;
  * Clase DAO que se conecta la base de datos usando JDBC para resolver los requerimientos de la aplicación
  * @author Juan Carreo
  */
-public class DAOTablaPedidos {
+public class DAOTablaPedidos implements DAO {
 
+	private static final Logger LOG = Logger.get(DAOTablaPedidos.class);
+
+	/**
+	 * Paso de cada fila de PEDIDO a Pedido
+	 */
+	private static final RowCursor.Mapeo<Pedido> MAPEO = new RowCursor.Mapeo<Pedido>() {
+		@Override
+		public Pedido mapear(ResultSet rs) throws SQLException {
+			int id = rs.getInt("PEDIDO_ID");
+			float costoTotal = rs.getFloat("COSTO_TOTAL");
+			Date fecha = rs.getDate("FECHA");
+			int idUsuario = rs.getInt("ID_USUARIO");
+			String entrega = rs.getString("ENTREGADO");
+			Pedido ppedido=new Pedido(id, costoTotal, fecha, idUsuario,null,null);
+			ppedido.setEntregado(desicion(entrega));
+			return ppedido;
+		}
+	};
+
+	/**
+	 * Ids de PEDIDO, repartidos en bloques de la secuencia PEDIDO_SEQ (INCREMENT BY 100)
+	 */
+	private static final IdAllocator IDS_PEDIDO = new IdAllocator("PEDIDO_SEQ", 100);
 
 	/**
 	 * Arraylits de recursos que se usan para la ejecución de sentencias SQL
@@ -48,7 +73,7 @@ public class DAOTablaPedidos {
 				try {
 					((PreparedStatement) ob).close();
 				} catch (Exception ex) {
-					ex.printStackTrace();
+					LOG.warn("Error cerrando recurso", ex);
 				}
 		}
 	}
@@ -70,49 +95,39 @@ public class DAOTablaPedidos {
 	 * @throws Exception - Cualquier error que no corresponda a la base de datos
 	 */
 	public ArrayList<Pedido> darPedidos() throws SQLException, Exception {
-		ArrayList<Pedido> pedidos = new ArrayList<Pedido>();
-
-		String sql = "SELECT * FROM PEDIDO";
-
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		ResultSet rs = prepStmt.executeQuery();
-
-		while (rs.next()) {
-			int id = rs.getInt("PEDIDO_ID");
-			float costoTotal = rs.getFloat("COSTO_TOTAL");
-			Date fecha = rs.getDate("FECHA");
-			int idUsuario = rs.getInt("ID_USUARIO");
-			String entrega = rs.getString("ENTREGADO");
-			Pedido ppedido=new Pedido(id, costoTotal, fecha, idUsuario,null,null);
-			ppedido.setEntregado(desicion(entrega));;
-			pedidos.add(ppedido);
-		}
-		return pedidos;
+		return recorrerPedidos().todas();
 	}
-	
+
 	/**
-	 * Metodo que, usando la conexión a la base de datos, saca todos los pedidos de la base de datos
+	 * Metodo que abre un cursor sobre todos los pedidos de la base de datos, para leerlos uno por uno
 	 * <b>SQL Statement:</b> SELECT * FROM PEDIDO;
-	 * @return Arraylist con los pedidos de la base de datos.
+	 * @return RowCursor con los pedidos de la base de datos.
 	 * @throws SQLException - Cualquier error que la base de datos arroje.
-	 * @throws Exception - Cualquier error que no corresponda a la base de datos
 	 */
-	public Integer darPedidoIdUsuario(int id) throws SQLException, Exception {
-		
-		Integer idUsuario=null;
-		String sql = "SELECT MAX(PEDIDO_ID) MAXIMO FROM PEDIDO WHERE ID_USUARIO="+id;
-
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		ResultSet rs = prepStmt.executeQuery();
+	public RowCursor<Pedido> recorrerPedidos() throws SQLException {
+		String sql = "SELECT * FROM PEDIDO";
 
-		while (rs.next()) {
-		 idUsuario = rs.getInt("MAXIMO");
-		}
-		return idUsuario;
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql);
+		return new RowCursor<Pedido>(prepStmt.executeQuery(), MAPEO);
 	}
 
+	/**
+	 * Metodo que da una pagina de los pedidos ordenados por PEDIDO_ID despues de la llave despuesDe (ver tm.PageToken).
+	 * <b>SQL Statement:</b> SELECT * FROM (SELECT * FROM PEDIDO WHERE PEDIDO_ID > ? ORDER BY PEDIDO_ID) WHERE ROWNUM &lt;= ?;
+	 * @param despuesDe - id del ultimo pedido de la pagina anterior, null para la primera pagina
+	 * @param filas - maximo de filas de la pagina
+	 * @return Arraylist con los pedidos de la pagina.
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public ArrayList<Pedido> darPedidos(Integer despuesDe, int filas) throws SQLException {
+		PreparedStatement prepStmt;
+		if(despuesDe == null)
+			prepStmt = SentenciasSQL.preparar(conn, recursos, "SELECT * FROM (SELECT * FROM PEDIDO ORDER BY PEDIDO_ID) WHERE ROWNUM <= ?", filas);
+		else
+			prepStmt = SentenciasSQL.preparar(conn, recursos, "SELECT * FROM (SELECT * FROM PEDIDO WHERE PEDIDO_ID > ? ORDER BY PEDIDO_ID) WHERE ROWNUM <= ?", despuesDe, filas);
+		return new RowCursor<Pedido>(prepStmt.executeQuery(), MAPEO).todas();
+	}
+	
 	/**
 	 * Metodo que busca el pedido con el id que entra como parametro.
 	 * @param name - Id de el pedido a buscar
@@ -124,10 +139,9 @@ public class DAOTablaPedidos {
 	{
 		Pedido pedido = null;
 		
-		String sql = "SELECT * FROM PEDIDO WHERE PEDIDO_ID =" + id;
+		String sql = "SELECT * FROM PEDIDO WHERE PEDIDO_ID = ?";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, id);
 		ResultSet rs = prepStmt.executeQuery();
 
 		if(rs.next()) {
@@ -136,10 +150,9 @@ public class DAOTablaPedidos {
 			Date fecha = rs.getDate("FECHA");
 			int idUsuario = rs.getInt("ID_USUARIO");
 			pedido = new Pedido(idP, costoTotal, fecha, idUsuario, null,null);
-			sql = "SELECT * FROM PEDIDO JOIN MENU_PEDIDO ON PEDIDO.PEDIDO_ID=MENU_PEDIDO.ID_PEDIDO WHERE PEDIDO.PEDIDO_ID =" + id;
+			sql = "SELECT * FROM PEDIDO JOIN MENU_PEDIDO ON PEDIDO.PEDIDO_ID=MENU_PEDIDO.ID_PEDIDO WHERE PEDIDO.PEDIDO_ID = ?";
 
-			prepStmt = conn.prepareStatement(sql);
-			recursos.add(prepStmt);
+			prepStmt = SentenciasSQL.preparar(conn, recursos, sql, id);
 			rs = prepStmt.executeQuery();
 			
 			String producto=null;
@@ -153,10 +166,9 @@ public class DAOTablaPedidos {
 				
 				
 			}else{
-				sql = "SELECT * FROM PEDIDO JOIN PEDIDO_PRODUCTO ON PEDIDO.PEDIDO_ID= PEDIDO_PRODUCTO.ID_PEDIDO WHERE PEDIDO.PEDIDO_ID =" + id;
+				sql = "SELECT * FROM PEDIDO JOIN PEDIDO_PRODUCTO ON PEDIDO.PEDIDO_ID= PEDIDO_PRODUCTO.ID_PEDIDO WHERE PEDIDO.PEDIDO_ID = ?";
 				
-				prepStmt = conn.prepareStatement(sql);
-				recursos.add(prepStmt);
+				prepStmt = SentenciasSQL.preparar(conn, recursos, sql, id);
 				rs = prepStmt.executeQuery();
 			
 				if(rs.next()){
@@ -183,7 +195,7 @@ public class DAOTablaPedidos {
 
 	
 	
-	private boolean desicion(String ab){
+	private static boolean desicion(String ab){
 		if(ab.equals("T")){
 			return true;
 		}else{
@@ -201,27 +213,23 @@ public class DAOTablaPedidos {
 	 */
 	public void addPedido(Pedido pedido) throws SQLException, Exception {
 
-		String sql = "INSERT INTO PEDIDO VALUES (";
-		sql += pedido.getId() + ",";
-		sql += pedido.getCostoTotal() + ",";
-		sql += pedido.getIdUsuario() + ",SYSDATE,'F')";
-		 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
-		
-		Integer pedidoID = darPedidoIdUsuario(pedido.getIdUsuario()); 
+		int pedidoID = (int) IDS_PEDIDO.siguiente(conn);
 		pedido.setId(pedidoID);
+
+		String sql = "INSERT INTO PEDIDO VALUES (?, ?, ?, SYSDATE, 'F')";
+		 
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, pedidoID, pedido.getCostoTotal(), pedido.getIdUsuario());
+		prepStmt.executeUpdate();
 		
 		if(pedido.getMenu()!=null){
-			sql = "INSERT INTO MENU_PEDIDO VALUES ('"+pedido.getMenu().getNombre()+"','"+pedido.getMenu().getRestaurante()+"',"+pedidoID+")";
+			sql = "INSERT INTO MENU_PEDIDO VALUES (?, ?, ?)";
+			prepStmt = SentenciasSQL.preparar(conn, recursos, sql, pedido.getMenu().getNombre(), pedido.getMenu().getRestaurante(), pedidoID);
 		}else{
-			sql ="INSERT INTO PEDIDO_PRODUCTO VALUES ("+pedidoID+",'"+pedido.getProducto().getNombre()+"','"+pedido.getRestaurante()+"')";
+			sql ="INSERT INTO PEDIDO_PRODUCTO VALUES (?, ?, ?)";
+			prepStmt = SentenciasSQL.preparar(conn, recursos, sql, pedidoID, pedido.getProducto().getNombre(), pedido.getRestaurante());
 		}
 		
-		prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		prepStmt.executeUpdate();
 	}
 	
 	/**
@@ -237,11 +245,10 @@ public class DAOTablaPedidos {
 		Pedido pedido = buscarPedidoPorId(id);
 		pedido.setEntregado(true);
 		 ; 
-		String sql = "UPDATE PEDIDO SET ENTREGADO='T'WHERE PEDIDO_ID="+id;
+		String sql = "UPDATE PEDIDO SET ENTREGADO='T' WHERE PEDIDO_ID = ?";
 	
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, id);
+		prepStmt.executeUpdate();
 		return pedido;
 	}
 
@@ -256,29 +263,78 @@ public class DAOTablaPedidos {
 	public void deletePedido(Pedido pedido) throws SQLException, Exception {
 
 		String sql = "DELETE FROM PEDIDO";
-		sql += " WHERE PEDIDO_ID = '" + pedido.getId() + "'";
+		sql += " WHERE PEDIDO_ID = ?";
+
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, pedido.getId());
+		prepStmt.executeUpdate();
+	}
+
+	/**
+	 * Metodo que reserva los ids de los pedidos de una mesa.
+	 * Los ids quedan consecutivos, como lo supone la actualizacion de PEDIDO_MESA. Una mesa con mas de 100 lineas
+	 * toma varios bloques contiguos de PEDIDO_SEQ (ver IdAllocator.reservar).
+	 * @param cantidad - numero de ids que se necesitan
+	 * @return el primero de los ids reservados
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public int reservarIds(int cantidad) throws SQLException {
+		return (int) IDS_PEDIDO.reservar(conn, cantidad);
+	}
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+	/**
+	 * Metodo que agrega en lote los pedidos de una mesa con sus productos o menus.
+	 * Los pedidos deben traer el id asignado (ver reservarIds).
+	 * <b> post: </b> se han agregado los pedidos en la transaction actual. pendiente que el master haga commit.
+	 * @param pedidos - pedidos a agregar, cada uno con producto o menu
+	 * @throws SQLException - Cualquier error que la base de datos arroje. No pudo agregar los pedidos
+	 */
+	public void addPedidos(List<Pedido> pedidos) throws SQLException {
+
+		String sql = "INSERT INTO PEDIDO VALUES (?, ?, ?, SYSDATE, 'F')";
+		PreparedStatement prepPedido = SentenciasSQL.preparar(conn, recursos, sql);
+
+		sql = "INSERT INTO PEDIDO_PRODUCTO VALUES (?, ?, ?)";
+		PreparedStatement prepProducto = SentenciasSQL.preparar(conn, recursos, sql);
+
+		sql = "INSERT INTO MENU_PEDIDO VALUES (?, ?, ?)";
+		PreparedStatement prepMenu = SentenciasSQL.preparar(conn, recursos, sql);
+
+		boolean hayProductos = false;
+		boolean hayMenus = false;
+		for(Pedido pedido : pedidos) {
+			SentenciasSQL.asignar(prepPedido, pedido.getId(), pedido.getCostoTotal(), pedido.getIdUsuario());
+			prepPedido.addBatch();
+			if(pedido.getMenu()!=null){
+				SentenciasSQL.asignar(prepMenu, pedido.getMenu().getNombre(), pedido.getMenu().getRestaurante(), pedido.getId());
+				prepMenu.addBatch();
+				hayMenus = true;
+			}else{
+				SentenciasSQL.asignar(prepProducto, pedido.getId(), pedido.getProducto().getNombre(), pedido.getRestaurante());
+				prepProducto.addBatch();
+				hayProductos = true;
+			}
+		}
+		prepPedido.executeBatch();
+		if(hayProductos)
+			prepProducto.executeBatch();
+		if(hayMenus)
+			prepMenu.executeBatch();
 	}
 
 	public void addPedidoMesa(PedidoMesa pedido) throws SQLException {
 		
 		
-		String sql = "INSERT INTO PEDIDO_MESA VALUES("+pedido.getIdMesa()+","+pedido.getId()+",SYSDATE,"+pedido.getCostoTotal()+","+pedido.getNumProductos()+")"; 
+		String sql = "INSERT INTO PEDIDO_MESA VALUES(?, ?, SYSDATE, ?, ?)";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, pedido.getIdMesa(), pedido.getId(), pedido.getCostoTotal(), pedido.getNumProductos());
+		prepStmt.executeUpdate();
 	}
 
 	public PedidoMesa buscarPedidoMesaPorId(int id) throws SQLException {
 		
-		String sql = "SELECT * FROM PEDIDO_MESA where ID_PEDIDO="+id;
+		String sql = "SELECT * FROM PEDIDO_MESA where ID_PEDIDO = ?";
 	
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, id);
 		ResultSet rs = prepStmt.executeQuery();
 		
 		PedidoMesa rta = null;
@@ -6,10 +6,13 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
+import log.Logger;
 import vos.PreferenciaProducto;
 import vos.Producto;
 
-public class DAOTablaPreferenciaProducto {
+public class DAOTablaPreferenciaProducto implements DAO {
+
+	private static final Logger LOG = Logger.get(DAOTablaPreferenciaProducto.class);
 	
 	
 	/**
@@ -41,7 +44,7 @@ public class DAOTablaPreferenciaProducto {
 				try {
 					((PreparedStatement) ob).close();
 				} catch (Exception ex) {
-					ex.printStackTrace();
+					LOG.warn("Error cerrando recurso", ex);
 				}
 		}
 	}
@@ -60,12 +63,10 @@ public class DAOTablaPreferenciaProducto {
 	public void addPreferencia (PreferenciaProducto restaurante) throws SQLException, Exception {
 		
 	
-		String sql = "INSERT INTO PREFERENCIA_RESTAURANTE VALUES (";
-		sql += restaurante.getNumeroUsuario() + ",'";
-		sql += restaurante.getNombreProducto()+"')";
+		String sql = "INSERT INTO PREFERENCIA_PRODUCTO VALUES (?, ?)";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, restaurante.getNumeroUsuario(), restaurante.getNombreProducto());
+		prepStmt.executeUpdate();
 		
 	}
 	
@@ -75,11 +76,10 @@ public class DAOTablaPreferenciaProducto {
 		ArrayList<Producto> productos = new ArrayList<Producto>();
 
 		String sql = "SELECT NOMBRE, DESCRIPCION , TRADUCCION , CATEGORIA "
-				+ "FROM(SELECT * FROM PREFERENCIA_PRODUCTO WHERE NUMERO_USUARIO = "+ id +")JOIN"
+				+ "FROM(SELECT * FROM PREFERENCIA_PRODUCTO WHERE NUMERO_USUARIO = ?) JOIN "
 				+ "PRODUCTO ON NOMBRE = NOMBRE_PRODUCTO";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, id);
 		ResultSet rs = prepStmt.executeQuery();
 
 		while (rs.next()) {
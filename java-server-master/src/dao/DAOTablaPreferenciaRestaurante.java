@@ -6,10 +6,13 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
+import log.Logger;
 import vos.PreferenciaRestaurante;
 import vos.Restaurante;
 
-public class DAOTablaPreferenciaRestaurante {
+public class DAOTablaPreferenciaRestaurante implements DAO {
+
+	private static final Logger LOG = Logger.get(DAOTablaPreferenciaRestaurante.class);
 	
 	
 	/**
@@ -41,7 +44,7 @@ public class DAOTablaPreferenciaRestaurante {
 				try {
 					((PreparedStatement) ob).close();
 				} catch (Exception ex) {
-					ex.printStackTrace();
+					LOG.warn("Error cerrando recurso", ex);
 				}
 		}
 	}
@@ -59,11 +62,9 @@ public class DAOTablaPreferenciaRestaurante {
 	
 	public void addPreferencia (PreferenciaRestaurante restaurante) throws SQLException, Exception {
 		
-		String sql = "INSERT INTO PREFERENCIA_RESTAURANTE VALUES (";
-		sql += restaurante.getNumeroUsuario() + ",'";
-		sql += restaurante.getNombreRestaurante()+"')";
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		String sql = "INSERT INTO PREFERENCIA_RESTAURANTE VALUES (?, ?)";
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, restaurante.getNumeroUsuario(), restaurante.getNombreRestaurante());
+		prepStmt.executeUpdate();
 		
 	}
 	
@@ -73,11 +74,10 @@ public class DAOTablaPreferenciaRestaurante {
 		ArrayList<Restaurante> restaurantes = new ArrayList<Restaurante>();
 
 		String sql = "SELECT NOMBRE, PAGINAWEB , REPRESENTANTE , TIPO_COMIDA, NOMBREZONA "
-				+ "FROM(SELECT * FROM PREFERENCIA_RESTAURANTE WHERE NUMERO_USUARIO = "+ id +")JOIN"
+				+ "FROM(SELECT * FROM PREFERENCIA_RESTAURANTE WHERE NUMERO_USUARIO = ?) JOIN "
 				+ "RESTAURANTE ON NOMBRE = NOMBRE_RESTAURANTE";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, id);
 		ResultSet rs = prepStmt.executeQuery();
 
 		while (rs.next()) {
@@ -6,10 +6,13 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
+import log.Logger;
 import vos.PreferenciaZona;
 import vos.Zona;
 
-public class DAOTablaPreferenciaZona {
+public class DAOTablaPreferenciaZona implements DAO {
+
+	private static final Logger LOG = Logger.get(DAOTablaPreferenciaZona.class);
 	
 	
 	/**
@@ -41,7 +44,7 @@ public class DAOTablaPreferenciaZona {
 				try {
 					((PreparedStatement) ob).close();
 				} catch (Exception ex) {
-					ex.printStackTrace();
+					LOG.warn("Error cerrando recurso", ex);
 				}
 		}
 	}
@@ -60,12 +63,10 @@ public class DAOTablaPreferenciaZona {
 	public void addPreferencia (PreferenciaZona zona) throws SQLException, Exception {
 		
 	
-		String sql = "INSERT INTO PREFERENCIA_RESTAURANTE VALUES (";
-		sql += zona.getNumeroUsuario() + ",'";
-		sql += zona.getNombreZona()+"')";
+		String sql = "INSERT INTO PREFERENCIA_ZONA VALUES (?, ?)";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, zona.getNumeroUsuario(), zona.getNombreZona());
+		prepStmt.executeUpdate();
 		
 	}
 	
@@ -75,11 +76,10 @@ public class DAOTablaPreferenciaZona {
 		ArrayList<Zona> zonas = new ArrayList<Zona>();
 
 		String sql = "SELECT NOMBRE "
-				+ "FROM(SELECT * FROM PREFERENCIA_ZONA WHERE NUMERO_USUARIO = "+ id +")JOIN"
+				+ "FROM(SELECT * FROM PREFERENCIA_ZONA WHERE NUMERO_USUARIO = ?) JOIN "
 				+ "ZONA ON NOMBRE = NOMBRE_ZONA";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, id);
 		ResultSet rs = prepStmt.executeQuery();
 
 		while (rs.next()) {
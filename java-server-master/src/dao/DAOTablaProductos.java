@@ -7,14 +7,16 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
+import log.Logger;
 import vos.*;
 
 /**
  * Clase DAO que se conecta la base de datos usando JDBC para resolver los requerimientos de la aplicación
  * @author Juan Carreo
  */
-public class DAOTablaProductos {
+public class DAOTablaProductos implements DAO {
 
+	private static final Logger LOG = Logger.get(DAOTablaProductos.class);
 
 	/**
 	 * Arraylits de recursos que se usan para la ejecución de sentencias SQL
@@ -44,7 +46,7 @@ public class DAOTablaProductos {
 				try {
 					((PreparedStatement) ob).close();
 				} catch (Exception ex) {
-					ex.printStackTrace();
+					LOG.warn("Error cerrando recurso", ex);
 				}
 		}
 	}
@@ -70,13 +72,10 @@ public class DAOTablaProductos {
 
 		String sql = "SELECT * FROM PRODUCTOS2 join RESTAURANTE_PRODUCTO ON NOMBRE=RESTAURANTE_PRODUCTO.NOMBRE_PRODUCTO";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql);
 		ResultSet rs = prepStmt.executeQuery();
 
-		int cont = 0;
-		boolean algo = true;
-		while (rs.next() && algo) {
+		while (rs.next()) {
 			String name = rs.getString("NOMBRE");
 			String descripcion = rs.getString("DESCRIPCION");
 			String traduccion = rs.getString("TRADUCCION");
@@ -88,10 +87,6 @@ public class DAOTablaProductos {
 			int maximo = rs.getInt("MAXIMO");
 			
 			productos.add(new Producto(name, disponibles, descripcion, traduccion, tiempo, costo, precio, categoria,maximo));
-			if (cont==5){
-			algo = false;
-			}
-			cont++;
 		}
 		return productos;
 	}
@@ -99,9 +94,8 @@ public class DAOTablaProductos {
 
 	public String darNombreRestaurante( String nombre) throws SQLException, Exception {
 
-		String sql = "SELECT RESTAURANTE_PRODUCTO.NOMBRE_RESTAURANTE AS NOMBRE FROM PRODUCTO JOIN RESTAURANTE_PRODUCTO ON PRODUCTO.NOMBRE= RESTAURANTE_PRODUCTO.NOMBRE_PRODUCTO WHERE NOMBRE='"+nombre+"'";
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		String sql = "SELECT RESTAURANTE_PRODUCTO.NOMBRE_RESTAURANTE AS NOMBRE FROM PRODUCTO JOIN RESTAURANTE_PRODUCTO ON PRODUCTO.NOMBRE= RESTAURANTE_PRODUCTO.NOMBRE_PRODUCTO WHERE NOMBRE = ?";
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, nombre);
 		ResultSet rs = prepStmt.executeQuery();
 		
 		String restaurante= null; 
@@ -125,10 +119,9 @@ public class DAOTablaProductos {
 	public Producto buscarProductosPorNombre(String name) throws SQLException, Exception {
 		Producto productos=null ;
 
-		String sql = "SELECT * FROM PRODUCTO JOIN RESTAURANTE_PRODUCTO ON PRODUCTO.NOMBRE= RESTAURANTE_PRODUCTO.NOMBRE_PRODUCTO WHERE NOMBRE='"+ name +"'";
+		String sql = "SELECT * FROM PRODUCTO JOIN RESTAURANTE_PRODUCTO ON PRODUCTO.NOMBRE= RESTAURANTE_PRODUCTO.NOMBRE_PRODUCTO WHERE NOMBRE = ?";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, name);
 		ResultSet rs = prepStmt.executeQuery();
 
 		while (rs.next()) {
@@ -157,38 +150,31 @@ public class DAOTablaProductos {
 	 */
 	public void addProducto(Producto producto , Restaurante restaurante) throws SQLException, Exception {
 
-		String sql = "SELECT * FROM CATEGORIA WHERE NOMBRE ='" + producto.getCategoria() + "'";
+		String sql = "SELECT * FROM CATEGORIA WHERE NOMBRE = ?";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, producto.getCategoria());
 		ResultSet rs = prepStmt.executeQuery();
 		
 		if(!(rs.next())){
-			sql = "INSERT INTO CATEGORIA VALUES ('"+ producto.getCategoria() +"')";
+			sql = "INSERT INTO CATEGORIA VALUES (?)";
 
-			prepStmt = conn.prepareStatement(sql);
-			recursos.add(prepStmt);
-			prepStmt.executeQuery();
+			prepStmt = SentenciasSQL.preparar(conn, recursos, sql, producto.getCategoria());
+			prepStmt.executeUpdate();
 		}
 		
 		
-		sql = "INSERT INTO PRODUCTO VALUES ('";
-		sql += producto.getNombre() + "','";
-		sql += producto.getDescripcion() + "','";
-		sql += producto.getTraduccion() + "','";
-		sql += producto.getCategoria() + "')";
-
-		prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		sql = "INSERT INTO PRODUCTO VALUES (?, ?, ?, ?)";
+
+		prepStmt = SentenciasSQL.preparar(conn, recursos, sql, producto.getNombre(), producto.getDescripcion(),
+				producto.getTraduccion(), producto.getCategoria());
+		prepStmt.executeUpdate();
 		
 		//INSERT INTO RESTAURANTE_PRODUCTO VALUES('Corral','diana',20,10,22,16,16); 
-		sql="INSERT INTO RESTAURANTE_PRODUCTO VALUES('";
+		sql="INSERT INTO RESTAURANTE_PRODUCTO VALUES(?, ?, ?, ?, ?, ?, ?)";
 		
-		sql+= restaurante.getNombre()+"',"+"'"+producto.getNombre()+"',"+producto.getCostoProduccion()+","+ producto.getTiempoPreparacion()+"," +producto.getPrecioVenta()+","+producto.getDisponible()+","+producto.getMaximo()+")";
-		prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		prepStmt = SentenciasSQL.preparar(conn, recursos, sql, restaurante.getNombre(), producto.getNombre(), producto.getCostoProduccion(),
+				producto.getTiempoPreparacion(), producto.getPrecioVenta(), producto.getDisponible(), producto.getMaximo());
+		prepStmt.executeUpdate();
 	}
 	
 	/**
@@ -202,11 +188,39 @@ public class DAOTablaProductos {
 	public void updateProducto(Producto producto) throws SQLException, Exception {
 
 		//UPDATE RESTAURANTE_PRODUCTO SET DISPONIBLES=MAXIMO WHERE NOMBRE_PRODUCTO='alitas3';
-		String sql = "UPDATE RESTAURANTE_PRODUCTO SET DISPONIBLES=DISPONIBLES-1 WHERE NOMBRE_PRODUCTO='"+producto.getNombre()+"'"; 
+		String sql = "UPDATE RESTAURANTE_PRODUCTO SET DISPONIBLES=DISPONIBLES-1 WHERE NOMBRE_PRODUCTO = ?";
 		
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, producto.getNombre());
+		prepStmt.executeUpdate();
+	}
+
+	/**
+	 * Metodo que descuenta una unidad de las existencias del producto o menu con el nombre que entra como parametro,
+	 * solo si todavia quedan unidades disponibles.
+	 * <b> post: </b> se ha descontado la unidad en la transaction actual. pendiente que el master haga commit.
+	 * @param nombre - nombre del producto o menu en RESTAURANTE_PRODUCTO
+	 * @return true si se desconto la unidad, false si no quedaban existencias
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public boolean descontarDisponible(String nombre) throws SQLException {
+		return descontarDisponibles(nombre, 1);
+	}
+
+	/**
+	 * Metodo que descuenta varias unidades de las existencias del producto o menu con el nombre que entra como parametro,
+	 * solo si quedan al menos esas unidades disponibles.
+	 * <b> post: </b> se han descontado las unidades en la transaction actual. pendiente que el master haga commit.
+	 * @param nombre - nombre del producto o menu en RESTAURANTE_PRODUCTO
+	 * @param cantidad - unidades a descontar
+	 * @return true si se descontaron las unidades, false si no alcanzaban las existencias
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public boolean descontarDisponibles(String nombre, int cantidad) throws SQLException {
+
+		String sql = "UPDATE RESTAURANTE_PRODUCTO SET DISPONIBLES=DISPONIBLES-? WHERE NOMBRE_PRODUCTO = ? AND DISPONIBLES >= ?";
+
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, cantidad, nombre, cantidad);
+		return prepStmt.executeUpdate() > 0;
 	}
 
 	/**
@@ -220,11 +234,10 @@ public class DAOTablaProductos {
 	public void deleteProducto(Producto producto) throws SQLException, Exception {
 
 		String sql = "DELETE FROM PRODUCTO";
-		sql += " WHERE NOMBRE = '" + producto.getNombre() + "'";
+		sql += " WHERE NOMBRE = ?";
 		
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, producto.getNombre());
+		prepStmt.executeUpdate();
 	}
 
 }
@@ -0,0 +1,210 @@
+package dao;
+
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import log.Logger;
+
+/**
+ * Clase DAO de la bitacora de reservas de existencias (tabla STOCK_RESERVA, ver Docs/Reservas.sql).
+ * Cada pedido deja en la bitacora las unidades que reservo en lugar de actualizar RESTAURANTE_PRODUCTO;
+ * tm.StockReservations descarga la bitacora por lotes: reclama las filas, descuenta DISPONIBLES y borra el lote
+ * en una sola transaccion, asi cada fila se aplica exactamente una vez aunque el servidor se caiga a la mitad.
+ */
+public class DAOTablaReservas implements DAO {
+
+	private static final Logger LOG = Logger.get(DAOTablaReservas.class);
+
+	/**
+	 * Arraylits de recursos que se usan para la ejecucion de sentencias SQL
+	 */
+	private ArrayList<Object> recursos;
+
+	/**
+	 * Atributo que genera la conexion a la base de datos
+	 */
+	private Connection conn;
+
+	/**
+	 * Metodo constructor que crea DAOTablaReservas
+	 * <b>post: </b> Crea la instancia del DAO e inicializa el Arraylist de recursos
+	 */
+	public DAOTablaReservas() {
+		recursos = new ArrayList<Object>();
+	}
+
+	/**
+	 * Metodo que cierra todos los recursos que estan enel arreglo de recursos
+	 * <b>post: </b> Todos los recurso del arreglo de recursos han sido cerrados
+	 */
+	public void cerrarRecursos() {
+		for(Object ob : recursos){
+			if(ob instanceof PreparedStatement)
+				try {
+					((PreparedStatement) ob).close();
+				} catch (Exception ex) {
+					LOG.warn("Error cerrando recurso", ex);
+				}
+		}
+	}
+
+	/**
+	 * Metodo que inicializa la connection del DAO a la base de datos con la conexion que entra como parametro.
+	 * @param con  - connection a la base de datos
+	 */
+	public void setConn(Connection con){
+		this.conn = con;
+	}
+
+	/**
+	 * Metodo que revisa si la tabla STOCK_RESERVA existe, es decir si ya se corrio Docs/Reservas.sql.
+	 * @return true si la tabla se puede consultar, false si la base de datos la rechaza
+	 */
+	public boolean existeBitacora() {
+
+		String sql = "SELECT 1 FROM STOCK_RESERVA WHERE 1 = 0";
+
+		try {
+			PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql);
+			prepStmt.executeQuery();
+			return true;
+		} catch (SQLException e) {
+			LOG.debug("STOCK_RESERVA no se puede consultar: {}", e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Metodo que agrega a la bitacora las unidades reservadas de un producto o menu.
+	 * <b> post: </b> la reserva queda en la transaccion actual, pendiente del commit del pedido.
+	 * @param nombre - nombre del producto o menu en RESTAURANTE_PRODUCTO
+	 * @param cantidad - unidades reservadas
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public void registrarReserva(String nombre, int cantidad) throws SQLException {
+
+		String sql = "INSERT INTO STOCK_RESERVA (NOMBRE_PRODUCTO, CANTIDAD) VALUES (?, ?)";
+
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, nombre, cantidad);
+		prepStmt.executeUpdate();
+	}
+
+	/**
+	 * Metodo que da las existencias de un producto o menu.
+	 * @param nombre - nombre del producto o menu
+	 * @return arreglo {DISPONIBLES, MAXIMO} o null si el nombre no esta en RESTAURANTE_PRODUCTO
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public int[] darExistencias(String nombre) throws SQLException {
+
+		String sql = "SELECT DISPONIBLES, MAXIMO FROM RESTAURANTE_PRODUCTO WHERE NOMBRE_PRODUCTO = ?";
+
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, nombre);
+		ResultSet rs = prepStmt.executeQuery();
+		if(!rs.next())
+			return null;
+		return new int[] {rs.getInt("DISPONIBLES"), rs.getInt("MAXIMO")};
+	}
+
+	/**
+	 * Metodo que da las unidades de un producto o menu que estan en la bitacora y todavia no se han descontado.
+	 * @param nombre - nombre del producto o menu
+	 * @return unidades pendientes
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public int darReservasPendientes(String nombre) throws SQLException {
+
+		String sql = "SELECT NVL(SUM(CANTIDAD), 0) AS PENDIENTES FROM STOCK_RESERVA WHERE NOMBRE_PRODUCTO = ?";
+
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, nombre);
+		ResultSet rs = prepStmt.executeQuery();
+		rs.next();
+		return rs.getInt("PENDIENTES");
+	}
+
+	/**
+	 * Metodo que marca con el numero de lote todas las reservas confirmadas que no tienen lote.
+	 * Las reservas de pedidos que todavia no hacen commit no se ven y quedan para el siguiente lote.
+	 * @param lote - numero del lote
+	 * @return numero de filas reclamadas
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public int reclamarLote(long lote) throws SQLException {
+
+		String sql = "UPDATE STOCK_RESERVA SET LOTE = ? WHERE LOTE IS NULL";
+
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, lote);
+		return prepStmt.executeUpdate();
+	}
+
+	/**
+	 * Metodo que suma por producto las unidades de un lote reclamado.
+	 * @param lote - numero del lote
+	 * @return unidades del lote por nombre de producto o menu
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public Map<String, Integer> darLote(long lote) throws SQLException {
+
+		Map<String, Integer> unidades = new HashMap<String, Integer>();
+		String sql = "SELECT NOMBRE_PRODUCTO, SUM(CANTIDAD) AS UNIDADES FROM STOCK_RESERVA WHERE LOTE = ? GROUP BY NOMBRE_PRODUCTO";
+
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, lote);
+		ResultSet rs = prepStmt.executeQuery();
+		while(rs.next())
+			unidades.put(rs.getString("NOMBRE_PRODUCTO"), rs.getInt("UNIDADES"));
+		return unidades;
+	}
+
+	/**
+	 * Metodo que descuenta de DISPONIBLES las unidades de un lote, una sentencia por producto en un solo batch.
+	 * DISPONIBLES nunca queda negativo: si alguien lo bajo por fuera de la bitacora el descuento se recorta en 0.
+	 * @param unidades - unidades por nombre de producto o menu
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public void aplicarLote(Map<String, Integer> unidades) throws SQLException {
+
+		if(unidades.isEmpty())
+			return;
+		String sql = "UPDATE RESTAURANTE_PRODUCTO SET DISPONIBLES = GREATEST(DISPONIBLES - ?, 0) WHERE NOMBRE_PRODUCTO = ?";
+
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql);
+		for(Map.Entry<String, Integer> entrada : unidades.entrySet()) {
+			SentenciasSQL.asignar(prepStmt, entrada.getValue(), entrada.getKey());
+			prepStmt.addBatch();
+		}
+		prepStmt.executeBatch();
+	}
+
+	/**
+	 * Metodo que borra de la bitacora las reservas de un lote ya aplicado.
+	 * @param lote - numero del lote
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public void borrarLote(long lote) throws SQLException {
+
+		String sql = "DELETE FROM STOCK_RESERVA WHERE LOTE = ?";
+
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, lote);
+		prepStmt.executeUpdate();
+	}
+
+	/**
+	 * Metodo que baja DISPONIBLES a MAXIMO si lo supera.
+	 * @param nombre - nombre del producto o menu
+	 * @return true si hubo que ajustar las existencias
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public boolean ajustarAMaximo(String nombre) throws SQLException {
+
+		String sql = "UPDATE RESTAURANTE_PRODUCTO SET DISPONIBLES = MAXIMO WHERE NOMBRE_PRODUCTO = ? AND DISPONIBLES > MAXIMO";
+
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, nombre);
+		return prepStmt.executeUpdate() > 0;
+	}
+}
@@ -8,13 +8,31 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
+import log.Logger;
 import vos.*;
 
 /**
  * Clase DAO que se conecta la base de datos usando JDBC para resolver los requerimientos de la aplicación
  * @author Juan Carreo
  */
-public class DAOTablaRestaurantes {
+public class DAOTablaRestaurantes implements DAO {
+
+	private static final Logger LOG = Logger.get(DAOTablaRestaurantes.class);
+
+	/**
+	 * Paso de cada fila de RESTAURANTE a Restaurante
+	 */
+	private static final RowCursor.Mapeo<Restaurante> MAPEO = new RowCursor.Mapeo<Restaurante>() {
+		@Override
+		public Restaurante mapear(ResultSet rs) throws SQLException {
+			String name = rs.getString("NOMBRE");
+			String tipoComida = rs.getString("TIPO_COMIDA");
+			String paginaWeb = rs.getString("PAGINAWEB");
+			String representante = rs.getString("REPRESENTANTE");
+			String nombreZona = rs.getString("NOMBREZONA");
+			return new Restaurante(name, tipoComida, paginaWeb, representante, nombreZona);
+		}
+	};
 
 	/**
 	 * Arraylits de recursos que se usan para la ejecución de sentencias SQL
@@ -44,7 +62,7 @@ public class DAOTablaRestaurantes {
 				try {
 					((PreparedStatement) ob).close();
 				} catch (Exception ex) {
-					ex.printStackTrace();
+					LOG.warn("Error cerrando recurso", ex);
 				}
 		}
 	}
@@ -66,23 +84,37 @@ public class DAOTablaRestaurantes {
 	 * @throws Exception - Cualquier error que no corresponda a la base de datos
 	 */
 	public ArrayList<Restaurante> darRestaurantes() throws SQLException, Exception {
-		ArrayList<Restaurante> restaurantes = new ArrayList<Restaurante>();
+		return recorrerRestaurantes().todas();
+	}
 
+	/**
+	 * Metodo que abre un cursor sobre todos los restaurantes de la base de datos, para leerlos uno por uno
+	 * <b>SQL Statement:</b> SELECT * FROM RESTAURANTE;
+	 * @return RowCursor con los restaurantes de la base de datos.
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public RowCursor<Restaurante> recorrerRestaurantes() throws SQLException {
 		String sql = "SELECT * FROM RESTAURANTE";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		ResultSet rs = prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql);
+		return new RowCursor<Restaurante>(prepStmt.executeQuery(), MAPEO);
+	}
 
-		while (rs.next()) {
-			String name = rs.getString("NOMBRE");
-			String tipoComida = rs.getString("TIPO_COMIDA");
-			String paginaWeb = rs.getString("PAGINAWEB");
-			String representante = rs.getString("REPRESENTANTE");
-			String nombreZona = rs.getString("NOMBREZONA");		
-			restaurantes.add(new Restaurante(name, tipoComida, paginaWeb, representante, nombreZona));
-		}
-		return restaurantes;
+	/**
+	 * Metodo que da una pagina de los restaurantes ordenados por NOMBRE despues de la llave despuesDe (ver tm.PageToken).
+	 * <b>SQL Statement:</b> SELECT * FROM (SELECT * FROM RESTAURANTE WHERE NOMBRE > ? ORDER BY NOMBRE) WHERE ROWNUM &lt;= ?;
+	 * @param despuesDe - nombre del ultimo restaurante de la pagina anterior, null para la primera pagina
+	 * @param filas - maximo de filas de la pagina
+	 * @return Arraylist con los restaurantes de la pagina.
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public ArrayList<Restaurante> darRestaurantes(String despuesDe, int filas) throws SQLException {
+		PreparedStatement prepStmt;
+		if(despuesDe == null)
+			prepStmt = SentenciasSQL.preparar(conn, recursos, "SELECT * FROM (SELECT * FROM RESTAURANTE ORDER BY NOMBRE) WHERE ROWNUM <= ?", filas);
+		else
+			prepStmt = SentenciasSQL.preparar(conn, recursos, "SELECT * FROM (SELECT * FROM RESTAURANTE WHERE NOMBRE > ? ORDER BY NOMBRE) WHERE ROWNUM <= ?", despuesDe, filas);
+		return new RowCursor<Restaurante>(prepStmt.executeQuery(), MAPEO).todas();
 	}
 
 
@@ -96,10 +128,9 @@ public class DAOTablaRestaurantes {
 	public Restaurante buscarRestaurantesPorNombre(String name) throws SQLException, Exception {
 		Restaurante restaurante = null ;
 
-		String sql = "SELECT * FROM RESTAURANTE WHERE NOMBRE ='" + name + "'";
+		String sql = "SELECT * FROM RESTAURANTE WHERE NOMBRE = ?";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, name);
 		ResultSet rs = prepStmt.executeQuery();
 
 		while (rs.next()) {
@@ -124,16 +155,11 @@ public class DAOTablaRestaurantes {
 	 */
 	public void addRestaurante(Restaurante restaurante) throws SQLException, Exception {
 
-		String sql = "INSERT INTO RESTAURANTE (NOMBRE,PAGINAWEB,REPRESENTANTE,TIPO_COMIDA,NOMBREZONA ) VALUES ('";
-		sql += restaurante.getNombre() + "','";
-		sql += restaurante.getPaginaWeb() + "','";
-		sql += restaurante.getRepresentante() + "','";
-		sql += restaurante.getTipoComida() + "','";
-		sql += restaurante.getNombreZona() + "')";
+		String sql = "INSERT INTO RESTAURANTE (NOMBRE,PAGINAWEB,REPRESENTANTE,TIPO_COMIDA,NOMBREZONA ) VALUES (?, ?, ?, ?, ?)";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, restaurante.getNombre(), restaurante.getPaginaWeb(), restaurante.getRepresentante(),
+				restaurante.getTipoComida(), restaurante.getNombreZona());
+		prepStmt.executeUpdate();
 
 	}
 	
@@ -147,11 +173,10 @@ public class DAOTablaRestaurantes {
 	 */
 	public void updateRestaurante(String producto) throws SQLException, Exception {
 
-		String sql = "UPDATE RESTAURANTE_PRODUCTO SET DISPONIBLES=MAXIMO WHERE NOMBRE_PRODUCTO='"+producto+"'";
+		String sql = "UPDATE RESTAURANTE_PRODUCTO SET DISPONIBLES=MAXIMO WHERE NOMBRE_PRODUCTO = ?";
 		
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, producto);
+		prepStmt.executeUpdate();
 	}
 
 	/**
@@ -165,11 +190,10 @@ public class DAOTablaRestaurantes {
 	public void deleteRestaurante(String restaurante) throws SQLException, Exception {
 
 		String sql = "DELETE FROM RESTAURANTE";
-		sql += " WHERE NOMBRE = '" + restaurante + "'";
+		sql += " WHERE NOMBRE = ?";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, restaurante);
+		prepStmt.executeUpdate();
 	}
 
 }
@@ -8,10 +8,27 @@ import java.util.ArrayList;
 
 import javax.print.DocFlavor.STRING;
 
+import log.Logger;
 import vos.Restaurante;
 import vos.Usuario;
 
-public class DAOTablaUsuarios {
+public class DAOTablaUsuarios implements DAO {
+
+	private static final Logger LOG = Logger.get(DAOTablaUsuarios.class);
+
+		/**
+		 * Paso de cada fila de USUARIO a Usuario
+		 */
+		private static final RowCursor.Mapeo<Usuario> MAPEO = new RowCursor.Mapeo<Usuario>() {
+			@Override
+			public Usuario mapear(ResultSet rs) throws SQLException {
+				Integer numero = rs.getInt("NUMERO_ID");
+				String nombre = rs.getString("NOMBRE");
+				String rol = rs.getString("ROL");
+				String email = rs.getString("EMAIL");
+				return new Usuario(numero, nombre , rol, email);
+			}
+		};
 	
 		/**
 		 * Arraylits de recursos que se usan para la ejecución de sentencias SQL
@@ -41,7 +58,7 @@ public class DAOTablaUsuarios {
 					try {
 						((PreparedStatement) ob).close();
 					} catch (Exception ex) {
-						ex.printStackTrace();
+						LOG.warn("Error cerrando recurso", ex);
 					}
 			}
 		}
@@ -63,22 +80,37 @@ public class DAOTablaUsuarios {
 		 * @throws Exception - Cualquier error que no corresponda a la base de datos
 		 */
 		public ArrayList<Usuario> darUsuarios() throws SQLException, Exception {
-			ArrayList<Usuario> usuarios = new ArrayList<Usuario>();
+			return recorrerUsuarios().todas();
+		}
 
+		/**
+		 * Metodo que abre un cursor sobre todos los usuarios de la base de datos, para leerlos uno por uno
+		 * <b>SQL Statement:</b> SELECT * FROM USUARIO;
+		 * @return RowCursor con los usuarios de la base de datos.
+		 * @throws SQLException - Cualquier error que la base de datos arroje.
+		 */
+		public RowCursor<Usuario> recorrerUsuarios() throws SQLException {
 			String sql = "SELECT * FROM USUARIO";
 
-			PreparedStatement prepStmt = conn.prepareStatement(sql);
-			recursos.add(prepStmt);
-			ResultSet rs = prepStmt.executeQuery();
+			PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql);
+			return new RowCursor<Usuario>(prepStmt.executeQuery(), MAPEO);
+		}
 
-			while (rs.next()) {
-				Integer numero = rs.getInt("NUMERO_ID");
-				String nombre = rs.getString("NOMBRE");
-				String rol = rs.getString("ROL");
-				String email = rs.getString("EMAIL");
-				usuarios.add(new Usuario(numero, nombre , rol, email));
-			}
-			return usuarios;
+		/**
+		 * Metodo que da una pagina de los usuarios ordenados por NUMERO_ID despues de la llave despuesDe (ver tm.PageToken).
+		 * <b>SQL Statement:</b> SELECT * FROM (SELECT * FROM USUARIO WHERE NUMERO_ID > ? ORDER BY NUMERO_ID) WHERE ROWNUM &lt;= ?;
+		 * @param despuesDe - numero del ultimo usuario de la pagina anterior, null para la primera pagina
+		 * @param filas - maximo de filas de la pagina
+		 * @return Arraylist con los usuarios de la pagina.
+		 * @throws SQLException - Cualquier error que la base de datos arroje.
+		 */
+		public ArrayList<Usuario> darUsuarios(Integer despuesDe, int filas) throws SQLException {
+			PreparedStatement prepStmt;
+			if(despuesDe == null)
+				prepStmt = SentenciasSQL.preparar(conn, recursos, "SELECT * FROM (SELECT * FROM USUARIO ORDER BY NUMERO_ID) WHERE ROWNUM <= ?", filas);
+			else
+				prepStmt = SentenciasSQL.preparar(conn, recursos, "SELECT * FROM (SELECT * FROM USUARIO WHERE NUMERO_ID > ? ORDER BY NUMERO_ID) WHERE ROWNUM <= ?", despuesDe, filas);
+			return new RowCursor<Usuario>(prepStmt.executeQuery(), MAPEO).todas();
 		}
 
 
@@ -92,10 +124,9 @@ public class DAOTablaUsuarios {
 		public ArrayList<Usuario> buscarUsuarioPorName(String name) throws SQLException, Exception {
 			ArrayList<Usuario> usuarios = new ArrayList<Usuario>();
 
-			String sql = "SELECT * FROM USUARIO WHERE NOMBRE ='" + name + "'";
+			String sql = "SELECT * FROM USUARIO WHERE NOMBRE = ?";
 
-			PreparedStatement prepStmt = conn.prepareStatement(sql);
-			recursos.add(prepStmt);
+			PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, name);
 			ResultSet rs = prepStmt.executeQuery();
 
 			while (rs.next()) {
@@ -120,10 +151,9 @@ public class DAOTablaUsuarios {
 		{
 			Usuario usuario = null;
 
-			String sql = "SELECT * FROM USUARIO WHERE NUMERO_ID  =" + id;
+			String sql = "SELECT * FROM USUARIO WHERE NUMERO_ID = ?";
 
-			PreparedStatement prepStmt = conn.prepareStatement(sql);
-			recursos.add(prepStmt);
+			PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, id);
 			ResultSet rs = prepStmt.executeQuery();
 
 			if(rs.next()) {
@@ -150,15 +180,10 @@ public class DAOTablaUsuarios {
 			String rol = usuario.getRol().toUpperCase().trim() ;
 			if(rol.equals("ADMINISTRADOR")||rol.equals("USUARIO")||rol.equals("CLIENTE")){
 				
-			String sql = "INSERT INTO USUARIO VALUES (";
-			sql += usuario.getId() + ",'";
-			sql += usuario.getNombre() + "','";
-			sql += usuario.getRol() + "','";
-			sql += usuario.getEmail() + "')";
-
-			PreparedStatement prepStmt = conn.prepareStatement(sql);
-			recursos.add(prepStmt);
-			prepStmt.executeQuery();
+			String sql = "INSERT INTO USUARIO VALUES (?, ?, ?, ?)";
+
+			PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, usuario.getId(), usuario.getNombre(), usuario.getRol(), usuario.getEmail());
+			prepStmt.executeUpdate();
 			}else{
 				throw new Exception("El rol no concide con alguno permitido ");
 			}
@@ -17,14 +17,16 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
+import log.Logger;
 import vos.*;
 
 /**
  * Clase DAO que se conecta la base de datos usando JDBC para resolver los requerimientos de la aplicación
  * @author Monitores 2017-20
  */
-public class DAOTablaVideos {
+public class DAOTablaVideos implements DAO {
 
+	private static final Logger LOG = Logger.get(DAOTablaVideos.class);
 
 	/**
 	 * Arraylits de recursos que se usan para la ejecución de sentencias SQL
@@ -54,7 +56,7 @@ public class DAOTablaVideos {
 				try {
 					((PreparedStatement) ob).close();
 				} catch (Exception ex) {
-					ex.printStackTrace();
+					LOG.warn("Error cerrando recurso", ex);
 				}
 		}
 	}
@@ -80,8 +82,7 @@ public class DAOTablaVideos {
 
 		String sql = "SELECT * FROM VIDEO";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql);
 		ResultSet rs = prepStmt.executeQuery();
 
 		while (rs.next()) {
@@ -104,10 +105,9 @@ public class DAOTablaVideos {
 	public ArrayList<Video> buscarVideosPorName(String name) throws SQLException, Exception {
 		ArrayList<Video> videos = new ArrayList<Video>();
 
-		String sql = "SELECT * FROM VIDEO WHERE NAME ='" + name + "'";
+		String sql = "SELECT * FROM VIDEO WHERE NAME = ?";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, name);
 		ResultSet rs = prepStmt.executeQuery();
 
 		while (rs.next()) {
@@ -131,10 +131,9 @@ public class DAOTablaVideos {
 	{
 		Video video = null;
 
-		String sql = "SELECT * FROM VIDEO WHERE ID =" + id;
+		String sql = "SELECT * FROM VIDEO WHERE ID = ?";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, id);
 		ResultSet rs = prepStmt.executeQuery();
 
 		if(rs.next()) {
@@ -157,14 +156,10 @@ public class DAOTablaVideos {
 	 */
 	public void addVideo(Video video) throws SQLException, Exception {
 
-		String sql = "INSERT INTO VIDEO VALUES (";
-		sql += video.getId() + ",'";
-		sql += video.getName() + "',";
-		sql += video.getDuration() + ")";
+		String sql = "INSERT INTO VIDEO VALUES (?, ?, ?)";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, video.getId(), video.getName(), video.getDuration());
+		prepStmt.executeUpdate();
 
 	}
 	
@@ -179,14 +174,13 @@ public class DAOTablaVideos {
 	public void updateVideo(Video video) throws SQLException, Exception {
 
 		String sql = "UPDATE VIDEO SET ";
-		sql += "NAME='" + video.getName() + "',";
-		sql += "DURATION=" + video.getDuration();
-		sql += " WHERE ID = " + video.getId();
+		sql += "NAME = ?, ";
+		sql += "DURATION = ?";
+		sql += " WHERE ID = ?";
 
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, video.getName(), video.getDuration(), video.getId());
+		prepStmt.executeUpdate();
 	}
 
 	/**
@@ -200,11 +194,10 @@ public class DAOTablaVideos {
 	public void deleteVideo(Video video) throws SQLException, Exception {
 
 		String sql = "DELETE FROM VIDEO";
-		sql += " WHERE ID = " + video.getId();
+		sql += " WHERE ID = ?";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, video.getId());
+		prepStmt.executeUpdate();
 	}
 
 }
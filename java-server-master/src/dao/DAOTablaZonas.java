@@ -7,14 +7,27 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
+import log.Logger;
 import vos.*;
 
 /**
  * Clase DAO que se conecta la base de datos usando JDBC para resolver los requerimientos de la aplicación
  * @author Juan Carreo
  */
-public class DAOTablaZonas {
+public class DAOTablaZonas implements DAO {
 
+	private static final Logger LOG = Logger.get(DAOTablaZonas.class);
+
+	/**
+	 * Paso de cada fila de ZONA a Zona
+	 */
+	private static final RowCursor.Mapeo<Zona> MAPEO = new RowCursor.Mapeo<Zona>() {
+		@Override
+		public Zona mapear(ResultSet rs) throws SQLException {
+			String name = rs.getString("NOMBRE");
+			return new Zona(name);
+		}
+	};
 
 	/**
 	 * Arraylits de recursos que se usan para la ejecución de sentencias SQL
@@ -44,7 +57,7 @@ public class DAOTablaZonas {
 				try {
 					((PreparedStatement) ob).close();
 				} catch (Exception ex) {
-					ex.printStackTrace();
+					LOG.warn("Error cerrando recurso", ex);
 				}
 		}
 	}
@@ -66,19 +79,27 @@ public class DAOTablaZonas {
 	 * @throws Exception - Cualquier error que no corresponda a la base de datos
 	 */
 	public ArrayList<Zona> darZonas() throws SQLException, Exception {
-		ArrayList<Zona> zonas = new ArrayList<Zona>();
-
 		String sql = "SELECT * FROM ZONA";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		ResultSet rs = prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql);
+		return new RowCursor<Zona>(prepStmt.executeQuery(), MAPEO).todas();
+	}
 
-		while (rs.next()) {
-			String name = rs.getString("NOMBRE");	
-			zonas.add(new Zona(name));
-		}
-		return zonas;
+	/**
+	 * Metodo que da una pagina de las zonas ordenadas por NOMBRE despues de la llave despuesDe (ver tm.PageToken).
+	 * <b>SQL Statement:</b> SELECT * FROM (SELECT * FROM ZONA WHERE NOMBRE > ? ORDER BY NOMBRE) WHERE ROWNUM &lt;= ?;
+	 * @param despuesDe - nombre de la ultima zona de la pagina anterior, null para la primera pagina
+	 * @param filas - maximo de filas de la pagina
+	 * @return Arraylist con las zonas de la pagina.
+	 * @throws SQLException - Cualquier error que la base de datos arroje.
+	 */
+	public ArrayList<Zona> darZonas(String despuesDe, int filas) throws SQLException {
+		PreparedStatement prepStmt;
+		if(despuesDe == null)
+			prepStmt = SentenciasSQL.preparar(conn, recursos, "SELECT * FROM (SELECT * FROM ZONA ORDER BY NOMBRE) WHERE ROWNUM <= ?", filas);
+		else
+			prepStmt = SentenciasSQL.preparar(conn, recursos, "SELECT * FROM (SELECT * FROM ZONA WHERE NOMBRE > ? ORDER BY NOMBRE) WHERE ROWNUM <= ?", despuesDe, filas);
+		return new RowCursor<Zona>(prepStmt.executeQuery(), MAPEO).todas();
 	}
 
 
@@ -92,10 +113,9 @@ public class DAOTablaZonas {
 	public ArrayList<Zona> buscarZonasPorName(String name) throws SQLException, Exception {
 		ArrayList<Zona> zonas = new ArrayList<Zona>();
 
-		String sql = "SELECT * FROM ZONA WHERE NOMBRE ='" + name + "'";
+		String sql = "SELECT * FROM ZONA WHERE NOMBRE = ?";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, name);
 		ResultSet rs = prepStmt.executeQuery();
 
 		while (rs.next()) {
@@ -116,12 +136,10 @@ public class DAOTablaZonas {
 	 */
 	public void addZona(Zona zona) throws SQLException, Exception {
 
-		String sql = "INSERT INTO ZONA VALUES ('";
-		sql += zona.getNombre() + "')";
+		String sql = "INSERT INTO ZONA VALUES (?)";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, zona.getNombre());
+		prepStmt.executeUpdate();
 
 	}
 
@@ -136,11 +154,10 @@ public class DAOTablaZonas {
 	public void deleteZona(Zona zona) throws SQLException, Exception {
 
 		String sql = "DELETE FROM ZONA";
-		sql += " WHERE NOMBRE = '" + zona.getNombre() + "'";
+		sql += " WHERE NOMBRE = ?";
 
-		PreparedStatement prepStmt = conn.prepareStatement(sql);
-		recursos.add(prepStmt);
-		prepStmt.executeQuery();
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, recursos, sql, zona.getNombre());
+		prepStmt.executeUpdate();
 	}
 
 }
@@ -0,0 +1,129 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Asignador de ids estilo hi/lo sobre una secuencia de Oracle.
+ * Cada NEXTVAL de la secuencia reserva un bloque de ids [valor, valor + tamanoBloque) que se reparte en memoria,
+ * por eso la secuencia debe tener INCREMENT BY igual a tamanoBloque (ver la migracion de Docs/Secuencias.sql).
+ * Los ids se entregan sin bloqueos: el bloque actual es inmutable y se reemplaza con compareAndSet. Si dos hilos
+ * agotan el bloque al tiempo ambos piden uno nuevo a la base de datos y los ids que sobren se pierden, lo que solo
+ * deja huecos en la numeracion.
+ * Una reserva de mas ids que los de un bloque toma varios NEXTVAL seguidos hasta juntar bloques contiguos
+ * (reservarVariosBloques); con mucha concurrencia sobre la secuencia puede tardar o fallar despues de
+ * MAX_INTENTOS intentos por bloque.
+ */
+public class IdAllocator {
+
+	/**
+	 * Intentos por bloque necesario antes de rendirse al juntar bloques contiguos
+	 */
+	private static final int MAX_INTENTOS = 10;
+
+	private final String secuencia;
+
+	private final int tamanoBloque;
+
+	private final AtomicReference<Bloque> actual = new AtomicReference<Bloque>(new Bloque(0, 0));
+
+	/**
+	 * @param secuencia - nombre de la secuencia en la base de datos
+	 * @param tamanoBloque - ids por bloque, igual al INCREMENT BY de la secuencia
+	 */
+	public IdAllocator(String secuencia, int tamanoBloque) {
+		this.secuencia = secuencia;
+		this.tamanoBloque = tamanoBloque;
+	}
+
+	/**
+	 * @param conn - conexion que se usa si hay que pedir un bloque nuevo
+	 * @return un id nuevo
+	 * @throws SQLException - si no se puede leer la secuencia
+	 */
+	public long siguiente(Connection conn) throws SQLException {
+		return reservar(conn, 1);
+	}
+
+	/**
+	 * Reserva ids consecutivos [inicio, inicio + cantidad).
+	 * Si cantidad es mayor que el tamano del bloque los ids salen de varios bloques contiguos (reservarVariosBloques).
+	 * @param conn - conexion que se usa si hay que pedir un bloque nuevo
+	 * @param cantidad - numero de ids, al menos 1
+	 * @return el primer id reservado
+	 * @throws SQLException - si no se puede leer la secuencia o no se consiguen bloques contiguos
+	 */
+	public long reservar(Connection conn, int cantidad) throws SQLException {
+		if(cantidad < 1)
+			throw new SQLException("No se pueden reservar " + cantidad + " ids de " + secuencia);
+		if(cantidad > tamanoBloque)
+			return reservarVariosBloques(conn, cantidad);
+		while(true) {
+			Bloque bloque = actual.get();
+			if(bloque.fin - bloque.siguiente >= cantidad) {
+				if(actual.compareAndSet(bloque, new Bloque(bloque.siguiente + cantidad, bloque.fin)))
+					return bloque.siguiente;
+				continue;
+			}
+			long inicio = pedirBloque(conn);
+			actual.compareAndSet(bloque, new Bloque(inicio + cantidad, inicio + tamanoBloque));
+			return inicio;
+		}
+	}
+
+	/**
+	 * Reserva mas ids de los que caben en un bloque pidiendo NEXTVAL hasta tener los bloques necesarios uno detras
+	 * de otro. Si otro hilo toma un bloque en medio la cuenta vuelve a empezar desde el ultimo; los bloques que se
+	 * descartan solo dejan huecos en la numeracion. Lo que sobra del ultimo bloque queda como bloque actual.
+	 * @throws SQLException - si no se puede leer la secuencia o no se juntan los bloques en MAX_INTENTOS por bloque
+	 */
+	private long reservarVariosBloques(Connection conn, int cantidad) throws SQLException {
+		int bloques = (cantidad + tamanoBloque - 1) / tamanoBloque;
+		Bloque anterior = actual.get();
+		long inicio = pedirBloque(conn);
+		int contiguos = 1;
+		for(int intentos = 1; contiguos < bloques; intentos++) {
+			if(intentos >= bloques * MAX_INTENTOS)
+				throw new SQLException("No se pudieron reservar " + cantidad + " ids consecutivos de " + secuencia);
+			long valor = pedirBloque(conn);
+			if(valor == inicio + (long) contiguos * tamanoBloque) {
+				contiguos++;
+			} else {
+				inicio = valor;
+				contiguos = 1;
+			}
+		}
+		actual.compareAndSet(anterior, new Bloque(inicio + cantidad, inicio + (long) bloques * tamanoBloque));
+		return inicio;
+	}
+
+	private long pedirBloque(Connection conn) throws SQLException {
+		String sql = "SELECT " + secuencia + ".NEXTVAL FROM DUAL";
+		PreparedStatement prepStmt = SentenciasSQL.preparar(conn, sql);
+		try {
+			ResultSet rs = prepStmt.executeQuery();
+			rs.next();
+			return rs.getLong(1);
+		} finally {
+			prepStmt.close();
+		}
+	}
+
+	/**
+	 * Rango de ids disponibles [siguiente, fin)
+	 */
+	private static class Bloque {
+
+		private final long siguiente;
+
+		private final long fin;
+
+		private Bloque(long siguiente, long fin) {
+			this.siguiente = siguiente;
+			this.fin = fin;
+		}
+	}
+}
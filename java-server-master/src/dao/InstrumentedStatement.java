@@ -0,0 +1,226 @@
+package dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import metrics.FlightEvents;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import metrics.StripedCounter;
+import trace.Span;
+import trace.Tracer;
+
+/**
+ * Proxy de las sentencias preparadas de los DAO: mide cada ejecucion en rotondandes_sql_seconds, etiquetada con la
+ * operacion y la tabla del SQL (y en un evento rotondandes.Sql de JFR si se esta grabando), y si la sentencia es de una transaccion del TransactionExecutor suma al
+ * TransactionContext las filas que devuelven sus consultas y las que modifican sus actualizaciones.
+ * Dentro de una traza (trace.Tracer) cada ejecucion es un tramo de tipo sql con la huella del SQL.
+ * Guarda los valores que se asignan a los parametros para que SqlProfiler pueda imprimirlos si la ejecucion es lenta.
+ * Lo demas se delega sin cambios.
+ */
+class InstrumentedStatement implements InvocationHandler {
+
+	/**
+	 * Operacion de un SQL y, si es un UPDATE, su tabla
+	 */
+	private static final Pattern OPERACION = Pattern.compile("^\\s*(\\w+)(?:\\s+([\\w.]+))?");
+
+	/**
+	 * Primera tabla de un SQL que no es UPDATE
+	 */
+	private static final Pattern TABLA = Pattern.compile("\\b(?:FROM|INTO)\\s+([\\w.]+)", Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * Medidas por texto SQL; los DAO usan un conjunto fijo de sentencias
+	 */
+	private static final ConcurrentHashMap<String, Medida> MEDIDAS = new ConcurrentHashMap<String, Medida>();
+
+	private final PreparedStatement real;
+
+	private final TransactionContext contexto;
+
+	private final Medida medida;
+
+	/**
+	 * Valores de los parametros por posicion; se crea con el primer set
+	 */
+	private Object[] parametros;
+
+	private InstrumentedStatement(PreparedStatement real, TransactionContext contexto, Medida medida) {
+		this.real = real;
+		this.contexto = contexto;
+		this.medida = medida;
+	}
+
+	/**
+	 * @param real - sentencia a medir
+	 * @param sql - texto SQL de la sentencia
+	 * @param contexto - contexto de la transaccion del hilo que la preparo, o null si no esta en una
+	 * @return PreparedStatement que mide sus ejecuciones y cuenta las filas en el contexto
+	 */
+	static PreparedStatement envolver(PreparedStatement real, String sql, TransactionContext contexto) {
+		Medida medida = MEDIDAS.get(sql);
+		if(medida == null) {
+			Medida nueva = new Medida(sql);
+			medida = MEDIDAS.putIfAbsent(sql, nueva);
+			if(medida == null)
+				medida = nueva;
+		}
+		return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, new InstrumentedStatement(real, contexto, medida));
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		String nombre = method.getName();
+		if(nombre.equals("equals"))
+			return proxy == args[0];
+		if(nombre.equals("hashCode"))
+			return System.identityHashCode(proxy);
+		boolean ejecucion = nombre.startsWith("execute");
+		if(!ejecucion)
+			guardarParametro(nombre, args);
+		Object evento = ejecucion ? FlightEvents.iniciarSql() : null;
+		Span span = ejecucion ? Tracer.iniciar(medida.operacion + " " + medida.tabla, "sql") : null;
+		long inicio = ejecucion ? System.nanoTime() : 0;
+		Object resultado;
+		try {
+			resultado = method.invoke(real, args);
+		} catch (InvocationTargetException e) {
+			if(ejecucion) {
+				medir(System.nanoTime() - inicio, true, evento, span);
+				medida.errores.increment();
+			}
+			throw e.getTargetException();
+		}
+		if(ejecucion)
+			medir(System.nanoTime() - inicio, false, evento, span);
+		if(contexto == null)
+			return resultado;
+		if(resultado instanceof ResultSet)
+			return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+					new Filas((ResultSet) resultado));
+		if(nombre.equals("executeUpdate")) {
+			contexto.sumarAfectadas((Integer) resultado);
+		} else if(nombre.equals("executeBatch")) {
+			for(int filas : (int[]) resultado)
+				if(filas > 0)
+					contexto.sumarAfectadas(filas);
+		}
+		return resultado;
+	}
+
+	private void medir(long nanos, boolean error, Object evento, Span span) {
+		medida.latencia.registrar(nanos);
+		FlightEvents.sql(evento, medida.huella, medida.operacion, medida.tabla, error);
+		if(span != null)
+			span.atributo("huella", medida.huella);
+		Tracer.terminar(span, error);
+		SqlProfiler perfil = SqlProfiler.getInstance();
+		if(perfil != null)
+			perfil.registrar(medida.huella, medida.sql, nanos, error, parametros);
+	}
+
+	/**
+	 * Guarda el valor de un set&lt;Tipo&gt;(posicion, valor, ...); clearParameters los borra.
+	 */
+	private void guardarParametro(String nombre, Object[] args) {
+		if(nombre.equals("clearParameters")) {
+			parametros = null;
+			return;
+		}
+		if(!nombre.startsWith("set") || args == null || args.length < 2 || !(args[0] instanceof Integer))
+			return;
+		int pos = (Integer) args[0];
+		if(pos < 1)
+			return;
+		if(parametros == null || parametros.length <= pos) {
+			Object[] nuevos = new Object[pos + 1];
+			if(parametros != null)
+				System.arraycopy(parametros, 0, nuevos, 0, parametros.length);
+			parametros = nuevos;
+		}
+		parametros[pos] = nombre.equals("setNull") ? null : args[1];
+	}
+
+	/**
+	 * Metricas de un texto SQL
+	 */
+	private static class Medida {
+
+		private final String sql;
+
+		private final String huella;
+
+		private final String operacion;
+
+		private final String tabla;
+
+		private final LatencyHistogram latencia;
+
+		private final StripedCounter errores;
+
+		private Medida(String sql) {
+			this.sql = sql;
+			this.huella = SqlProfiler.huella(sql);
+			String operacion = "OTRA";
+			String tabla = "";
+			Matcher m = OPERACION.matcher(sql);
+			if(m.find()) {
+				operacion = m.group(1).toUpperCase(Locale.ROOT);
+				if(operacion.equals("UPDATE")) {
+					tabla = m.group(2) == null ? "" : m.group(2).toUpperCase(Locale.ROOT);
+				} else {
+					Matcher t = TABLA.matcher(sql);
+					if(t.find())
+						tabla = t.group(1).toUpperCase(Locale.ROOT);
+				}
+			}
+			this.operacion = operacion;
+			this.tabla = tabla;
+			Metrics metrics = Metrics.getInstance();
+			latencia = metrics.histograma("rotondandes_sql_seconds", "Duracion de las ejecuciones de SQL de los DAO",
+					"operacion", operacion, "tabla", tabla);
+			errores = metrics.contador("rotondandes_sql_errors_total", "Ejecuciones de SQL de los DAO que fallaron",
+					"operacion", operacion, "tabla", tabla);
+		}
+	}
+
+	/**
+	 * Proxy de un ResultSet que cuenta cada fila que se lee con next().
+	 */
+	private class Filas implements InvocationHandler {
+
+		private final ResultSet rs;
+
+		private Filas(ResultSet rs) {
+			this.rs = rs;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String nombre = method.getName();
+			if(nombre.equals("equals"))
+				return proxy == args[0];
+			if(nombre.equals("hashCode"))
+				return System.identityHashCode(proxy);
+			Object resultado;
+			try {
+				resultado = method.invoke(rs, args);
+			} catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+			if(nombre.equals("next") && Boolean.TRUE.equals(resultado))
+				contexto.sumarLeidas(1);
+			return resultado;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+/**
+ * Recorre el resultado de una consulta fila por fila, pasando cada fila a su VO solo cuando se pide. Sirve para
+ * escribir tablas grandes en la respuesta sin cargarlas completas en memoria. El ResultSet se cierra con la sentencia
+ * cuando el DAO cierra sus recursos, asi que el cursor solo se puede usar dentro de la transaccion que lo abrio.
+ * @param <T> - tipo del VO de cada fila
+ */
+public class RowCursor<T> {
+
+	/**
+	 * Filas que se piden a la base de datos en cada viaje mientras se recorre el cursor
+	 */
+	static final int FILAS_POR_LECTURA = 500;
+
+	/**
+	 * Paso de la fila actual de un ResultSet a su VO
+	 * @param <T> - tipo del VO
+	 */
+	public interface Mapeo<T> {
+
+		/**
+		 * @param rs - resultado posicionado en la fila que se lee
+		 * @return el VO de la fila
+		 * @throws SQLException - si no se puede leer alguna columna
+		 */
+		T mapear(ResultSet rs) throws SQLException;
+	}
+
+	/**
+	 * Recibe las filas de un cursor en orden
+	 * @param <T> - tipo del VO de cada fila
+	 */
+	public interface Receptor<T> {
+
+		/**
+		 * @param fila - VO de la fila leida
+		 * @throws Exception - cualquier error, que detiene el recorrido
+		 */
+		void recibir(T fila) throws Exception;
+	}
+
+	private final ResultSet rs;
+
+	private final Mapeo<T> mapeo;
+
+	/**
+	 * @param rs - resultado de la consulta, antes de la primera fila
+	 * @param mapeo - paso de cada fila a su VO
+	 * @throws SQLException - si no se puede ajustar el tamano de lectura
+	 */
+	public RowCursor(ResultSet rs, Mapeo<T> mapeo) throws SQLException {
+		this.rs = rs;
+		this.mapeo = mapeo;
+		rs.setFetchSize(FILAS_POR_LECTURA);
+	}
+
+	/**
+	 * Pasa cada fila restante al receptor a medida que se lee.
+	 * @param receptor - destino de las filas
+	 * @return el numero de filas recorridas
+	 * @throws Exception - el error de la base de datos o del receptor
+	 */
+	public int recorrer(Receptor<? super T> receptor) throws Exception {
+		int filas = 0;
+		while(rs.next()) {
+			receptor.recibir(mapeo.mapear(rs));
+			filas++;
+		}
+		return filas;
+	}
+
+	/**
+	 * @return las filas restantes en una lista
+	 * @throws SQLException - cualquier error de la base de datos
+	 */
+	public ArrayList<T> todas() throws SQLException {
+		ArrayList<T> filas = new ArrayList<T>();
+		while(rs.next())
+			filas.add(mapeo.mapear(rs));
+		return filas;
+	}
+}
@@ -0,0 +1,92 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Punto unico por el que los DAO preparan sus sentencias SQL.
+ * Los valores nunca se concatenan en el texto SQL: se pasan como parametros ? para que el texto sea
+ * siempre el mismo y la base de datos (y el StatementCache de la conexion) puedan reutilizar la sentencia.
+ */
+public class SentenciasSQL {
+
+	private SentenciasSQL() {
+	}
+
+	/**
+	 * Prepara una sentencia, la registra en los recursos del DAO y le asigna los parametros en orden.
+	 * Si la conexion viene del pool la sentencia se toma de su cache; cerrarla la devuelve al cache.
+	 * @param conn - conexion del DAO
+	 * @param recursos - recursos del DAO, que se cierran en cerrarRecursos()
+	 * @param sql - texto SQL con un ? por cada parametro
+	 * @param parametros - valores de los parametros (String, numeros, Boolean, Date o null)
+	 * @return PreparedStatement - sentencia lista para ejecutar
+	 * @throws SQLException - si no se puede preparar la sentencia o asignar un parametro
+	 */
+	public static PreparedStatement preparar(Connection conn, List<Object> recursos, String sql, Object... parametros) throws SQLException {
+		PreparedStatement prepStmt = preparar(conn, sql);
+		recursos.add(prepStmt);
+		asignar(prepStmt, parametros);
+		return prepStmt;
+	}
+
+	/**
+	 * Prepara una sentencia sin registrarla en recursos; quien la pide debe cerrarla.
+	 * La sentencia mide sus ejecuciones (InstrumentedStatement); si el hilo esta dentro de una transaccion del
+	 * TransactionExecutor ademas toma el timeout de la transaccion y cuenta sus filas en el TransactionContext.
+	 * @param conn - conexion de la que se toma la sentencia
+	 * @param sql - texto SQL con parametros ?
+	 * @return PreparedStatement - sentencia del cache de la conexion si lo tiene
+	 * @throws SQLException - si no se puede preparar la sentencia
+	 */
+	public static PreparedStatement preparar(Connection conn, String sql) throws SQLException {
+		PreparedStatement prepStmt;
+		if(conn instanceof CachedConnection) {
+			prepStmt = ((CachedConnection) conn).getStatementCache().preparar(sql);
+		} else {
+			StatementCache.registrarPreparacionDirecta();
+			prepStmt = conn.prepareStatement(sql);
+		}
+		TransactionContext contexto = TransactionContext.actual();
+		int timeout = contexto == null ? 0 : contexto.getTimeout();
+		if(prepStmt.getQueryTimeout() != timeout)
+			prepStmt.setQueryTimeout(timeout);
+		return InstrumentedStatement.envolver(prepStmt, sql, contexto);
+	}
+
+	/**
+	 * Asigna los parametros de una sentencia segun su tipo.
+	 * @param prepStmt - sentencia preparada
+	 * @param parametros - valores en el orden de los ? del SQL
+	 * @throws SQLException - si el tipo de algun valor no se soporta
+	 */
+	public static void asignar(PreparedStatement prepStmt, Object... parametros) throws SQLException {
+		for(int i = 0; i < parametros.length; i++) {
+			Object valor = parametros[i];
+			int pos = i + 1;
+			if(valor == null)
+				prepStmt.setNull(pos, Types.VARCHAR);
+			else if(valor instanceof String)
+				prepStmt.setString(pos, (String) valor);
+			else if(valor instanceof Integer)
+				prepStmt.setInt(pos, (Integer) valor);
+			else if(valor instanceof Long)
+				prepStmt.setLong(pos, (Long) valor);
+			else if(valor instanceof Double)
+				prepStmt.setDouble(pos, (Double) valor);
+			else if(valor instanceof Float)
+				prepStmt.setFloat(pos, (Float) valor);
+			else if(valor instanceof Boolean)
+				prepStmt.setBoolean(pos, (Boolean) valor);
+			else if(valor instanceof Date)
+				prepStmt.setTimestamp(pos, new Timestamp(((Date) valor).getTime()));
+			else
+				throw new SQLException("Tipo de parametro no soportado: " + valor.getClass().getName());
+		}
+	}
+}
@@ -0,0 +1,369 @@
+package dao;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import log.Logger;
+import metrics.StripedCounter;
+import vos.ConsultaLenta;
+import vos.EstadisticasSql;
+import vos.ReporteSql;
+
+/**
+ * Acumula el tiempo de cada forma de SQL que ejecutan los DAO y registra las ejecuciones lentas.
+ * InstrumentedStatement le reporta cada ejecucion con la huella de su SQL: el texto con los literales cambiados
+ * por ? y los espacios normalizados, para que el mismo SQL armado con valores distintos cuente como uno solo.
+ * Los acumulados se guardan en ventanas de sql.ventana milisegundos; el reporte junta la ventana actual con la
+ * anterior, asi que cubre entre una y dos ventanas. Las ejecuciones que tardan mas de sql.umbralLento milisegundos
+ * se imprimen con los valores de sus parametros y se guardan las ultimas para el reporte.
+ * Lo crea startup.ContextListener; si no se ha creado las sentencias solo se miden en /rest/metrics.
+ */
+public class SqlProfiler {
+
+	private static final Logger LOG = Logger.get(SqlProfiler.class);
+
+	/**
+	 * Atributo estatico que contiene el path relativo del archivo que tiene los datos de la conexion
+	 */
+	private static final String CONNECTION_DATA_FILE_NAME_REMOTE = "/conexion.properties";
+
+	/**
+	 * Huellas distintas por ventana; las que lleguen despues se acumulan en OTRAS
+	 */
+	private static final int MAXIMO_HUELLAS = 2000;
+
+	private static final String OTRAS = "OTRAS";
+
+	/**
+	 * Caracteres de cada parametro que se imprimen en el registro de lentas
+	 */
+	private static final int LARGO_PARAMETRO = 100;
+
+	private static final Pattern LISTA = Pattern.compile("\\(\\?(?:, \\?)+\\)");
+
+	private static volatile SqlProfiler instance;
+
+	private final long umbralNanos;
+
+	private final long ventana;
+
+	private final int top;
+
+	private final int maximoLentas;
+
+	private volatile Ventana actual;
+
+	private volatile Ventana anterior;
+
+	private final ArrayDeque<ConsultaLenta> lentas;
+
+	/**
+	 * @param umbral - milisegundos a partir de los cuales una ejecucion es lenta
+	 * @param ventana - milisegundos de cada ventana de acumulados
+	 * @param top - numero de huellas de cada lista del reporte
+	 * @param maximoLentas - ejecuciones lentas que se guardan para el reporte
+	 */
+	public SqlProfiler(long umbral, long ventana, int top, int maximoLentas) {
+		this.umbralNanos = umbral * 1000000L;
+		this.ventana = ventana;
+		this.top = top;
+		this.maximoLentas = maximoLentas;
+		this.actual = new Ventana(System.currentTimeMillis());
+		this.anterior = new Ventana(actual.inicio - ventana);
+		this.lentas = new ArrayDeque<ConsultaLenta>(maximoLentas);
+	}
+
+	/**
+	 * Crea el perfilador de la aplicacion con los parametros sql.* del archivo conexion.properties.
+	 * @param path - path absoluto de la carpeta WEB-INF/ConnectionData
+	 * @return el perfilador creado
+	 * @throws Exception - si no se puede leer la configuracion
+	 */
+	public static synchronized SqlProfiler init(String path) throws Exception {
+		if(instance == null) {
+			Properties prop = new Properties();
+			FileInputStream in = new FileInputStream(new File(path + CONNECTION_DATA_FILE_NAME_REMOTE));
+			try {
+				prop.load(in);
+			} finally {
+				in.close();
+			}
+			long umbral = Long.parseLong(prop.getProperty("sql.umbralLento", "500").trim());
+			long ventana = Long.parseLong(prop.getProperty("sql.ventana", "600000").trim());
+			int top = Integer.parseInt(prop.getProperty("sql.top", "20").trim());
+			int maximoLentas = Integer.parseInt(prop.getProperty("sql.lentasGuardadas", "50").trim());
+			instance = new SqlProfiler(umbral, ventana, top, maximoLentas);
+		}
+		return instance;
+	}
+
+	/**
+	 * @return el perfilador de la aplicacion o null si no se ha inicializado
+	 */
+	public static SqlProfiler getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Registra una ejecucion.
+	 * @param huella - huella del SQL, de huella(String)
+	 * @param sql - texto SQL ejecutado
+	 * @param nanos - duracion de la ejecucion
+	 * @param error - si la ejecucion lanzo una excepcion
+	 * @param parametros - valores de los parametros por posicion (el 0 no se usa), o null si no tiene
+	 */
+	void registrar(String huella, String sql, long nanos, boolean error, Object[] parametros) {
+		long ahora = System.currentTimeMillis();
+		Ventana v = actual;
+		if(ahora - v.inicio >= ventana)
+			v = rotar(ahora);
+		v.acumulado(huella, sql).registrar(nanos, error);
+		if(nanos >= umbralNanos) {
+			ConsultaLenta lenta = new ConsultaLenta(ahora, nanos / 1e6, sql, formatear(parametros), error);
+			LOG.warn("SQL lento ({} ms{}): {} {}", lenta.getDuracion(), error ? ", con error" : "", sql, lenta.getParametros());
+			synchronized (lentas) {
+				if(lentas.size() == maximoLentas)
+					lentas.removeFirst();
+				lentas.addLast(lenta);
+			}
+		}
+	}
+
+	/**
+	 * @return las huellas con mas tiempo total y con mayor maximo en la ventana y las ultimas ejecuciones lentas,
+	 * de la mas reciente a la mas antigua
+	 */
+	public ReporteSql darReporte() {
+		Map<String, Suma> sumas = new HashMap<String, Suma>();
+		for(Ventana v : new Ventana[] { anterior, actual })
+			for(Map.Entry<String, Acumulado> e : v.huellas.entrySet()) {
+				Suma suma = sumas.get(e.getKey());
+				if(suma == null) {
+					suma = new Suma(e.getKey(), e.getValue().ejemplo);
+					sumas.put(e.getKey(), suma);
+				}
+				suma.sumar(e.getValue());
+			}
+		List<EstadisticasSql> todas = new ArrayList<EstadisticasSql>();
+		for(Suma suma : sumas.values())
+			todas.add(suma.darEstadisticas());
+		List<EstadisticasSql> porTotal = mejores(todas, new Comparator<EstadisticasSql>() {
+			@Override
+			public int compare(EstadisticasSql a, EstadisticasSql b) {
+				return Double.compare(b.getTotal(), a.getTotal());
+			}
+		});
+		List<EstadisticasSql> porMaximo = mejores(todas, new Comparator<EstadisticasSql>() {
+			@Override
+			public int compare(EstadisticasSql a, EstadisticasSql b) {
+				return Double.compare(b.getMaximo(), a.getMaximo());
+			}
+		});
+		List<ConsultaLenta> ultimas;
+		synchronized (lentas) {
+			ultimas = new ArrayList<ConsultaLenta>(lentas);
+		}
+		Collections.reverse(ultimas);
+		return new ReporteSql(umbralNanos / 1000000L, ventana, porTotal, porMaximo, ultimas);
+	}
+
+	/**
+	 * Normaliza un SQL: los literales de texto y numericos pasan a ?, las listas (?, ?, ...) a (?+),
+	 * los espacios seguidos a uno solo y lo que no es literal a mayusculas.
+	 * @param sql - texto SQL
+	 * @return la huella del SQL
+	 */
+	static String huella(String sql) {
+		StringBuilder b = new StringBuilder(sql.length());
+		int n = sql.length();
+		int i = 0;
+		while(i < n) {
+			char c = sql.charAt(i);
+			if(c == '\'') {
+				i++;
+				while(i < n) {
+					if(sql.charAt(i) == '\'') {
+						if(i + 1 < n && sql.charAt(i + 1) == '\'')
+							i += 2;
+						else
+							break;
+					} else {
+						i++;
+					}
+				}
+				b.append('?');
+				i++;
+			} else if(Character.isWhitespace(c)) {
+				while(i < n && Character.isWhitespace(sql.charAt(i)))
+					i++;
+				if(b.length() > 0 && i < n)
+					b.append(' ');
+			} else if(Character.isDigit(c) && (b.length() == 0 || !esParteDeNombre(b.charAt(b.length() - 1)))) {
+				while(i < n && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.'))
+					i++;
+				b.append('?');
+			} else if(Character.isLetter(c) || c == '_') {
+				while(i < n && esParteDeNombre(sql.charAt(i)))
+					b.append(Character.toUpperCase(sql.charAt(i++)));
+			} else {
+				if(c == ',' || c == ')') {
+					int fin = b.length();
+					if(fin > 0 && b.charAt(fin - 1) == ' ')
+						b.setLength(fin - 1);
+				}
+				b.append(c);
+				i++;
+				if(c == ',') {
+					b.append(' ');
+					while(i < n && Character.isWhitespace(sql.charAt(i)))
+						i++;
+				} else if(c == '(') {
+					while(i < n && Character.isWhitespace(sql.charAt(i)))
+						i++;
+				}
+			}
+		}
+		return LISTA.matcher(b).replaceAll("(?+)");
+	}
+
+	private static boolean esParteDeNombre(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#';
+	}
+
+	private static String formatear(Object[] parametros) {
+		if(parametros == null)
+			return "[]";
+		StringBuilder b = new StringBuilder("[");
+		for(int i = 1; i < parametros.length; i++) {
+			if(i > 1)
+				b.append(", ");
+			Object valor = parametros[i];
+			if(valor == null) {
+				b.append("NULL");
+			} else if(valor instanceof String) {
+				String s = (String) valor;
+				b.append('\'').append(s.length() > LARGO_PARAMETRO ? s.substring(0, LARGO_PARAMETRO) + "..." : s).append('\'');
+			} else {
+				b.append(valor);
+			}
+		}
+		return b.append(']').toString();
+	}
+
+	private List<EstadisticasSql> mejores(List<EstadisticasSql> todas, Comparator<EstadisticasSql> orden) {
+		List<EstadisticasSql> copia = new ArrayList<EstadisticasSql>(todas);
+		Collections.sort(copia, orden);
+		return copia.size() > top ? new ArrayList<EstadisticasSql>(copia.subList(0, top)) : copia;
+	}
+
+	private synchronized Ventana rotar(long ahora) {
+		if(ahora - actual.inicio >= ventana) {
+			anterior = ahora - actual.inicio >= 2 * ventana ? new Ventana(ahora - ventana) : actual;
+			actual = new Ventana(ahora);
+		}
+		return actual;
+	}
+
+	/**
+	 * Acumulados de todas las huellas durante una ventana
+	 */
+	private static class Ventana {
+
+		private final long inicio;
+
+		private final ConcurrentHashMap<String, Acumulado> huellas = new ConcurrentHashMap<String, Acumulado>();
+
+		private Ventana(long inicio) {
+			this.inicio = inicio;
+		}
+
+		private Acumulado acumulado(String huella, String sql) {
+			Acumulado acumulado = huellas.get(huella);
+			if(acumulado == null) {
+				if(huellas.size() >= MAXIMO_HUELLAS)
+					huella = OTRAS;
+				Acumulado nuevo = new Acumulado(sql);
+				acumulado = huellas.putIfAbsent(huella, nuevo);
+				if(acumulado == null)
+					acumulado = nuevo;
+			}
+			return acumulado;
+		}
+	}
+
+	/**
+	 * Ejecuciones y tiempos de una huella en una ventana
+	 */
+	private static class Acumulado {
+
+		private final String ejemplo;
+
+		private final StripedCounter ejecuciones = new StripedCounter();
+
+		private final StripedCounter nanosTotal = new StripedCounter();
+
+		private final AtomicLong errores = new AtomicLong();
+
+		private final AtomicLong nanosMaximo = new AtomicLong();
+
+		private Acumulado(String ejemplo) {
+			this.ejemplo = ejemplo;
+		}
+
+		private void registrar(long nanos, boolean error) {
+			ejecuciones.increment();
+			nanosTotal.add(nanos);
+			if(error)
+				errores.incrementAndGet();
+			long maximo;
+			while(nanos > (maximo = nanosMaximo.get()) && !nanosMaximo.compareAndSet(maximo, nanos));
+		}
+	}
+
+	/**
+	 * Suma de los acumulados de una huella en las dos ventanas
+	 */
+	private static class Suma {
+
+		private final String huella;
+
+		private final String ejemplo;
+
+		private long ejecuciones;
+
+		private long errores;
+
+		private long nanosTotal;
+
+		private long nanosMaximo;
+
+		private Suma(String huella, String ejemplo) {
+			this.huella = huella;
+			this.ejemplo = ejemplo;
+		}
+
+		private void sumar(Acumulado a) {
+			ejecuciones += a.ejecuciones.sum();
+			errores += a.errores.get();
+			nanosTotal += a.nanosTotal.sum();
+			nanosMaximo = Math.max(nanosMaximo, a.nanosMaximo.get());
+		}
+
+		private EstadisticasSql darEstadisticas() {
+			double total = nanosTotal / 1e6;
+			return new EstadisticasSql(huella, ejemplo, ejecuciones, errores, ejecuciones == 0 ? 0 : total / ejecuciones,
+					nanosMaximo / 1e6, total);
+		}
+	}
+}
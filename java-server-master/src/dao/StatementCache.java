@@ -0,0 +1,218 @@
+package dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import log.Logger;
+
+/**
+ * Cache de sentencias preparadas de una conexion fisica, indexada por el texto SQL.
+ * Mientras un DAO usa una sentencia esta sale del cache; cerrarla (cerrarRecursos) la devuelve en vez de cerrarla,
+ * asi la siguiente ejecucion del mismo SQL no vuelve a pedirle a la base de datos que lo analice.
+ * Los contadores son globales para poder comparar cuantas sentencias se piden contra cuantas se preparan.
+ */
+public class StatementCache {
+
+	private static final Logger LOG = Logger.get(StatementCache.class);
+
+	private static final AtomicLong solicitudes = new AtomicLong();
+	private static final AtomicLong preparaciones = new AtomicLong();
+	private static final AtomicLong aciertos = new AtomicLong();
+	private static final AtomicLong desalojos = new AtomicLong();
+
+	private final Connection conn;
+
+	private final int tamano;
+
+	/**
+	 * Sentencias libres, en orden de uso para desalojar la menos usada
+	 */
+	private final LinkedHashMap<String, PreparedStatement> libres;
+
+	private boolean cerrado;
+
+	/**
+	 * @param conn - conexion fisica a la que pertenecen las sentencias
+	 * @param tamano - numero maximo de sentencias libres que se guardan
+	 */
+	public StatementCache(Connection conn, int tamano) {
+		this.conn = conn;
+		this.tamano = tamano;
+		this.libres = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true);
+	}
+
+	/**
+	 * Entrega una sentencia para el SQL dado, reutilizando una libre si la hay.
+	 * @param sql - texto SQL con parametros ?
+	 * @return PreparedStatement que al cerrarse vuelve al cache
+	 * @throws SQLException - si la base de datos no puede preparar la sentencia
+	 */
+	public PreparedStatement preparar(String sql) throws SQLException {
+		solicitudes.incrementAndGet();
+		PreparedStatement real;
+		synchronized(this) {
+			real = libres.remove(sql);
+		}
+		if(real != null) {
+			aciertos.incrementAndGet();
+		} else {
+			preparaciones.incrementAndGet();
+			real = conn.prepareStatement(sql);
+		}
+		return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, new SentenciaCacheada(sql, real));
+	}
+
+	/**
+	 * Recibe una sentencia que un DAO cerro. Si ya hay una libre para el mismo SQL o el cache esta cerrado la cierra.
+	 */
+	private void devolver(String sql, PreparedStatement real) {
+		List<PreparedStatement> porCerrar = new ArrayList<PreparedStatement>();
+		synchronized(this) {
+			if(cerrado || libres.containsKey(sql)) {
+				porCerrar.add(real);
+			} else {
+				libres.put(sql, real);
+				Iterator<Map.Entry<String, PreparedStatement>> iter = libres.entrySet().iterator();
+				while(libres.size() > tamano && iter.hasNext()) {
+					porCerrar.add(iter.next().getValue());
+					iter.remove();
+					desalojos.incrementAndGet();
+				}
+			}
+		}
+		for(PreparedStatement ps : porCerrar)
+			cerrarSilencioso(ps);
+	}
+
+	/**
+	 * Cierra todas las sentencias libres. Se llama antes de cerrar la conexion fisica.
+	 */
+	public void cerrar() {
+		List<PreparedStatement> porCerrar;
+		synchronized(this) {
+			cerrado = true;
+			porCerrar = new ArrayList<PreparedStatement>(libres.values());
+			libres.clear();
+		}
+		for(PreparedStatement ps : porCerrar)
+			cerrarSilencioso(ps);
+	}
+
+	private static void cerrarSilencioso(PreparedStatement ps) {
+		try {
+			ps.close();
+		} catch (SQLException e) {
+			LOG.warn("SQLException closing cached statement: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Registra una sentencia preparada sin cache, para que los contadores reflejen todas las preparaciones.
+	 */
+	static void registrarPreparacionDirecta() {
+		solicitudes.incrementAndGet();
+		preparaciones.incrementAndGet();
+	}
+
+	public static long darSolicitudes() {
+		return solicitudes.get();
+	}
+
+	public static long darPreparaciones() {
+		return preparaciones.get();
+	}
+
+	public static long darAciertos() {
+		return aciertos.get();
+	}
+
+	public static long darDesalojos() {
+		return desalojos.get();
+	}
+
+	/**
+	 * Deja una sentencia que vuelve al cache como recien preparada: sin parametros, sin lote pendiente y con
+	 * fetchSize, maxRows y queryTimeout en sus valores por defecto, para que lo que configuro un DAO no le llegue
+	 * al siguiente que pida el mismo SQL.
+	 */
+	private static void limpiar(PreparedStatement ps) throws SQLException {
+		ps.clearParameters();
+		ps.clearBatch();
+		ps.clearWarnings();
+		if(ps.getFetchSize() != 0)
+			ps.setFetchSize(0);
+		if(ps.getMaxRows() != 0)
+			ps.setMaxRows(0);
+		if(ps.getQueryTimeout() != 0)
+			ps.setQueryTimeout(0);
+	}
+
+	/**
+	 * Proxy de una sentencia del cache: close() cierra el ultimo ResultSet, limpia la sentencia (limpiar)
+	 * y la devuelve al cache.
+	 */
+	private class SentenciaCacheada implements InvocationHandler {
+
+		private final String sql;
+
+		private final PreparedStatement real;
+
+		private ResultSet ultimo;
+
+		private boolean devuelta;
+
+		private SentenciaCacheada(String sql, PreparedStatement real) {
+			this.sql = sql;
+			this.real = real;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String nombre = method.getName();
+			if(nombre.equals("close")) {
+				if(!devuelta) {
+					devuelta = true;
+					try {
+						if(ultimo != null)
+							ultimo.close();
+						limpiar(real);
+					} catch (SQLException e) {
+						cerrarSilencioso(real);
+						return null;
+					}
+					devolver(sql, real);
+				}
+				return null;
+			}
+			if(nombre.equals("isClosed"))
+				return devuelta || real.isClosed();
+			if(nombre.equals("equals"))
+				return proxy == args[0];
+			if(nombre.equals("hashCode"))
+				return System.identityHashCode(proxy);
+			if(devuelta)
+				throw new SQLException("La sentencia ya fue devuelta al cache");
+			try {
+				Object resultado = method.invoke(real, args);
+				if(resultado instanceof ResultSet)
+					ultimo = (ResultSet) resultado;
+				return resultado;
+			} catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package dao;
+
+/**
+ * Datos de la transaccion que esta ejecutando el hilo actual: el timeout que deben tener sus sentencias y las filas
+ * que leyo y modifico. Lo abre tm.TransactionExecutor alrededor de cada transaccion y lo consulta SentenciasSQL al
+ * preparar cada sentencia. Si una transaccion ejecuta otra, la interna tiene su propio contexto y al terminar se
+ * restablece el de la externa.
+ */
+public class TransactionContext {
+
+	private static final ThreadLocal<TransactionContext> ACTUAL = new ThreadLocal<TransactionContext>();
+
+	private final TransactionContext anterior;
+
+	private final int timeout;
+
+	private long filasLeidas;
+
+	private long filasAfectadas;
+
+	private TransactionContext(TransactionContext anterior, int timeout) {
+		this.anterior = anterior;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Abre un contexto para el hilo actual.
+	 * @param timeout - segundos que puede durar cada sentencia, 0 para no limitarlas
+	 * @return el contexto abierto, que se debe cerrar con terminar()
+	 */
+	public static TransactionContext iniciar(int timeout) {
+		TransactionContext contexto = new TransactionContext(ACTUAL.get(), timeout);
+		ACTUAL.set(contexto);
+		return contexto;
+	}
+
+	/**
+	 * @return el contexto de la transaccion del hilo actual o null si no hay ninguna en curso
+	 */
+	public static TransactionContext actual() {
+		return ACTUAL.get();
+	}
+
+	/**
+	 * Cierra el contexto y deja como actual el que habia cuando se abrio.
+	 */
+	public void terminar() {
+		if(anterior == null)
+			ACTUAL.remove();
+		else
+			ACTUAL.set(anterior);
+	}
+
+	public int getTimeout() {
+		return timeout;
+	}
+
+	public long getFilasLeidas() {
+		return filasLeidas;
+	}
+
+	public long getFilasAfectadas() {
+		return filasAfectadas;
+	}
+
+	void sumarLeidas(long filas) {
+		filasLeidas += filas;
+	}
+
+	void sumarAfectadas(long filas) {
+		filasAfectadas += filas;
+	}
+}
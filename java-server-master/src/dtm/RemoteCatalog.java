@@ -0,0 +1,155 @@
+package dtm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import vos.CatalogoDelta;
+import vos.EstadisticasCatalogoRemoto;
+import vos.ProductoIter5;
+
+/**
+ * Copia local del catalogo de productos de cada rotonda par, alimentada por los CatalogoDelta que publican.
+ * Las lecturas no toman bloqueos: cada cambio arma un catalogo nuevo y reemplaza la lista combinada que se
+ * entrega a RotondAndesTm.darProductos. Un par del que no se recibe nada en el tiempo de vigencia deja de
+ * aparecer en la lista (cada par publica su catalogo completo periodicamente).
+ */
+public class RemoteCatalog {
+
+	private final long vigencia;
+
+	private final Map<String, Catalogo> pares = new LinkedHashMap<String, Catalogo>();
+
+	/**
+	 * Productos de todos los pares vigentes, se arma de nuevo con cada cambio
+	 */
+	private volatile List<ProductoIter5> combinados = Collections.emptyList();
+
+	/**
+	 * Momento en el que vence el primer par de la lista combinada
+	 */
+	private volatile long venceCombinados;
+
+	/**
+	 * @param vigencia - milisegundos que se conserva el catalogo de un par sin recibir nada de el
+	 */
+	public RemoteCatalog(long vigencia) {
+		this.vigencia = vigencia;
+	}
+
+	/**
+	 * Aplica el delta publicado por un par.
+	 * @param par - sender del mensaje
+	 * @param delta - cambios publicados
+	 * @return false si el delta no se pudo aplicar porque falta una version anterior o cambio la epoca del par;
+	 * en ese caso hay que pedirle al par su catalogo completo
+	 */
+	public synchronized boolean aplicar(String par, CatalogoDelta delta) {
+		Catalogo actual = pares.get(par);
+		Map<String, ProductoIter5> productos;
+		if(delta.isCompleto()) {
+			productos = new LinkedHashMap<String, ProductoIter5>();
+		} else if(actual != null && actual.epoca == delta.getEpoca() && actual.version == delta.getAnterior()) {
+			productos = new LinkedHashMap<String, ProductoIter5>(actual.productos);
+		} else {
+			if(actual != null)
+				actual.desfases++;
+			return actual != null && actual.epoca == delta.getEpoca() && actual.version >= delta.getVersion();
+		}
+		if(delta.getEliminados() != null)
+			for(String nombre : delta.getEliminados())
+				productos.remove(nombre);
+		if(delta.getProductos() != null)
+			for(ProductoIter5 producto : delta.getProductos())
+				productos.put(producto.getNombre(), producto);
+		Catalogo nuevo = new Catalogo(delta.getEpoca(), delta.getVersion(), productos, System.currentTimeMillis());
+		if(actual != null) {
+			nuevo.deltas = actual.deltas;
+			nuevo.completos = actual.completos;
+			nuevo.desfases = actual.desfases;
+		}
+		if(delta.isCompleto())
+			nuevo.completos++;
+		else
+			nuevo.deltas++;
+		pares.put(par, nuevo);
+		combinar();
+		return true;
+	}
+
+	/**
+	 * @return los productos de los pares vigentes, o null si no se tiene el catalogo de ningun par
+	 * y hay que consultarlos directamente
+	 */
+	public List<ProductoIter5> darProductos() {
+		if(System.currentTimeMillis() >= venceCombinados) {
+			synchronized(this) {
+				combinar();
+			}
+		}
+		List<ProductoIter5> productos = combinados;
+		return venceCombinados == Long.MAX_VALUE ? null : productos;
+	}
+
+	/**
+	 * @return EstadisticasCatalogoRemoto de cada par conocido
+	 */
+	public synchronized List<EstadisticasCatalogoRemoto> darEstadisticas() {
+		List<EstadisticasCatalogoRemoto> estadisticas = new ArrayList<EstadisticasCatalogoRemoto>();
+		long ahora = System.currentTimeMillis();
+		for(Map.Entry<String, Catalogo> entrada : pares.entrySet()) {
+			Catalogo c = entrada.getValue();
+			estadisticas.add(new EstadisticasCatalogoRemoto(entrada.getKey(), c.version, c.productos.size(),
+					ahora - c.recibido, c.deltas, c.completos, c.desfases));
+		}
+		return estadisticas;
+	}
+
+	/**
+	 * Arma la lista combinada con los pares vigentes y olvida los vencidos. Se llama con el bloqueo tomado.
+	 */
+	private void combinar() {
+		long ahora = System.currentTimeMillis();
+		long vence = Long.MAX_VALUE;
+		List<ProductoIter5> productos = new ArrayList<ProductoIter5>();
+		for(Catalogo c : new ArrayList<Catalogo>(pares.values())) {
+			if(c.recibido + vigencia <= ahora) {
+				pares.values().remove(c);
+				continue;
+			}
+			productos.addAll(c.productos.values());
+			vence = Math.min(vence, c.recibido + vigencia);
+		}
+		combinados = Collections.unmodifiableList(productos);
+		venceCombinados = vence;
+	}
+
+	/**
+	 * Catalogo de un par en una version; no se modifica despues de creado salvo sus contadores.
+	 */
+	private static class Catalogo {
+
+		private final long epoca;
+
+		private final long version;
+
+		private final Map<String, ProductoIter5> productos;
+
+		private final long recibido;
+
+		private long deltas;
+
+		private long completos;
+
+		private long desfases;
+
+		private Catalogo(long epoca, long version, Map<String, ProductoIter5> productos, long recibido) {
+			this.epoca = epoca;
+			this.version = version;
+			this.productos = productos;
+			this.recibido = recibido;
+		}
+	}
+}
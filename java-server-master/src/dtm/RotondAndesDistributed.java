@@ -1,8 +1,21 @@
 package dtm;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import javax.jms.JMSException;
 import javax.jms.Queue;
@@ -17,6 +30,7 @@ import javax.naming.NamingException;
 import javax.servlet.ServletContext;
 import javax.ws.rs.core.Context;
 
+import log.Logger;
 import org.codehaus.jackson.JsonGenerationException;
 import org.codehaus.jackson.map.JsonMappingException;
 
@@ -28,17 +42,28 @@ import jms.NonReplyException;
 import jms.RestauranteMDB;
 import jms.UtilidadMDB;
 import tm.RotondAndesTm;
+import tm.WorkerThreads;
+import vos.CatalogoDelta;
+import vos.EstadisticasCatalogoRemoto;
 import vos.ListaProductos;
 import vos.ListaUtilidad;
 import vos.Producto;
+import vos.ProductoIter5;
 import vos.Utilidad;
 
 
 public class RotondAndesDistributed 
 {
+
+	private static final Logger LOG = Logger.get(RotondAndesDistributed.class);
 	private final static String QUEUE_NAME = "java:global/RMQAppQueue";
 	private final static String MQ_CONNECTION_NAME = "java:global/RMQClient";
 	
+	/**
+	 * Atributo estatico que contiene el path relativo del archivo que tiene los datos de la conexion
+	 */
+	private static final String CONNECTION_DATA_FILE_NAME_REMOTE = "/conexion.properties";
+	
 	private static RotondAndesDistributed instance;
 	
 	private RotondAndesTm tm;
@@ -54,26 +79,136 @@ public class RotondAndesDistributed
 	private RestauranteMDB restauranteMQ ;
 	
 	private static String path;
+	
+	/**
+	 * Copia del catalogo de productos de cada rotonda par
+	 */
+	private RemoteCatalog catalogoRemoto;
+	
+	/**
+	 * Identifica este arranque del servidor en los CatalogoDelta que se publican
+	 */
+	private final long epoca = System.currentTimeMillis();
+	
+	/**
+	 * Ultima version del catalogo local publicada; solo la usa el hilo que publica
+	 */
+	private long versionPublicada;
+	
+	/**
+	 * Momento de la ultima publicacion del catalogo completo; solo la usa el hilo que publica
+	 */
+	private long ultimaCompleta;
+	
+	/**
+	 * Milisegundos entre publicaciones del catalogo completo, que tambien le indican a los pares que esta rotonda sigue viva
+	 */
+	private long intervaloCompleto;
+	
+	/**
+	 * Nombres de los productos locales que cambiaron desde la ultima publicacion
+	 */
+	private final Set<String> cambios = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	
+	/**
+	 * Indica que en la siguiente publicacion hay que enviar el catalogo completo
+	 */
+	private volatile boolean publicarCompleto = true;
+	
+	/**
+	 * Indica que en la siguiente publicacion hay que pedirle su catalogo a todos los pares
+	 */
+	private volatile boolean pedirCatalogos = true;
+	
+	private ScheduledExecutorService publicador;
+
+	/**
+	 * Hilos virtuales en los que los MDB atienden los REQUEST de los pares (hilos.modo=virtual), o null si los
+	 * atienden en el hilo de entrega de JMS
+	 */
+	private WorkerThreads trabajadores;
 
 
 	private RotondAndesDistributed() throws NamingException, JMSException
 	{
+		Properties prop = cargarConfiguracion();
+		catalogoRemoto = new RemoteCatalog(Long.parseLong(prop.getProperty("catalogo.remoto.vigencia", "180000").trim()));
+		if(!Boolean.parseBoolean(prop.getProperty("jms.activo", "true").trim()))
+		{
+			LOG.info("JMS inactivo: solo se atienden los productos y consultas locales");
+			return;
+		}
+		long espera = Long.parseLong(prop.getProperty("jms.espera", "50000").trim());
+		int pares = Integer.parseInt(prop.getProperty("jms.pares", "1").trim());
 		InitialContext ctx = new InitialContext();
 		factory = (RMQConnectionFactory) ctx.lookup(MQ_CONNECTION_NAME);
-		allProdMQ = new AllProductosMDB(factory, ctx);
-		utilidadMQ = new UtilidadMDB(factory, ctx);
-		restauranteMQ= new RestauranteMDB(factory,ctx);
+		if(WorkerThreads.esVirtual(prop))
+		{
+			int conexiones = Integer.parseInt(prop.getProperty("pool.maximo", "20").trim());
+			trabajadores = WorkerThreads.virtuales("rotondandes-jms", conexiones, Integer.parseInt(prop.getProperty("jms.cola", "256").trim()));
+			LOG.info("Los REQUEST de los pares se atienden en hilos virtuales, {} al tiempo", conexiones);
+		}
+		allProdMQ = new AllProductosMDB(factory, ctx, espera, pares, trabajadores);
+		utilidadMQ = new UtilidadMDB(factory, ctx, espera, pares, trabajadores);
+		restauranteMQ= new RestauranteMDB(factory,ctx, espera, pares, trabajadores);
 		restauranteMQ.start();
 		allProdMQ.start();
 		utilidadMQ.start();
 		
+		long intervalo = Long.parseLong(prop.getProperty("catalogo.remoto.intervalo", "1000").trim());
+		intervaloCompleto = Long.parseLong(prop.getProperty("catalogo.remoto.completo", "60000").trim());
+		publicador = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "rotondandes-catalogo");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		publicador.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				publicarCatalogo();
+			}
+		}, intervalo, intervalo, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Lee los parametros jms.* del archivo conexion.properties: jms.espera es el plazo en milisegundos para esperar
+	 * las respuestas de los pares y jms.pares el numero de pares que deben contestar para no esperar todo el plazo.
+	 * Con jms.activo en false (perfil embebido) no se conecta a RabbitMQ y las consultas a los pares fallan con
+	 * NonReplyException, como si ninguno contestara. Con hilos.modo=virtual los REQUEST de los pares se atienden en hilos
+	 * virtuales, tantos al tiempo como conexiones tiene el pool y hasta jms.cola esperando.
+	 * Si no se puede leer el archivo se usan los valores por defecto.
+	 */
+	private static Properties cargarConfiguracion()
+	{
+		Properties prop = new Properties();
+		if(path == null)
+			return prop;
+		try {
+			FileInputStream in = new FileInputStream(new File(path + CONNECTION_DATA_FILE_NAME_REMOTE));
+			try {
+				prop.load(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			LOG.error("No se pudo leer la configuracion de conexion", e);
+		}
+		return prop;
 	}
 	
 	public void stop() throws JMSException
 	{
+		if(publicador == null)
+			return;
+		publicador.shutdownNow();
 		restauranteMQ.close();
 		utilidadMQ.close();
 		allProdMQ.close();
+		if(trabajadores != null)
+			trabajadores.close();
 	}
 	
 	/**
@@ -101,29 +236,23 @@ public class RotondAndesDistributed
 			try {
 				instance = new RotondAndesDistributed();
 			} catch (NamingException e) {
-				e.printStackTrace();
+				LOG.error("No se pudo iniciar la conexion JMS", e);
 			} catch (JMSException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
+				LOG.error("No se pudo iniciar la conexion JMS", e);
 			}
 		}
-		instance.setUpTransactionManager(tm);
+		if(instance != null)
+			instance.setUpTransactionManager(tm);
 		return instance;
 	}
 	
 	public static RotondAndesDistributed getInstance()
 	{
-		if(instance == null)
-		{
-			RotondAndesTm tm = new RotondAndesTm(path);
-			return getInstance(tm);
-		}
-		if(instance.tm != null)
+		if(instance == null || instance.tm == null)
 		{
-			return instance;
+			return getInstance(RotondAndesTm.getInstance(path));
 		}
-		RotondAndesTm tm = new RotondAndesTm(path);
-		return getInstance(tm);
+		return instance;
 	}
 	
 	public ListaProductos getLocalVideos() throws Exception
@@ -131,8 +260,94 @@ public class RotondAndesDistributed
 		return tm.darProductosLocales();
 	}
 	
+	/**
+	 * Registra que un producto local cambio para publicarlo a los pares en el siguiente delta.
+	 * @param nombre - nombre del producto o menu que cambio, o null para publicar el catalogo completo
+	 */
+	public void marcarCambio(String nombre)
+	{
+		if(nombre == null)
+			publicarCompleto = true;
+		else
+			cambios.add(nombre);
+	}
+	
+	/**
+	 * Aplica el delta publicado por un par y le pide su catalogo completo si falta alguna version.
+	 * @param par - sender del mensaje
+	 * @param delta - cambios del catalogo del par
+	 */
+	public void recibirCatalogo(String par, CatalogoDelta delta) throws JsonGenerationException, JsonMappingException, JMSException, IOException
+	{
+		if(!catalogoRemoto.aplicar(par, delta))
+			allProdMQ.pedirCatalogo(par);
+	}
+	
+	/**
+	 * @return los productos de los pares segun la copia local de sus catalogos, o null si no se tiene ninguno
+	 */
+	public ListaProductos getCatalogoRemoto()
+	{
+		List<ProductoIter5> productos = catalogoRemoto.darProductos();
+		return productos == null ? null : new ListaProductos(productos);
+	}
+	
+	public List<EstadisticasCatalogoRemoto> darEstadisticasCatalogoRemoto()
+	{
+		return catalogoRemoto.darEstadisticas();
+	}
+	
+	/**
+	 * Publica a los pares los productos locales que cambiaron, o el catalogo completo si se pidio o ya toca.
+	 * Si la publicacion falla la siguiente envia el catalogo completo para que los pares no queden con huecos.
+	 */
+	private void publicarCatalogo()
+	{
+		try {
+			if(pedirCatalogos) {
+				pedirCatalogos = false;
+				allProdMQ.pedirCatalogo("");
+			}
+			long ahora = System.currentTimeMillis();
+			boolean completo = publicarCompleto || ahora - ultimaCompleta >= intervaloCompleto;
+			if(!completo && cambios.isEmpty())
+				return;
+			Set<String> nombres = new HashSet<String>();
+			if(completo) {
+				publicarCompleto = false;
+				cambios.clear();
+				ultimaCompleta = ahora;
+			} else {
+				Iterator<String> iter = cambios.iterator();
+				while(iter.hasNext()) {
+					nombres.add(iter.next());
+					iter.remove();
+				}
+			}
+			List<ProductoIter5> locales = tm.darProductosLocales().getProductos();
+			List<ProductoIter5> productos = new ArrayList<ProductoIter5>();
+			List<String> eliminados = new ArrayList<String>();
+			if(completo) {
+				productos.addAll(locales);
+			} else {
+				for(ProductoIter5 producto : locales)
+					if(nombres.remove(producto.getNombre()))
+						productos.add(producto);
+				eliminados.addAll(nombres);
+			}
+			long version = versionPublicada + 1;
+			allProdMQ.publicarCatalogo(new CatalogoDelta(epoca, version, versionPublicada, completo, productos, eliminados));
+			versionPublicada = version;
+		} catch (Exception e) {
+			publicarCompleto = true;
+			LOG.error("No se pudo publicar el catalogo", e);
+		}
+	}
+	
 	public ListaProductos getRemoteVideos() throws JsonGenerationException, JsonMappingException, JMSException, IOException, NonReplyException, InterruptedException, NoSuchAlgorithmException
 	{
+		if(allProdMQ == null)
+			throw new NonReplyException("JMS inactivo");
 		return allProdMQ.getRemoteVideos();
 	}
 	
@@ -143,6 +358,8 @@ public class RotondAndesDistributed
 	
 	public ListaUtilidad getRemoteUtilidad(String nombre,String fecha ,String fecha2) throws JsonGenerationException, JsonMappingException, JMSException, IOException, NonReplyException, InterruptedException, NoSuchAlgorithmException
 	{
+		if(utilidadMQ == null)
+			throw new NonReplyException("JMS inactivo");
 		return utilidadMQ.getRemoteUtilidad(nombre, fecha, fecha2);
 	}
 	
@@ -153,6 +370,8 @@ public class RotondAndesDistributed
 	
 	public void getRemoteDelete(String nombre) throws JsonGenerationException, JsonMappingException, JMSException, IOException, NonReplyException, InterruptedException, NoSuchAlgorithmException
 	{
+		if(restauranteMQ == null)
+			throw new NonReplyException("JMS inactivo");
 		restauranteMQ.getRemoteDelete(nombre);
 	}
 }
@@ -1,11 +1,9 @@
 package jms;
 
 import java.io.IOException;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.jms.DeliveryMode;
 import javax.jms.ExceptionListener;
@@ -28,8 +26,8 @@ import javax.jms.TopicSession;
 import javax.jms.TopicSubscriber;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
-import javax.xml.bind.DatatypeConverter;
 
+import log.Logger;
 import org.codehaus.jackson.JsonGenerationException;
 import org.codehaus.jackson.JsonParseException;
 import org.codehaus.jackson.map.JsonMappingException;
@@ -39,18 +37,24 @@ import com.rabbitmq.jms.admin.RMQConnectionFactory;
 import com.rabbitmq.jms.admin.RMQDestination;
 
 import dtm.RotondAndesDistributed;
+import metrics.FlightEvents;
+import metrics.Metrics;
+import tm.WorkerThreads;
+import trace.Span;
+import trace.Tracer;
+import vos.CatalogoDelta;
 import vos.ExchangeMsg;
 import vos.ListaProductos;
 import vos.ListaUtilidad;
 import vos.Producto;
 import vos.ProductoIter5;
-import vos.Utilidad;
 
 
 
 public class AllProductosMDB implements MessageListener, ExceptionListener 
 {
-	public final static int TIME_OUT = 50;
+
+	private static final Logger LOG = Logger.get(AllProductosMDB.class);
 	private final static String APP = "app1";
 	
 	private final static String GLOBAL_TOPIC_NAME = "java:global/RMQTopicAllVideos";
@@ -58,19 +62,48 @@ public class AllProductosMDB implements MessageListener, ExceptionListener
 	
 	private final static String REQUEST = "REQUEST";
 	private final static String REQUEST_ANSWER = "REQUEST_ANSWER";
+	private final static String CATALOG_DELTA = "CATALOG_DELTA";
+	private final static String CATALOG_SYNC = "CATALOG_SYNC";
 	
 	private TopicConnection topicConnection;
 	private TopicSession topicSession;
 	private Topic globalTopic;
 	private Topic localTopic;
 	
-	private List<ProductoIter5> answer = new ArrayList<ProductoIter5>();
-	private List<Utilidad> answer2 = new ArrayList<>();
+	/**
+	 * Milisegundos maximos que se espera a los pares
+	 */
+	private final long espera;
+	
+	/**
+	 * Numero de pares que deben contestar para devolver la respuesta antes del plazo
+	 */
+	private final int pares;
 	
-	public AllProductosMDB(TopicConnectionFactory factory, InitialContext ctx) throws JMSException, NamingException 
+	/**
+	 * Consultas distribuidas en curso, por msgId
+	 */
+	private final ReplyRegistry<ProductoIter5> respuestas = new ReplyRegistry<ProductoIter5>("allProductos");
+	
+	/**
+	 * Sesion con la que se publican los mensajes; la sesion de los suscriptores la usa el hilo de entrega de JMS
+	 * y una sesion no se puede usar desde varios hilos al tiempo
+	 */
+	private TopicSession sesionEnvio;
+
+	/**
+	 * Hilos en los que se atienden los REQUEST de los pares, o null para atenderlos en el hilo de entrega de JMS
+	 */
+	private final WorkerThreads trabajadores;
+	
+	public AllProductosMDB(TopicConnectionFactory factory, InitialContext ctx, long espera, int pares, WorkerThreads trabajadores) throws JMSException, NamingException 
 	{	
+		this.espera = espera;
+		this.pares = pares;
+		this.trabajadores = trabajadores;
 		topicConnection = factory.createTopicConnection();
 		topicSession = topicConnection.createTopicSession(false, Session.AUTO_ACKNOWLEDGE);
+		sesionEnvio = topicConnection.createTopicSession(false, Session.AUTO_ACKNOWLEDGE);
 		globalTopic = (RMQDestination) ctx.lookup(GLOBAL_TOPIC_NAME);
 		TopicSubscriber topicSubscriber =  topicSession.createSubscriber(globalTopic);
 		topicSubscriber.setMessageListener(this);
@@ -87,34 +120,30 @@ public class AllProductosMDB implements MessageListener, ExceptionListener
 	
 	public void close() throws JMSException
 	{
+		sesionEnvio.close();
 		topicSession.close();
 		topicConnection.close();
 	}
 	
+	/**
+	 * Pide los productos a los demas pares y espera sus respuestas hasta que contesten los pares esperados
+	 * o pase el plazo configurado.
+	 * @return los productos de los pares que contestaron
+	 * @throws NonReplyException - si ningun par contesto o no llego ningun producto
+	 */
 	public ListaProductos  getRemoteVideos() throws JsonGenerationException, JsonMappingException, JMSException, IOException, NonReplyException, InterruptedException, NoSuchAlgorithmException
 	{
-		answer.clear();
-		String id = APP+""+System.currentTimeMillis();
-		MessageDigest md = MessageDigest.getInstance("MD5");
-		id = DatatypeConverter.printHexBinary(md.digest(id.getBytes())).substring(0, 8);
-//		id = new String(md.digest(id.getBytes()));
-		
-		sendMessage("", REQUEST, globalTopic, id);
-		boolean waiting = true;
-
-		int count = 0;
-		while(TIME_OUT != count){
-			TimeUnit.SECONDS.sleep(1);
-			count++;
+		ReplyFuture<ProductoIter5> respuesta = respuestas.registrar(APP, pares, espera);
+		String id = respuesta.getMsgId();
+		List<ProductoIter5> answer;
+		try {
+			sendMessage("", REQUEST, globalTopic, id);
+			answer = respuesta.esperar(espera);
+		} finally {
+			respuestas.retirar(id);
 		}
-		if(count == TIME_OUT){
-			if(this.answer.isEmpty()){
-				waiting = false;
-				throw new NonReplyException("Time Out - No Reply");
-			}
-		}
-		waiting = false;
-		
+		if(respuesta.darRemitentes() == 0)
+			throw new NonReplyException("Time Out - No Reply");
 		if(answer.isEmpty())
 			throw new NonReplyException("Non Response");
 		ListaProductos res = new ListaProductos(answer);
@@ -122,94 +151,180 @@ public class AllProductosMDB implements MessageListener, ExceptionListener
 	}
 	
 	
-	private void sendMessage(String payload, String status, Topic dest, String id) throws JMSException, JsonGenerationException, JsonMappingException, IOException
+	/**
+	 * Publica a los pares los cambios del catalogo local.
+	 * @param delta - productos que cambiaron o catalogo completo
+	 */
+	public void publicarCatalogo(CatalogoDelta delta) throws JsonGenerationException, JsonMappingException, JMSException, IOException
 	{
 		ObjectMapper mapper = new ObjectMapper();
-		System.out.println(id);
-		ExchangeMsg msg = new ExchangeMsg("videos.general.app1", APP, payload, status, id);
-		TopicPublisher topicPublisher = topicSession.createPublisher(dest);
-		topicPublisher.setDeliveryMode(DeliveryMode.PERSISTENT);
-		TextMessage txtMsg = topicSession.createTextMessage();
-		txtMsg.setJMSType("TextMessage");
-		String envelope = mapper.writeValueAsString(msg);
-		System.out.println(envelope);
-		txtMsg.setText(envelope);
-		topicPublisher.publish(txtMsg);
+		sendMessage(mapper.writeValueAsString(delta), CATALOG_DELTA, globalTopic, delta.getEpoca()+"."+delta.getVersion());
+	}
+	
+	/**
+	 * Le pide a un par, o a todos, que publique su catalogo completo.
+	 * @param par - sender del par, o vacio para pedirselo a todos
+	 */
+	public void pedirCatalogo(String par) throws JsonGenerationException, JsonMappingException, JMSException, IOException
+	{
+		sendMessage(par, CATALOG_SYNC, globalTopic, "");
+	}
+	
+	private void sendMessage(String payload, String status, Topic dest, String id) throws JMSException, JsonGenerationException, JsonMappingException, IOException
+	{
+		Object evento = FlightEvents.iniciarMensaje();
+		Span span = Tracer.iniciar("enviar " + status, "jms");
+		boolean exito = false;
+		try
+		{
+			ObjectMapper mapper = new ObjectMapper();
+			ExchangeMsg msg = new ExchangeMsg("videos.general.app1", APP, payload, status, id);
+			if(span != null)
+			{
+				span.atributo("mdb", "allProductos").atributo("msgId", id);
+				msg.setTraceId(span.getTraza());
+				msg.setSpanId(span.getId());
+			}
+			String envelope = mapper.writeValueAsString(msg);
+			LOG.debug("Enviando {}", envelope);
+			synchronized(sesionEnvio) {
+				TopicPublisher topicPublisher = sesionEnvio.createPublisher(dest);
+				topicPublisher.setDeliveryMode(DeliveryMode.PERSISTENT);
+				TextMessage txtMsg = sesionEnvio.createTextMessage();
+				txtMsg.setJMSType("TextMessage");
+				txtMsg.setText(envelope);
+				topicPublisher.publish(txtMsg);
+				topicPublisher.close();
+			}
+			FlightEvents.mensaje(evento, "allProductos", "enviado", id, status, APP);
+			exito = true;
+		}
+		finally
+		{
+			Tracer.terminar(span, !exito);
+		}
 	}
 	
 	@Override
 	public void onMessage(Message message) 
 	{
+		Object evento = FlightEvents.iniciarMensaje();
+		ExchangeMsg ex = null;
+		Span span = null;
 		TextMessage txt = (TextMessage) message;
 		try 
 		{
 			String body = txt.getText();
-			System.out.println(body);
+			LOG.debug("Recibido {}", body);
 			ObjectMapper mapper = new ObjectMapper();
-			ExchangeMsg ex = mapper.readValue(body, ExchangeMsg.class);
+			ex = mapper.readValue(body, ExchangeMsg.class);
+			if(ex.getTraceId() != null)
+				span = Tracer.iniciarRaiz("recibir " + ex.getStatus(), "jms", ex.getTraceId(), ex.getSpanId());
+			if(span != null)
+				span.atributo("mdb", "allProductos").atributo("msgId", ex.getMsgId()).atributo("remitente", ex.getSender());
+			Metrics.getInstance().contador("rotondandes_jms_messages_total", "Mensajes recibidos por cada MDB",
+					"mdb", "allProductos", "status", ex.getStatus()).increment();
 			String id = ex.getMsgId();
-			System.out.println(ex.getSender());
-			System.out.println(ex.getStatus());
-			if(!ex.getSender().equals(APP) && ex.getPayload().length() <= 0)
+			if(ex.getSender().equals(APP))
+				return;
+			if(ex.getStatus().equals(CATALOG_DELTA))
 			{
-				System.out.println("--------------------------------------------------2324324Llego un mensaje----------------------------");
-				if(ex.getStatus().equals(REQUEST))
-				{
-					System.out.println("Estoy enviendo el mensaje ----------------------------");
-					RotondAndesDistributed dtm = RotondAndesDistributed.getInstance();
-					ListaProductos videos = dtm.getLocalVideos();
-					String payload = mapper.writeValueAsString(videos);
-					Topic t = new RMQDestination("", "videos.test", ex.getRoutingKey(), "", false);
-					sendMessage(payload, REQUEST_ANSWER, t, id);
-					System.out.println("MENSAJE ENVIADO -----------------------------------------");
-				}
-				else if(ex.getStatus().equals(REQUEST_ANSWER))
+				CatalogoDelta delta = mapper.readValue(ex.getPayload(), CatalogoDelta.class);
+				RotondAndesDistributed.getInstance().recibirCatalogo(ex.getSender(), delta);
+			}
+			else if(ex.getStatus().equals(CATALOG_SYNC))
+			{
+				if(ex.getPayload().length() <= 0 || ex.getPayload().equals(APP))
+					RotondAndesDistributed.getInstance().marcarCambio(null);
+			}
+			else if(ex.getStatus().equals(REQUEST_ANSWER))
+			{
+				ReplyFuture<ProductoIter5> respuesta = respuestas.buscar(id);
+				if(respuesta != null)
 				{
-					System.out.println("RESPUESTAAA----------------------------------------------");
 					ListaProductos v = mapper.readValue(ex.getPayload(), ListaProductos.class);
-					answer.addAll(v.getProductos());
-				}
-			}else{
-				System.out.println("Holaaaaaaa--------------------------------------------");
-				String[] metodo = ex.getPayload().split(",");
-				if(ex.getStatus().equals(REQUEST))
-				{
-					RotondAndesDistributed dtm = RotondAndesDistributed.getInstance();
-					ListaUtilidad uti = dtm.getLocaUtilidad(metodo[0], metodo[1],metodo[2]);	
-					String payload = mapper.writeValueAsString(uti);
-					Topic t = new RMQDestination("", "videos.test", ex.getRoutingKey(), "", false);
-					sendMessage(payload, REQUEST_ANSWER, t, id);
-				}
-				else if(ex.getStatus().equals(REQUEST_ANSWER))
-				{
-					Utilidad v = mapper.readValue(ex.getPayload(), Utilidad.class);
-					answer2.add(v);
+					respuesta.completar(ex.getSender(), v.getProductos());
 				}
 			}
+			else if(ex.getStatus().equals(REQUEST))
+			{
+				atender(ex, span);
+			}
 			
 		} catch (JMSException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			LOG.error("Error procesando mensaje", e);
 		} catch (JsonParseException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			LOG.error("Error procesando mensaje", e);
 		} catch (JsonMappingException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			LOG.error("Error procesando mensaje", e);
 		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			LOG.error("Error procesando mensaje", e);
 		} catch (Exception e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			LOG.error("Error procesando mensaje", e);
+		} finally {
+			Tracer.terminar(span, false);
+			if(ex != null)
+				FlightEvents.mensaje(evento, "allProductos", "recibido", ex.getMsgId(), ex.getStatus(), ex.getSender());
 		}
 		
 	}
 
+	/**
+	 * Contesta el REQUEST de un par. Con hilos de trabajo (hilos.modo=virtual, ver tm.WorkerThreads) la consulta a la
+	 * base de datos corre en otro hilo y el de entrega de JMS sigue con el siguiente mensaje.
+	 * @throws RejectedExecutionException - si los hilos de trabajo estan llenos
+	 */
+	private void atender(final ExchangeMsg ex, final Span padre) throws Exception
+	{
+		if(trabajadores == null)
+		{
+			responder(ex);
+			return;
+		}
+		trabajadores.enviar(new Runnable() {
+			@Override
+			public void run() {
+				Span span = Tracer.iniciar(padre, "atender " + ex.getStatus(), "jms");
+				boolean exito = false;
+				try {
+					responder(ex);
+					exito = true;
+				} catch (Exception e) {
+					LOG.error("Error atendiendo " + ex.getMsgId(), e);
+				} finally {
+					Tracer.terminar(span, !exito);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Publica al par los productos locales, o la utilidad local si el payload es restaurante,fechaI,fechaF
+	 */
+	private void responder(ExchangeMsg ex) throws Exception
+	{
+		ObjectMapper mapper = new ObjectMapper();
+		RotondAndesDistributed dtm = RotondAndesDistributed.getInstance();
+		String payload;
+		if(ex.getPayload().length() <= 0)
+		{
+			ListaProductos videos = dtm.getLocalVideos();
+			payload = mapper.writeValueAsString(videos);
+		}
+		else
+		{
+			String[] metodo = ex.getPayload().split(",");
+			ListaUtilidad uti = dtm.getLocaUtilidad(metodo[0], metodo[1],metodo[2]);
+			payload = mapper.writeValueAsString(uti);
+		}
+		Topic t = new RMQDestination("", "videos.test", ex.getRoutingKey(), "", false);
+		sendMessage(payload, REQUEST_ANSWER, t, ex.getMsgId());
+	}
+
 	@Override
 	public void onException(JMSException exception) 
 	{
-		System.out.println(exception);
+		LOG.error("Error de la conexion JMS", exception);
 	}
 
 }
@@ -0,0 +1,77 @@
+package jms;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Respuesta pendiente de un REQUEST publicado con un msgId.
+ * onMessage la completa con cada REQUEST_ANSWER que trae el mismo msgId; quien publico el REQUEST espera hasta que
+ * hayan contestado los pares esperados o se cumpla el plazo, lo que pase primero.
+ * Solo se toma la primera respuesta de cada remitente.
+ * @param <T> - tipo de los elementos de las respuestas
+ */
+public class ReplyFuture<T> {
+
+	private final String msgId;
+
+	private final int esperados;
+
+	private final List<T> respuestas = new ArrayList<T>();
+
+	private final Set<String> remitentes = new HashSet<String>();
+
+	/**
+	 * @param msgId - msgId del REQUEST publicado
+	 * @param esperados - numero de pares que deben contestar para no esperar hasta el plazo
+	 */
+	public ReplyFuture(String msgId, int esperados) {
+		this.msgId = msgId;
+		this.esperados = esperados;
+	}
+
+	public String getMsgId() {
+		return msgId;
+	}
+
+	/**
+	 * Agrega la respuesta de un par y despierta a quien espera si ya contestaron todos.
+	 * @param remitente - sender del REQUEST_ANSWER
+	 * @param valores - elementos de la respuesta
+	 * @return false si el remitente ya habia contestado y la respuesta se ignoro
+	 */
+	public synchronized boolean completar(String remitente, List<? extends T> valores) {
+		if(!remitentes.add(remitente))
+			return false;
+		respuestas.addAll(valores);
+		if(remitentes.size() >= esperados)
+			notifyAll();
+		return true;
+	}
+
+	/**
+	 * Espera a que contesten los pares esperados, a lo sumo el plazo.
+	 * @param plazo - milisegundos maximos de espera
+	 * @return los elementos recibidos hasta el momento
+	 * @throws InterruptedException - si se interrumpe la espera
+	 */
+	public synchronized List<T> esperar(long plazo) throws InterruptedException {
+		long fin = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(plazo);
+		while(remitentes.size() < esperados) {
+			long resta = fin - System.nanoTime();
+			if(resta <= 0)
+				break;
+			TimeUnit.NANOSECONDS.timedWait(this, resta);
+		}
+		return new ArrayList<T>(respuestas);
+	}
+
+	/**
+	 * @return numero de pares que han contestado
+	 */
+	public synchronized int darRemitentes() {
+		return remitentes.size();
+	}
+}
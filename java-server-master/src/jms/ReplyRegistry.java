@@ -0,0 +1,164 @@
+package jms;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.bind.DatatypeConverter;
+
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import metrics.StripedCounter;
+
+/**
+ * Registro de las consultas distribuidas en curso de un MDB, por msgId.
+ * Cada consulta registra su ReplyFuture antes de publicar el REQUEST y lo retira al terminar; onMessage busca por el
+ * msgId del REQUEST_ANSWER el ReplyFuture al que le corresponde la respuesta, asi varias consultas pueden estar en
+ * curso al tiempo sin mezclar sus respuestas.
+ * Las entradas que nadie retira (por ejemplo si el hilo que consultaba murio) se borran cuando pasa su plazo;
+ * las respuestas que llegan despues de que la consulta termino se descartan.
+ * El tiempo entre registrar y retirar cada consulta queda en rotondandes_jms_roundtrip_seconds, separado segun si
+ * contesto algun par o no.
+ * @param <T> - tipo de los elementos de las respuestas
+ */
+public class ReplyRegistry<T> {
+
+	/**
+	 * Milisegundos minimos entre dos barridos de entradas vencidas
+	 */
+	private static final long PERIODO_PURGA = 1000;
+
+	private final ConcurrentHashMap<String, Entrada<T>> enCurso = new ConcurrentHashMap<String, Entrada<T>>();
+
+	private final AtomicLong secuencia = new AtomicLong();
+
+	private final AtomicLong ultimaPurga = new AtomicLong();
+
+	private final AtomicLong descartadas = new AtomicLong();
+
+	private final AtomicLong expiradas = new AtomicLong();
+
+	private final LatencyHistogram respondidas;
+
+	private final LatencyHistogram sinRespuesta;
+
+	private final StripedCounter tardias;
+
+	/**
+	 * @param mdb - nombre del MDB en las metricas
+	 */
+	public ReplyRegistry(String mdb) {
+		Metrics metrics = Metrics.getInstance();
+		String ayuda = "Duracion de las consultas distribuidas, desde que se publica el REQUEST hasta que se deja de esperar";
+		respondidas = metrics.histograma("rotondandes_jms_roundtrip_seconds", ayuda, "mdb", mdb, "resultado", "respuesta");
+		sinRespuesta = metrics.histograma("rotondandes_jms_roundtrip_seconds", ayuda, "mdb", mdb, "resultado", "sin_respuesta");
+		tardias = metrics.contador("rotondandes_jms_discarded_total", "Respuestas que llegaron sin una consulta en curso",
+				"mdb", mdb);
+	}
+
+	/**
+	 * Registra una consulta nueva con un msgId que no este en uso.
+	 * @param app - nombre de la aplicacion, se usa para generar el msgId
+	 * @param esperados - numero de pares que deben contestar
+	 * @param plazo - milisegundos que puede durar la consulta
+	 * @return el ReplyFuture de la consulta, con su msgId
+	 * @throws NoSuchAlgorithmException - si no se puede calcular el msgId
+	 */
+	public ReplyFuture<T> registrar(String app, int esperados, long plazo) throws NoSuchAlgorithmException {
+		purgar();
+		MessageDigest md = MessageDigest.getInstance("MD5");
+		long vence = System.currentTimeMillis() + plazo + PERIODO_PURGA;
+		while(true) {
+			String id = app+""+System.currentTimeMillis()+""+secuencia.incrementAndGet();
+			id = DatatypeConverter.printHexBinary(md.digest(id.getBytes())).substring(0, 8);
+			ReplyFuture<T> respuesta = new ReplyFuture<T>(id, esperados);
+			if(enCurso.putIfAbsent(id, new Entrada<T>(respuesta, vence, System.nanoTime())) == null)
+				return respuesta;
+		}
+	}
+
+	/**
+	 * @param msgId - msgId de un REQUEST_ANSWER
+	 * @return la consulta en curso con ese msgId, o null si ya termino o no es de este servidor
+	 */
+	public ReplyFuture<T> buscar(String msgId) {
+		Entrada<T> entrada = msgId == null ? null : enCurso.get(msgId);
+		if(entrada == null) {
+			descartadas.incrementAndGet();
+			tardias.increment();
+			return null;
+		}
+		return entrada.respuesta;
+	}
+
+	/**
+	 * Retira una consulta que termino; las respuestas que lleguen despues se descartan.
+	 * @param msgId - msgId de la consulta
+	 */
+	public void retirar(String msgId) {
+		Entrada<T> entrada = enCurso.remove(msgId);
+		if(entrada == null)
+			return;
+		long nanos = System.nanoTime() - entrada.inicio;
+		if(entrada.respuesta.darRemitentes() > 0)
+			respondidas.registrar(nanos);
+		else
+			sinRespuesta.registrar(nanos);
+	}
+
+	/**
+	 * @return numero de consultas en curso
+	 */
+	public int darEnCurso() {
+		return enCurso.size();
+	}
+
+	/**
+	 * @return numero de respuestas que no tenian una consulta en curso
+	 */
+	public long darDescartadas() {
+		return descartadas.get();
+	}
+
+	/**
+	 * @return numero de entradas borradas por vencidas
+	 */
+	public long darExpiradas() {
+		return expiradas.get();
+	}
+
+	/**
+	 * Borra las entradas vencidas, a lo sumo una vez por PERIODO_PURGA.
+	 */
+	private void purgar() {
+		long ahora = System.currentTimeMillis();
+		long ultima = ultimaPurga.get();
+		if(ahora - ultima < PERIODO_PURGA || !ultimaPurga.compareAndSet(ultima, ahora))
+			return;
+		Iterator<Map.Entry<String, Entrada<T>>> iter = enCurso.entrySet().iterator();
+		while(iter.hasNext()) {
+			if(iter.next().getValue().vence < ahora) {
+				iter.remove();
+				expiradas.incrementAndGet();
+			}
+		}
+	}
+
+	private static class Entrada<T> {
+
+		private final ReplyFuture<T> respuesta;
+
+		private final long vence;
+
+		private final long inicio;
+
+		private Entrada(ReplyFuture<T> respuesta, long vence, long inicio) {
+			this.respuesta = respuesta;
+			this.vence = vence;
+			this.inicio = inicio;
+		}
+	}
+}
@@ -1,11 +1,9 @@
 package jms;
 
 import java.io.IOException;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.jms.DeliveryMode;
 import javax.jms.ExceptionListener;
@@ -22,8 +20,8 @@ import javax.jms.TopicSession;
 import javax.jms.TopicSubscriber;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
-import javax.xml.bind.DatatypeConverter;
 
+import log.Logger;
 import org.codehaus.jackson.JsonGenerationException;
 import org.codehaus.jackson.JsonParseException;
 import org.codehaus.jackson.map.JsonMappingException;
@@ -32,13 +30,19 @@ import org.codehaus.jackson.map.ObjectMapper;
 import com.rabbitmq.jms.admin.RMQDestination;
 
 import dtm.RotondAndesDistributed;
+import metrics.FlightEvents;
+import metrics.Metrics;
+import tm.WorkerThreads;
+import trace.Span;
+import trace.Tracer;
 import vos.ExchangeMsg;
 import vos.ListaUtilidad;
 import vos.Utilidad;
 
 public class UtilidadMDB implements MessageListener, ExceptionListener 
 {
-	public final static int TIME_OUT = 50;
+
+	private static final Logger LOG = Logger.get(UtilidadMDB.class);
 	private final static String GLOBAL_TOPIC_NAME = "java:global/RMQTopicAllTerrorVideos";
 	private final static String TOPIC_NAME = "java:global/RMQTopicTerrorVideos";
 	private static final String APP = "app1";
@@ -51,12 +55,40 @@ public class UtilidadMDB implements MessageListener, ExceptionListener
 	private TopicSession topicSession;
 	private Topic topic;
 	
-	public List<Utilidad> answer= new ArrayList<>();
+	/**
+	 * Milisegundos maximos que se espera a los pares
+	 */
+	private final long espera;
+
+	/**
+	 * Numero de pares que deben contestar para devolver la respuesta antes del plazo
+	 */
+	private final int pares;
+
+	/**
+	 * Consultas distribuidas en curso, por msgId
+	 */
+	private final ReplyRegistry<Utilidad> respuestas = new ReplyRegistry<Utilidad>("utilidad");
+	
+	/**
+	 * Sesion con la que se publican los mensajes; la sesion de los suscriptores la usa el hilo de entrega de JMS
+	 * y una sesion no se puede usar desde varios hilos al tiempo
+	 */
+	private TopicSession sesionEnvio;
 
-	public UtilidadMDB(TopicConnectionFactory factory, InitialContext ctx) throws JMSException, NamingException
+	/**
+	 * Hilos en los que se atienden los REQUEST de los pares, o null para atenderlos en el hilo de entrega de JMS
+	 */
+	private final WorkerThreads trabajadores;
+
+	public UtilidadMDB(TopicConnectionFactory factory, InitialContext ctx, long espera, int pares, WorkerThreads trabajadores) throws JMSException, NamingException
 	{
+		this.espera = espera;
+		this.pares = pares;
+		this.trabajadores = trabajadores;
 		topicConnection = factory.createTopicConnection();
 		topicSession = topicConnection.createTopicSession(false, Session.AUTO_ACKNOWLEDGE);
+		sesionEnvio = topicConnection.createTopicSession(false, Session.AUTO_ACKNOWLEDGE);
 		globalTopic = (RMQDestination) ctx.lookup(GLOBAL_TOPIC_NAME);
 		TopicSubscriber topicSubscriber =  topicSession.createSubscriber(globalTopic);
 		topicSubscriber.setMessageListener(this);
@@ -73,110 +105,172 @@ public class UtilidadMDB implements MessageListener, ExceptionListener
 	
 	public void close() throws JMSException
 	{
+		sesionEnvio.close();
 		topicSession.close();
 		topicConnection.close();
 	}
 	
+	/**
+	 * Pide la utilidad de un restaurante a los demas pares y espera sus respuestas hasta que contesten los pares
+	 * esperados o pase el plazo configurado.
+	 * @return la utilidad que reporto cada par que contesto
+	 * @throws NonReplyException - si ningun par contesto
+	 */
 	public ListaUtilidad getRemoteUtilidad(String restaurante, String fechaI,String fechaF) throws JsonGenerationException, JsonMappingException, JMSException, IOException, NonReplyException, InterruptedException, NoSuchAlgorithmException
 	{
-		answer.clear();
-		String id = APP+""+System.currentTimeMillis();
-		MessageDigest md = MessageDigest.getInstance("MD5");
-		id = DatatypeConverter.printHexBinary(md.digest(id.getBytes())).substring(0, 8);
-		//id = new String(md.digest(id.getBytes()));
-		
-		sendMessage(restaurante+","+fechaI+","+fechaF, REQUEST, topic, id);
-		System.out.println("Mensaje Enviado");
-		boolean waiting = true;
-
-		int count = 0;
-		while(TIME_OUT != count){
-			TimeUnit.SECONDS.sleep(1);
-			count++;
+		ReplyFuture<Utilidad> respuesta = respuestas.registrar(APP, pares, espera);
+		String id = respuesta.getMsgId();
+		List<Utilidad> answer;
+		try {
+			sendMessage(restaurante+","+fechaI+","+fechaF, REQUEST, topic, id);
+			LOG.debug("Solicitud {} enviada", id);
+			answer = respuesta.esperar(espera);
+		} finally {
+			respuestas.retirar(id);
 		}
-		if(count == TIME_OUT){
-			if(this.answer == null){
-				waiting = false;
-				throw new NonReplyException("Time Out - No Reply");
-			}
-		}
-		waiting = false;
-		if(answer == null)
-			throw new NonReplyException("Non Response");
+		if(respuesta.darRemitentes() == 0)
+			throw new NonReplyException("Time Out - No Reply");
 		ListaUtilidad rest = new ListaUtilidad(answer);
         return rest;
 	}
 	
+	/**
+	 * Contesta el REQUEST de un par. Con hilos de trabajo (hilos.modo=virtual, ver tm.WorkerThreads) la consulta a la
+	 * base de datos corre en otro hilo y el de entrega de JMS sigue con el siguiente mensaje.
+	 * @throws RejectedExecutionException - si los hilos de trabajo estan llenos
+	 */
+	private void atender(final ExchangeMsg ex, final Span padre) throws Exception
+	{
+		if(trabajadores == null)
+		{
+			responder(ex);
+			return;
+		}
+		trabajadores.enviar(new Runnable() {
+			@Override
+			public void run() {
+				Span span = Tracer.iniciar(padre, "atender " + ex.getStatus(), "jms");
+				boolean exito = false;
+				try {
+					responder(ex);
+					exito = true;
+				} catch (Exception e) {
+					LOG.error("Error atendiendo " + ex.getMsgId(), e);
+				} finally {
+					Tracer.terminar(span, !exito);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Publica al par la utilidad local del payload restaurante,fechaI,fechaF
+	 */
+	private void responder(ExchangeMsg ex) throws Exception
+	{
+		String[] metodo = ex.getPayload().split(",");
+		RotondAndesDistributed dtm = RotondAndesDistributed.getInstance();
+		ListaUtilidad uti = dtm.getLocaUtilidad(metodo[0], metodo[1],metodo[2]);
+		String payload = new ObjectMapper().writeValueAsString(uti);
+		Topic t = new RMQDestination("", "videos.test", ex.getRoutingKey(), "", false);
+		sendMessage(payload, REQUEST_ANSWER, t, ex.getMsgId());
+	}
+
 	@Override
 	public void onException(JMSException exception) 
 	{
-		System.out.println(exception);		
+		LOG.error("Error de la conexion JMS", exception);
 	}
 
 	@Override
 	public void onMessage(Message message) 
 	{
+		Object evento = FlightEvents.iniciarMensaje();
+		ExchangeMsg ex = null;
+		Span span = null;
 		TextMessage txt = (TextMessage) message;
 		try 
 		{
 			String body = txt.getText();
-			System.out.println(body);
+			LOG.debug("Recibido {}", body);
 			ObjectMapper mapper = new ObjectMapper();
-			ExchangeMsg ex = mapper.readValue(body, ExchangeMsg.class);
+			ex = mapper.readValue(body, ExchangeMsg.class);
+			if(ex.getTraceId() != null)
+				span = Tracer.iniciarRaiz("recibir " + ex.getStatus(), "jms", ex.getTraceId(), ex.getSpanId());
+			if(span != null)
+				span.atributo("mdb", "utilidad").atributo("msgId", ex.getMsgId()).atributo("remitente", ex.getSender());
+			Metrics.getInstance().contador("rotondandes_jms_messages_total", "Mensajes recibidos por cada MDB",
+					"mdb", "utilidad", "status", ex.getStatus()).increment();
 			String id = ex.getMsgId();
-			System.out.println(ex.getSender());
-			System.out.println(ex.getStatus());
 			if(!ex.getSender().equals(APP))
 			{
 				
-				String[] metodo = ex.getPayload().split(",");
 				if(ex.getStatus().equals(REQUEST))
 				{
-					RotondAndesDistributed dtm = RotondAndesDistributed.getInstance();
-					ListaUtilidad uti = dtm.getLocaUtilidad(metodo[0], metodo[1],metodo[2]);	
-					String payload = mapper.writeValueAsString(uti);
-					Topic t = new RMQDestination("", "videos.test", ex.getRoutingKey(), "", false);
-					sendMessage(payload, REQUEST_ANSWER, t, id);
+					atender(ex, span);
 				}
 				else if(ex.getStatus().equals(REQUEST_ANSWER))
 				{
-					Utilidad v = mapper.readValue(ex.getPayload(), Utilidad.class);
-					answer.add(v);
+					ReplyFuture<Utilidad> respuesta = respuestas.buscar(id);
+					if(respuesta != null)
+					{
+						ListaUtilidad v = mapper.readValue(ex.getPayload(), ListaUtilidad.class);
+						respuesta.completar(ex.getSender(), v.getUtilidades());
+					}
 				}
 			}
 			
 		} catch (JMSException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			LOG.error("Error procesando mensaje", e);
 		} catch (JsonParseException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			LOG.error("Error procesando mensaje", e);
 		} catch (JsonMappingException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			LOG.error("Error procesando mensaje", e);
 		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			LOG.error("Error procesando mensaje", e);
 		} catch (Exception e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			LOG.error("Error procesando mensaje", e);
+		} finally {
+			Tracer.terminar(span, false);
+			if(ex != null)
+				FlightEvents.mensaje(evento, "utilidad", "recibido", ex.getMsgId(), ex.getStatus(), ex.getSender());
 		}
 		
 	}
 	
 	private void sendMessage(String payload, String status, Topic dest, String id) throws JMSException, JsonGenerationException, JsonMappingException, IOException
 	{
-		ObjectMapper mapper = new ObjectMapper();		
-		System.out.println(id);
-		ExchangeMsg msg = new ExchangeMsg("videos.terror.app1", APP, payload, status, id);
-		TopicPublisher topicPublisher = topicSession.createPublisher(dest);
-		topicPublisher.setDeliveryMode(DeliveryMode.PERSISTENT);
-		TextMessage txtMsg = topicSession.createTextMessage();
-		txtMsg.setJMSType("TextMessage");
-		String envelope = mapper.writeValueAsString(msg);
-		System.out.println(envelope);
-		txtMsg.setText(envelope);
-		topicPublisher.publish(txtMsg);
+		Object evento = FlightEvents.iniciarMensaje();
+		Span span = Tracer.iniciar("enviar " + status, "jms");
+		boolean exito = false;
+		try
+		{
+			ObjectMapper mapper = new ObjectMapper();		
+			ExchangeMsg msg = new ExchangeMsg("videos.terror.app1", APP, payload, status, id);
+			if(span != null)
+			{
+				span.atributo("mdb", "utilidad").atributo("msgId", id);
+				msg.setTraceId(span.getTraza());
+				msg.setSpanId(span.getId());
+			}
+			String envelope = mapper.writeValueAsString(msg);
+			LOG.debug("Enviando {}", envelope);
+			synchronized(sesionEnvio) {
+				TopicPublisher topicPublisher = sesionEnvio.createPublisher(dest);
+				topicPublisher.setDeliveryMode(DeliveryMode.PERSISTENT);
+				TextMessage txtMsg = sesionEnvio.createTextMessage();
+				txtMsg.setJMSType("TextMessage");
+				txtMsg.setText(envelope);
+				topicPublisher.publish(txtMsg);
+				topicPublisher.close();
+			}
+			FlightEvents.mensaje(evento, "utilidad", "enviado", id, status, APP);
+			exito = true;
+		}
+		finally
+		{
+			Tracer.terminar(span, !exito);
+		}
 	}
 	
 	
@@ -0,0 +1,212 @@
+package log;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import metrics.Metrics;
+import metrics.StripedCounter;
+
+/**
+ * Buffer circular entre los hilos que registran mensajes y el hilo que los formatea y escribe.
+ * Publicar un mensaje es reservar una celda con un compareAndSet y guardarlo; si el buffer esta lleno el mensaje se
+ * descarta y se cuenta en rotondandes_log_dropped_total, asi un hilo de una llamada nunca espera a la consola.
+ * El formato (fecha, reemplazo de {} y pila de la excepcion) y la escritura los hace solo el hilo escritor.
+ * WARN y ERROR van a System.err y lo demas a System.out, tomados al crear el escritor.
+ */
+class AsyncLogWriter {
+
+	private final int capacidad;
+
+	private final int mascara;
+
+	private final AtomicReferenceArray<Entrada> celdas;
+
+	/**
+	 * Siguiente posicion por reservar
+	 */
+	private final AtomicLong cabeza = new AtomicLong();
+
+	/**
+	 * Siguiente posicion por escribir; solo la avanza el hilo escritor
+	 */
+	private final AtomicLong cola = new AtomicLong();
+
+	private final StripedCounter descartados;
+
+	private final PrintStream out;
+
+	private final PrintStream err;
+
+	private final Thread hilo;
+
+	private volatile boolean esperando;
+
+	private volatile boolean activo = true;
+
+	/**
+	 * @param capacidad - mensajes que caben en el buffer; se redondea a la siguiente potencia de 2
+	 */
+	AsyncLogWriter(int capacidad) {
+		int n = 1;
+		while(n < capacidad)
+			n <<= 1;
+		this.capacidad = n;
+		this.mascara = n - 1;
+		this.celdas = new AtomicReferenceArray<Entrada>(n);
+		this.descartados = Metrics.getInstance().contador("rotondandes_log_dropped_total",
+				"Mensajes de log descartados porque el buffer estaba lleno");
+		this.out = System.out;
+		this.err = System.err;
+		this.hilo = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				escribir();
+			}
+		}, "escritor-log");
+		hilo.setDaemon(true);
+		hilo.start();
+	}
+
+	/**
+	 * @param entrada - mensaje por escribir
+	 * @return false si el buffer estaba lleno y el mensaje se descarto
+	 */
+	boolean publicar(Entrada entrada) {
+		long pos;
+		do {
+			pos = cabeza.get();
+			if(!activo || pos - cola.get() >= capacidad) {
+				descartados.increment();
+				return false;
+			}
+		} while(!cabeza.compareAndSet(pos, pos + 1));
+		celdas.lazySet((int) (pos & mascara), entrada);
+		if(esperando) {
+			esperando = false;
+			LockSupport.unpark(hilo);
+		}
+		return true;
+	}
+
+	long darDescartados() {
+		return descartados.sum();
+	}
+
+	/**
+	 * Escribe lo que hay en el buffer y detiene el hilo escritor.
+	 */
+	void close() {
+		activo = false;
+		LockSupport.unpark(hilo);
+		try {
+			hilo.join(5000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void escribir() {
+		SimpleDateFormat fecha = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+		StringBuilder b = new StringBuilder(256);
+		while(true) {
+			long pos = cola.get();
+			int celda = (int) (pos & mascara);
+			Entrada entrada = celdas.get(celda);
+			if(entrada == null) {
+				if(pos == cabeza.get()) {
+					out.flush();
+					err.flush();
+					if(!activo)
+						return;
+					esperando = true;
+					if(pos == cabeza.get())
+						LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+					esperando = false;
+				} else {
+					// la celda ya se reservo pero el mensaje aun no se guarda
+					Thread.yield();
+				}
+				continue;
+			}
+			celdas.lazySet(celda, null);
+			cola.lazySet(pos + 1);
+			b.setLength(0);
+			try {
+				formatear(entrada, fecha, b);
+			} catch (RuntimeException e) {
+				b.append(" [error formateando: ").append(e).append(']');
+			}
+			(entrada.nivel.compareTo(Level.WARN) >= 0 ? err : out).print(b);
+		}
+	}
+
+	private static void formatear(Entrada e, SimpleDateFormat fecha, StringBuilder b) {
+		b.append(fecha.format(new Date(e.tiempo))).append(' ');
+		b.append(e.nivel.name());
+		for(int i = e.nivel.name().length(); i < 5; i++)
+			b.append(' ');
+		b.append(" [").append(e.hilo).append("] ").append(e.categoria).append(" - ");
+		Throwable error = e.error;
+		int usados = 0;
+		String formato = e.formato;
+		if(e.args == null) {
+			b.append(formato);
+		} else {
+			int i = 0;
+			while(i < formato.length()) {
+				int llave = formato.indexOf("{}", i);
+				if(llave < 0 || usados >= e.args.length) {
+					b.append(formato, i, formato.length());
+					break;
+				}
+				b.append(formato, i, llave).append(e.args[usados++]);
+				i = llave + 2;
+			}
+			if(error == null && usados < e.args.length && e.args[e.args.length - 1] instanceof Throwable)
+				error = (Throwable) e.args[e.args.length - 1];
+		}
+		b.append(System.lineSeparator());
+		if(error != null) {
+			StringWriter pila = new StringWriter();
+			error.printStackTrace(new PrintWriter(pila));
+			b.append(pila);
+		}
+	}
+
+	/**
+	 * Mensaje sin formatear
+	 */
+	static class Entrada {
+
+		private final long tiempo;
+
+		private final Level nivel;
+
+		private final String hilo;
+
+		private final String categoria;
+
+		private final String formato;
+
+		private final Object[] args;
+
+		private final Throwable error;
+
+		Entrada(Level nivel, String categoria, String formato, Object[] args, Throwable error) {
+			this.tiempo = System.currentTimeMillis();
+			this.nivel = nivel;
+			this.hilo = Thread.currentThread().getName();
+			this.categoria = categoria;
+			this.formato = formato;
+			this.args = args;
+			this.error = error;
+		}
+	}
+}
@@ -0,0 +1,8 @@
+package log;
+
+/**
+ * Niveles de los mensajes de Logger, de menor a mayor gravedad. OFF solo se usa para apagar una categoria.
+ */
+public enum Level {
+	DEBUG, INFO, WARN, ERROR, OFF
+}
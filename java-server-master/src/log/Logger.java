@@ -0,0 +1,208 @@
+package log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Registro de mensajes de la aplicacion por categoria, en lugar de System.out y System.err.
+ * La categoria es el nombre completo de la clase; su nivel y su muestreo se toman de conexion.properties buscando
+ * del nombre mas largo al mas corto: log.nivel.jms.AllProductosMDB, log.nivel.jms y log.nivel (INFO por defecto);
+ * igual con log.muestreo.* (fraccion de 0 a 1 de los mensajes DEBUG e INFO que se escriben, 1 por defecto).
+ * WARN y ERROR nunca se muestrean.
+ * Registrar un mensaje solo lo pone en el buffer de AsyncLogWriter; los {} del formato se reemplazan por los
+ * argumentos en el hilo escritor, asi que los argumentos no deben cambiar despues de registrarlos. Si sobra un
+ * argumento al final y es una excepcion se escribe su pila.
+ */
+public class Logger {
+
+	/**
+	 * Atributo estatico que contiene el path relativo del archivo que tiene los datos de la conexion
+	 */
+	private static final String CONNECTION_DATA_FILE_NAME_REMOTE = "/conexion.properties";
+
+	private static final ConcurrentHashMap<String, Logger> LOGGERS = new ConcurrentHashMap<String, Logger>();
+
+	private static volatile Properties config = new Properties();
+
+	private static volatile AsyncLogWriter writer;
+
+	private final String categoria;
+
+	private volatile int nivel;
+
+	private volatile double muestreo;
+
+	private Logger(String categoria) {
+		this.categoria = categoria;
+		configurar();
+	}
+
+	/**
+	 * @param clase - clase que registra los mensajes
+	 * @return el logger de la categoria de la clase
+	 */
+	public static Logger get(Class<?> clase) {
+		return get(clase.getName());
+	}
+
+	/**
+	 * @param categoria - nombre de la categoria
+	 * @return el logger de la categoria
+	 */
+	public static Logger get(String categoria) {
+		Logger logger = LOGGERS.get(categoria);
+		if(logger == null) {
+			Logger nuevo = new Logger(categoria);
+			logger = LOGGERS.putIfAbsent(categoria, nuevo);
+			if(logger == null)
+				logger = nuevo;
+		}
+		return logger;
+	}
+
+	/**
+	 * Toma la configuracion log.* del archivo conexion.properties y la aplica a todos los loggers.
+	 * @param path - path absoluto de la carpeta WEB-INF/ConnectionData
+	 * @throws Exception - si no se puede leer la configuracion
+	 */
+	public static synchronized void init(String path) throws Exception {
+		Properties prop = new Properties();
+		FileInputStream in = new FileInputStream(new File(path + CONNECTION_DATA_FILE_NAME_REMOTE));
+		try {
+			prop.load(in);
+		} finally {
+			in.close();
+		}
+		if(writer == null) {
+			String capacidad = prop.getProperty("log.capacidad", "8192").trim();
+			try {
+				writer = new AsyncLogWriter(Integer.parseInt(capacidad));
+			} catch (NumberFormatException e) {
+				System.err.println("log.capacidad no es un numero (" + capacidad + "); se usa 8192");
+				writer = new AsyncLogWriter(8192);
+			}
+		}
+		config = prop;
+		for(Logger logger : LOGGERS.values())
+			logger.configurar();
+	}
+
+	/**
+	 * Escribe los mensajes pendientes y detiene el hilo escritor; los mensajes posteriores se descartan.
+	 */
+	public static synchronized void close() {
+		if(writer != null)
+			writer.close();
+	}
+
+	/**
+	 * @return mensajes descartados porque el buffer estaba lleno
+	 */
+	public static long darDescartados() {
+		AsyncLogWriter w = writer;
+		return w == null ? 0 : w.darDescartados();
+	}
+
+	public boolean isDebugEnabled() {
+		return nivel <= Level.DEBUG.ordinal();
+	}
+
+	public boolean isEnabled(Level nivel) {
+		return this.nivel <= nivel.ordinal();
+	}
+
+	public void debug(String formato, Object... args) {
+		registrar(Level.DEBUG, formato, args, null);
+	}
+
+	public void info(String formato, Object... args) {
+		registrar(Level.INFO, formato, args, null);
+	}
+
+	public void warn(String formato, Object... args) {
+		registrar(Level.WARN, formato, args, null);
+	}
+
+	public void error(String formato, Object... args) {
+		registrar(Level.ERROR, formato, args, null);
+	}
+
+	/**
+	 * @param mensaje - mensaje sin {}
+	 * @param error - excepcion cuya pila se escribe despues del mensaje
+	 */
+	public void error(String mensaje, Throwable error) {
+		registrar(Level.ERROR, mensaje, null, error);
+	}
+
+	/**
+	 * @param mensaje - mensaje sin {}
+	 * @param error - excepcion cuya pila se escribe despues del mensaje
+	 */
+	public void warn(String mensaje, Throwable error) {
+		registrar(Level.WARN, mensaje, null, error);
+	}
+
+	private void registrar(Level nivel, String formato, Object[] args, Throwable error) {
+		if(this.nivel > nivel.ordinal())
+			return;
+		if(nivel.compareTo(Level.WARN) < 0 && muestreo < 1 && ThreadLocalRandom.current().nextDouble() >= muestreo)
+			return;
+		AsyncLogWriter w = writer;
+		if(w == null)
+			w = iniciarWriter();
+		w.publicar(new AsyncLogWriter.Entrada(nivel, categoria, formato, args != null && args.length == 0 ? null : args, error));
+	}
+
+	/**
+	 * Crea el escritor con la capacidad por defecto si se registra algo antes de init()
+	 */
+	private static synchronized AsyncLogWriter iniciarWriter() {
+		if(writer == null)
+			writer = new AsyncLogWriter(8192);
+		return writer;
+	}
+
+	/**
+	 * Toma el nivel y el muestreo de la categoria. Un valor mal escrito no detiene la aplicacion: se avisa por
+	 * System.err y se usa INFO o 1.
+	 */
+	private void configurar() {
+		Properties prop = config;
+		String valor = buscar(prop, "log.nivel", "INFO");
+		try {
+			nivel = Level.valueOf(valor.toUpperCase()).ordinal();
+		} catch (IllegalArgumentException e) {
+			System.err.println("log.nivel de " + categoria + " no es un nivel valido (" + valor + "); se usa INFO");
+			nivel = Level.INFO.ordinal();
+		}
+		valor = buscar(prop, "log.muestreo", "1");
+		try {
+			muestreo = Double.parseDouble(valor);
+		} catch (NumberFormatException e) {
+			System.err.println("log.muestreo de " + categoria + " no es un numero (" + valor + "); se usa 1");
+			muestreo = 1;
+		}
+	}
+
+	/**
+	 * @return el valor de prefijo.categoria, o del paquete mas cercano, o de prefijo, o el valor por defecto
+	 */
+	private String buscar(Properties prop, String prefijo, String porDefecto) {
+		String nombre = categoria;
+		while(true) {
+			String valor = prop.getProperty(prefijo + "." + nombre);
+			if(valor != null && !valor.trim().isEmpty())
+				return valor.trim();
+			int punto = nombre.lastIndexOf('.');
+			if(punto < 0)
+				break;
+			nombre = nombre.substring(0, punto);
+		}
+		String valor = prop.getProperty(prefijo);
+		return valor == null || valor.trim().isEmpty() ? porDefecto : valor.trim();
+	}
+}
@@ -0,0 +1,108 @@
+package metrics;
+
+/**
+ * Eventos de Java Flight Recorder de la aplicacion: una transaccion de RotondAndesTm, una ejecucion de SQL de los DAO
+ * y un ExchangeMsg enviado o recibido por los MDB. Con ellos una grabacion puede relacionar pausas de GC, bloqueos y
+ * E/S con un pedido o una consulta distribuida concreta.
+ * Cada medicion se hace en dos pasos: iniciar*() al empezar, que retorna el evento o null, y el metodo del tipo al
+ * terminar, que no hace nada con null. Si la JVM no tiene JFR (anterior a 8u262) o el evento no esta habilitado en
+ * ninguna grabacion iniciar*() retorna null sin crear nada, asi que el costo sin grabacion es una comparacion.
+ * Los eventos estan en JfrEvents, en la carpeta de fuentes src-jfr, y se cargan por reflexion: el resto del proyecto
+ * compila con Java 7 y, si se compila sin src-jfr, la aplicacion simplemente no emite eventos.
+ */
+public class FlightEvents {
+
+	/**
+	 * Lo que hace FlightEvents con JFR; lo implementa JfrEvents
+	 */
+	interface Grabador {
+
+		Object iniciarTransaccion();
+
+		void transaccion(Object evento, String nombre, String modo, boolean exito, long filasLeidas, long filasAfectadas);
+
+		Object iniciarSql();
+
+		void sql(Object evento, String huella, String operacion, String tabla, boolean error);
+
+		Object iniciarMensaje();
+
+		void mensaje(Object evento, String mdb, String direccion, String msgId, String status, String remitente);
+	}
+
+	/**
+	 * Eventos de JFR, o null si la JVM no tiene JFR o JfrEvents no se compilo
+	 */
+	private static final Grabador GRABADOR = cargar();
+
+	private FlightEvents() {
+	}
+
+	/**
+	 * @return el evento de la transaccion que empieza, o null si no se esta grabando
+	 */
+	public static Object iniciarTransaccion() {
+		return GRABADOR != null ? GRABADOR.iniciarTransaccion() : null;
+	}
+
+	/**
+	 * @param evento - resultado de iniciarTransaccion()
+	 * @param nombre - nombre de la transaccion
+	 * @param modo - modo en el que se ejecuto
+	 * @param exito - si termino sin error
+	 * @param filasLeidas - filas que devolvieron sus consultas
+	 * @param filasAfectadas - filas que modificaron sus actualizaciones
+	 */
+	public static void transaccion(Object evento, String nombre, String modo, boolean exito, long filasLeidas, long filasAfectadas) {
+		if(evento != null)
+			GRABADOR.transaccion(evento, nombre, modo, exito, filasLeidas, filasAfectadas);
+	}
+
+	/**
+	 * @return el evento de la ejecucion de SQL que empieza, o null si no se esta grabando
+	 */
+	public static Object iniciarSql() {
+		return GRABADOR != null ? GRABADOR.iniciarSql() : null;
+	}
+
+	/**
+	 * @param evento - resultado de iniciarSql()
+	 * @param huella - SQL con los literales cambiados por ?
+	 * @param operacion - SELECT, INSERT, UPDATE...
+	 * @param tabla - primera tabla del SQL
+	 * @param error - si la ejecucion lanzo una excepcion
+	 */
+	public static void sql(Object evento, String huella, String operacion, String tabla, boolean error) {
+		if(evento != null)
+			GRABADOR.sql(evento, huella, operacion, tabla, error);
+	}
+
+	/**
+	 * @return el evento del mensaje que se empieza a enviar o procesar, o null si no se esta grabando
+	 */
+	public static Object iniciarMensaje() {
+		return GRABADOR != null ? GRABADOR.iniciarMensaje() : null;
+	}
+
+	/**
+	 * @param evento - resultado de iniciarMensaje()
+	 * @param mdb - MDB que envio o recibio el mensaje
+	 * @param direccion - "enviado" o "recibido"
+	 * @param msgId - id de la consulta a la que pertenece el mensaje
+	 * @param status - status del ExchangeMsg
+	 * @param remitente - aplicacion que envio el mensaje
+	 */
+	public static void mensaje(Object evento, String mdb, String direccion, String msgId, String status, String remitente) {
+		if(evento != null)
+			GRABADOR.mensaje(evento, mdb, direccion, msgId, status, remitente);
+	}
+
+	private static Grabador cargar() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return (Grabador) Class.forName("metrics.JfrEvents").newInstance();
+		} catch (Throwable e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias al estilo HDR: los valores, en microsegundos, se cuentan en cubetas log-lineales, exactas por
+ * debajo de 2^PRECISION y con un error relativo menor a 2^-PRECISION (~3%) por encima. Registrar un valor es un
+ * incremento atomico en su cubeta, sin bloqueos ni memoria adicional; los percentiles se calculan al leer.
+ * Los valores por encima de una hora se cuentan en la ultima cubeta.
+ */
+public class LatencyHistogram {
+
+	/**
+	 * Bits de la mantisa de cada cubeta: 2^PRECISION cubetas por cada potencia de dos
+	 */
+	private static final int PRECISION = 5;
+
+	/**
+	 * Mayor valor que se distingue: una hora en microsegundos
+	 */
+	private static final long MAXIMO = 3600L * 1000 * 1000;
+
+	private static final int CUBETAS = indice(MAXIMO) + 1;
+
+	private final AtomicLongArray cuentas = new AtomicLongArray(CUBETAS);
+
+	private final StripedCounter suma = new StripedCounter();
+
+	/**
+	 * @param nanos - duracion medida con System.nanoTime()
+	 */
+	public void registrar(long nanos) {
+		long micros = Math.max(0, nanos / 1000);
+		cuentas.incrementAndGet(indice(Math.min(micros, MAXIMO)));
+		suma.add(micros);
+	}
+
+	/**
+	 * @return una copia de las cuentas que se puede consultar sin que cambie
+	 */
+	public Instantanea instantanea() {
+		long[] copia = new long[CUBETAS];
+		long total = 0;
+		for(int i = 0; i < CUBETAS; i++) {
+			copia[i] = cuentas.get(i);
+			total += copia[i];
+		}
+		return new Instantanea(copia, total, suma.sum());
+	}
+
+	private static int indice(long valor) {
+		if(valor < (1L << PRECISION))
+			return (int) valor;
+		int exponente = 63 - Long.numberOfLeadingZeros(valor);
+		int desplazamiento = exponente - PRECISION;
+		return (desplazamiento << PRECISION) + (int) (valor >>> desplazamiento);
+	}
+
+	/**
+	 * @return el mayor valor que cae en la cubeta
+	 */
+	private static long limiteSuperior(int indice) {
+		if(indice < (1 << PRECISION))
+			return indice;
+		int desplazamiento = (indice >> PRECISION) - 1;
+		long mantisa = indice - ((long) desplazamiento << PRECISION);
+		return ((mantisa + 1) << desplazamiento) - 1;
+	}
+
+	/**
+	 * Cuentas de un histograma en un momento dado
+	 */
+	public static class Instantanea {
+
+		private final long[] cuentas;
+
+		private final long total;
+
+		private final long suma;
+
+		private Instantanea(long[] cuentas, long total, long suma) {
+			this.cuentas = cuentas;
+			this.total = total;
+			this.suma = suma;
+		}
+
+		/**
+		 * @return numero de valores registrados
+		 */
+		public long darTotal() {
+			return total;
+		}
+
+		/**
+		 * @return suma de los valores registrados, en microsegundos
+		 */
+		public long darSuma() {
+			return suma;
+		}
+
+		/**
+		 * @param cuantil - entre 0 y 1, por ejemplo 0.99
+		 * @return el valor en microsegundos por debajo del cual queda esa fraccion de los registros, 0 si no hay ninguno
+		 */
+		public long darPercentil(double cuantil) {
+			if(total == 0)
+				return 0;
+			long rango = Math.max(1, (long) Math.ceil(cuantil * total));
+			long acumulado = 0;
+			for(int i = 0; i < cuentas.length; i++) {
+				acumulado += cuentas[i];
+				if(acumulado >= rango)
+					return limiteSuperior(i);
+			}
+			return limiteSuperior(cuentas.length - 1);
+		}
+	}
+}
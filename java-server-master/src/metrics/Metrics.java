@@ -0,0 +1,148 @@
+package metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Registro de las metricas de la aplicacion: contadores (StripedCounter) e histogramas de latencia (LatencyHistogram)
+ * agrupados por nombre y etiquetas. Los modulos piden su metrica una vez y la guardan, asi registrar un valor no pasa
+ * por el registro. exportar() las escribe en el formato de texto de Prometheus que sirve /rest/metrics; los
+ * histogramas salen como summary con sus percentiles en segundos.
+ */
+public class Metrics {
+
+	private static final Metrics INSTANCE = new Metrics();
+
+	private static final double[] CUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+	private final ConcurrentSkipListMap<String, Familia> familias = new ConcurrentSkipListMap<String, Familia>();
+
+	private Metrics() {
+	}
+
+	/**
+	 * @return el registro de la aplicacion
+	 */
+	public static Metrics getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @param nombre - nombre de la metrica, terminado en _total
+	 * @param ayuda - descripcion de la metrica
+	 * @param etiquetas - pares nombre, valor de las etiquetas de la serie
+	 * @return el contador de la serie, el mismo en cada llamada con los mismos datos
+	 */
+	public StripedCounter contador(String nombre, String ayuda, String... etiquetas) {
+		return (StripedCounter) darFamilia(nombre, ayuda, "counter").darSerie(etiquetas);
+	}
+
+	/**
+	 * @param nombre - nombre de la metrica, terminado en _seconds
+	 * @param ayuda - descripcion de la metrica
+	 * @param etiquetas - pares nombre, valor de las etiquetas de la serie
+	 * @return el histograma de la serie, el mismo en cada llamada con los mismos datos
+	 */
+	public LatencyHistogram histograma(String nombre, String ayuda, String... etiquetas) {
+		return (LatencyHistogram) darFamilia(nombre, ayuda, "summary").darSerie(etiquetas);
+	}
+
+	/**
+	 * @return todas las metricas en el formato de texto de Prometheus (version 0.0.4)
+	 */
+	public String exportar() {
+		StringBuilder sb = new StringBuilder(4096);
+		for(Familia familia : familias.values()) {
+			sb.append("# HELP ").append(familia.nombre).append(' ').append(familia.ayuda).append('\n');
+			sb.append("# TYPE ").append(familia.nombre).append(' ').append(familia.tipo).append('\n');
+			for(Map.Entry<String, Object> serie : new ConcurrentSkipListMap<String, Object>(familia.series).entrySet()) {
+				String etiquetas = serie.getKey();
+				if(serie.getValue() instanceof StripedCounter) {
+					linea(sb, familia.nombre, etiquetas, null, ((StripedCounter) serie.getValue()).sum());
+					continue;
+				}
+				LatencyHistogram.Instantanea h = ((LatencyHistogram) serie.getValue()).instantanea();
+				for(double cuantil : CUANTILES)
+					linea(sb, familia.nombre, etiquetas, "quantile=\"" + cuantil + "\"", h.darPercentil(cuantil) / 1e6);
+				linea(sb, familia.nombre + "_sum", etiquetas, null, h.darSuma() / 1e6);
+				linea(sb, familia.nombre + "_count", etiquetas, null, h.darTotal());
+			}
+		}
+		return sb.toString();
+	}
+
+	private Familia darFamilia(String nombre, String ayuda, String tipo) {
+		Familia familia = familias.get(nombre);
+		if(familia == null) {
+			Familia nueva = new Familia(nombre, ayuda, tipo);
+			familia = familias.putIfAbsent(nombre, nueva);
+			if(familia == null)
+				familia = nueva;
+		}
+		if(!familia.tipo.equals(tipo))
+			throw new IllegalArgumentException("La metrica " + nombre + " ya existe como " + familia.tipo);
+		return familia;
+	}
+
+	private static void linea(StringBuilder sb, String nombre, String etiquetas, String extra, double valor) {
+		sb.append(nombre);
+		if(!etiquetas.isEmpty() || extra != null) {
+			sb.append('{').append(etiquetas);
+			if(extra != null)
+				sb.append(etiquetas.isEmpty() ? "" : ",").append(extra);
+			sb.append('}');
+		}
+		sb.append(' ');
+		if(valor == Math.rint(valor) && Math.abs(valor) < 1e15)
+			sb.append((long) valor);
+		else
+			sb.append(valor);
+		sb.append('\n');
+	}
+
+	/**
+	 * Metricas con el mismo nombre, una serie por combinacion de etiquetas
+	 */
+	private static class Familia {
+
+		private final String nombre;
+
+		private final String ayuda;
+
+		private final String tipo;
+
+		private final ConcurrentMap<String, Object> series = new ConcurrentHashMap<String, Object>();
+
+		private Familia(String nombre, String ayuda, String tipo) {
+			this.nombre = nombre;
+			this.ayuda = ayuda;
+			this.tipo = tipo;
+		}
+
+		private Object darSerie(String[] etiquetas) {
+			String clave = etiquetas(etiquetas);
+			Object serie = series.get(clave);
+			if(serie == null) {
+				Object nueva = tipo.equals("counter") ? new StripedCounter() : new LatencyHistogram();
+				serie = series.putIfAbsent(clave, nueva);
+				if(serie == null)
+					serie = nueva;
+			}
+			return serie;
+		}
+
+		private static String etiquetas(String[] etiquetas) {
+			StringBuilder sb = new StringBuilder();
+			for(int i = 0; i + 1 < etiquetas.length; i += 2) {
+				if(sb.length() > 0)
+					sb.append(',');
+				sb.append(etiquetas[i]).append("=\"");
+				String valor = etiquetas[i + 1] == null ? "" : etiquetas[i + 1];
+				sb.append(valor.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+			}
+			return sb.toString();
+		}
+	}
+}
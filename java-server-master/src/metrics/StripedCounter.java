@@ -0,0 +1,54 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contador que reparte las sumas en varias celdas para que los hilos que lo incrementan al tiempo no compitan por la
+ * misma linea de cache. Cada hilo escribe en la celda que le toca por su id; leer el total suma todas las celdas,
+ * por eso la lectura es mas cara que la escritura y el valor es aproximado mientras haya escrituras en curso.
+ */
+public class StripedCounter {
+
+	/**
+	 * Longs por celda: 8 longs = 64 bytes, una linea de cache
+	 */
+	private static final int ESPACIO = 8;
+
+	private static final int CELDAS;
+
+	static {
+		int n = 1;
+		while(n < Runtime.getRuntime().availableProcessors() * 2)
+			n <<= 1;
+		CELDAS = Math.min(n, 64);
+	}
+
+	private final AtomicLongArray celdas = new AtomicLongArray(CELDAS * ESPACIO);
+
+	/**
+	 * @param valor - cantidad a sumar
+	 */
+	public void add(long valor) {
+		celdas.getAndAdd(celda(), valor);
+	}
+
+	public void increment() {
+		add(1);
+	}
+
+	/**
+	 * @return la suma de todas las celdas
+	 */
+	public long sum() {
+		long total = 0;
+		for(int i = 0; i < CELDAS; i++)
+			total += celdas.get(i * ESPACIO);
+		return total;
+	}
+
+	private static int celda() {
+		long id = Thread.currentThread().getId();
+		int h = (int) (id * 0x9E3779B97F4A7C15L >>> 32);
+		return (h & (CELDAS - 1)) * ESPACIO;
+	}
+}
@@ -0,0 +1,140 @@
+package rest;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import dao.SqlProfiler;
+import dao.StatementCache;
+import dtm.RotondAndesDistributed;
+import tm.CatalogCache;
+import tm.ConnectionPool;
+import tm.RotondAndesTm;
+import tm.StockReservations;
+import vos.EstadisticasSentencias;
+
+/**
+ * Clase que expone servicios REST de administracion con ruta base: http://"ip o nombre de host":8080/RotondAndes/rest/admin/...
+ */
+@Path("admin")
+public class AdminServices {
+
+	/**
+	 * Metodo que expone servicio REST usando GET que da el estado del pool de conexiones.
+	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/admin/pool
+	 * @return Json con las estadisticas del pool o json con el error que se produjo
+	 */
+	@GET
+	@Path( "pool" )
+	@Produces({ MediaType.APPLICATION_JSON })
+	public Response getPool() {
+		ConnectionPool pool = ConnectionPool.getInstance();
+		if(pool == null) {
+			String error = "El pool de conexiones no esta inicializado";
+			return Response.status(500).entity("{ \"ERROR\": \""+ error + "\"}").build();
+		}
+		return Response.status(200).entity(pool.darEstadisticas()).build();
+	}
+
+	/**
+	 * Metodo que expone servicio REST usando GET que da los contadores del cache de sentencias preparadas.
+	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/admin/sentencias
+	 * @return Json con las solicitudes, preparaciones (analisis del SQL), aciertos y desalojos del cache
+	 */
+	@GET
+	@Path( "sentencias" )
+	@Produces({ MediaType.APPLICATION_JSON })
+	public Response getSentencias() {
+		long solicitudes = StatementCache.darSolicitudes();
+		long aciertos = StatementCache.darAciertos();
+		double tasa = solicitudes == 0 ? 0 : (double) aciertos / solicitudes;
+		EstadisticasSentencias estadisticas = new EstadisticasSentencias(solicitudes, StatementCache.darPreparaciones(),
+				aciertos, StatementCache.darDesalojos(), tasa);
+		return Response.status(200).entity(estadisticas).build();
+	}
+
+	/**
+	 * Metodo que expone servicio REST usando GET que da las formas de SQL de los DAO que mas tiempo consumen.
+	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/admin/sql
+	 * @return Json con las huellas de SQL de mayor tiempo total y de mayor tiempo maximo y las ultimas ejecuciones
+	 * lentas con sus parametros, o json con el error que se produjo
+	 */
+	@GET
+	@Path( "sql" )
+	@Produces({ MediaType.APPLICATION_JSON })
+	public Response getSql() {
+		SqlProfiler perfil = SqlProfiler.getInstance();
+		if(perfil == null) {
+			String error = "El registro de SQL lento no esta inicializado";
+			return Response.status(500).entity("{ \"ERROR\": \""+ error + "\"}").build();
+		}
+		return Response.status(200).entity(perfil.darReporte()).build();
+	}
+
+	/**
+	 * Metodo que expone servicio REST usando GET que da los contadores del cache del catalogo.
+	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/admin/catalogo
+	 * @return Json con las entradas, aciertos, fallos, desalojos y expirados de cada region o json con el error que se produjo
+	 */
+	@GET
+	@Path( "catalogo" )
+	@Produces({ MediaType.APPLICATION_JSON })
+	public Response getCatalogo() {
+		CatalogCache cache = CatalogCache.getInstance();
+		if(cache == null) {
+			String error = "El cache del catalogo no esta inicializado";
+			return Response.status(500).entity("{ \"ERROR\": \""+ error + "\"}").build();
+		}
+		return Response.status(200).entity(cache.darEstadisticas()).build();
+	}
+
+	/**
+	 * Metodo que expone servicio REST usando GET que da los contadores de las reservas de existencias en memoria.
+	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/admin/stock
+	 * @return Json con las reservas, rechazos, lotes descargados y ajustes de reconciliacion o json con el error que se produjo
+	 */
+	@GET
+	@Path( "stock" )
+	@Produces({ MediaType.APPLICATION_JSON })
+	public Response getStock() {
+		StockReservations stock = StockReservations.getInstance();
+		if(stock == null) {
+			String error = "Las reservas de existencias en memoria no estan activas";
+			return Response.status(500).entity("{ \"ERROR\": \""+ error + "\"}").build();
+		}
+		return Response.status(200).entity(stock.darEstadisticas()).build();
+	}
+
+	/**
+	 * Metodo que expone servicio REST usando GET que da el estado de la copia local del catalogo de cada rotonda par.
+	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/admin/catalogoRemoto
+	 * @return Json con la version, numero de productos, edad y deltas recibidos de cada par
+	 */
+	@GET
+	@Path( "catalogoRemoto" )
+	@Produces({ MediaType.APPLICATION_JSON })
+	public Response getCatalogoRemoto() {
+		RotondAndesDistributed dtm = RotondAndesDistributed.getInstance();
+		return Response.status(200).entity(dtm.darEstadisticasCatalogoRemoto()).build();
+	}
+
+	/**
+	 * Metodo que expone servicio REST usando GET que da los tiempos de cada transaccion de RotondAndesTm.
+	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/admin/transacciones
+	 * @return Json con el modo, timeout, ejecuciones, errores, tiempos y filas de cada transaccion, de mayor a menor
+	 * tiempo total, o json con el error que se produjo
+	 */
+	@GET
+	@Path( "transacciones" )
+	@Produces({ MediaType.APPLICATION_JSON })
+	public Response getTransacciones() {
+		RotondAndesTm tm = RotondAndesTm.getInstance();
+		if(tm == null) {
+			String error = "El transaction manager no esta inicializado";
+			return Response.status(500).entity("{ \"ERROR\": \""+ error + "\"}").build();
+		}
+		return Response.status(200).entity(tm.darEstadisticasTransacciones()).build();
+	}
+}
@@ -0,0 +1,221 @@
+package rest;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.codehaus.jackson.map.ObjectMapper;
+
+import log.Logger;
+import metrics.Metrics;
+import tm.WorkerThreads;
+import trace.Span;
+import trace.Tracer;
+
+/**
+ * Ejecutor propio de las llamadas REST que esperan a los pares por JMS (ver AsyncServlet). La llamada pasa a modo
+ * asincrono del servlet 3.0, el hilo del contenedor vuelve al pool de inmediato y el trabajo corre en uno de los hilos
+ * de este ejecutor; asi unas cuantas consultas federadas lentas no dejan sin hilos a los pedidos. Con hilos.modo=virtual
+ * cada llamada corre en un hilo virtual y las que corren al tiempo las limita el tamano del pool de conexiones
+ * (ver tm.WorkerThreads); en modo plataforma son async.hilos hilos.
+ * Si la cola esta llena la llamada se rechaza con 503, y si no termina en async.timeout milisegundos se responde 503,
+ * se interrumpe el trabajo y su resultado se descarta. Lo crea startup.ContextListener con los parametros async.* del
+ * archivo conexion.properties.
+ */
+public class AsyncExecutor {
+
+	private static final Logger LOG = Logger.get(AsyncExecutor.class);
+
+	/**
+	 * Atributo estatico que contiene el path relativo del archivo que tiene los datos de la conexion
+	 */
+	private static final String CONNECTION_DATA_FILE_NAME_REMOTE = "/conexion.properties";
+
+	private static final String AYUDA = "Llamadas REST atendidas por el ejecutor asincrono, por resultado";
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	/**
+	 * Unica instancia del ejecutor, creada por init(String)
+	 */
+	private static AsyncExecutor instance;
+
+	private final WorkerThreads trabajadores;
+
+	private final long timeout;
+
+	/**
+	 * Trabajo de una llamada asincrona
+	 */
+	public interface Tarea {
+
+		/**
+		 * @return la entidad que se responde en JSON con status 200
+		 * @throws Exception - cualquier error, que se responde con status 500
+		 */
+		Object ejecutar() throws Exception;
+	}
+
+	/**
+	 * @param trabajadores - hilos en los que corren las tareas
+	 * @param timeout - milisegundos maximos de cada llamada, incluida la espera en la cola
+	 */
+	public AsyncExecutor(WorkerThreads trabajadores, long timeout) {
+		this.trabajadores = trabajadores;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Crea el ejecutor de la aplicacion con los parametros async.* del archivo conexion.properties.
+	 * @param path - path absoluto de la carpeta WEB-INF/ConnectionData
+	 * @return el ejecutor creado
+	 * @throws Exception - si no se puede leer la configuracion
+	 */
+	public static synchronized AsyncExecutor init(String path) throws Exception {
+		if(instance == null) {
+			Properties prop = new Properties();
+			FileInputStream in = new FileInputStream(new File(path + CONNECTION_DATA_FILE_NAME_REMOTE));
+			try {
+				prop.load(in);
+			} finally {
+				in.close();
+			}
+			int hilos = Integer.parseInt(prop.getProperty("async.hilos", "8").trim());
+			int cola = Integer.parseInt(prop.getProperty("async.cola", "64").trim());
+			long timeout = Long.parseLong(prop.getProperty("async.timeout", "60000").trim());
+			instance = new AsyncExecutor(WorkerThreads.crear("rotondandes-async", prop, hilos, cola), timeout);
+			LOG.info("Llamadas asincronas en hilos de {}", instance.trabajadores.getModo());
+		}
+		return instance;
+	}
+
+	/**
+	 * Retorna el ejecutor de la aplicacion y lo crea si startup.ContextListener todavia no lo hizo.
+	 * @param path - path absoluto de la carpeta WEB-INF/ConnectionData
+	 * @return el ejecutor de la aplicacion
+	 * @throws Exception - si no se puede leer la configuracion
+	 */
+	public static AsyncExecutor getInstance(String path) throws Exception {
+		AsyncExecutor ejecutor = instance;
+		return ejecutor != null ? ejecutor : init(path);
+	}
+
+	/**
+	 * Detiene los hilos del ejecutor; las llamadas en curso se interrumpen.
+	 */
+	public static synchronized void close() {
+		if(instance != null) {
+			instance.trabajadores.close();
+			instance = null;
+		}
+	}
+
+	/**
+	 * Pasa la llamada a modo asincrono y ejecuta la tarea en un hilo del ejecutor. La respuesta se escribe desde ese
+	 * hilo, o desde el del contenedor si se vence el plazo o la cola esta llena.
+	 * @param req - llamada que se atiende
+	 * @param resp - respuesta de la llamada
+	 * @param nombre - nombre del tramo de la traza que mide la tarea
+	 * @param tarea - trabajo de la llamada
+	 */
+	public void ejecutar(HttpServletRequest req, HttpServletResponse resp, final String nombre, final Tarea tarea) {
+		final AsyncContext async = req.startAsync(req, resp);
+		async.setTimeout(timeout);
+		final AtomicBoolean respondida = new AtomicBoolean();
+		final AtomicReference<Future<?>> futuro = new AtomicReference<Future<?>>();
+		final Span padre = Tracer.actual();
+		async.addListener(new AsyncListener() {
+			@Override
+			public void onTimeout(AsyncEvent event) throws IOException {
+				if(!respondida.compareAndSet(false, true))
+					return;
+				Future<?> f = futuro.get();
+				if(f != null)
+					f.cancel(true);
+				contar("timeout");
+				LOG.warn("{} sin respuesta despues de {} ms", nombre, timeout);
+				responder(async, 503, error(nombre + " no termino en " + timeout + " ms"));
+			}
+
+			@Override
+			public void onError(AsyncEvent event) throws IOException {
+			}
+
+			@Override
+			public void onComplete(AsyncEvent event) throws IOException {
+			}
+
+			@Override
+			public void onStartAsync(AsyncEvent event) throws IOException {
+			}
+		});
+		try {
+			futuro.set(trabajadores.enviar(new Runnable() {
+				@Override
+				public void run() {
+					Span span = Tracer.iniciar(padre, nombre, "rest");
+					Object entidad;
+					int status = 500;
+					try {
+						entidad = tarea.ejecutar();
+						status = 200;
+					} catch (Exception e) {
+						entidad = error(e.getMessage());
+					} finally {
+						Tracer.terminar(span, status != 200);
+					}
+					if(respondida.compareAndSet(false, true)) {
+						contar(status == 200 ? "completada" : "error");
+						responder(async, status, entidad);
+					}
+				}
+			}));
+		} catch (RejectedExecutionException e) {
+			if(respondida.compareAndSet(false, true)) {
+				contar("rechazada");
+				responder(async, 503, error("Demasiadas consultas en curso, intente mas tarde"));
+			}
+		}
+	}
+
+	private static void responder(AsyncContext async, int status, Object entidad) {
+		HttpServletResponse resp = (HttpServletResponse) async.getResponse();
+		try {
+			resp.setStatus(status);
+			resp.setContentType("application/json");
+			if(entidad instanceof String)
+				resp.getOutputStream().write(((String) entidad).getBytes("UTF-8"));
+			else
+				MAPPER.writeValue(resp.getOutputStream(), entidad);
+		} catch (IOException e) {
+			LOG.warn("No se pudo escribir la respuesta asincrona", e);
+		} finally {
+			async.complete();
+		}
+	}
+
+	/**
+	 * Cuerpo de error { "ERROR": mensaje }; se serializa con MAPPER para que las comillas y saltos de linea de los
+	 * mensajes de Oracle o JMS no rompan el JSON.
+	 */
+	private static Map<String, String> error(String mensaje) {
+		return Collections.singletonMap("ERROR", mensaje);
+	}
+
+	private static void contar(String resultado) {
+		Metrics.getInstance().contador("rotondandes_rest_async_total", AYUDA, "resultado", resultado).increment();
+	}
+}
@@ -0,0 +1,65 @@
+package rest;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import tm.RotondAndesTm;
+
+/**
+ * Servicios REST que esperan a las rotondas pares por JMS y se atienden en AsyncExecutor en lugar de ocupar un hilo
+ * del contenedor durante toda la espera:
+ * <ul>
+ * <li>GET /productos: productos locales y de los pares (RotondAndesTm.darProductos)</li>
+ * <li>GET /consultas/utilidad/query?nombre=&amp;f1=&amp;f2=: utilidad de un restaurante en todas las rotondas
+ * (RotondAndesTm.darUtilidadRemote)</li>
+ * </ul>
+ * El API de JAX-RS del proyecto no tiene respuestas asincronas, asi que estas rutas se sirven con un servlet asincrono;
+ * su mapeo exacto tiene prioridad sobre /rest/* y el resto de ProductoServices y Consultas sigue en JAX-RS.
+ */
+@WebServlet(urlPatterns = { AsyncServlet.PRODUCTOS, AsyncServlet.UTILIDAD }, asyncSupported = true)
+public class AsyncServlet extends HttpServlet {
+
+	private static final long serialVersionUID = 1L;
+
+	static final String PRODUCTOS = "/rest/productos";
+
+	static final String UTILIDAD = "/rest/consultas/utilidad/query";
+
+	private String getPath() {
+		return getServletContext().getRealPath("WEB-INF/ConnectionData");
+	}
+
+	@Override
+	protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		final RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
+		AsyncExecutor ejecutor;
+		try {
+			ejecutor = AsyncExecutor.getInstance(getPath());
+		} catch (Exception e) {
+			throw new ServletException(e);
+		}
+		if(PRODUCTOS.equals(req.getServletPath())) {
+			ejecutor.ejecutar(req, resp, "darProductos", new AsyncExecutor.Tarea() {
+				@Override
+				public Object ejecutar() throws Exception {
+					return tm.darProductos();
+				}
+			});
+		} else {
+			final String nombre = req.getParameter("nombre");
+			final String fecha = req.getParameter("f1");
+			final String fecha2 = req.getParameter("f2");
+			ejecutor.ejecutar(req, resp, "darUtilidadRemote", new AsyncExecutor.Tarea() {
+				@Override
+				public Object ejecutar() throws Exception {
+					return tm.darUtilidadRemote(nombre, fecha, fecha2);
+				}
+			});
+		}
+	}
+}
@@ -14,7 +14,6 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
-import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -42,7 +41,7 @@ public class Consultas {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces({ MediaType.APPLICATION_JSON })
 	public Response getConsulta9( @PathParam( "id" ) Integer id, Consulta9 consulta ) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		List<Consulta9> consultas;
 		try {
 			consultas = tm.darConsulta9(consulta);
@@ -57,7 +56,7 @@ public class Consultas {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces({ MediaType.APPLICATION_JSON })
 	public Response getConsulta10( @PathParam( "id" ) Integer id, Consulta10 consulta ) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		List<Consulta10> consultas;
 		try {
 			consultas = tm.darConsulta10(consulta);
@@ -72,7 +71,7 @@ public class Consultas {
 	@Path( "consulta3/{id: \\d+}" )
 	@Produces({ MediaType.APPLICATION_JSON })
 	public Response getConsulta11( @PathParam( "id" ) Integer id ) throws Exception {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		ArrayList<Consulta11> clientes = new ArrayList<>();
 		Usuario u = tm.buscarUsuarioPorId(id);
 		if(u.getRol().equals("Gerente")) {
@@ -93,7 +92,7 @@ public class Consultas {
 	@Path( "consulta4/{id: \\d+}" )
 	@Produces({ MediaType.APPLICATION_JSON })
 	public Response getConsulta12( @PathParam( "id" ) Integer id ) throws Exception {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		ArrayList<Consulta12> clientes = new ArrayList<>();
 		Usuario u = tm.buscarUsuarioPorId(id);
 		if(u.getRol().equals("Gerente")) {
@@ -109,21 +108,6 @@ public class Consultas {
 		}
 		return Response.status(200).entity(clientes).build();
 	}
-	
-	@GET
-	@Path( "utilidad/query" )
-	@Produces({ MediaType.APPLICATION_JSON })
-	public Response getUtilidad( @QueryParam( "nombre" ) String nombre , @QueryParam( "f1" ) String fecha,
-			@QueryParam( "f2" ) String fecha2 ) throws Exception {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
-		ListaUtilidad rta;
-			try {
-				rta = tm.darUtilidadRemote(nombre, fecha, fecha2);
-			} catch (Exception e) {
-				return Response.status(500).entity(doErrorMessage(e)).build();
-			}
-
-		return Response.status(200).entity(rta).build();
-	}
 
+	// GET /consultas/utilidad/query espera a los pares por JMS y lo atiende AsyncServlet
 }
\ No newline at end of file
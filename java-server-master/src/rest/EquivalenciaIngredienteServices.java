@@ -61,7 +61,7 @@ public class EquivalenciaIngredienteServices {
 	@GET
 	@Produces({ MediaType.APPLICATION_JSON })
 	public Response getEquivalencias() {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		List<EquivalenciaIngrediente> equivalencias;
 		try {
 			equivalencias = tm.darEquivalenciasIngrediente();
@@ -82,7 +82,7 @@ public class EquivalenciaIngredienteServices {
 	@Path( "{nombre}" )
 	@Produces( { MediaType.APPLICATION_JSON } )
 	public Response getEquivalenciaName( @PathParam("nombre") String name) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		List<EquivalenciaIngrediente> equivalencias;
 		try {
 			if (name == null || name.length() == 0)
@@ -106,7 +106,7 @@ public class EquivalenciaIngredienteServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response addEquivalencia(@PathParam( "nombre" ) String nombreRestaurante,EquivalenciaIngrediente equivalencia) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			Restaurante rest = tm.buscarRestaurantesPorName(nombreRestaurante);
 			if(rest==null){
@@ -132,7 +132,7 @@ public class EquivalenciaIngredienteServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response updateEquivalencia(EquivalenciaIngrediente equivalencia) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			tm.updateEquivalenciaIngrediente(equivalencia);
 		} catch (Exception e) {
@@ -151,7 +151,7 @@ public class EquivalenciaIngredienteServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response deleteEquivalencia(EquivalenciaIngrediente equivalencia) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			tm.deleteEquivalenciaIngrediente(equivalencia);
 		} catch (Exception e) {
@@ -20,6 +20,7 @@ import javax.ws.rs.core.Response;
 
 import org.codehaus.jackson.map.ObjectMapper;
 
+import dao.RowCursor;
 import tm.RotondAndesTm;
 import vos.*;
 
@@ -52,6 +53,7 @@ public class EquivalenciaProductoServices {
 
 	/**
 	 * Metodo que expone servicio REST usando GET que da todos las equivalencias de la base de datos.
+	 * Las filas se escriben en la respuesta a medida que se leen (ver StreamingJson).
 	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/equivalenciasProducto
 	 * @return Json con todos las equivalencias de la base de datos o json con 
      * el error que se produjo
@@ -59,14 +61,13 @@ public class EquivalenciaProductoServices {
 	@GET
 	@Produces({ MediaType.APPLICATION_JSON })
 	public Response getEquivalencias() {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
-		List<EquivalenciaProducto> equivalencias;
-		try {
-			equivalencias = tm.darEquivalenciasProducto();
-		} catch (Exception e) {
-			return Response.status(500).entity(doErrorMessage(e)).build();
-		}
-		return Response.status(200).entity(equivalencias).build();
+		final RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
+		return StreamingJson.arreglo("recorrerEquivalenciasProducto", new StreamingJson.Fuente<EquivalenciaProducto>() {
+			@Override
+			public void recorrer(RowCursor.Receptor<EquivalenciaProducto> receptor) throws Exception {
+				tm.recorrerEquivalenciasProducto(receptor);
+			}
+		});
 	}
 
     /**
@@ -80,7 +81,7 @@ public class EquivalenciaProductoServices {
 	@Path( "{nombre}" )
 	@Produces( { MediaType.APPLICATION_JSON } )
 	public Response getEquivalenciaName( @PathParam("nombre") String name) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		List<EquivalenciaProducto> equivalencias;
 		try {
 			if (name == null || name.length() == 0)
@@ -104,7 +105,7 @@ public class EquivalenciaProductoServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response addEquivalencia(@PathParam( "nombre" ) String nombreRestaurante,EquivalenciaProducto equivalencia) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			Restaurante rest = tm.buscarRestaurantesPorName(nombreRestaurante);
 			if(rest==null){
@@ -130,7 +131,7 @@ public class EquivalenciaProductoServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response updateEquivalencia(EquivalenciaProducto equivalencia) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			tm.updateEquivalenciaProducto(equivalencia);
 		} catch (Exception e) {
@@ -149,7 +150,7 @@ public class EquivalenciaProductoServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response deleteEquivalencia(EquivalenciaProducto equivalencia) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			tm.deleteEquivalenciaProducto(equivalencia);
 		} catch (Exception e) {
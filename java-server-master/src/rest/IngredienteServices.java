@@ -20,8 +20,12 @@ import javax.ws.rs.core.Response;
 
 import org.codehaus.jackson.map.ObjectMapper;
 
+import dao.RowCursor;
+import tm.InvalidPageException;
+import tm.PageToken;
 import tm.RotondAndesTm;
 import vos.Ingrediente;
+import vos.Pagina;
 import vos.Restaurante;
 
 /**
@@ -53,21 +57,37 @@ public class IngredienteServices {
 
 	/**
 	 * Metodo que expone servicio REST usando GET que da todos los ingredientes de la base de datos.
+	 * Las filas se escriben en la respuesta a medida que se leen (ver StreamingJson).
 	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/ingredientes
+	 * Con limit o after responde una pagina { "elementos": [...], "siguiente": token }; la siguiente pagina se pide
+	 * con after igual al token, hasta que siguiente llegue en null.
+	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/ingredientes?limit=100&amp;after=token
+	 * @param limit - filas por pagina, maximo 1000; un limit o un after invalido se responde con 400
+	 * @param after - token siguiente de la pagina anterior
 	 * @return Json con todos los ingredientes de la base de datos o json con 
      * el error que se produjo
 	 */
 	@GET
 	@Produces({ MediaType.APPLICATION_JSON })
-	public Response getIngredientes() {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
-		List<Ingrediente> ingredientes;
-		try {
-			ingredientes = tm.darIngredientes();
-		} catch (Exception e) {
-			return Response.status(500).entity(doErrorMessage(e)).build();
+	public Response getIngredientes(@QueryParam("limit") String limit, @QueryParam("after") String after) {
+		final RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
+		if(limit != null || after != null) {
+			Pagina<Ingrediente> pagina;
+			try {
+				pagina = tm.darIngredientes(after, PageToken.leerLimite(limit));
+			} catch (InvalidPageException e) {
+				return Response.status(400).entity(doErrorMessage(e)).build();
+			} catch (Exception e) {
+				return Response.status(500).entity(doErrorMessage(e)).build();
+			}
+			return Response.status(200).entity(pagina).build();
 		}
-		return Response.status(200).entity(ingredientes).build();
+		return StreamingJson.arreglo("recorrerIngredientes", new StreamingJson.Fuente<Ingrediente>() {
+			@Override
+			public void recorrer(RowCursor.Receptor<Ingrediente> receptor) throws Exception {
+				tm.recorrerIngredientes(receptor);
+			}
+		});
 	}
 
     /**
@@ -81,7 +101,7 @@ public class IngredienteServices {
 	@Path( "{nombre}" )
 	@Produces( { MediaType.APPLICATION_JSON } )
 	public Response getIngredienteName( @PathParam("nombre") String name) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		List<Ingrediente> ingredientes;
 		try {
 			if (name == null || name.length() == 0)
@@ -105,7 +125,7 @@ public class IngredienteServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response addIngrediente(@PathParam( "nombre" ) String nombreRestaurante , Ingrediente ingrediente) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			Restaurante restaurante = tm.buscarRestaurantesPorName(nombreRestaurante);
 			if(restaurante==null){
@@ -130,7 +150,7 @@ public class IngredienteServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response updateIngrediente(Ingrediente ingrediente) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			tm.updateIngrediente(ingrediente);
 		} catch (Exception e) {
@@ -149,7 +169,7 @@ public class IngredienteServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response deleteIngrediente(Ingrediente ingrediente) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			tm.deleteIngrediente(ingrediente);
 		} catch (Exception e) {
@@ -20,8 +20,11 @@ import javax.ws.rs.core.Response;
 
 import org.codehaus.jackson.map.ObjectMapper;
 
+import tm.InvalidPageException;
+import tm.PageToken;
 import tm.RotondAndesTm;
 import vos.Menu;
+import vos.Pagina;
 import vos.Restaurante;
 
 /**
@@ -54,13 +57,29 @@ public class MenuServices {
 	/**
 	 * Metodo que expone servicio REST usando GET que da todos los menus de la base de datos.
 	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/menus
+	 * Con limit o after responde una pagina { "elementos": [...], "siguiente": token }; la siguiente pagina se pide
+	 * con after igual al token, hasta que siguiente llegue en null.
+	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/menus?limit=100&amp;after=token
+	 * @param limit - filas por pagina, maximo 1000; un limit o un after invalido se responde con 400
+	 * @param after - token siguiente de la pagina anterior
 	 * @return Json con todos los menus de la base de datos o json con 
      * el error que se produjo
 	 */
 	@GET
 	@Produces({ MediaType.APPLICATION_JSON })
-	public Response getMenus() {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+	public Response getMenus(@QueryParam("limit") String limit, @QueryParam("after") String after) {
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
+		if(limit != null || after != null) {
+			Pagina<Menu> pagina;
+			try {
+				pagina = tm.darMenus(after, PageToken.leerLimite(limit));
+			} catch (InvalidPageException e) {
+				return Response.status(400).entity(doErrorMessage(e)).build();
+			} catch (Exception e) {
+				return Response.status(500).entity(doErrorMessage(e)).build();
+			}
+			return Response.status(200).entity(pagina).build();
+		}
 		List<Menu> menus;
 		try {
 			menus = tm.darMenus();
@@ -81,7 +100,7 @@ public class MenuServices {
 	@Path( "{nombre}" )
 	@Produces( { MediaType.APPLICATION_JSON } )
 	public Response getMenuName( @PathParam("nombre") String name) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		Menu menus;
 		try {
 			if (name == null || name.length() == 0)
@@ -105,7 +124,7 @@ public class MenuServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response addMenu(@PathParam( "nombre" ) String nombreRestaurante, Menu menu) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			Restaurante restaurante = tm.buscarRestaurantesPorName(nombreRestaurante);
 			if(restaurante==null){
@@ -131,7 +150,7 @@ public class MenuServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response updateMenu(Menu menu) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			tm.updateMenu(menu);
 		} catch (Exception e) {
@@ -150,7 +169,7 @@ public class MenuServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response deleteMenu(Menu menu) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			tm.deleteMenu(menu);
 		} catch (Exception e) {
@@ -0,0 +1,314 @@
+package rest;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Path;
+
+import log.Logger;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import metrics.StripedCounter;
+
+/**
+ * Mide cada llamada a los servicios REST en rotondandes_rest_request_seconds y la cuenta en rotondandes_rest_requests_total
+ * con su status. Las llamadas se agrupan por la plantilla del metodo que las atiende (por ejemplo GET /productos/{nombre}),
+ * que se arma al iniciar con las anotaciones @Path de las clases de este paquete; asi un id en la URL no crea una
+ * serie nueva. Las URL que no corresponden a ninguna plantilla se agrupan por su primer segmento.
+ * Las llamadas asincronas (ver AsyncServlet) se miden cuando se completa su respuesta.
+ */
+@WebFilter(urlPatterns = "/rest/*", asyncSupported = true)
+public class MetricsFilter implements Filter {
+
+	private static final Logger LOG = Logger.get(MetricsFilter.class);
+
+	private static final String AYUDA_LATENCIA = "Duracion de las llamadas a los servicios REST";
+
+	private static final String AYUDA_LLAMADAS = "Llamadas a los servicios REST por status";
+
+	/**
+	 * Plantillas por primer segmento de la ruta
+	 */
+	private final Map<String, List<Plantilla>> plantillas = new HashMap<String, List<Plantilla>>();
+
+	private final ConcurrentHashMap<String, LatencyHistogram> latencias = new ConcurrentHashMap<String, LatencyHistogram>();
+
+	private final ConcurrentHashMap<String, StripedCounter> llamadas = new ConcurrentHashMap<String, StripedCounter>();
+
+	@Override
+	public void init(FilterConfig config) throws ServletException {
+		Set<String> recursos = config.getServletContext().getResourcePaths("/WEB-INF/classes/rest/");
+		if(recursos == null)
+			return;
+		List<Plantilla> todas = new ArrayList<Plantilla>();
+		for(String recurso : recursos) {
+			if(!recurso.endsWith(".class") || recurso.contains("$"))
+				continue;
+			String clase = "rest." + recurso.substring(recurso.lastIndexOf('/') + 1, recurso.length() - ".class".length());
+			try {
+				agregarPlantillas(Class.forName(clase, false, getClass().getClassLoader()), todas);
+			} catch (ClassNotFoundException e) {
+				LOG.warn("No se pudo cargar {}", clase);
+			}
+		}
+		Collections.sort(todas, new Comparator<Plantilla>() {
+			@Override
+			public int compare(Plantilla a, Plantilla b) {
+				if(a.literales != b.literales)
+					return b.literales - a.literales;
+				return b.variables - a.variables;
+			}
+		});
+		for(Plantilla plantilla : todas) {
+			List<Plantilla> lista = plantillas.get(plantilla.primerSegmento);
+			if(lista == null) {
+				lista = new ArrayList<Plantilla>();
+				plantillas.put(plantilla.primerSegmento, lista);
+			}
+			lista.add(plantilla);
+		}
+	}
+
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+		if(!(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)) {
+			chain.doFilter(request, response);
+			return;
+		}
+		HttpServletRequest req = (HttpServletRequest) request;
+		final Status resp = new Status((HttpServletResponse) response);
+		final long inicio = System.nanoTime();
+		final String endpoint = darEndpoint(req.getMethod(), darRuta(req));
+		boolean exito = false;
+		try {
+			chain.doFilter(request, resp);
+			exito = true;
+		} finally {
+			if(exito && req.isAsyncStarted()) {
+				req.getAsyncContext().addListener(new AsyncListener() {
+					@Override
+					public void onComplete(AsyncEvent event) throws IOException {
+						registrar(endpoint, System.nanoTime() - inicio, resp.status);
+					}
+
+					@Override
+					public void onTimeout(AsyncEvent event) throws IOException {
+					}
+
+					@Override
+					public void onError(AsyncEvent event) throws IOException {
+					}
+
+					@Override
+					public void onStartAsync(AsyncEvent event) throws IOException {
+					}
+				});
+			} else {
+				registrar(endpoint, System.nanoTime() - inicio, exito ? resp.status : 500);
+			}
+		}
+	}
+
+	@Override
+	public void destroy() {
+	}
+
+	/**
+	 * @param req - llamada a un servicio REST
+	 * @return la ruta de la llamada sin el prefijo /rest, tanto en JAX-RS (mapeado a /rest/*) como en AsyncServlet
+	 */
+	static String darRuta(HttpServletRequest req) {
+		String ruta = req.getServletPath() + (req.getPathInfo() == null ? "" : req.getPathInfo());
+		return ruta.startsWith("/rest") ? ruta.substring("/rest".length()) : ruta;
+	}
+
+	private void registrar(String endpoint, long nanos, int status) {
+		darLatencia(endpoint).registrar(nanos);
+		darLlamadas(endpoint, status).increment();
+	}
+
+	/**
+	 * @return la plantilla que atiende la ruta, o el metodo y el primer segmento si ninguna corresponde
+	 */
+	private String darEndpoint(String metodo, String ruta) {
+		String limpia = ruta == null ? "" : recortar(ruta);
+		int barra = limpia.indexOf('/');
+		String primero = barra < 0 ? limpia : limpia.substring(0, barra);
+		List<Plantilla> candidatas = plantillas.get(primero);
+		if(candidatas != null)
+			for(Plantilla plantilla : candidatas)
+				if(plantilla.metodo.equals(metodo) && plantilla.patron.matcher(limpia).matches())
+					return plantilla.etiqueta;
+		return metodo + " /" + primero + (barra < 0 ? "" : "/*");
+	}
+
+	private LatencyHistogram darLatencia(String endpoint) {
+		LatencyHistogram latencia = latencias.get(endpoint);
+		if(latencia == null) {
+			latencia = Metrics.getInstance().histograma("rotondandes_rest_request_seconds", AYUDA_LATENCIA, "endpoint", endpoint);
+			latencias.putIfAbsent(endpoint, latencia);
+		}
+		return latencia;
+	}
+
+	private StripedCounter darLlamadas(String endpoint, int status) {
+		String clave = endpoint + " " + status;
+		StripedCounter contador = llamadas.get(clave);
+		if(contador == null) {
+			contador = Metrics.getInstance().contador("rotondandes_rest_requests_total", AYUDA_LLAMADAS,
+					"endpoint", endpoint, "status", String.valueOf(status));
+			llamadas.putIfAbsent(clave, contador);
+		}
+		return contador;
+	}
+
+	private static void agregarPlantillas(Class<?> clase, List<Plantilla> todas) {
+		// Los servlets de este paquete solo atienden GET
+		WebServlet servlet = clase.getAnnotation(WebServlet.class);
+		if(servlet != null)
+			for(String patron : servlet.urlPatterns())
+				if(patron.startsWith("/rest/"))
+					todas.add(new Plantilla("GET", recortar(patron.substring("/rest/".length()))));
+		Path base = clase.getAnnotation(Path.class);
+		if(base == null)
+			return;
+		for(Method metodo : clase.getMethods()) {
+			String http = null;
+			for(Annotation anotacion : metodo.getAnnotations()) {
+				HttpMethod h = anotacion.annotationType().getAnnotation(HttpMethod.class);
+				if(h != null)
+					http = h.value();
+			}
+			if(http == null)
+				continue;
+			Path sub = metodo.getAnnotation(Path.class);
+			String ruta = recortar(base.value());
+			if(sub != null && recortar(sub.value()).length() > 0)
+				ruta = ruta + "/" + recortar(sub.value());
+			todas.add(new Plantilla(http, ruta));
+		}
+	}
+
+	private static String recortar(String ruta) {
+		int inicio = 0;
+		int fin = ruta.length();
+		while(inicio < fin && ruta.charAt(inicio) == '/')
+			inicio++;
+		while(fin > inicio && ruta.charAt(fin - 1) == '/')
+			fin--;
+		return ruta.substring(inicio, fin);
+	}
+
+	/**
+	 * Ruta de un metodo de un servicio REST convertida en expresion regular
+	 */
+	private static class Plantilla {
+
+		private final String metodo;
+
+		private final String etiqueta;
+
+		private final String primerSegmento;
+
+		private final Pattern patron;
+
+		private int literales;
+
+		private int variables;
+
+		private Plantilla(String metodo, String ruta) {
+			this.metodo = metodo;
+			this.etiqueta = metodo + " /" + ruta;
+			int barra = ruta.indexOf('/');
+			this.primerSegmento = barra < 0 ? ruta : ruta.substring(0, barra);
+			StringBuilder regex = new StringBuilder();
+			int i = 0;
+			while(i < ruta.length()) {
+				int abre = ruta.indexOf('{', i);
+				if(abre < 0) {
+					regex.append(Pattern.quote(ruta.substring(i)));
+					literales += ruta.length() - i;
+					break;
+				}
+				int cierra = ruta.indexOf('}', abre);
+				if(abre > i) {
+					regex.append(Pattern.quote(ruta.substring(i, abre)));
+					literales += abre - i;
+				}
+				String variable = ruta.substring(abre + 1, cierra);
+				int dosPuntos = variable.indexOf(':');
+				regex.append('(').append(dosPuntos < 0 ? "[^/]+" : variable.substring(dosPuntos + 1).trim()).append(')');
+				variables++;
+				i = cierra + 1;
+			}
+			this.patron = Pattern.compile(regex.toString());
+		}
+	}
+
+	/**
+	 * Respuesta que recuerda el status que le asigna el servicio
+	 */
+	private static class Status extends HttpServletResponseWrapper {
+
+		private int status = SC_OK;
+
+		private Status(HttpServletResponse response) {
+			super(response);
+		}
+
+		@Override
+		public void setStatus(int sc) {
+			status = sc;
+			super.setStatus(sc);
+		}
+
+		@SuppressWarnings("deprecation")
+		@Override
+		public void setStatus(int sc, String sm) {
+			status = sc;
+			super.setStatus(sc, sm);
+		}
+
+		@Override
+		public void sendError(int sc) throws IOException {
+			status = sc;
+			super.sendError(sc);
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			status = sc;
+			super.sendError(sc, msg);
+		}
+
+		@Override
+		public void sendRedirect(String location) throws IOException {
+			status = SC_FOUND;
+			super.sendRedirect(location);
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package rest;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import metrics.Metrics;
+
+/**
+ * Clase que expone las metricas de la aplicacion en el formato de texto de Prometheus.
+ * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/metrics
+ */
+@Path("metrics")
+public class MetricsServices {
+
+	/**
+	 * Metodo que expone servicio REST usando GET que da las metricas de la aplicacion: latencia y llamadas de los
+	 * servicios REST, transacciones de RotondAndesTm, ejecuciones de SQL de los DAO y consultas distribuidas por JMS.
+	 * @return texto con las metricas, una linea por serie
+	 */
+	@GET
+	@Produces({ MediaType.TEXT_PLAIN })
+	public Response getMetrics() {
+		return Response.status(200).entity(Metrics.getInstance().exportar()).build();
+	}
+}
@@ -2,10 +2,7 @@
 package rest;
 
 
-import java.util.ArrayList;
-import java.util.Date;
 import java.util.GregorianCalendar;
-import java.util.Iterator;
 import java.util.List;
 
 import javax.servlet.ServletContext;
@@ -24,8 +21,12 @@ import javax.ws.rs.core.Response;
 
 import org.codehaus.jackson.map.ObjectMapper;
 
+import dao.RowCursor;
+import tm.InvalidPageException;
+import tm.PageToken;
 import tm.RotondAndesTm;
 import vos.Menu;
+import vos.Pagina;
 import vos.Pedido;
 import vos.PedidoMesa;
 import vos.Producto;
@@ -57,6 +58,41 @@ public class PedidoServices {
 		return "{ \"ERROR\": \""+ e.getMessage() + "\"}" ;
 	}
 	
+	/**
+	 * Metodo que expone servicio REST usando GET que da todos los pedidos de la base de datos.
+	 * Las filas se escriben en la respuesta a medida que se leen (ver StreamingJson).
+	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/pedidos
+	 * Con limit o after responde una pagina { "elementos": [...], "siguiente": token }; la siguiente pagina se pide
+	 * con after igual al token, hasta que siguiente llegue en null.
+	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/pedidos?limit=100&amp;after=token
+	 * @param limit - filas por pagina, maximo 1000; un limit o un after invalido se responde con 400
+	 * @param after - token siguiente de la pagina anterior
+	 * @return Json con todos los pedidos de la base de datos o json con 
+     * el error que se produjo
+	 */
+	@GET
+	@Produces({ MediaType.APPLICATION_JSON })
+	public Response getPedidos(@QueryParam("limit") String limit, @QueryParam("after") String after) {
+		final RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
+		if(limit != null || after != null) {
+			Pagina<Pedido> pagina;
+			try {
+				pagina = tm.darPedidos(after, PageToken.leerLimite(limit));
+			} catch (InvalidPageException e) {
+				return Response.status(400).entity(doErrorMessage(e)).build();
+			} catch (Exception e) {
+				return Response.status(500).entity(doErrorMessage(e)).build();
+			}
+			return Response.status(200).entity(pagina).build();
+		}
+		return StreamingJson.arreglo("recorrerPedidos", new StreamingJson.Fuente<Pedido>() {
+			@Override
+			public void recorrer(RowCursor.Receptor<Pedido> receptor) throws Exception {
+				tm.recorrerPedidos(receptor);
+			}
+		});
+	}
+
 
 	/**
      * Metodo que expone servicio REST usando GET que busca el pedido con el id que entra como parametro
@@ -70,7 +106,7 @@ public class PedidoServices {
 	@Produces( { MediaType.APPLICATION_JSON } )
 	public Response getPedido( @PathParam( "id" ) int id )
 	{
-		RotondAndesTm tm = new RotondAndesTm( getPath( ) );
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try
 		{
 			Pedido p = tm.buscarPedidoPorId( id );
@@ -99,44 +135,9 @@ public class PedidoServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response addPedido(Pedido pedido) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
-		Date fecha =(new Date()); 
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
-			Producto producto = tm.buscarProductoPorName(pedido.getNombreProducto());
-			Menu menu= tm.buscarMenusPorName(pedido.getNombreProducto());
-			if(tm.buscarUsuarioPorId(pedido.getIdUsuario())==null){
-				String error = "No existe un usuario con el id: "+pedido.getIdUsuario() ;
-				return Response.status(500).entity("{ \"ERROR\": \""+ error + "\"}").build();
-			}else if(producto==null && menu==null){
-				String error = "No existe un producto o menu con el nombre de : "+pedido.getNombreProducto() ;
-				return Response.status(500).entity("{ \"ERROR\": \""+ error + "\"}").build();
-			}else{
-				if(producto==null){
-					pedido.setMenu(menu);
-					pedido.setCostoTotal(menu.getPrecioVenta());
-					try{
-					tm.updateMenu(menu);
-					}catch (Exception e) {
-					String error = "No hay existencias de: "+pedido.getNombreProducto() ;
-					return Response.status(500).entity("{ \"ERROR\": \""+ error + "\"}").build();
-					}
-					pedido.setRestaurante(menu.getRestaurante());
-				}else{
-					pedido.setProducto(producto);
-					pedido.setCostoTotal(producto.getPrecioVenta());
-					try{
-					tm.updateProducto(producto);
-					}catch (Exception e) {
-					String error = "No hay existencias de: "+pedido.getNombreProducto() ;
-					return Response.status(500).entity("{ \"ERROR\": \""+ error + "\"}").build();
-					}
-					
-				}
-				pedido.setRestaurante(tm.buscarRestauranteProducto(pedido.getNombreProducto()));
-				pedido.setFecha(fecha);
-				pedido.setId(pedido.getId());
-				tm.addPedido(pedido);
-			}
+			tm.registrarPedido(pedido);
 		} catch (Exception e) {
 			return Response.status(500).entity(doErrorMessage(e)).build();
 		}
@@ -148,43 +149,9 @@ public class PedidoServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response addPedidoEquivalencia(Pedido pedido) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
-		Date fecha =(new Date()); 
-		ArrayList<String> equivalencias =pedido.getEquivalencias(); 
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
-			Producto producto = tm.buscarProductoPorName(pedido.getNombreProducto());
-			Menu menu= tm.buscarMenusPorName(pedido.getNombreProducto());
-			if(tm.buscarUsuarioPorId(pedido.getIdUsuario())==null){
-				String error = "No existe un usuario con el id: "+pedido.getIdUsuario() ;
-				return Response.status(500).entity("{ \"ERROR\": \""+ error + "\"}").build();
-			}else if(producto==null && menu==null){
-				String error = "No existe un producto o menu con el nombre de : "+pedido.getNombreProducto() ;
-				return Response.status(500).entity("{ \"ERROR\": \""+ error + "\"}").build();
-			}else{
-				if(producto==null){
-					pedido.setMenu(menu);
-					pedido.setCostoTotal(menu.getPrecioVenta());
-					try{
-					tm.updateMenu(menu);
-					}catch (Exception e) {
-						String error = "No hay existencias de: "+pedido.getNombreProducto() ;
-						return Response.status(500).entity("{ \"ERROR\": \""+ error + "\"}").build();
-					}
-				}else{
-					pedido.setProducto(producto);
-					pedido.setCostoTotal(producto.getPrecioVenta());
-					try{
-					tm.updateProducto(producto);
-					}catch (Exception e) {
-					String error = "No hay existencias de: "+pedido.getNombreProducto() ;
-					return Response.status(500).entity("{ \"ERROR\": \""+ error + "\"}").build();
-					}
-				}
-				pedido.setFecha(fecha);
-				pedido.setId(1);
-				pedido.setEquivalencias(equivalencias);
-				tm.addPedido(pedido);
-			}
+			tm.registrarPedido(pedido);
 		} catch (Exception e) {
 			return Response.status(500).entity(doErrorMessage(e)).build();
 		}
@@ -199,34 +166,9 @@ public class PedidoServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response addPedidoMesa(PedidoMesa pedido) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
-		Date fecha =(new Date()); 
-		ArrayList<String> productos =pedido.getProductos();
-		ArrayList<Producto> listProductos = new ArrayList<>(); 
-		ArrayList<Menu> listMenu = new ArrayList<>();
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try{
-			Iterator<String> iter = productos.iterator();
-			while(iter.hasNext()){
-				String buscar= iter.next();
-				String lresta = tm.buscarRestauranteProducto(buscar);
-				Pedido pp  = new Pedido(1, 0,fecha, pedido.getIdUsuario(),buscar,lresta);
-				Producto pprodu = tm.buscarProductoPorName(buscar);
-				Menu lmenu=tm.buscarMenusPorName(buscar);
-				if(lmenu!=null){
-					listMenu.add(lmenu);
-				}else{
-					listProductos.add(pprodu);
-				}
-				this.addPedido(pp);
-				pedido.setId(pp.getId());
-			}
-			pedido.setVoMenus(listMenu);
-			pedido.setVoProductos(listProductos);
-			pedido.setCostoTotal();
-			pedido.setFecha(fecha);
-			pedido.setNumProductos();
-			tm.addPedidoMesa(pedido);
-			
+			tm.registrarPedidoMesa(pedido);
 		} catch (Exception e) {
 			return Response.status(500).entity(doErrorMessage(e)).build();
 		}
@@ -247,7 +189,7 @@ public class PedidoServices {
 	@Path( "{id: \\d+}" )
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response updatePedido(@PathParam( "id" ) int id ) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		Pedido pedido;
 		try {
 			pedido = tm.updatePedido(id);
@@ -267,7 +209,7 @@ public class PedidoServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response updatePedidoMesa(PedidoMesa pedido ) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 		PedidoMesa lpedido = tm.buscarPedidoMesaId(pedido.getId());
 		
@@ -296,7 +238,7 @@ public class PedidoServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response deletePedido(Pedido pedido) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			tm.deletePedido(pedido);
 		} catch (Exception e) {
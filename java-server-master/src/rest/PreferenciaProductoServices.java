@@ -60,7 +60,7 @@ public class PreferenciaProductoServices {
 	@Produces( { MediaType.APPLICATION_JSON } )
 	public Response getPreferencia( @PathParam( "id" ) Integer id )
 	{
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		List<Producto> preferencias = null;
 		try {
 			Usuario usuario = tm.buscarUsuarioPorId(id);
@@ -84,7 +84,7 @@ public class PreferenciaProductoServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response addPreferencia(@PathParam( "id" ) Integer id ,PreferenciaProducto preferencia) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			Usuario usuario = tm.buscarUsuarioPorId(id);
 			if(usuario==null){
@@ -109,7 +109,7 @@ public class PreferenciaProductoServices {
 //	@Consumes(MediaType.APPLICATION_JSON)
 //	@Produces(MediaType.APPLICATION_JSON)
 //	public Response updatePreferencia(PreferenciaProducto preferencia) {
-//		RotondAndesTm tm = new RotondAndesTm(getPath());
+//		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 //		try {
 //			tm.updatePreferenciaProducto(preferencia);
 //		} catch (Exception e) {
@@ -128,7 +128,7 @@ public class PreferenciaProductoServices {
 //	@Consumes(MediaType.APPLICATION_JSON)
 //	@Produces(MediaType.APPLICATION_JSON)
 //	public Response deletePreferencia(PreferenciaProducto preferencia) {
-//		RotondAndesTm tm = new RotondAndesTm(getPath());
+//		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 //		try {
 //			tm.deletePreferenciaProducto(preferencia);
 //		} catch (Exception e) {
@@ -61,7 +61,7 @@ public class PreferenciaRestauranteServices {
 	@Produces( { MediaType.APPLICATION_JSON } )
 	public Response getPreferencia( @PathParam( "id" ) Integer id )
 	{
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		List<Restaurante> preferencias = null;
 		try {
 			Usuario usuario = tm.buscarUsuarioPorId(id);
@@ -85,7 +85,7 @@ public class PreferenciaRestauranteServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response addPreferencia(@PathParam( "id" ) Integer id ,PreferenciaRestaurante preferencia) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			Usuario usuario = tm.buscarUsuarioPorId(id);
 			if(usuario==null){
@@ -111,7 +111,7 @@ public class PreferenciaRestauranteServices {
 //	@Consumes(MediaType.APPLICATION_JSON)
 //	@Produces(MediaType.APPLICATION_JSON)
 //	public Response updatePreferencia(PreferenciaRestaurante preferencia) {
-//		RotondAndesTm tm = new RotondAndesTm(getPath());
+//		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 //		try {
 //			tm.updatePreferenciaRestaurante(preferencia);
 //		} catch (Exception e) {
@@ -130,7 +130,7 @@ public class PreferenciaRestauranteServices {
 //	@Consumes(MediaType.APPLICATION_JSON)
 //	@Produces(MediaType.APPLICATION_JSON)
 //	public Response deletePreferencia(PreferenciaRestaurante preferencia) {
-//		RotondAndesTm tm = new RotondAndesTm(getPath());
+//		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 //		try {
 //			tm.deletePreferenciaRestaurante(preferencia);
 //		} catch (Exception e) {
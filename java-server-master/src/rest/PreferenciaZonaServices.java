@@ -60,7 +60,7 @@ public class PreferenciaZonaServices {
 	@Produces( { MediaType.APPLICATION_JSON } )
 	public Response getPreferencia( @PathParam( "id" ) Integer id )
 	{
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		List<Zona> preferencias = null;
 		try {
 			Usuario usuario = tm.buscarUsuarioPorId(id);
@@ -84,7 +84,7 @@ public class PreferenciaZonaServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response addPreferencia(@PathParam( "id" ) Integer id ,PreferenciaZona preferencia) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			Usuario usuario = tm.buscarUsuarioPorId(id);
 			if(usuario==null){
@@ -109,7 +109,7 @@ public class PreferenciaZonaServices {
 //	@Consumes(MediaType.APPLICATION_JSON)
 //	@Produces(MediaType.APPLICATION_JSON)
 //	public Response updatePreferencia(PreferenciaZona preferencia) {
-//		RotondAndesTm tm = new RotondAndesTm(getPath());
+//		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 //		try {
 //			tm.updatePreferenciaZona(preferencia);
 //		} catch (Exception e) {
@@ -128,7 +128,7 @@ public class PreferenciaZonaServices {
 //	@Consumes(MediaType.APPLICATION_JSON)
 //	@Produces(MediaType.APPLICATION_JSON)
 //	public Response deletePreferencia(PreferenciaZona preferencia) {
-//		RotondAndesTm tm = new RotondAndesTm(getPath());
+//		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 //		try {
 //			tm.deletePreferenciaZona(preferencia);
 //		} catch (Exception e) {
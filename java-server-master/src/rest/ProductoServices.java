@@ -15,7 +15,6 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import tm.RotondAndesTm;
-import vos.ListaProductos;
 import vos.Pedido;
 import vos.Producto;
 import vos.Restaurante;
@@ -37,18 +36,7 @@ public class ProductoServices {
 	}
 	
 
-	@GET
-	@Produces({ MediaType.APPLICATION_JSON })
-	public Response getProductos() {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
-		ListaProductos productos;
-		try {
-			productos = tm.darProductos();
-		} catch (Exception e) {
-			return Response.status(500).entity(doErrorMessage(e)).build();
-		}
-		return Response.status(200).entity(productos).build();
-	}
+	// GET /productos espera a los pares por JMS y lo atiende AsyncServlet
 
     /**
      * Metodo que expone servicio REST usando GET que busca el video con el nombre que entra como parametro
@@ -61,7 +49,7 @@ public class ProductoServices {
 	@Path( "{nombre}" )
 	@Produces( { MediaType.APPLICATION_JSON } )
 	public Response getProductoname( @PathParam("nombre") String name) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		Producto producto;
 		try {
 			if (name == null || name.length() == 0)
@@ -85,7 +73,7 @@ public class ProductoServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response addProducto(@PathParam( "nombre" ) String nombreRestaurante , Producto producto) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			Restaurante restaurante = tm.buscarRestaurantesPorName(nombreRestaurante);
 			if(restaurante==null){
@@ -110,7 +98,7 @@ public class ProductoServices {
 	@Path( "{nombre}" )
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response updateProducto(@PathParam( "nombre" ) String nombre ) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		Producto producto;
 		try {
 			producto = tm.buscarProductoPorName(nombre);
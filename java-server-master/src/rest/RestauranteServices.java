@@ -1,9 +1,6 @@
 
 package rest;
 
-
-import java.util.List;
-
 import javax.servlet.ServletContext;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
@@ -20,7 +17,11 @@ import javax.ws.rs.core.Response;
 
 import org.codehaus.jackson.map.ObjectMapper;
 
+import dao.RowCursor;
+import tm.InvalidPageException;
+import tm.PageToken;
 import tm.RotondAndesTm;
+import vos.Pagina;
 import vos.Producto;
 import vos.Restaurante;
 import vos.Usuario;
@@ -54,21 +55,37 @@ public class RestauranteServices {
 
 	/**
 	 * Metodo que expone servicio REST usando GET que da todos los restaurantes de la base de datos.
+	 * Las filas se escriben en la respuesta a medida que se leen (ver StreamingJson).
 	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/restaurantes
+	 * Con limit o after responde una pagina { "elementos": [...], "siguiente": token }; la siguiente pagina se pide
+	 * con after igual al token, hasta que siguiente llegue en null.
+	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/restaurantes?limit=100&amp;after=token
+	 * @param limit - filas por pagina, maximo 1000; un limit o un after invalido se responde con 400
+	 * @param after - token siguiente de la pagina anterior
 	 * @return Json con todos los restaurantes de la base de datos o json con 
      * el error que se produjo
 	 */
 	@GET
 	@Produces({ MediaType.APPLICATION_JSON })
-	public Response getRestaurantes() {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
-		List<Restaurante> restaurantes;
-		try {
-			restaurantes = tm.darRestaurantes();
-		} catch (Exception e) {
-			return Response.status(500).entity(doErrorMessage(e)).build();
+	public Response getRestaurantes(@QueryParam("limit") String limit, @QueryParam("after") String after) {
+		final RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
+		if(limit != null || after != null) {
+			Pagina<Restaurante> pagina;
+			try {
+				pagina = tm.darRestaurantes(after, PageToken.leerLimite(limit));
+			} catch (InvalidPageException e) {
+				return Response.status(400).entity(doErrorMessage(e)).build();
+			} catch (Exception e) {
+				return Response.status(500).entity(doErrorMessage(e)).build();
+			}
+			return Response.status(200).entity(pagina).build();
 		}
-		return Response.status(200).entity(restaurantes).build();
+		return StreamingJson.arreglo("recorrerRestaurantes", new StreamingJson.Fuente<Restaurante>() {
+			@Override
+			public void recorrer(RowCursor.Receptor<Restaurante> receptor) throws Exception {
+				tm.recorrerRestaurantes(receptor);
+			}
+		});
 	}
 
     /**
@@ -82,7 +99,7 @@ public class RestauranteServices {
 	@Path( "{nombre}" )
 	@Produces( { MediaType.APPLICATION_JSON } )
 	public Response getRestauranteName( @PathParam("nombre") String name) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		Restaurante restaurantes;
 		try {
 			if (name == null || name.length() == 0)
@@ -106,7 +123,7 @@ public class RestauranteServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response addRestaurante(@PathParam( "id" ) Integer id ,Restaurante restaurante) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			Usuario admin = tm.buscarUsuarioPorId(id);
 			if(admin==null){
@@ -135,7 +152,7 @@ public class RestauranteServices {
 	@Path( "{nombre}" )
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response updateRestaurante( @PathParam( "nombre" ) String nombre) throws Exception {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		Producto producto = tm.buscarProductoPorName(nombre);
 		try {
 			if(producto==null){
@@ -160,7 +177,7 @@ public class RestauranteServices {
 	@Path("{nombre}")
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response deleteRestaurante(@PathParam( "nombre" ) String nombre) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			tm.deleteRestauranteRemote(nombre);
 		} catch (Exception e) {
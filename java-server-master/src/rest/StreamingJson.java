@@ -0,0 +1,102 @@
+package rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.SerializationConfig;
+
+import dao.RowCursor;
+import dao.TransactionContext;
+import log.Logger;
+
+/**
+ * Respuestas REST con un arreglo JSON que se escribe fila por fila mientras se lee de la base de datos (ver
+ * dao.RowCursor), en lugar de armar la lista completa y pasarla a Jackson al final. La memoria no crece con el tamano
+ * de la tabla y el primer byte sale apenas se lee la primera fila.
+ * Si la consulta falla antes de esa primera fila se responde 500 con el error, como el resto de servicios; si falla
+ * despues, la respuesta ya salio con 200 y solo se puede cortar, asi que el cliente recibe un JSON incompleto y el
+ * error queda en el log.
+ * Las filas se escriben al cliente dentro de la transaccion, con la conexion del pool tomada. Para que un cliente lento
+ * no retenga la conexion toda la transferencia, la escritura tiene el mismo limite que las sentencias de la
+ * transaccion (tx.timeoutLectura o tx.timeout.&lt;nombre&gt;): si se pasa se corta la respuesta y se libera la
+ * conexion. El limite se revisa entre filas; una escritura bloqueada en el socket la corta el timeout de escritura
+ * del contenedor.
+ */
+class StreamingJson {
+
+	private static final Logger LOG = Logger.get(StreamingJson.class);
+
+	/**
+	 * Cada fila se escribe en el buffer del generador; se envia cuando se llena y no despues de cada valor
+	 */
+	private static final ObjectMapper MAPPER = new ObjectMapper().configure(SerializationConfig.Feature.FLUSH_AFTER_WRITE_VALUE, false);
+
+	/**
+	 * Origen de las filas de una respuesta, normalmente un metodo recorrer* de RotondAndesTm
+	 * @param <T> - tipo de cada fila
+	 */
+	interface Fuente<T> {
+
+		/**
+		 * @param receptor - recibe cada fila en orden
+		 * @throws Exception - cualquier error de la consulta
+		 */
+		void recorrer(RowCursor.Receptor<T> receptor) throws Exception;
+	}
+
+	private StreamingJson() {
+	}
+
+	/**
+	 * @param nombre - nombre de la consulta en el log
+	 * @param fuente - filas de la respuesta
+	 * @return respuesta 200 que escribe el arreglo JSON de las filas cuando el contenedor la envia
+	 */
+	static <T> Response arreglo(final String nombre, final Fuente<T> fuente) {
+		StreamingOutput salida = new StreamingOutput() {
+			@Override
+			public void write(OutputStream out) throws IOException, WebApplicationException {
+				final JsonGenerator generador = MAPPER.getJsonFactory().createJsonGenerator(out, JsonEncoding.UTF8);
+				final int[] escritas = { 0 };
+				final long[] limite = { 0 };
+				generador.writeStartArray();
+				try {
+					fuente.recorrer(new RowCursor.Receptor<T>() {
+						@Override
+						public void recibir(T fila) throws Exception {
+							if(escritas[0] == 0) {
+								TransactionContext contexto = TransactionContext.actual();
+								if(contexto != null && contexto.getTimeout() > 0)
+									limite[0] = System.nanoTime() + TimeUnit.SECONDS.toNanos(contexto.getTimeout());
+							} else if(limite[0] != 0 && System.nanoTime() - limite[0] > 0) {
+								throw new IOException(nombre + " supero el timeout de la transaccion escribiendo la respuesta");
+							}
+							MAPPER.writeValue(generador, fila);
+							if(escritas[0]++ == 0)
+								generador.flush();
+						}
+					});
+				} catch (Exception e) {
+					if(escritas[0] == 0)
+						throw new WebApplicationException(e, Response.status(500).type(MediaType.APPLICATION_JSON)
+								.entity(MAPPER.writeValueAsString(Collections.singletonMap("ERROR", e.getMessage()))).build());
+					LOG.error("{} fallo despues de escribir {} filas; la respuesta queda incompleta", nombre, escritas[0], e);
+					throw e instanceof IOException ? (IOException) e : new IOException(e);
+				}
+				generador.writeEndArray();
+				generador.close();
+			}
+		};
+		return Response.status(200).type(MediaType.APPLICATION_JSON).entity(salida).build();
+	}
+}
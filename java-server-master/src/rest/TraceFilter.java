@@ -0,0 +1,91 @@
+package rest;
+
+import java.io.IOException;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import trace.Span;
+import trace.Tracer;
+
+/**
+ * Inicia la traza de cada llamada a los servicios REST (ver trace.Tracer). Si la llamada trae el encabezado
+ * X-Trace-Id la continua; en cualquier caso responde el id de la traza en X-Trace-Id para poder buscarla en los
+ * archivos de tramos de cada nodo. El tramo de una llamada asincrona (ver AsyncServlet) se termina cuando se completa
+ * su respuesta, desde el hilo que la complete.
+ */
+@WebFilter(urlPatterns = "/rest/*", asyncSupported = true)
+public class TraceFilter implements Filter {
+
+	/**
+	 * Encabezado con el id de la traza
+	 */
+	public static final String TRACE_ID = "X-Trace-Id";
+
+	@Override
+	public void init(FilterConfig config) throws ServletException {
+	}
+
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+		if(Tracer.getInstance() == null || !(request instanceof HttpServletRequest)) {
+			chain.doFilter(request, response);
+			return;
+		}
+		HttpServletRequest req = (HttpServletRequest) request;
+		String ruta = MetricsFilter.darRuta(req);
+		if(ruta.isEmpty())
+			ruta = "/";
+		final Span span = Tracer.iniciarRaiz(req.getMethod() + " " + ruta, "rest", req.getHeader(TRACE_ID), null);
+		if(req.getQueryString() != null)
+			span.atributo("query", req.getQueryString());
+		((HttpServletResponse) response).setHeader(TRACE_ID, span.getTraza());
+		boolean exito = false;
+		try {
+			chain.doFilter(request, response);
+			exito = true;
+		} finally {
+			if(exito && req.isAsyncStarted()) {
+				Tracer.soltar(span);
+				req.getAsyncContext().addListener(new AsyncListener() {
+
+					private volatile boolean error;
+
+					@Override
+					public void onComplete(AsyncEvent event) throws IOException {
+						Tracer.terminar(span, error);
+					}
+
+					@Override
+					public void onTimeout(AsyncEvent event) throws IOException {
+						error = true;
+					}
+
+					@Override
+					public void onError(AsyncEvent event) throws IOException {
+						error = true;
+					}
+
+					@Override
+					public void onStartAsync(AsyncEvent event) throws IOException {
+					}
+				});
+			} else {
+				Tracer.terminar(span, !exito);
+			}
+		}
+	}
+
+	@Override
+	public void destroy() {
+	}
+}
@@ -18,7 +18,11 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import dao.RowCursor;
+import tm.InvalidPageException;
+import tm.PageToken;
 import tm.RotondAndesTm;
+import vos.Pagina;
 import vos.Restaurante;
 import vos.Usuario;
 
@@ -39,21 +43,37 @@ public class UsuariosServices {
 	
 	/**
 	 * Metodo que expone servicio REST usando GET que da todos los usuarios de la base de datos.
+	 * Las filas se escriben en la respuesta a medida que se leen (ver StreamingJson).
 	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/usuario
+	 * Con limit o after responde una pagina { "elementos": [...], "siguiente": token }; la siguiente pagina se pide
+	 * con after igual al token, hasta que siguiente llegue en null.
+	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/usuario?limit=100&amp;after=token
+	 * @param limit - filas por pagina, maximo 1000; un limit o un after invalido se responde con 400
+	 * @param after - token siguiente de la pagina anterior
 	 * @return Json con todos los usuarios de la base de datos o json con 
      * el error que se produjo
 	 */
 	@GET
 	@Produces({ MediaType.APPLICATION_JSON })
-	public Response getUsuarios() {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
-		List<Usuario> usuarios;
-		try {
-			usuarios = tm.darUsuarios();
-		} catch (Exception e) {
-			return Response.status(500).entity(doErrorMessage(e)).build();
+	public Response getUsuarios(@QueryParam("limit") String limit, @QueryParam("after") String after) {
+		final RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
+		if(limit != null || after != null) {
+			Pagina<Usuario> pagina;
+			try {
+				pagina = tm.darUsuarios(after, PageToken.leerLimite(limit));
+			} catch (InvalidPageException e) {
+				return Response.status(400).entity(doErrorMessage(e)).build();
+			} catch (Exception e) {
+				return Response.status(500).entity(doErrorMessage(e)).build();
+			}
+			return Response.status(200).entity(pagina).build();
 		}
-		return Response.status(200).entity(usuarios).build();
+		return StreamingJson.arreglo("recorrerUsuarios", new StreamingJson.Fuente<Usuario>() {
+			@Override
+			public void recorrer(RowCursor.Receptor<Usuario> receptor) throws Exception {
+				tm.recorrerUsuarios(receptor);
+			}
+		});
 	}
 
 	 /**
@@ -68,7 +88,7 @@ public class UsuariosServices {
 	@Produces( { MediaType.APPLICATION_JSON } )
 	public Response getUsuario( @PathParam( "id" ) Integer id )
 	{
-		RotondAndesTm tm = new RotondAndesTm( getPath( ) );
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try
 		{
 			Usuario v = tm.buscarUsuarioPorId( id );
@@ -91,7 +111,7 @@ public class UsuariosServices {
 	@Path( "{nombre}" )
 	@Produces( { MediaType.APPLICATION_JSON } )
 	public Response getUsuarioname( @PathParam("nombre") String name) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		List<Usuario> usuarios;
 		try {
 			if (name == null || name.length() == 0)
@@ -114,7 +134,7 @@ public class UsuariosServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response addUsuario(Usuario usuario) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			if((usuario.getRol().toUpperCase().trim()).equals("CLIENTE")){
 				String error = "Un cliente solo puede ser aadido por un administrador";
@@ -140,7 +160,7 @@ public class UsuariosServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response addCliente( @PathParam( "id" ) Integer id , Usuario usuario) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			Usuario admin = tm.buscarUsuarioPorId(id);
 			
@@ -20,7 +20,10 @@ import javax.ws.rs.core.Response;
 
 import org.codehaus.jackson.map.ObjectMapper;
 
+import tm.InvalidPageException;
+import tm.PageToken;
 import tm.RotondAndesTm;
+import vos.Pagina;
 import vos.Usuario;
 import vos.Zona;
 
@@ -54,13 +57,29 @@ public class ZonaServices {
 	/**
 	 * Metodo que expone servicio REST usando GET que da todos las zonas de la base de datos.
 	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/zonas
+	 * Con limit o after responde una pagina { "elementos": [...], "siguiente": token }; la siguiente pagina se pide
+	 * con after igual al token, hasta que siguiente llegue en null.
+	 * <b>URL: </b> http://"ip o nombre de host":8080/RotondAndes/rest/zonas?limit=100&amp;after=token
+	 * @param limit - filas por pagina, maximo 1000; un limit o un after invalido se responde con 400
+	 * @param after - token siguiente de la pagina anterior
 	 * @return Json con todos las zonas de la base de datos o json con 
      * el error que se produjo
 	 */
 	@GET
 	@Produces({ MediaType.APPLICATION_JSON })
-	public Response getZonas() {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+	public Response getZonas(@QueryParam("limit") String limit, @QueryParam("after") String after) {
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
+		if(limit != null || after != null) {
+			Pagina<Zona> pagina;
+			try {
+				pagina = tm.darZonas(after, PageToken.leerLimite(limit));
+			} catch (InvalidPageException e) {
+				return Response.status(400).entity(doErrorMessage(e)).build();
+			} catch (Exception e) {
+				return Response.status(500).entity(doErrorMessage(e)).build();
+			}
+			return Response.status(200).entity(pagina).build();
+		}
 		List<Zona> zonas;
 		try {
 			zonas = tm.darZonas();
@@ -81,7 +100,7 @@ public class ZonaServices {
 	@Path( "{nombre}" )
 	@Produces( { MediaType.APPLICATION_JSON } )
 	public Response getZonaName( @PathParam("nombre") String name) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		List<Zona> zonas;
 		try {
 			if (name == null || name.length() == 0)
@@ -105,7 +124,7 @@ public class ZonaServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response addZona( @PathParam( "id" ) Integer id , Zona zona) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			
 			Usuario admin = tm.buscarUsuarioPorId(id);
@@ -136,7 +155,7 @@ public class ZonaServices {
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response deleteZona(Zona zona) {
-		RotondAndesTm tm = new RotondAndesTm(getPath());
+		RotondAndesTm tm = RotondAndesTm.getInstance(getPath());
 		try {
 			tm.deleteZona(zona);
 		} catch (Exception e) {
@@ -6,32 +6,103 @@ import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
 import javax.servlet.annotation.WebListener;
 
-import dtm.RotondAndesDistributed;;
+import dao.SqlProfiler;
+import dtm.RotondAndesDistributed;
+import log.Logger;
+import rest.AsyncExecutor;
+import tm.CatalogCache;
+import tm.ConnectionPool;
+import tm.RotondAndesTm;
+import tm.StockReservations;
+import trace.Tracer;
 
 
 @WebListener
 public class ContextListener implements ServletContextListener {
 
+	private static final Logger LOG = Logger.get(ContextListener.class);
+
+	/**
+	 * Parametro del contexto o propiedad del sistema con el perfil de almacenamiento: el nombre de una subcarpeta de
+	 * WEB-INF/ConnectionData con su propio conexion.properties (por ejemplo embebido). Sin perfil se usa la carpeta misma.
+	 */
+	private static final String PERFIL = "rotondandes.perfil";
+
 	private RotondAndesDistributed dtm;
 	
 	@Override
 	public void contextDestroyed(ServletContextEvent arg0) 
 	{
 		try {
-			dtm.stop();
+			if(dtm != null)
+				dtm.stop();
 			
 		} catch (JMSException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			LOG.error("Error deteniendo la conexion JMS", e);
 		}
-		
+		AsyncExecutor.close();
+		StockReservations stock = StockReservations.getInstance();
+		if(stock != null)
+			stock.close();
+		ConnectionPool pool = ConnectionPool.getInstance();
+		if(pool != null)
+			pool.close();
+		Tracer.close();
+		Logger.close();
 	}
 
 	@Override
 	public void contextInitialized(ServletContextEvent arg0) {
 		
 		final ServletContext context = arg0.getServletContext();
-		RotondAndesDistributed.setPath(context.getRealPath("WEB-INF/ConnectionData"));
+		String path = context.getRealPath("WEB-INF/ConnectionData");
+		String perfil = System.getProperty(PERFIL, context.getInitParameter(PERFIL));
+		if(perfil != null && perfil.trim().length() > 0)
+			path = path + "/" + perfil.trim();
+		// Cada componente se inicia por separado: si uno falla queda sin iniciar y los siguientes se inician igual
+		try {
+			Logger.init(path);
+		} catch (Exception e) {
+			LOG.error("Error leyendo la configuracion del log", e);
+		}
+		LOG.info("Configuracion de conexion: {}", path);
+		try {
+			EmbeddedDatabase.cargar(path);
+		} catch (Exception e) {
+			LOG.error("Error cargando la base de datos embebida", e);
+		}
+		try {
+			ConnectionPool.init(path);
+		} catch (Exception e) {
+			LOG.error("Error iniciando el pool de conexiones", e);
+		}
+		try {
+			CatalogCache.init(path);
+		} catch (Exception e) {
+			LOG.error("Error iniciando el cache del catalogo", e);
+		}
+		try {
+			SqlProfiler.init(path);
+		} catch (Exception e) {
+			LOG.error("Error iniciando el perfilador de SQL", e);
+		}
+		try {
+			Tracer.init(path);
+		} catch (Exception e) {
+			LOG.error("Error iniciando las trazas", e);
+		}
+		try {
+			AsyncExecutor.init(path);
+		} catch (Exception e) {
+			LOG.error("Error iniciando los servicios asincronos", e);
+		}
+		try {
+			StockReservations.init(path);
+		} catch (Exception e) {
+			LOG.error("Error iniciando las reservas de existencias", e);
+		}
+		RotondAndesDistributed.setPath(path);
+		RotondAndesTm.init(path);
 		dtm = RotondAndesDistributed.getInstance();
 	}
 
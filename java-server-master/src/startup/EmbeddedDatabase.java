@@ -0,0 +1,144 @@
+package startup;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import log.Logger;
+
+/**
+ * Carga el esquema y los datos iniciales de una base de datos embebida (perfil WEB-INF/ConnectionData/embebido).
+ * Los scripts se indican en embebido.scripts, separados por comas y relativos a la carpeta del perfil; se ejecutan
+ * con la url, usuario, clave y driver del mismo conexion.properties antes de crear el pool. Si la base ya tiene
+ * la tabla USUARIO (por ejemplo un archivo H2 de una ejecucion anterior) no se ejecuta nada.
+ * El driver de la base embebida no es dependencia de compilacion: basta con agregar su jar al deploy.
+ */
+public class EmbeddedDatabase {
+
+	private static final Logger LOG = Logger.get(EmbeddedDatabase.class);
+
+	/**
+	 * Atributo estatico que contiene el path relativo del archivo que tiene los datos de la conexion
+	 */
+	private static final String CONNECTION_DATA_FILE_NAME_REMOTE = "/conexion.properties";
+
+	/**
+	 * Tabla con la que se decide si el esquema ya esta creado
+	 */
+	private static final String TABLA_CONTROL = "USUARIO";
+
+	private EmbeddedDatabase() {
+	}
+
+	/**
+	 * Ejecuta los scripts de embebido.scripts si el perfil los tiene y la base todavia no tiene el esquema.
+	 * @param path - path absoluto de la carpeta del perfil
+	 * @throws Exception - si no se puede leer la configuracion, cargar el driver o ejecutar algun script
+	 */
+	public static void cargar(String path) throws Exception {
+		Properties prop = new Properties();
+		FileInputStream in = new FileInputStream(new File(path + CONNECTION_DATA_FILE_NAME_REMOTE));
+		try {
+			prop.load(in);
+		} finally {
+			in.close();
+		}
+		String scripts = prop.getProperty("embebido.scripts", "").trim();
+		if(scripts.length() == 0)
+			return;
+		Class.forName(prop.getProperty("driver").trim());
+		Connection conn = DriverManager.getConnection(prop.getProperty("url").trim(),
+				prop.getProperty("usuario").trim(), prop.getProperty("clave").trim());
+		try {
+			if(tieneEsquema(conn)) {
+				LOG.info("La base embebida ya tiene el esquema, no se ejecutan {}", scripts);
+				return;
+			}
+			conn.setAutoCommit(false);
+			for(String script : scripts.split(",")) {
+				if(script.trim().length() == 0)
+					continue;
+				int n = ejecutar(conn, new File(path, script.trim()));
+				LOG.info("Script {} ejecutado: {} sentencias", script.trim(), n);
+			}
+			conn.commit();
+		} catch (SQLException e) {
+			conn.rollback();
+			throw e;
+		} finally {
+			conn.close();
+		}
+	}
+
+	private static boolean tieneEsquema(Connection conn) throws SQLException {
+		ResultSet rs = conn.getMetaData().getTables(null, null, TABLA_CONTROL, null);
+		try {
+			return rs.next();
+		} finally {
+			rs.close();
+		}
+	}
+
+	/**
+	 * Ejecuta las sentencias de un script. Cada sentencia termina con ; al final de una linea y las lineas que
+	 * empiezan con -- son comentarios; no se soportan bloques PL/SQL.
+	 * @return numero de sentencias ejecutadas
+	 * @throws SQLException - con el numero de linea si alguna sentencia falla
+	 */
+	private static int ejecutar(Connection conn, File script) throws IOException, SQLException {
+		List<String> sentencias = new ArrayList<String>();
+		List<Integer> lineas = new ArrayList<Integer>();
+		BufferedReader lector = new BufferedReader(new InputStreamReader(new FileInputStream(script), "UTF-8"));
+		try {
+			StringBuilder actual = new StringBuilder();
+			int inicio = 0;
+			int numero = 0;
+			String linea;
+			while((linea = lector.readLine()) != null) {
+				numero++;
+				String limpia = linea.trim();
+				if(limpia.length() == 0 || limpia.startsWith("--"))
+					continue;
+				if(actual.length() == 0)
+					inicio = numero;
+				else
+					actual.append('\n');
+				if(limpia.endsWith(";")) {
+					actual.append(limpia.substring(0, limpia.length() - 1));
+					sentencias.add(actual.toString());
+					lineas.add(inicio);
+					actual.setLength(0);
+				} else {
+					actual.append(limpia);
+				}
+			}
+			if(actual.toString().trim().length() > 0)
+				throw new SQLException(script.getName() + ":" + inicio + ": sentencia sin ; final");
+		} finally {
+			lector.close();
+		}
+		Statement stmt = conn.createStatement();
+		try {
+			for(int i = 0; i < sentencias.size(); i++) {
+				try {
+					stmt.execute(sentencias.get(i));
+				} catch (SQLException e) {
+					throw new SQLException(script.getName() + ":" + lineas.get(i) + ": " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+				}
+			}
+		} finally {
+			stmt.close();
+		}
+		return sentencias.size();
+	}
+}
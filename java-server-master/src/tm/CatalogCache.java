@@ -0,0 +1,264 @@
+package tm;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import vos.EstadisticasCache;
+import vos.Menu;
+import vos.Producto;
+
+/**
+ * Cache de lectura del catalogo: producto por nombre, menu por nombre y restaurante de cada producto.
+ * Lo crea startup.ContextListener; RotondAndesTm lo consulta antes de ir a la base de datos y lo invalida
+ * despues de confirmar cualquier cambio sobre productos, menus o restaurantes.
+ * Cada region es un LRU acotado con tiempo de vida; tambien guarda los nombres que no existen para que
+ * buscar un producto que en realidad es un menu no vaya a la base de datos cada vez.
+ * Las existencias (DISPONIBLES) de los objetos guardados pueden estar desactualizadas hasta catalogo.ttl;
+ * el descuento de existencias de un pedido siempre se valida contra la base de datos.
+ * Los Producto y Menu son mutables, asi que cada region guarda su propia copia y entrega otra en cada lectura:
+ * lo que un llamador le cambie al objeto que recibe no le llega a las demas peticiones.
+ */
+public class CatalogCache {
+
+	/**
+	 * Atributo estatico que contiene el path relativo del archivo que tiene los datos de la conexion
+	 */
+	private static final String CONNECTION_DATA_FILE_NAME_REMOTE = "/conexion.properties";
+
+	/**
+	 * Unica instancia del cache, creada por init(String)
+	 */
+	private static CatalogCache instance;
+
+	private final Region<Producto> productos;
+
+	private final Region<Menu> menus;
+
+	private final Region<String> restaurantes;
+
+	/**
+	 * @param tamano - numero maximo de entradas por region
+	 * @param ttl - tiempo de vida en milisegundos de cada entrada
+	 */
+	public CatalogCache(int tamano, long ttl) {
+		productos = new Region<Producto>("productos", tamano, ttl, COPIA_PRODUCTO);
+		menus = new Region<Menu>("menus", tamano, ttl, COPIA_MENU);
+		restaurantes = new Region<String>("restaurantes", tamano, ttl, null);
+	}
+
+	/**
+	 * Crea el cache de la aplicacion con los parametros catalogo.* del archivo conexion.properties.
+	 * @param path - path absoluto de la carpeta WEB-INF/ConnectionData
+	 * @return el cache creado
+	 * @throws Exception - si no se puede leer la configuracion
+	 */
+	public static synchronized CatalogCache init(String path) throws Exception {
+		if(instance == null) {
+			Properties prop = new Properties();
+			FileInputStream in = new FileInputStream(new File(path + CONNECTION_DATA_FILE_NAME_REMOTE));
+			try {
+				prop.load(in);
+			} finally {
+				in.close();
+			}
+			int tamano = Integer.parseInt(prop.getProperty("catalogo.tamano", "1000").trim());
+			long ttl = Long.parseLong(prop.getProperty("catalogo.ttl", "60000").trim());
+			instance = new CatalogCache(tamano, ttl);
+		}
+		return instance;
+	}
+
+	/**
+	 * @return el cache de la aplicacion o null si no se ha inicializado, en cuyo caso se va siempre a la base de datos
+	 */
+	public static CatalogCache getInstance() {
+		return instance;
+	}
+
+	public Region<Producto> productos() {
+		return productos;
+	}
+
+	public Region<Menu> menus() {
+		return menus;
+	}
+
+	public Region<String> restaurantes() {
+		return restaurantes;
+	}
+
+	/**
+	 * Invalida todo lo que se sabe de un nombre del catalogo (producto o menu).
+	 * @param nombre - nombre del producto o menu que cambio
+	 */
+	public void invalidar(String nombre) {
+		productos.invalidar(nombre);
+		menus.invalidar(nombre);
+		restaurantes.invalidar(nombre);
+	}
+
+	/**
+	 * Vacia las tres regiones, por ejemplo cuando se borra un restaurante con todos sus productos.
+	 */
+	public void invalidarTodo() {
+		productos.invalidarTodo();
+		menus.invalidarTodo();
+		restaurantes.invalidarTodo();
+	}
+
+	/**
+	 * @return EstadisticasCache de cada region
+	 */
+	public List<EstadisticasCache> darEstadisticas() {
+		List<EstadisticasCache> estadisticas = new ArrayList<EstadisticasCache>();
+		estadisticas.add(productos.darEstadisticas());
+		estadisticas.add(menus.darEstadisticas());
+		estadisticas.add(restaurantes.darEstadisticas());
+		return estadisticas;
+	}
+
+	/**
+	 * Consulta a la base de datos que se hace cuando el valor no esta en el cache.
+	 */
+	public interface Cargador<V> {
+		V cargar() throws Exception;
+	}
+
+	/**
+	 * Copia de un valor mutable del cache, para que ningun llamador comparta el objeto guardado.
+	 */
+	interface Copia<V> {
+		V copiar(V valor);
+	}
+
+	private static final Copia<Producto> COPIA_PRODUCTO = new Copia<Producto>() {
+		@Override
+		public Producto copiar(Producto p) {
+			Producto copia = new Producto(p.getNombre(), p.getDisponible(), p.getDescripcion(), p.getTraduccion(),
+					p.getTiempoPreparacion(), p.getCostoProduccion(), p.getPrecioVenta(), p.getCategoria(), p.getMaximo());
+			copia.setId(p.getId());
+			copia.setTipo(p.getTipo() == null ? null : new ArrayList<String>(p.getTipo()));
+			return copia;
+		}
+	};
+
+	private static final Copia<Menu> COPIA_MENU = new Copia<Menu>() {
+		@Override
+		public Menu copiar(Menu m) {
+			Menu copia = new Menu(m.getNombre(), m.getRestaurante(), m.getCostoProduccion(), m.getPrecioVenta(), 0, 0, m.getTiempoPreparacion());
+			copia.setDisponibles(m.getDisponibles());
+			copia.setMaximo(m.getMaximo());
+			return copia;
+		}
+	};
+
+	/**
+	 * Region del cache: LRU acotado con tiempo de vida por entrada.
+	 * Cada invalidacion aumenta la generacion de la region; un valor cargado antes de una invalidacion
+	 * no se guarda, asi una lectura lenta no vuelve a dejar en el cache un dato que ya cambio.
+	 */
+	public static class Region<V> {
+
+		private final String nombre;
+
+		private final int tamano;
+
+		private final long ttl;
+
+		private final LinkedHashMap<String, Entrada<V>> entradas;
+
+		/**
+		 * Copia de los valores, null si son inmutables
+		 */
+		private final Copia<V> copia;
+
+		private long generacion;
+
+		private final AtomicLong aciertos = new AtomicLong();
+		private final AtomicLong fallos = new AtomicLong();
+		private final AtomicLong desalojos = new AtomicLong();
+		private final AtomicLong expirados = new AtomicLong();
+
+		private Region(String nombre, int tamano, long ttl, Copia<V> copia) {
+			this.nombre = nombre;
+			this.tamano = tamano;
+			this.ttl = ttl;
+			this.copia = copia;
+			this.entradas = new LinkedHashMap<String, Entrada<V>>(16, 0.75f, true);
+		}
+
+		/**
+		 * Da el valor guardado para la llave o lo carga de la base de datos y lo guarda.
+		 * @param llave - nombre buscado
+		 * @param cargador - consulta que se hace si no esta en el cache
+		 * @return el valor, que puede ser null si el nombre no existe; una copia propia del llamador si el valor es mutable
+		 * @throws Exception - el error del cargador
+		 */
+		public V obtener(String llave, Cargador<V> cargador) throws Exception {
+			long generacionLectura;
+			synchronized(this) {
+				Entrada<V> entrada = entradas.get(llave);
+				if(entrada != null) {
+					if(System.currentTimeMillis() < entrada.vence) {
+						aciertos.incrementAndGet();
+						return copiar(entrada.valor);
+					}
+					entradas.remove(llave);
+					expirados.incrementAndGet();
+				}
+				generacionLectura = generacion;
+			}
+			fallos.incrementAndGet();
+			V valor = cargador.cargar();
+			synchronized(this) {
+				if(generacion == generacionLectura) {
+					entradas.put(llave, new Entrada<V>(copiar(valor), System.currentTimeMillis() + ttl));
+					Iterator<Map.Entry<String, Entrada<V>>> iter = entradas.entrySet().iterator();
+					while(entradas.size() > tamano && iter.hasNext()) {
+						iter.next();
+						iter.remove();
+						desalojos.incrementAndGet();
+					}
+				}
+			}
+			return valor;
+		}
+
+		private V copiar(V valor) {
+			return copia == null || valor == null ? valor : copia.copiar(valor);
+		}
+
+		public synchronized void invalidar(String llave) {
+			generacion++;
+			entradas.remove(llave);
+		}
+
+		public synchronized void invalidarTodo() {
+			generacion++;
+			entradas.clear();
+		}
+
+		public synchronized EstadisticasCache darEstadisticas() {
+			return new EstadisticasCache(nombre, entradas.size(), tamano, aciertos.get(), fallos.get(), desalojos.get(), expirados.get());
+		}
+	}
+
+	private static class Entrada<V> {
+
+		private final V valor;
+
+		private final long vence;
+
+		private Entrada(V valor, long vence) {
+			this.valor = valor;
+			this.vence = vence;
+		}
+	}
+}
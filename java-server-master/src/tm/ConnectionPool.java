@@ -0,0 +1,418 @@
+package tm;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dao.CachedConnection;
+import dao.StatementCache;
+import log.Logger;
+import vos.EstadisticasPool;
+
+/**
+ * Pool acotado de conexiones JDBC compartido por toda la aplicacion.
+ * Lo crea y lo cierra startup.ContextListener; RotondAndesTm le pide las conexiones en darConexion().
+ * Las conexiones que entrega son proxies: cerrarlas las devuelve al pool en vez de cerrar la conexion fisica.
+ * Cada conexion fisica tiene su propio StatementCache, que los DAO obtienen a traves de CachedConnection.
+ */
+public class ConnectionPool {
+
+	private static final Logger LOG = Logger.get(ConnectionPool.class);
+
+	/**
+	 * Atributo estatico que contiene el path relativo del archivo que tiene los datos de la conexion
+	 */
+	private static final String CONNECTION_DATA_FILE_NAME_REMOTE = "/conexion.properties";
+
+	/**
+	 * Periodo en milisegundos de la tarea de mantenimiento (desalojo, fugas y tamano minimo)
+	 */
+	private static final long PERIODO_MANTENIMIENTO = 10000;
+
+	/**
+	 * Unica instancia del pool, creada por init(String)
+	 */
+	private static ConnectionPool instance;
+
+	private final String url;
+
+	private final String user;
+
+	private final String password;
+
+	/**
+	 * Numero de conexiones que el pool intenta mantener abiertas
+	 */
+	private final int minimo;
+
+	/**
+	 * Numero maximo de conexiones prestadas al mismo tiempo
+	 */
+	private final int maximo;
+
+	/**
+	 * Tiempo maximo en milisegundos que se espera por una conexion libre
+	 */
+	private final long timeoutPrestamo;
+
+	/**
+	 * Tiempo en milisegundos que una conexion puede estar inactiva antes de ser desalojada
+	 */
+	private final long tiempoInactividad;
+
+	/**
+	 * Tiempo en milisegundos de prestamo a partir del cual se reporta una posible fuga. 0 la desactiva
+	 */
+	private final long umbralFuga;
+
+	/**
+	 * Tiempo en milisegundos de inactividad a partir del cual se valida la conexion antes de prestarla
+	 */
+	private final long intervaloValidacion;
+
+	/**
+	 * Numero maximo de sentencias preparadas libres que se guardan por conexion fisica
+	 */
+	private final int cacheSentencias;
+
+	private final LinkedBlockingDeque<ConexionPool> inactivas = new LinkedBlockingDeque<ConexionPool>();
+
+	private final Set<ConexionPool> prestadas = Collections.newSetFromMap(new ConcurrentHashMap<ConexionPool, Boolean>());
+
+	private final Semaphore permisos;
+
+	private final ScheduledExecutorService mantenimiento;
+
+	private volatile boolean cerrado;
+
+	private final AtomicLong creadas = new AtomicLong();
+	private final AtomicLong destruidas = new AtomicLong();
+	private final AtomicLong prestamos = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong fugas = new AtomicLong();
+	private final AtomicLong validacionesFallidas = new AtomicLong();
+	private final AtomicLong esperaTotalNanos = new AtomicLong();
+
+	/**
+	 * Crea el pool con la configuracion del archivo conexion.properties y abre las conexiones minimas.
+	 * @param prop - propiedades con url, usuario, clave, driver y los parametros pool.*
+	 * @throws Exception - si no se puede cargar el driver
+	 */
+	private ConnectionPool(Properties prop) throws Exception {
+		url = prop.getProperty("url").trim();
+		user = prop.getProperty("usuario").trim();
+		password = prop.getProperty("clave").trim();
+		Class.forName(prop.getProperty("driver").trim());
+		minimo = Integer.parseInt(prop.getProperty("pool.minimo", "2").trim());
+		maximo = Integer.parseInt(prop.getProperty("pool.maximo", "20").trim());
+		timeoutPrestamo = Long.parseLong(prop.getProperty("pool.timeoutPrestamo", "5000").trim());
+		tiempoInactividad = Long.parseLong(prop.getProperty("pool.tiempoInactividad", "300000").trim());
+		umbralFuga = Long.parseLong(prop.getProperty("pool.umbralFuga", "60000").trim());
+		intervaloValidacion = Long.parseLong(prop.getProperty("pool.intervaloValidacion", "30000").trim());
+		cacheSentencias = Integer.parseInt(prop.getProperty("pool.cacheSentencias", "50").trim());
+		permisos = new Semaphore(maximo, true);
+
+		mantenimiento = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "rotondandes-pool");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		mantenimiento.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				mantener();
+			}
+		}, PERIODO_MANTENIMIENTO, PERIODO_MANTENIMIENTO, TimeUnit.MILLISECONDS);
+		mantener();
+	}
+
+	/**
+	 * Crea el pool de la aplicacion a partir de la carpeta WEB-INF/ConnectionData del deploy actual.
+	 * @param path - path absoluto de la carpeta WEB-INF/ConnectionData
+	 * @return el pool creado
+	 * @throws Exception - si no se puede leer la configuracion o cargar el driver
+	 */
+	public static synchronized ConnectionPool init(String path) throws Exception {
+		if(instance == null) {
+			Properties prop = new Properties();
+			FileInputStream in = new FileInputStream(new File(path + CONNECTION_DATA_FILE_NAME_REMOTE));
+			try {
+				prop.load(in);
+			} finally {
+				in.close();
+			}
+			instance = new ConnectionPool(prop);
+		}
+		return instance;
+	}
+
+	/**
+	 * @return el pool de la aplicacion o null si todavia no se ha inicializado
+	 */
+	public static ConnectionPool getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Presta una conexion del pool. Espera a lo sumo pool.timeoutPrestamo milisegundos si todas estan en uso.
+	 * @return Connection - conexion que vuelve al pool al cerrarla
+	 * @throws SQLException - si el pool esta cerrado, se agota el tiempo de espera o no se puede abrir la conexion
+	 */
+	public Connection getConnection() throws SQLException {
+		if(cerrado)
+			throw new SQLException("El pool de conexiones esta cerrado");
+		long inicio = System.nanoTime();
+		try {
+			if(!permisos.tryAcquire(timeoutPrestamo, TimeUnit.MILLISECONDS)) {
+				timeouts.incrementAndGet();
+				throw new SQLException("No hay conexiones disponibles despues de " + timeoutPrestamo + " ms (maximo " + maximo + ")");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrumpido esperando una conexion del pool");
+		}
+		try {
+			ConexionPool c;
+			while((c = inactivas.pollFirst()) != null) {
+				if(esValida(c))
+					break;
+				validacionesFallidas.incrementAndGet();
+				destruir(c);
+			}
+			if(c == null)
+				c = crear();
+			c.prestada = System.currentTimeMillis();
+			c.fugaReportada = false;
+			c.origen = umbralFuga > 0 ? new Throwable("Conexion prestada aqui") : null;
+			prestadas.add(c);
+			prestamos.incrementAndGet();
+			esperaTotalNanos.addAndGet(System.nanoTime() - inicio);
+			return c.prestar();
+		} catch (SQLException e) {
+			permisos.release();
+			throw e;
+		} catch (RuntimeException e) {
+			permisos.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Recibe una conexion devuelta por el proxy. Deshace lo que no se haya confirmado y restablece
+	 * el modo de la conexion antes de dejarla disponible.
+	 * @param c - conexion que se devuelve
+	 */
+	private void devolver(ConexionPool c) {
+		prestadas.remove(c);
+		boolean sana = true;
+		try {
+			if(!c.fisica.getAutoCommit()) {
+				c.fisica.rollback();
+				c.fisica.setAutoCommit(true);
+			}
+			if(c.fisica.isReadOnly())
+				c.fisica.setReadOnly(false);
+		} catch (SQLException e) {
+			LOG.warn("SQLException restableciendo conexion del pool: {}", e.getMessage());
+			sana = false;
+		}
+		c.origen = null;
+		c.liberada = System.currentTimeMillis();
+		if(sana && !cerrado)
+			inactivas.offerFirst(c);
+		else
+			destruir(c);
+		permisos.release();
+	}
+
+	private ConexionPool crear() throws SQLException {
+		Connection fisica = DriverManager.getConnection(url, user, password);
+		creadas.incrementAndGet();
+		return new ConexionPool(fisica, new StatementCache(fisica, cacheSentencias));
+	}
+
+	private void destruir(ConexionPool c) {
+		destruidas.incrementAndGet();
+		c.cache.cerrar();
+		try {
+			c.fisica.close();
+		} catch (SQLException e) {
+			LOG.warn("SQLException cerrando conexion del pool: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Valida la conexion si ha estado inactiva mas de pool.intervaloValidacion milisegundos.
+	 */
+	private boolean esValida(ConexionPool c) {
+		if(System.currentTimeMillis() - c.liberada < intervaloValidacion)
+			return true;
+		try {
+			return c.fisica.isValid(5);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Tarea periodica: desaloja conexiones inactivas por encima del minimo, reporta posibles fugas
+	 * y vuelve a abrir conexiones hasta el minimo.
+	 */
+	private void mantener() {
+		if(cerrado)
+			return;
+		long ahora = System.currentTimeMillis();
+		Iterator<ConexionPool> iter = inactivas.descendingIterator();
+		while(iter.hasNext() && inactivas.size() + prestadas.size() > minimo) {
+			ConexionPool c = iter.next();
+			if(ahora - c.liberada > tiempoInactividad && inactivas.remove(c))
+				destruir(c);
+		}
+		if(umbralFuga > 0) {
+			for(ConexionPool c : prestadas) {
+				Throwable origen = c.origen;
+				if(!c.fugaReportada && origen != null && ahora - c.prestada > umbralFuga) {
+					c.fugaReportada = true;
+					fugas.incrementAndGet();
+					LOG.warn("Posible fuga: conexion prestada hace {} ms sin devolver", ahora - c.prestada, origen);
+				}
+			}
+		}
+		try {
+			while(!cerrado && inactivas.size() + prestadas.size() < minimo) {
+				ConexionPool c = crear();
+				c.liberada = System.currentTimeMillis();
+				inactivas.offerLast(c);
+			}
+		} catch (SQLException e) {
+			LOG.error("SQLException abriendo conexiones minimas del pool: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Cierra el pool: detiene el mantenimiento y cierra las conexiones inactivas.
+	 * Las conexiones prestadas se cierran cuando se devuelven.
+	 */
+	public void close() {
+		cerrado = true;
+		mantenimiento.shutdownNow();
+		List<ConexionPool> pendientes = new ArrayList<ConexionPool>();
+		inactivas.drainTo(pendientes);
+		for(ConexionPool c : pendientes)
+			destruir(c);
+		synchronized(ConnectionPool.class) {
+			if(instance == this)
+				instance = null;
+		}
+	}
+
+	/**
+	 * @return EstadisticasPool - foto del estado y de los contadores del pool
+	 */
+	public EstadisticasPool darEstadisticas() {
+		long n = prestamos.get();
+		double esperaPromedio = n == 0 ? 0 : esperaTotalNanos.get() / (n * 1000000.0);
+		return new EstadisticasPool(prestadas.size(), inactivas.size(), permisos.getQueueLength(), minimo, maximo,
+				creadas.get(), destruidas.get(), n, timeouts.get(), fugas.get(), validacionesFallidas.get(), esperaPromedio);
+	}
+
+	/**
+	 * Conexion fisica administrada por el pool junto con los datos de su ultimo prestamo.
+	 */
+	private class ConexionPool {
+
+		private final Connection fisica;
+
+		private final StatementCache cache;
+
+		private volatile long prestada;
+
+		private volatile long liberada;
+
+		private volatile Throwable origen;
+
+		private volatile boolean fugaReportada;
+
+		private ConexionPool(Connection fisica, StatementCache cache) {
+			this.fisica = fisica;
+			this.cache = cache;
+		}
+
+		/**
+		 * Crea el proxy de un prestamo. Cada prestamo tiene su propio proxy para que una referencia
+		 * vieja no pueda usar la conexion despues de devolverla.
+		 */
+		private Connection prestar() {
+			return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+					new Class<?>[] { Connection.class, CachedConnection.class }, new Prestamo(this));
+		}
+	}
+
+	/**
+	 * Manejador del proxy de un prestamo: close() devuelve la conexion, el resto se delega.
+	 */
+	private class Prestamo implements InvocationHandler {
+
+		private final ConexionPool conexion;
+
+		private boolean devuelta;
+
+		private Prestamo(ConexionPool conexion) {
+			this.conexion = conexion;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String nombre = method.getName();
+			if(nombre.equals("close")) {
+				synchronized(this) {
+					if(devuelta)
+						return null;
+					devuelta = true;
+				}
+				devolver(conexion);
+				return null;
+			}
+			if(nombre.equals("isClosed"))
+				return devuelta || conexion.fisica.isClosed();
+			if(nombre.equals("equals"))
+				return proxy == args[0];
+			if(nombre.equals("hashCode"))
+				return System.identityHashCode(proxy);
+			if(nombre.equals("toString"))
+				return "ConexionPool[" + conexion.fisica + "]";
+			if(devuelta)
+				throw new SQLException("La conexion ya fue devuelta al pool");
+			if(nombre.equals("getStatementCache"))
+				return conexion.cache;
+			try {
+				return method.invoke(conexion.fisica, args);
+			} catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+		}
+	}
+}
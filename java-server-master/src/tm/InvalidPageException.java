@@ -0,0 +1,14 @@
+package tm;
+
+/**
+ * Error de los parametros de paginacion que manda el cliente (limit o after, ver PageToken). Los servicios REST lo
+ * responden con status 400 en lugar de 500.
+ */
+public class InvalidPageException extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	public InvalidPageException(String message) {
+		super(message);
+	}
+}
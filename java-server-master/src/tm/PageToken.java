@@ -0,0 +1,140 @@
+package tm;
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+import javax.xml.bind.DatatypeConverter;
+
+import vos.Pagina;
+
+/**
+ * Tokens de la paginacion por llave de los listados. Cada pagina se pide con limit filas despues de la llave de la
+ * ultima fila de la anterior, asi que la base de datos busca por el indice de la llave en lugar de recorrer y descartar
+ * las paginas anteriores, y en Oracle cada pagina cuesta lo mismo sin importar cuantas hay antes. Los metodos
+ * dar*(despuesDe, filas) de los DAO hacen esa consulta. El token guarda la llave en base64 junto con el listado al que
+ * pertenece; para el cliente es opaco y solo debe devolverlo en after.
+ */
+public class PageToken {
+
+	/**
+	 * Filas por pagina cuando se pide after sin limit
+	 */
+	public static final int LIMITE_DEFECTO = 100;
+
+	/**
+	 * Maximo de filas por pagina; un limit mayor se reduce a este
+	 */
+	public static final int LIMITE_MAXIMO = 1000;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Llave de paginacion de una fila
+	 * @param <T> - tipo de la fila
+	 */
+	public interface Llave<T> {
+
+		/**
+		 * @param fila - ultima fila de una pagina
+		 * @return la llave por la que se ordena el listado
+		 */
+		String de(T fila);
+	}
+
+	private PageToken() {
+	}
+
+	/**
+	 * @param limit - valor de limit tal como llega en la URL, null si no se mando
+	 * @return el numero pedido, o null si no se mando
+	 * @throws InvalidPageException - si limit no es un numero entero
+	 */
+	public static Integer leerLimite(String limit) throws InvalidPageException {
+		if(limit == null)
+			return null;
+		try {
+			return Integer.valueOf(limit.trim());
+		} catch (NumberFormatException e) {
+			throw new InvalidPageException("limit debe ser un numero entero mayor que 0");
+		}
+	}
+
+	/**
+	 * @param limit - filas pedidas, null para LIMITE_DEFECTO
+	 * @return las filas de la pagina, como maximo LIMITE_MAXIMO
+	 * @throws InvalidPageException - si limit no es positivo
+	 */
+	public static int limite(Integer limit) throws InvalidPageException {
+		if(limit == null)
+			return LIMITE_DEFECTO;
+		if(limit < 1)
+			throw new InvalidPageException("limit debe ser un numero entero mayor que 0");
+		return Math.min(limit, LIMITE_MAXIMO);
+	}
+
+	/**
+	 * @param listado - nombre del listado, por ejemplo pedidos
+	 * @param llave - llave de la ultima fila de la pagina
+	 * @return el token de la pagina siguiente
+	 */
+	public static String crear(String listado, String llave) {
+		String token = DatatypeConverter.printBase64Binary((listado + ":" + llave).getBytes(UTF8));
+		return token.replace('+', '-').replace('/', '_').replace("=", "");
+	}
+
+	/**
+	 * @param listado - nombre del listado al que debe pertenecer el token
+	 * @param token - valor de after, null para la primera pagina
+	 * @return la llave despues de la que empieza la pagina, null para la primera
+	 * @throws InvalidPageException - si el token no es de este listado
+	 */
+	public static String leer(String listado, String token) throws InvalidPageException {
+		if(token == null || token.isEmpty())
+			return null;
+		String texto;
+		try {
+			String base64 = token.replace('-', '+').replace('_', '/');
+			while(base64.length() % 4 != 0)
+				base64 += "=";
+			texto = new String(DatatypeConverter.parseBase64Binary(base64), UTF8);
+		} catch (IllegalArgumentException e) {
+			texto = "";
+		}
+		if(!texto.startsWith(listado + ":"))
+			throw new InvalidPageException("after no es un token valido de " + listado);
+		return texto.substring(listado.length() + 1);
+	}
+
+	/**
+	 * @param listado - nombre del listado al que debe pertenecer el token
+	 * @param token - valor de after, null para la primera pagina
+	 * @return el id despues del que empieza la pagina, null para la primera
+	 * @throws InvalidPageException - si el token no es de este listado
+	 */
+	public static Integer leerEntero(String listado, String token) throws InvalidPageException {
+		String llave = leer(listado, token);
+		if(llave == null)
+			return null;
+		try {
+			return Integer.valueOf(llave);
+		} catch (NumberFormatException e) {
+			throw new InvalidPageException("after no es un token valido de " + listado);
+		}
+	}
+
+	/**
+	 * Arma la pagina a partir de una consulta que pidio una fila mas que el limite: si esa fila llego hay pagina
+	 * siguiente y se descarta.
+	 * @param listado - nombre del listado
+	 * @param filas - hasta limite + 1 filas ordenadas por la llave
+	 * @param limite - filas de la pagina
+	 * @param llave - llave de cada fila
+	 * @return la pagina, con token si hay mas filas
+	 */
+	public static <T> Pagina<T> pagina(String listado, List<T> filas, int limite, Llave<T> llave) {
+		if(filas.size() <= limite)
+			return new Pagina<T>(filas, null);
+		List<T> elementos = filas.subList(0, limite);
+		return new Pagina<T>(elementos, crear(listado, llave.de(elementos.get(limite - 1))));
+	}
+}
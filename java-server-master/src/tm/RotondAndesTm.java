@@ -1,57 +1,54 @@
 package tm;
 
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import dao.*;
 import dtm.RotondAndesDistributed;
 import jms.NonReplyException;
+import log.Logger;
+import tm.TransactionExecutor.Modo;
+import tm.TransactionExecutor.Transaccion;
 import vos.*;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
 
+/**
+ * Transacciones de RotondAndes. Hay una sola instancia por aplicacion, la crea startup.ContextListener y la comparten
+ * todos los hilos: no guarda estado de ninguna transaccion. Cada metodo se ejecuta en el TransactionExecutor, que le
+ * da su propia conexion, la confirma o la deshace y la cierra al terminar.
+ */
 public class RotondAndesTm {
 
-	/**
-	 * Atributo estatico que contiene el path relativo del archivo que tiene los datos de la conexion
-	 */
-	private static final String CONNECTION_DATA_FILE_NAME_REMOTE = "/conexion.properties";
-
-	/**
-	 * Atributo estatico que contiene el path absoluto del archivo que tiene los datos de la conexion
-	 */
-	private  String connectionDataPath;
-
-	/**
-	 * Atributo que guarda el usuario que se va a usar para conectarse a la base de datos.
-	 */
-	private String user;
+	private static final Logger LOG = Logger.get(RotondAndesTm.class);
 
 	/**
-	 * Atributo que guarda la clave que se va a usar para conectarse a la base de datos.
+	 * Instancia de la aplicacion
 	 */
-	private String password;
+	private static volatile RotondAndesTm instance;
 
 	/**
-	 * Atributo que guarda el URL que se va a usar para conectarse a la base de datos.
+	 * Atributo estatico que contiene el path relativo del archivo que tiene los datos de la conexion
 	 */
-	private String url;
+	private static final String CONNECTION_DATA_FILE_NAME_REMOTE = "/conexion.properties";
 
 	/**
-	 * Atributo que guarda el driver que se va a usar para conectarse a la base de datos.
+	 * Atributo estatico que contiene el path absoluto del archivo que tiene los datos de la conexion
 	 */
-	private String driver;
+	private  String connectionDataPath;
 
 	/**
-	 * conexion a la base de datos
+	 * Ejecutor de las transacciones, con los datos de conexion a la base de datos.
 	 */
-	private Connection conn;
+	private TransactionExecutor ejecutor;
 
 	private RotondAndesDistributed dtm;
 	
@@ -62,12 +59,40 @@ public class RotondAndesTm {
 	 * inicializa los atributos que se usan par la conexion a la base de datos.
 	 * @param contextPathP - path absoluto en el servidor del contexto del deploy actual
 	 */
-	public RotondAndesTm( String pathp) {
+	private RotondAndesTm( String pathp) {
 		connectionDataPath = pathp + CONNECTION_DATA_FILE_NAME_REMOTE;
 		initConnectionData();
 		dtm=RotondAndesDistributed.getInstance(this);
 	}
 
+	/**
+	 * Crea el transaction manager de la aplicacion a partir de la carpeta WEB-INF/ConnectionData del deploy actual.
+	 * @param path - path absoluto de la carpeta WEB-INF/ConnectionData
+	 * @return el transaction manager de la aplicacion
+	 */
+	public static synchronized RotondAndesTm init(String path) {
+		if(instance == null)
+			instance = new RotondAndesTm(path);
+		return instance;
+	}
+
+	/**
+	 * @return el transaction manager de la aplicacion o null si todavia no se ha inicializado
+	 */
+	public static RotondAndesTm getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Retorna el transaction manager de la aplicacion y lo crea si startup.ContextListener todavia no lo hizo.
+	 * @param path - path absoluto de la carpeta WEB-INF/ConnectionData
+	 * @return el transaction manager de la aplicacion
+	 */
+	public static RotondAndesTm getInstance(String path) {
+		RotondAndesTm tm = instance;
+		return tm != null ? tm : init(path);
+	}
+
 	/**
 	 * Metodo que  inicializa los atributos que se usan para la conexion a la base de datos.
 	 * <b>post: </b> Se han inicializado los atributos que se usan par la conexion a la base de datos.
@@ -79,24 +104,17 @@ public class RotondAndesTm {
 			FileInputStream in = new FileInputStream(arch);
 			prop.load(in);
 			in.close();
-			this.url = prop.getProperty("url");
-			this.user = prop.getProperty("usuario");
-			this.password = prop.getProperty("clave");
-			this.driver = prop.getProperty("driver");
-			Class.forName(driver);
+			this.ejecutor = new TransactionExecutor(prop);
 		} catch (Exception e) {
-			e.printStackTrace();
+			LOG.error("No se pudo leer la configuracion de conexion", e);
 		}
 	}
 
 	/**
-	 * Metodo que  retorna la conexion a la base de datos
-	 * @return Connection - la conexion a la base de datos
-	 * @throws SQLException - Cualquier error que se genere durante la conexion a la base de datos
+	 * @return EstadisticasTransaccion de cada transaccion ejecutada, de mayor a menor tiempo total
 	 */
-	private Connection darConexion() throws SQLException {
-		System.out.println("Connecting to: " + url + " With user: " + user);
-		return DriverManager.getConnection(url, user, password);
+	public List<EstadisticasTransaccion> darEstadisticasTransacciones() {
+		return ejecutor.darEstadisticas();
 	}
 
 	////////////////////////////////////////
@@ -111,36 +129,14 @@ public class RotondAndesTm {
 	 * @return ListaVideos - objeto que modela  un arreglo de videos. este arreglo contiene el resultado de la busqueda
 	 * @throws Exception -  cualquier error que se genere durante la transaccion
 	 */
-	public List<Usuario> buscarUsuariosporName( String name ) throws Exception {
-		List<Usuario> usuarios;
-		DAOTablaUsuarios daoUsuarios = new DAOTablaUsuarios();
-		try 
-		{
-			//////transaccion
-			this.conn = darConexion();
-			daoUsuarios.setConn(conn);
-			usuarios = daoUsuarios.buscarUsuarioPorName(name);
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoUsuarios.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	public List<Usuario> buscarUsuariosporName(final String name) throws Exception {
+		return ejecutor.ejecutar("buscarUsuariosporName", Modo.LECTURA, new Transaccion<List<Usuario>>() {
+			@Override
+			protected List<Usuario> ejecutar() throws Exception {
+				DAOTablaUsuarios daoUsuarios = usar(new DAOTablaUsuarios());
+				return daoUsuarios.buscarUsuarioPorName(name);
 			}
-		}
-		return usuarios;
+		});
 	}
 
 
@@ -150,36 +146,14 @@ public class RotondAndesTm {
 	 * @return Video - Resultado de la busqueda
 	 * @throws Exception -  cualquier error que se genere durante la transaccion
 	 */
-	public Usuario buscarUsuarioPorId(Integer id) throws Exception {
-		Usuario video;
-		DAOTablaUsuarios daoUsuario = new DAOTablaUsuarios();
-		try 
-		{
-			//////transaccion
-			this.conn = darConexion();
-			daoUsuario.setConn(conn);
-			video = daoUsuario.buscarUsuarioPorId(id);
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoUsuario.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	public Usuario buscarUsuarioPorId(final Integer id) throws Exception {
+		return ejecutor.ejecutar("buscarUsuarioPorId", Modo.LECTURA, new Transaccion<Usuario>() {
+			@Override
+			protected Usuario ejecutar() throws Exception {
+				DAOTablaUsuarios daoUsuario = usar(new DAOTablaUsuarios());
+				return daoUsuario.buscarUsuarioPorId(id);
 			}
-		}
-		return video;
+		});
 	}
 
 	/**
@@ -188,1703 +162,1220 @@ public class RotondAndesTm {
 	 * @param video - el video a agregar. video != null
 	 * @throws Exception - cualquier error que se genere agregando el video
 	 */
-	public void addUsuario(Usuario usuario) throws Exception {
-		DAOTablaUsuarios daoUsuario = new DAOTablaUsuarios();
-		try 
-		{
-			//////transaccion
-			this.conn = darConexion();
-			daoUsuario.setConn(conn);
-			daoUsuario.addUsuario(usuario);
-			conn.commit();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoUsuario.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	public void addUsuario(final Usuario usuario) throws Exception {
+		ejecutor.ejecutar("addUsuario", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaUsuarios daoUsuario = usar(new DAOTablaUsuarios());
+				daoUsuario.addUsuario(usuario);
+				return null;
 			}
-		}
+		});
 	}
 
 	public List<Restaurante> darRestaurantes() throws Exception {
-		List<Restaurante> restaurantes;
-		DAOTablaRestaurantes daoRestaurantes = new DAOTablaRestaurantes();
-		try 
-		{
-			this.conn = darConexion();
-			daoRestaurantes.setConn(conn);
-			restaurantes = daoRestaurantes.darRestaurantes();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoRestaurantes.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		return ejecutor.ejecutar("darRestaurantes", Modo.LECTURA, new Transaccion<List<Restaurante>>() {
+			@Override
+			protected List<Restaurante> ejecutar() throws Exception {
+				DAOTablaRestaurantes daoRestaurantes = usar(new DAOTablaRestaurantes());
+				return daoRestaurantes.darRestaurantes();
 			}
-		}
-		return restaurantes;
-	}
-
-	public Restaurante buscarRestaurantesPorName(String name) throws Exception{
-		Restaurante restaurante;
-		DAOTablaRestaurantes daoRestaurantes = new DAOTablaRestaurantes();
-		try 
-		{
-			this.conn = darConexion();
-			daoRestaurantes.setConn(conn);
-			restaurante = daoRestaurantes.buscarRestaurantesPorNombre(name);
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoRestaurantes.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		});
+	}
+
+	/**
+	 * Pasa los restaurantes al receptor a medida que se leen, sin cargarlos todos en memoria. La conexion de la transaccion
+	 * queda prestada hasta que el receptor recibe la ultima fila.
+	 * @param receptor - destino de cada fila, por ejemplo la respuesta REST
+	 * @throws Exception - el error de la base de datos o del receptor
+	 */
+	public void recorrerRestaurantes(final RowCursor.Receptor<Restaurante> receptor) throws Exception {
+		ejecutor.ejecutar("recorrerRestaurantes", Modo.LECTURA, new Transaccion<Integer>() {
+			@Override
+			protected Integer ejecutar() throws Exception {
+				DAOTablaRestaurantes daoRestaurantes = usar(new DAOTablaRestaurantes());
+				return daoRestaurantes.recorrerRestaurantes().recorrer(receptor);
 			}
-		}
-		return restaurante;
-	}
-
-	public void addRestaurante(Restaurante restaurante) throws Exception {
-		DAOTablaRestaurantes daoRestaurante = new DAOTablaRestaurantes();
-		try 
-		{
-			this.conn = darConexion();
-			daoRestaurante.setConn(conn);
-			daoRestaurante.addRestaurante(restaurante);
-			conn.commit();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoRestaurante.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		});
+	}
+
+	/**
+	 * Da una pagina de los restaurantes ordenados por nombre, con paginacion por llave (ver PageToken).
+	 * @param despues - token after que se recibio con la pagina anterior, null para la primera
+	 * @param limit - filas de la pagina, null para PageToken.LIMITE_DEFECTO
+	 * @return la pagina, con el token de la siguiente si hay mas filas
+	 * @throws Exception - si el token o el limite no son validos, o cualquier error de la base de datos
+	 */
+	public Pagina<Restaurante> darRestaurantes(String despues, Integer limit) throws Exception {
+		final String llave = PageToken.leer("restaurantes", despues);
+		final int limite = PageToken.limite(limit);
+		return ejecutor.ejecutar("darRestaurantesPagina", Modo.LECTURA, new Transaccion<Pagina<Restaurante>>() {
+			@Override
+			protected Pagina<Restaurante> ejecutar() throws Exception {
+				DAOTablaRestaurantes daoRestaurantes = usar(new DAOTablaRestaurantes());
+				List<Restaurante> filas = daoRestaurantes.darRestaurantes(llave, limite + 1);
+				return PageToken.pagina("restaurantes", filas, limite, new PageToken.Llave<Restaurante>() {
+					@Override
+					public String de(Restaurante fila) {
+						return fila.getNombre();
+					}
+				});
 			}
-		}
+		});
 	}
 
-	public void updateRestaurante(String producto) throws Exception {
-		DAOTablaRestaurantes daoRestaurantes = new DAOTablaRestaurantes();
-		try 
-		{
-			this.conn = darConexion();
-			daoRestaurantes.setConn(conn);
-			daoRestaurantes.updateRestaurante(producto);
+	public Restaurante buscarRestaurantesPorName(final String name) throws Exception {
+		return ejecutor.ejecutar("buscarRestaurantesPorName", Modo.LECTURA, new Transaccion<Restaurante>() {
+			@Override
+			protected Restaurante ejecutar() throws Exception {
+				DAOTablaRestaurantes daoRestaurantes = usar(new DAOTablaRestaurantes());
+				return daoRestaurantes.buscarRestaurantesPorNombre(name);
+			}
+		});
+	}
 
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoRestaurantes.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	public void addRestaurante(final Restaurante restaurante) throws Exception {
+		ejecutor.ejecutar("addRestaurante", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaRestaurantes daoRestaurante = usar(new DAOTablaRestaurantes());
+				daoRestaurante.addRestaurante(restaurante);
+				return null;
 			}
-		}
+		});
 	}
 
-	public void deleteRestaurante(String restaurante) throws Exception {
-		DAOTablaRestaurantes daoRestaurantes = new DAOTablaRestaurantes();
-		try 
-		{
-			this.conn = darConexion();
-			daoRestaurantes.setConn(conn);
-			daoRestaurantes.deleteRestaurante(restaurante);
+	public void updateRestaurante(final String producto) throws Exception {
+		StockReservations stock = StockReservations.getInstance();
+		if(stock!=null)
+			stock.descargar();
+		ejecutor.ejecutar("updateRestaurante", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaRestaurantes daoRestaurantes = usar(new DAOTablaRestaurantes());
+				daoRestaurantes.updateRestaurante(producto);
+				return null;
+			}
+		});
+		invalidarCatalogo(producto);
+		invalidarExistencias(producto);
+	}
 
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoRestaurantes.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	public void deleteRestaurante(final String restaurante) throws Exception {
+		ejecutor.ejecutar("deleteRestaurante", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaRestaurantes daoRestaurantes = usar(new DAOTablaRestaurantes());
+				daoRestaurantes.deleteRestaurante(restaurante);
+				return null;
 			}
-		}
+		});
+		invalidarCatalogo(null);
+		invalidarExistencias(null);
 	}
 
 	public List<Menu> darMenus() throws Exception {
-		List<Menu> menus;
-		DAOTablaMenus daoMenus = new DAOTablaMenus();
-		try 
-		{
-			this.conn = darConexion();
-			daoMenus.setConn(conn);
-			menus = daoMenus.darMenus();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoMenus.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		return ejecutor.ejecutar("darMenus", Modo.LECTURA, new Transaccion<List<Menu>>() {
+			@Override
+			protected List<Menu> ejecutar() throws Exception {
+				DAOTablaMenus daoMenus = usar(new DAOTablaMenus());
+				return daoMenus.darMenus();
 			}
-		}
-		return menus;
-	}
-
-	public Menu buscarMenusPorName(String name) throws Exception{
-		Menu menus;
-		DAOTablaMenus daoMenus = new DAOTablaMenus();
-		try 
-		{
-			this.conn = darConexion();
-			daoMenus.setConn(conn);
-			menus = daoMenus.buscarMenusPorName(name);
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoMenus.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		});
+	}
+
+	/**
+	 * Da una pagina de los menus ordenados por nombre, con paginacion por llave (ver PageToken).
+	 * @param despues - token after que se recibio con la pagina anterior, null para la primera
+	 * @param limit - filas de la pagina, null para PageToken.LIMITE_DEFECTO
+	 * @return la pagina, con el token de la siguiente si hay mas filas
+	 * @throws Exception - si el token o el limite no son validos, o cualquier error de la base de datos
+	 */
+	public Pagina<Menu> darMenus(String despues, Integer limit) throws Exception {
+		final String llave = PageToken.leer("menus", despues);
+		final int limite = PageToken.limite(limit);
+		return ejecutor.ejecutar("darMenusPagina", Modo.LECTURA, new Transaccion<Pagina<Menu>>() {
+			@Override
+			protected Pagina<Menu> ejecutar() throws Exception {
+				DAOTablaMenus daoMenus = usar(new DAOTablaMenus());
+				List<Menu> filas = daoMenus.darMenus(llave, limite + 1);
+				return PageToken.pagina("menus", filas, limite, new PageToken.Llave<Menu>() {
+					@Override
+					public String de(Menu fila) {
+						return fila.getNombre();
+					}
+				});
 			}
-		}
-		return menus;
-	}
-
-	public void addMenu(Menu menu) throws Exception{
-		DAOTablaMenus daoMenu = new DAOTablaMenus();
-		try 
-		{
-			this.conn = darConexion();
-			daoMenu.setConn(conn);
-			daoMenu.addMenu(menu);;
-			conn.commit();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoMenu.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
-			}
-		}	
-	}
-
-	public void updateMenu(Menu menu) throws Exception{
-		DAOTablaMenus daoMenu = new DAOTablaMenus();
-		try 
-		{
-			this.conn = darConexion();
-			daoMenu.setConn(conn);
-			daoMenu.updateMenu(menu);;
-			conn.commit();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoMenu.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		});
+	}
+
+	/**
+	 * Metodo que busca un menu por nombre, primero en el cache del catalogo.
+	 * @param name - nombre del menu
+	 * @return el menu o null si no existe
+	 * @throws Exception - cualquier error al consultar la base de datos
+	 */
+	public Menu buscarMenusPorName(final String name) throws Exception{
+		return ejecutor.ejecutar("buscarMenusPorName", Modo.SIN_CONEXION, new Transaccion<Menu>() {
+			@Override
+			protected Menu ejecutar() throws Exception {
+				CatalogCache cache = CatalogCache.getInstance();
+				if(cache == null)
+					return cargarMenusPorName(name);
+				return cache.menus().obtener(name, new CatalogCache.Cargador<Menu>() {
+					@Override
+					public Menu cargar() throws Exception {
+						return cargarMenusPorName(name);
+					}
+				});
 			}
-		}	
+		});
 	}
-	
-	public String buscarRestauranteProducto(String procucto) throws Exception{
-		DAOTablaProductos daoprodu = new DAOTablaProductos();
-		try 
-		{
-			this.conn = darConexion();
-			daoprodu.setConn(conn);
-			String a = daoprodu.darNombreRestaurante(procucto);
-			conn.commit();
-			return a;
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoprodu.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
-			}
-		}	
-	}
-
-	public void deleteMenu(Menu menu) throws Exception {
-		DAOTablaMenus daoMenu = new DAOTablaMenus();
-		try 
-		{
-			this.conn = darConexion();
-			daoMenu.setConn(conn);
-			daoMenu.deleteMenu(menu);;
-			conn.commit();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoMenu.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
-			}
-		}	
-	}
-
-	public List<Pedido> darPedidos() throws Exception{
-		List<Pedido> pedidos;
-		DAOTablaPedidos daoPedidos = new DAOTablaPedidos();
-		try 
-		{
-			this.conn = darConexion();
-			daoPedidos.setConn(conn);
-			pedidos = daoPedidos.darPedidos();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoPedidos.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+
+	private Menu cargarMenusPorName(final String name) throws Exception {
+		return ejecutor.ejecutar("cargarMenusPorName", Modo.LECTURA, new Transaccion<Menu>() {
+			@Override
+			protected Menu ejecutar() throws Exception {
+				DAOTablaMenus daoMenus = usar(new DAOTablaMenus());
+				return daoMenus.buscarMenusPorName(name);
 			}
-		}
-		return pedidos;
-	}
-
-	public Pedido buscarPedidoPorId(int id) throws Exception{
-		Pedido pedido;
-		DAOTablaPedidos daoPedidos = new DAOTablaPedidos();
-		try 
-		{
-			this.conn = darConexion();
-			daoPedidos.setConn(conn);
-			pedido = daoPedidos.buscarPedidoPorId(id);
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoPedidos.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		});
+	}
+
+	public void addMenu(final Menu menu) throws Exception {
+		ejecutor.ejecutar("addMenu", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaMenus daoMenu = usar(new DAOTablaMenus());
+				daoMenu.addMenu(menu);
+				return null;
 			}
-		}
-		return pedido;
-	}
-
-	public void addPedido(Pedido pedido) throws Exception{
-		DAOTablaPedidos daoPedido = new DAOTablaPedidos();
-		try 
-		{
-			this.conn = darConexion();
-			daoPedido.setConn(conn);
-			daoPedido.addPedido(pedido);
-			conn.commit();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoPedido.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
-			}
-		}	
-	}
-
-	public Pedido updatePedido(int id) throws Exception {
-		DAOTablaPedidos daoPedido = new DAOTablaPedidos();
-		try 
-		{
-			this.conn = darConexion();
-			daoPedido.setConn(conn);
-			 Pedido pedido = daoPedido.updatePedido(id);
-			conn.commit();
-			return pedido;
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoPedido.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
-			}
-		}	
-	}
-
-	public void deletePedido(Pedido pedido) throws Exception {
-		DAOTablaPedidos daoPedido = new DAOTablaPedidos();
-		try 
-		{
-			this.conn = darConexion();
-			daoPedido.setConn(conn);
-			daoPedido.deletePedido(pedido);
-			conn.commit();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoPedido.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
-			}
-		}	
-	}
-
-	public List<Zona> darZonas() throws Exception{
-		List<Zona> zonas;
-		DAOTablaZonas daoZonas = new DAOTablaZonas();
-		try 
-		{
-			this.conn = darConexion();
-			daoZonas.setConn(conn);
-			zonas = daoZonas.darZonas();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
+		});
+		invalidarCatalogo(menu.getNombre());
+	}
+
+	public void updateMenu(final Menu menu) throws Exception {
+		final List<StockReservations.Reserva> reservas = new ArrayList<StockReservations.Reserva>();
+		try {
+			ejecutor.ejecutar("updateMenu", Modo.ESCRITURA, new Transaccion<Void>() {
+				@Override
+				protected Void ejecutar() throws Exception {
+					if(StockReservations.getInstance()!=null){
+						descontarExistencias(getConn(), usar(new DAOTablaProductos()), usar(new DAOTablaReservas()), reservas, menu.getNombre(), 1);
+					}else{
+						usar(new DAOTablaMenus()).updateMenu(menu);
+					}
+					return null;
+				}
+			});
+			terminarReservas(reservas, true);
 		} finally {
-			try {
-				daoZonas.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
-			}
+			terminarReservas(reservas, false);
 		}
-		return zonas;
-	}
-
-	public List<Zona> buscarZonasPorName(String name) throws Exception{
-		List<Zona> zonas;
-		DAOTablaZonas daoZonas = new DAOTablaZonas();
-		try 
-		{
-			this.conn = darConexion();
-			daoZonas.setConn(conn);
-			zonas = daoZonas.buscarZonasPorName(name);
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoZonas.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		invalidarCatalogo(menu.getNombre());
+	}
+	
+	/**
+	 * Metodo que busca el restaurante que vende un producto, primero en el cache del catalogo.
+	 * @param procucto - nombre del producto
+	 * @return el nombre del restaurante o null si el producto no existe
+	 * @throws Exception - cualquier error al consultar la base de datos
+	 */
+	public String buscarRestauranteProducto(final String procucto) throws Exception{
+		return ejecutor.ejecutar("buscarRestauranteProducto", Modo.SIN_CONEXION, new Transaccion<String>() {
+			@Override
+			protected String ejecutar() throws Exception {
+				CatalogCache cache = CatalogCache.getInstance();
+				if(cache == null)
+					return cargarRestauranteProducto(procucto);
+				return cache.restaurantes().obtener(procucto, new CatalogCache.Cargador<String>() {
+					@Override
+					public String cargar() throws Exception {
+						return cargarRestauranteProducto(procucto);
+					}
+				});
 			}
-		}
-		return zonas;
-	}
-
-	public void addZona(Zona zona) throws Exception {
-		DAOTablaZonas daoZona = new DAOTablaZonas();
-		try 
-		{
-			this.conn = darConexion();
-			daoZona.setConn(conn);
-			daoZona.addZona(zona);;
-			conn.commit();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoZona.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		});
+	}
+
+	private String cargarRestauranteProducto(final String procucto) throws Exception {
+		return ejecutor.ejecutar("cargarRestauranteProducto", Modo.LECTURA, new Transaccion<String>() {
+			@Override
+			protected String ejecutar() throws Exception {
+				DAOTablaProductos daoprodu = usar(new DAOTablaProductos());
+				return daoprodu.darNombreRestaurante(procucto);
 			}
-		}
+		});
 	}
 
-	public void deleteZona(Zona zona) throws Exception{
-		DAOTablaZonas daoZona = new DAOTablaZonas();
-		try 
-		{
-			this.conn = darConexion();
-			daoZona.setConn(conn);
-			daoZona.deleteZona(zona);;
-			conn.commit();
+	public void deleteMenu(final Menu menu) throws Exception {
+		ejecutor.ejecutar("deleteMenu", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaMenus daoMenu = usar(new DAOTablaMenus());
+				daoMenu.deleteMenu(menu);
+				return null;
+			}
+		});
+		invalidarCatalogo(menu.getNombre());
+		invalidarExistencias(menu.getNombre());
+	}
 
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoZona.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	public List<Pedido> darPedidos() throws Exception {
+		return ejecutor.ejecutar("darPedidos", Modo.LECTURA, new Transaccion<List<Pedido>>() {
+			@Override
+			protected List<Pedido> ejecutar() throws Exception {
+				DAOTablaPedidos daoPedidos = usar(new DAOTablaPedidos());
+				return daoPedidos.darPedidos();
 			}
-		}
+		});
 	}
 
-	public Producto buscarProductoPorName(String nombre) throws Exception {
-		Producto producto;
-		DAOTablaProductos daoProducto = new DAOTablaProductos();
-		try 
-		{
-			this.conn = darConexion();
-			daoProducto.setConn(conn);
-			producto = daoProducto.buscarProductosPorNombre(nombre);
+	/**
+	 * Pasa los pedidos al receptor a medida que se leen, sin cargarlos todos en memoria. La conexion de la transaccion
+	 * queda prestada hasta que el receptor recibe la ultima fila.
+	 * @param receptor - destino de cada fila, por ejemplo la respuesta REST
+	 * @throws Exception - el error de la base de datos o del receptor
+	 */
+	public void recorrerPedidos(final RowCursor.Receptor<Pedido> receptor) throws Exception {
+		ejecutor.ejecutar("recorrerPedidos", Modo.LECTURA, new Transaccion<Integer>() {
+			@Override
+			protected Integer ejecutar() throws Exception {
+				DAOTablaPedidos daoPedidos = usar(new DAOTablaPedidos());
+				return daoPedidos.recorrerPedidos().recorrer(receptor);
+			}
+		});
+	}
 
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoProducto.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	/**
+	 * Da una pagina de los pedidos ordenados por id, con paginacion por llave (ver PageToken).
+	 * @param despues - token after que se recibio con la pagina anterior, null para la primera
+	 * @param limit - filas de la pagina, null para PageToken.LIMITE_DEFECTO
+	 * @return la pagina, con el token de la siguiente si hay mas filas
+	 * @throws Exception - si el token o el limite no son validos, o cualquier error de la base de datos
+	 */
+	public Pagina<Pedido> darPedidos(String despues, Integer limit) throws Exception {
+		final Integer llave = PageToken.leerEntero("pedidos", despues);
+		final int limite = PageToken.limite(limit);
+		return ejecutor.ejecutar("darPedidosPagina", Modo.LECTURA, new Transaccion<Pagina<Pedido>>() {
+			@Override
+			protected Pagina<Pedido> ejecutar() throws Exception {
+				DAOTablaPedidos daoPedidos = usar(new DAOTablaPedidos());
+				List<Pedido> filas = daoPedidos.darPedidos(llave, limite + 1);
+				return PageToken.pagina("pedidos", filas, limite, new PageToken.Llave<Pedido>() {
+					@Override
+					public String de(Pedido fila) {
+						return String.valueOf(fila.getId());
+					}
+				});
 			}
-		}
-		return producto;
-	}
-
-	public void addProducto(Producto producto, Restaurante restaurante) throws Exception {
-		DAOTablaProductos daoProducto = new DAOTablaProductos();
-		try 
-		{
-			this.conn = darConexion();
-			daoProducto.setConn(conn);
-			daoProducto.addProducto(producto, restaurante);;
-			conn.commit();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoProducto.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		});
+	}
+
+	public Pedido buscarPedidoPorId(final int id) throws Exception {
+		return ejecutor.ejecutar("buscarPedidoPorId", Modo.LECTURA, new Transaccion<Pedido>() {
+			@Override
+			protected Pedido ejecutar() throws Exception {
+				DAOTablaPedidos daoPedidos = usar(new DAOTablaPedidos());
+				return daoPedidos.buscarPedidoPorId(id);
 			}
-		}
+		});
+	}
 
+	public void addPedido(final Pedido pedido) throws Exception {
+		ejecutor.ejecutar("addPedido", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaPedidos daoPedido = usar(new DAOTablaPedidos());
+				daoPedido.addPedido(pedido);
+				return null;
+			}
+		});
 	}
 
-	public List<Ingrediente> darIngredientes() throws Exception {
-		List<Ingrediente> ingredientes;
-		DAOTablaIngredientes daoIngredientes = new DAOTablaIngredientes();
-		try 
-		{
-			this.conn = darConexion();
-			daoIngredientes.setConn(conn);
-			ingredientes = daoIngredientes.darIngredientes();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
+	/**
+	 * Metodo que modela la transaccion que registra un pedido completo: valida el usuario, resuelve el producto o menu
+	 * y su restaurante, descuenta una unidad de las existencias y agrega el pedido, todo sobre una sola conexion y con
+	 * un solo commit. Si algo falla se hace rollback, asi no queda stock descontado sin su fila en PEDIDO.
+	 * <b> post: </b> el pedido queda con producto o menu, costo, restaurante, fecha e id asignados
+	 * @param pedido - el pedido a registrar con el id del usuario y el nombre del producto o menu. pedido != null
+	 * @throws Exception - cualquier error que se genere durante la transaccion, con el mensaje para el cliente
+	 */
+	public void registrarPedido(final Pedido pedido) throws Exception {
+		final List<StockReservations.Reserva> reservas = new ArrayList<StockReservations.Reserva>();
+		try {
+			ejecutor.ejecutar("registrarPedido", Modo.ESCRITURA, new Transaccion<Void>() {
+				@Override
+				protected Void ejecutar() throws Exception {
+					DAOTablaUsuarios daoUsuario = usar(new DAOTablaUsuarios());
+					DAOTablaProductos daoProducto = usar(new DAOTablaProductos());
+					DAOTablaMenus daoMenu = usar(new DAOTablaMenus());
+					DAOTablaPedidos daoPedido = usar(new DAOTablaPedidos());
+					DAOTablaReservas daoReservas = usar(new DAOTablaReservas());
+
+					if(daoUsuario.buscarUsuarioPorId(pedido.getIdUsuario())==null)
+						throw new Exception("No existe un usuario con el id: "+pedido.getIdUsuario());
+					String nombre = pedido.getNombreProducto();
+					Producto producto = buscarProductoEnCatalogo(daoProducto, nombre);
+					Menu menu = producto==null ? buscarMenuEnCatalogo(daoMenu, nombre) : null;
+					if(producto==null && menu==null)
+						throw new Exception("No existe un producto o menu con el nombre de : "+nombre);
+
+					descontarExistencias(getConn(), daoProducto, daoReservas, reservas, nombre, 1);
+
+					if(producto!=null){
+						pedido.setProducto(producto);
+						pedido.setCostoTotal(producto.getPrecioVenta());
+						pedido.setRestaurante(buscarRestauranteEnCatalogo(daoProducto, nombre));
+					}else{
+						pedido.setMenu(menu);
+						pedido.setCostoTotal(menu.getPrecioVenta());
+						pedido.setRestaurante(menu.getRestaurante());
+					}
+					pedido.setFecha(new Date());
+					daoPedido.addPedido(pedido);
+					return null;
+				}
+			});
+			terminarReservas(reservas, true);
 		} finally {
-			try {
-				daoIngredientes.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
-			}
+			terminarReservas(reservas, false);
 		}
-		return ingredientes;
-	}
-
-	public List<Ingrediente> buscarIngredientesPorName(String name) throws Exception{
-		List<Ingrediente> ingredientes;
-		DAOTablaIngredientes daoIngredientes = new DAOTablaIngredientes();
-		try 
-		{
-			this.conn = darConexion();
-			daoIngredientes.setConn(conn);
-			ingredientes = daoIngredientes.buscarIngredientesPorNombre(name);
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoIngredientes.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
-			}
+	}
+
+	/**
+	 * Metodo que descuenta existencias de un producto o menu en la transaccion actual. Si las reservas en memoria estan
+	 * activas reserva las unidades y las deja en la bitacora STOCK_RESERVA sin bloquear la fila de RESTAURANTE_PRODUCTO;
+	 * la reserva queda en la lista para confirmarla o liberarla cuando termine la transaccion.
+	 * Si no estan activas descuenta DISPONIBLES directamente.
+	 * @throws Exception - si no hay existencias suficientes, con el mensaje para el cliente
+	 */
+	private void descontarExistencias(Connection conn, DAOTablaProductos daoProducto, DAOTablaReservas daoReservas,
+			List<StockReservations.Reserva> reservas, String nombre, int cantidad) throws Exception {
+		StockReservations stock = StockReservations.getInstance();
+		if(stock == null) {
+			if(!daoProducto.descontarDisponibles(nombre, cantidad))
+				throw new Exception("No hay existencias de: "+nombre);
+			return;
 		}
-		return ingredientes;
-	}
-
-	public void addIngrediente(Ingrediente ingrediente) throws Exception {
-		DAOTablaIngredientes daoIngrediente = new DAOTablaIngredientes();
-		try 
-		{
-			this.conn = darConexion();
-			daoIngrediente.setConn(conn);
-			daoIngrediente.addIngrediente(ingrediente);
-			conn.commit();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoIngrediente.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
-			}
+		StockReservations.Reserva reserva = stock.reservar(conn, nombre, cantidad);
+		if(reserva==null)
+			throw new Exception("No hay existencias de: "+nombre);
+		reservas.add(reserva);
+		daoReservas.registrarReserva(nombre, cantidad);
+	}
+
+	/**
+	 * Metodo que confirma las reservas de existencias despues del commit o las libera si la transaccion no termino.
+	 * Liberar una reserva ya confirmada no hace nada.
+	 */
+	private static void terminarReservas(List<StockReservations.Reserva> reservas, boolean confirmar) {
+		for(StockReservations.Reserva reserva : reservas) {
+			if(confirmar)
+				reserva.confirmar();
+			else
+				reserva.liberar();
 		}
 	}
 
-	public void updateIngrediente(Ingrediente ingrediente) throws Exception {
-		DAOTablaIngredientes daoIngrediente = new DAOTablaIngredientes();
-		try 
-		{
-			this.conn = darConexion();
-			daoIngrediente.setConn(conn);
-			daoIngrediente.updateIngrediente(ingrediente);
-			conn.commit();
+	/**
+	 * Metodo que hace que las reservas en memoria vuelvan a leer las existencias de la base de datos
+	 * despues de un cambio hecho por fuera de la bitacora.
+	 * @param nombre - producto o menu que cambio, o null si cambio todo un restaurante
+	 */
+	private void invalidarExistencias(String nombre) {
+		StockReservations stock = StockReservations.getInstance();
+		if(stock == null)
+			return;
+		if(nombre == null)
+			stock.invalidarTodo();
+		else
+			stock.invalidar(nombre);
+	}
 
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoIngrediente.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	/**
+	 * Metodo que busca un producto en el cache del catalogo y si no esta lo carga con el DAO de la transaccion actual.
+	 */
+	private Producto buscarProductoEnCatalogo(final DAOTablaProductos dao, final String nombre) throws Exception {
+		CatalogCache cache = CatalogCache.getInstance();
+		if(cache == null)
+			return dao.buscarProductosPorNombre(nombre);
+		return cache.productos().obtener(nombre, new CatalogCache.Cargador<Producto>() {
+			@Override
+			public Producto cargar() throws Exception {
+				return dao.buscarProductosPorNombre(nombre);
 			}
-		}
+		});
 	}
 
-	public void deleteIngrediente(Ingrediente ingrediente) throws Exception{
-		DAOTablaIngredientes daoIngrediente = new DAOTablaIngredientes();
-		try 
-		{
-			this.conn = darConexion();
-			daoIngrediente.setConn(conn);
-			daoIngrediente.deleteIngrediente(ingrediente);
-			conn.commit();
+	/**
+	 * Metodo que busca un menu en el cache del catalogo y si no esta lo carga con el DAO de la transaccion actual.
+	 */
+	private Menu buscarMenuEnCatalogo(final DAOTablaMenus dao, final String nombre) throws Exception {
+		CatalogCache cache = CatalogCache.getInstance();
+		if(cache == null)
+			return dao.buscarMenusPorName(nombre);
+		return cache.menus().obtener(nombre, new CatalogCache.Cargador<Menu>() {
+			@Override
+			public Menu cargar() throws Exception {
+				return dao.buscarMenusPorName(nombre);
+			}
+		});
+	}
 
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoIngrediente.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	/**
+	 * Metodo que busca el restaurante de un producto en el cache del catalogo y si no esta lo carga con el DAO de la transaccion actual.
+	 */
+	private String buscarRestauranteEnCatalogo(final DAOTablaProductos dao, final String nombre) throws Exception {
+		CatalogCache cache = CatalogCache.getInstance();
+		if(cache == null)
+			return dao.darNombreRestaurante(nombre);
+		return cache.restaurantes().obtener(nombre, new CatalogCache.Cargador<String>() {
+			@Override
+			public String cargar() throws Exception {
+				return dao.darNombreRestaurante(nombre);
 			}
-		}
+		});
 	}
 
-	public List<Restaurante> darPreferenciasRestaurante(Integer id) throws Exception{
-		List<Restaurante> preferencias;
-		DAOTablaPreferenciaRestaurante daoPreferencias = new DAOTablaPreferenciaRestaurante();
-		try 
-		{
-			this.conn = darConexion();
-			daoPreferencias.setConn(conn);
-			preferencias = daoPreferencias.buscarPreferenciaUsuario(id);
+	/**
+	 * Metodo que invalida el cache del catalogo despues de confirmar un cambio y lo marca para publicarlo a los pares.
+	 * @param nombre - producto o menu que cambio, o null si cambio todo un restaurante
+	 */
+	private void invalidarCatalogo(String nombre) {
+		if(dtm != null)
+			dtm.marcarCambio(nombre);
+		CatalogCache cache = CatalogCache.getInstance();
+		if(cache == null)
+			return;
+		if(nombre == null)
+			cache.invalidarTodo();
+		else
+			cache.invalidar(nombre);
+	}
 
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoPreferencias.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	public Pedido updatePedido(final int id) throws Exception {
+		return ejecutor.ejecutar("updatePedido", Modo.ESCRITURA, new Transaccion<Pedido>() {
+			@Override
+			protected Pedido ejecutar() throws Exception {
+				DAOTablaPedidos daoPedido = usar(new DAOTablaPedidos());
+				return daoPedido.updatePedido(id);
 			}
-		}
-		return preferencias;
-	}
-
-	public void addPreferenciaRestaurante(PreferenciaRestaurante preferencia) throws Exception {
-		DAOTablaPreferenciaRestaurante daoPreferencia = new DAOTablaPreferenciaRestaurante();
-		try 
-		{
-			this.conn = darConexion();
-			daoPreferencia.setConn(conn);
-			daoPreferencia.addPreferencia(preferencia);;
-			conn.commit();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoPreferencia.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		});
+	}
+
+	public void deletePedido(final Pedido pedido) throws Exception {
+		ejecutor.ejecutar("deletePedido", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaPedidos daoPedido = usar(new DAOTablaPedidos());
+				daoPedido.deletePedido(pedido);
+				return null;
 			}
-		}
+		});
 	}
 
-	public List<Producto> darPreferenciasProducto(Integer id) throws Exception {
-		List<Producto> preferencias;
-		DAOTablaPreferenciaProducto daoPreferencias = new DAOTablaPreferenciaProducto();
-		try 
-		{
-			this.conn = darConexion();
-			daoPreferencias.setConn(conn);
-			preferencias = daoPreferencias.buscarPreferenciaUsuario(id);
+	public List<Zona> darZonas() throws Exception {
+		return ejecutor.ejecutar("darZonas", Modo.LECTURA, new Transaccion<List<Zona>>() {
+			@Override
+			protected List<Zona> ejecutar() throws Exception {
+				DAOTablaZonas daoZonas = usar(new DAOTablaZonas());
+				return daoZonas.darZonas();
+			}
+		});
+	}
 
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoPreferencias.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	/**
+	 * Da una pagina de las zonas ordenadas por nombre, con paginacion por llave (ver PageToken).
+	 * @param despues - token after que se recibio con la pagina anterior, null para la primera
+	 * @param limit - filas de la pagina, null para PageToken.LIMITE_DEFECTO
+	 * @return la pagina, con el token de la siguiente si hay mas filas
+	 * @throws Exception - si el token o el limite no son validos, o cualquier error de la base de datos
+	 */
+	public Pagina<Zona> darZonas(String despues, Integer limit) throws Exception {
+		final String llave = PageToken.leer("zonas", despues);
+		final int limite = PageToken.limite(limit);
+		return ejecutor.ejecutar("darZonasPagina", Modo.LECTURA, new Transaccion<Pagina<Zona>>() {
+			@Override
+			protected Pagina<Zona> ejecutar() throws Exception {
+				DAOTablaZonas daoZonas = usar(new DAOTablaZonas());
+				List<Zona> filas = daoZonas.darZonas(llave, limite + 1);
+				return PageToken.pagina("zonas", filas, limite, new PageToken.Llave<Zona>() {
+					@Override
+					public String de(Zona fila) {
+						return fila.getNombre();
+					}
+				});
 			}
-		}
-		return preferencias;
-	}
-
-	public void addPreferenciaProducto(PreferenciaProducto preferencia) throws Exception {
-		DAOTablaPreferenciaProducto daoPreferencia = new DAOTablaPreferenciaProducto();
-		try 
-		{
-			this.conn = darConexion();
-			daoPreferencia.setConn(conn);
-			daoPreferencia.addPreferencia(preferencia);;
-			conn.commit();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoPreferencia.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		});
+	}
+
+	public List<Zona> buscarZonasPorName(final String name) throws Exception {
+		return ejecutor.ejecutar("buscarZonasPorName", Modo.LECTURA, new Transaccion<List<Zona>>() {
+			@Override
+			protected List<Zona> ejecutar() throws Exception {
+				DAOTablaZonas daoZonas = usar(new DAOTablaZonas());
+				return daoZonas.buscarZonasPorName(name);
 			}
-		}
+		});
 	}
 
-	public List<Zona> darPreferenciasZona(Integer id) throws Exception {
-		List<Zona> preferencias;
-		DAOTablaPreferenciaZona daoPreferencias = new DAOTablaPreferenciaZona();
-		try 
-		{
-			this.conn = darConexion();
-			daoPreferencias.setConn(conn);
-			preferencias = daoPreferencias.buscarPreferenciaUsuario(id);
+	public void addZona(final Zona zona) throws Exception {
+		ejecutor.ejecutar("addZona", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaZonas daoZona = usar(new DAOTablaZonas());
+				daoZona.addZona(zona);
+				return null;
+			}
+		});
+	}
 
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoPreferencias.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	public void deleteZona(final Zona zona) throws Exception {
+		ejecutor.ejecutar("deleteZona", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaZonas daoZona = usar(new DAOTablaZonas());
+				daoZona.deleteZona(zona);
+				return null;
 			}
-		}
-		return preferencias;
-	}
-
-	public void addPreferenciaZona(PreferenciaZona preferencia) throws Exception{
-		DAOTablaPreferenciaZona daoPreferencia = new DAOTablaPreferenciaZona();
-		try 
-		{
-			this.conn = darConexion();
-			daoPreferencia.setConn(conn);
-			daoPreferencia.addPreferencia(preferencia);;
-			conn.commit();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoPreferencia.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		});
+	}
+
+	/**
+	 * Metodo que busca un producto por nombre, primero en el cache del catalogo.
+	 * @param nombre - nombre del producto
+	 * @return el producto o null si no existe
+	 * @throws Exception - cualquier error al consultar la base de datos
+	 */
+	public Producto buscarProductoPorName(final String nombre) throws Exception {
+		return ejecutor.ejecutar("buscarProductoPorName", Modo.SIN_CONEXION, new Transaccion<Producto>() {
+			@Override
+			protected Producto ejecutar() throws Exception {
+				CatalogCache cache = CatalogCache.getInstance();
+				if(cache == null)
+					return cargarProductoPorName(nombre);
+				return cache.productos().obtener(nombre, new CatalogCache.Cargador<Producto>() {
+					@Override
+					public Producto cargar() throws Exception {
+						return cargarProductoPorName(nombre);
+					}
+				});
 			}
-		}
+		});
 	}
 
-	public void updateProducto(Producto producto ) throws Exception {
-		DAOTablaProductos daoProducto = new DAOTablaProductos();
-		try 
-		{
-			this.conn = darConexion();
-			daoProducto.setConn(conn);
-			daoProducto.updateProducto(producto);
-			conn.commit();
+	private Producto cargarProductoPorName(final String nombre) throws Exception {
+		return ejecutor.ejecutar("cargarProductoPorName", Modo.LECTURA, new Transaccion<Producto>() {
+			@Override
+			protected Producto ejecutar() throws Exception {
+				DAOTablaProductos daoProducto = usar(new DAOTablaProductos());
+				return daoProducto.buscarProductosPorNombre(nombre);
+			}
+		});
+	}
 
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoProducto.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	public void addProducto(final Producto producto, final Restaurante restaurante) throws Exception {
+		ejecutor.ejecutar("addProducto", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaProductos daoProducto = usar(new DAOTablaProductos());
+				daoProducto.addProducto(producto, restaurante);
+				return null;
 			}
-		}
+		});
+		invalidarCatalogo(producto.getNombre());
 	}
 
-	public void addPedidoMesa(PedidoMesa pedido) throws SQLException {
-		DAOTablaPedidos daoPedido = new DAOTablaPedidos();
-		try 
-		{
-			this.conn = darConexion();
-			daoPedido.setConn(conn);
-			daoPedido.addPedidoMesa(pedido);
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoPedido.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	public List<Ingrediente> darIngredientes() throws Exception {
+		return ejecutor.ejecutar("darIngredientes", Modo.LECTURA, new Transaccion<List<Ingrediente>>() {
+			@Override
+			protected List<Ingrediente> ejecutar() throws Exception {
+				DAOTablaIngredientes daoIngredientes = usar(new DAOTablaIngredientes());
+				return daoIngredientes.darIngredientes();
 			}
-		}
+		});
 	}
-	
 
+	/**
+	 * Pasa los ingredientes al receptor a medida que se leen, sin cargarlos todos en memoria. La conexion de la transaccion
+	 * queda prestada hasta que el receptor recibe la ultima fila.
+	 * @param receptor - destino de cada fila, por ejemplo la respuesta REST
+	 * @throws Exception - el error de la base de datos o del receptor
+	 */
+	public void recorrerIngredientes(final RowCursor.Receptor<Ingrediente> receptor) throws Exception {
+		ejecutor.ejecutar("recorrerIngredientes", Modo.LECTURA, new Transaccion<Integer>() {
+			@Override
+			protected Integer ejecutar() throws Exception {
+				DAOTablaIngredientes daoIngredientes = usar(new DAOTablaIngredientes());
+				return daoIngredientes.recorrerIngredientes().recorrer(receptor);
+			}
+		});
+	}
 
-	public List<Usuario> darUsuarios() throws Exception{
-		List<Usuario> usuarios;
-		DAOTablaUsuarios daoUsuarios = new DAOTablaUsuarios();
-		try 
-		{
-			this.conn = darConexion();
-			daoUsuarios.setConn(conn);
-			usuarios = daoUsuarios.darUsuarios();
+	/**
+	 * Da una pagina de los ingredientes ordenados por nombre, con paginacion por llave (ver PageToken).
+	 * @param despues - token after que se recibio con la pagina anterior, null para la primera
+	 * @param limit - filas de la pagina, null para PageToken.LIMITE_DEFECTO
+	 * @return la pagina, con el token de la siguiente si hay mas filas
+	 * @throws Exception - si el token o el limite no son validos, o cualquier error de la base de datos
+	 */
+	public Pagina<Ingrediente> darIngredientes(String despues, Integer limit) throws Exception {
+		final String llave = PageToken.leer("ingredientes", despues);
+		final int limite = PageToken.limite(limit);
+		return ejecutor.ejecutar("darIngredientesPagina", Modo.LECTURA, new Transaccion<Pagina<Ingrediente>>() {
+			@Override
+			protected Pagina<Ingrediente> ejecutar() throws Exception {
+				DAOTablaIngredientes daoIngredientes = usar(new DAOTablaIngredientes());
+				List<Ingrediente> filas = daoIngredientes.darIngredientes(llave, limite + 1);
+				return PageToken.pagina("ingredientes", filas, limite, new PageToken.Llave<Ingrediente>() {
+					@Override
+					public String de(Ingrediente fila) {
+						return fila.getNombre();
+					}
+				});
+			}
+		});
+	}
 
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoUsuarios.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	public List<Ingrediente> buscarIngredientesPorName(final String name) throws Exception {
+		return ejecutor.ejecutar("buscarIngredientesPorName", Modo.LECTURA, new Transaccion<List<Ingrediente>>() {
+			@Override
+			protected List<Ingrediente> ejecutar() throws Exception {
+				DAOTablaIngredientes daoIngredientes = usar(new DAOTablaIngredientes());
+				return daoIngredientes.buscarIngredientesPorNombre(name);
 			}
-		}
-		return usuarios;
-	}
-
-	public List<EquivalenciaIngrediente> darEquivalenciasIngrediente() throws Exception{
-		List<EquivalenciaIngrediente> equivalencias;
-		DAOTablaEquivalenciaIngrediente daoEquivalencia = new DAOTablaEquivalenciaIngrediente();
-		try 
-		{
-			this.conn = darConexion();
-			daoEquivalencia.setConn(conn);
-			equivalencias = daoEquivalencia.darEquivalencias();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoEquivalencia.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		});
+	}
+
+	public void addIngrediente(final Ingrediente ingrediente) throws Exception {
+		ejecutor.ejecutar("addIngrediente", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaIngredientes daoIngrediente = usar(new DAOTablaIngredientes());
+				daoIngrediente.addIngrediente(ingrediente);
+				return null;
 			}
-		}
-		return equivalencias;
-	}
-
-	public List<EquivalenciaIngrediente> buscarEquivalenciasIngredientePorName(String name) throws Exception{
-		List<EquivalenciaIngrediente> equivalencias;
-		DAOTablaEquivalenciaIngrediente daoEquivalencia = new DAOTablaEquivalenciaIngrediente();
-		try 
-		{
-			this.conn = darConexion();
-			daoEquivalencia.setConn(conn);
-			equivalencias = daoEquivalencia.buscarEquivalenciasPorNombre(name);
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoEquivalencia.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		});
+	}
+
+	public void updateIngrediente(final Ingrediente ingrediente) throws Exception {
+		ejecutor.ejecutar("updateIngrediente", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaIngredientes daoIngrediente = usar(new DAOTablaIngredientes());
+				daoIngrediente.updateIngrediente(ingrediente);
+				return null;
 			}
-		}
-		return equivalencias;
-	}
-
-	public void addEquivalenciaIngrediente(EquivalenciaIngrediente equivalencia) throws Exception{
-		DAOTablaEquivalenciaIngrediente daoEquivalencia = new DAOTablaEquivalenciaIngrediente();
-		try 
-		{
-			this.conn = darConexion();
-			daoEquivalencia.setConn(conn);
-			daoEquivalencia.addEquivalencia(equivalencia);
-			conn.commit();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoEquivalencia.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		});
+	}
+
+	public void deleteIngrediente(final Ingrediente ingrediente) throws Exception {
+		ejecutor.ejecutar("deleteIngrediente", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaIngredientes daoIngrediente = usar(new DAOTablaIngredientes());
+				daoIngrediente.deleteIngrediente(ingrediente);
+				return null;
 			}
-		}
+		});
 	}
 
-	public void updateEquivalenciaIngrediente(EquivalenciaIngrediente equivalencia) throws Exception {
-		DAOTablaEquivalenciaIngrediente daoEquivalencia = new DAOTablaEquivalenciaIngrediente();
-		try 
-		{
-			this.conn = darConexion();
-			daoEquivalencia.setConn(conn);
-			daoEquivalencia.updateEquivalencia(equivalencia);
-			conn.commit();
+	public List<Restaurante> darPreferenciasRestaurante(final Integer id) throws Exception {
+		return ejecutor.ejecutar("darPreferenciasRestaurante", Modo.LECTURA, new Transaccion<List<Restaurante>>() {
+			@Override
+			protected List<Restaurante> ejecutar() throws Exception {
+				DAOTablaPreferenciaRestaurante daoPreferencias = usar(new DAOTablaPreferenciaRestaurante());
+				return daoPreferencias.buscarPreferenciaUsuario(id);
+			}
+		});
+	}
 
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoEquivalencia.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	public void addPreferenciaRestaurante(final PreferenciaRestaurante preferencia) throws Exception {
+		ejecutor.ejecutar("addPreferenciaRestaurante", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaPreferenciaRestaurante daoPreferencia = usar(new DAOTablaPreferenciaRestaurante());
+				daoPreferencia.addPreferencia(preferencia);
+				return null;
 			}
-		}
+		});
 	}
 
-	public void deleteEquivalenciaIngrediente(EquivalenciaIngrediente equivalencia) throws Exception {
-		DAOTablaEquivalenciaIngrediente daoEquivalencia = new DAOTablaEquivalenciaIngrediente();
-		try 
-		{
-			this.conn = darConexion();
-			daoEquivalencia.setConn(conn);
-			daoEquivalencia.deleteEquivalencia(equivalencia);
-			conn.commit();
+	public List<Producto> darPreferenciasProducto(final Integer id) throws Exception {
+		return ejecutor.ejecutar("darPreferenciasProducto", Modo.LECTURA, new Transaccion<List<Producto>>() {
+			@Override
+			protected List<Producto> ejecutar() throws Exception {
+				DAOTablaPreferenciaProducto daoPreferencias = usar(new DAOTablaPreferenciaProducto());
+				return daoPreferencias.buscarPreferenciaUsuario(id);
+			}
+		});
+	}
 
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoEquivalencia.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	public void addPreferenciaProducto(final PreferenciaProducto preferencia) throws Exception {
+		ejecutor.ejecutar("addPreferenciaProducto", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaPreferenciaProducto daoPreferencia = usar(new DAOTablaPreferenciaProducto());
+				daoPreferencia.addPreferencia(preferencia);
+				return null;
 			}
-		}
+		});
 	}
 
-	public List<EquivalenciaProducto> darEquivalenciasProducto() throws Exception {
-		List<EquivalenciaProducto> equivalencias;
-		DAOTablaEquivalenciaProducto daoEquivalencia = new DAOTablaEquivalenciaProducto();
-		try 
-		{
-			this.conn = darConexion();
-			daoEquivalencia.setConn(conn);
-			equivalencias = daoEquivalencia.darEquivalencias();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoEquivalencia.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	public List<Zona> darPreferenciasZona(final Integer id) throws Exception {
+		return ejecutor.ejecutar("darPreferenciasZona", Modo.LECTURA, new Transaccion<List<Zona>>() {
+			@Override
+			protected List<Zona> ejecutar() throws Exception {
+				DAOTablaPreferenciaZona daoPreferencias = usar(new DAOTablaPreferenciaZona());
+				return daoPreferencias.buscarPreferenciaUsuario(id);
 			}
-		}
-		return equivalencias;
-	}
-
-	public PedidoMesa buscarPedidoMesaId(int id) throws SQLException {
-		PedidoMesa pedido;
-		DAOTablaPedidos daoPedidos = new DAOTablaPedidos();
-		try 
-		{
-			this.conn = darConexion();
-			daoPedidos.setConn(conn);
-			pedido = daoPedidos.buscarPedidoMesaPorId(id);
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoPedidos.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		});
+	}
+
+	public void addPreferenciaZona(final PreferenciaZona preferencia) throws Exception {
+		ejecutor.ejecutar("addPreferenciaZona", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaPreferenciaZona daoPreferencia = usar(new DAOTablaPreferenciaZona());
+				daoPreferencia.addPreferencia(preferencia);
+				return null;
 			}
-		}
-		return pedido;
-	}
-
-	public List<EquivalenciaProducto> buscarEquivalenciasProductoPorName(String name)throws Exception{
-		List<EquivalenciaProducto> equivalencia;
-		DAOTablaEquivalenciaProducto daoEquivalencia = new DAOTablaEquivalenciaProducto();
-		try 
-		{
-			this.conn = darConexion();
-			daoEquivalencia.setConn(conn);
-			equivalencia = daoEquivalencia.buscarEquivalenciasPorNombre(name);
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
+		});
+	}
+
+	public void updateProducto(final Producto producto ) throws Exception {
+		final List<StockReservations.Reserva> reservas = new ArrayList<StockReservations.Reserva>();
+		try {
+			ejecutor.ejecutar("updateProducto", Modo.ESCRITURA, new Transaccion<Void>() {
+				@Override
+				protected Void ejecutar() throws Exception {
+					DAOTablaProductos daoProducto = usar(new DAOTablaProductos());
+					if(StockReservations.getInstance()!=null){
+						descontarExistencias(getConn(), daoProducto, usar(new DAOTablaReservas()), reservas, producto.getNombre(), 1);
+					}else{
+						daoProducto.updateProducto(producto);
+					}
+					return null;
+				}
+			});
+			terminarReservas(reservas, true);
 		} finally {
-			try {
-				daoEquivalencia.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
-			}
+			terminarReservas(reservas, false);
 		}
-		return equivalencia;
-	}
-
-	public void addEquivalenciaProducto(EquivalenciaProducto equivalencia) throws Exception {
-		DAOTablaEquivalenciaProducto daoEquivalencia = new DAOTablaEquivalenciaProducto();
-		try 
-		{
-			this.conn = darConexion();
-			daoEquivalencia.setConn(conn);
-			daoEquivalencia.addEquivalencia(equivalencia);
-			conn.commit();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
+		invalidarCatalogo(producto.getNombre());
+	}
+
+	/**
+	 * Metodo que modela la transaccion que registra el pedido de una mesa: resuelve cada producto o menu una sola vez,
+	 * descuenta las existencias por nombre, reserva ids consecutivos y agrega en lote los pedidos de cada item
+	 * junto con la fila de PEDIDO_MESA, todo sobre una sola conexion y con un solo commit.
+	 * <b> post: </b> la mesa queda con el id de su ultimo pedido, costo, fecha y numero de productos
+	 * @param pedido - el pedido de la mesa con el id del usuario y los nombres de los productos o menus. pedido != null
+	 * @throws Exception - cualquier error que se genere durante la transaccion, con el mensaje para el cliente
+	 */
+	public void registrarPedidoMesa(final PedidoMesa pedido) throws Exception {
+		final List<StockReservations.Reserva> reservas = new ArrayList<StockReservations.Reserva>();
+		try {
+			ejecutor.ejecutar("registrarPedidoMesa", Modo.ESCRITURA, new Transaccion<Void>() {
+				@Override
+				protected Void ejecutar() throws Exception {
+					DAOTablaUsuarios daoUsuario = usar(new DAOTablaUsuarios());
+					DAOTablaProductos daoProducto = usar(new DAOTablaProductos());
+					DAOTablaMenus daoMenu = usar(new DAOTablaMenus());
+					DAOTablaPedidos daoPedido = usar(new DAOTablaPedidos());
+					DAOTablaReservas daoReservas = usar(new DAOTablaReservas());
+
+					List<String> nombres = pedido.getProductos();
+					if(nombres==null || nombres.isEmpty())
+						throw new Exception("El pedido de la mesa no tiene productos");
+					if(daoUsuario.buscarUsuarioPorId(pedido.getIdUsuario())==null)
+						throw new Exception("No existe un usuario con el id: "+pedido.getIdUsuario());
+
+					Map<String, Pedido> resueltos = new HashMap<String, Pedido>();
+					Map<String, Integer> cantidades = new LinkedHashMap<String, Integer>();
+					for(String nombre : nombres) {
+						Integer cantidad = cantidades.get(nombre);
+						cantidades.put(nombre, cantidad==null ? 1 : cantidad+1);
+						if(resueltos.containsKey(nombre))
+							continue;
+						Pedido item = new Pedido(0, 0, null, pedido.getIdUsuario(), nombre, null);
+						Producto producto = buscarProductoEnCatalogo(daoProducto, nombre);
+						Menu menu = producto==null ? buscarMenuEnCatalogo(daoMenu, nombre) : null;
+						if(producto!=null){
+							item.setProducto(producto);
+							item.setCostoTotal(producto.getPrecioVenta());
+							item.setRestaurante(buscarRestauranteEnCatalogo(daoProducto, nombre));
+						}else if(menu!=null){
+							item.setMenu(menu);
+							item.setCostoTotal(menu.getPrecioVenta());
+							item.setRestaurante(menu.getRestaurante());
+						}else{
+							throw new Exception("No existe un producto o menu con el nombre de : "+nombre);
+						}
+						resueltos.put(nombre, item);
+					}
+
+					for(Map.Entry<String, Integer> entrada : cantidades.entrySet())
+						descontarExistencias(getConn(), daoProducto, daoReservas, reservas, entrada.getKey(), entrada.getValue());
+
+					Date fecha = new Date();
+					int primerId = daoPedido.reservarIds(nombres.size());
+					List<Pedido> pedidos = new ArrayList<Pedido>();
+					ArrayList<Producto> listProductos = new ArrayList<Producto>();
+					ArrayList<Menu> listMenus = new ArrayList<Menu>();
+					for(int i = 0; i < nombres.size(); i++) {
+						Pedido base = resueltos.get(nombres.get(i));
+						Pedido item = new Pedido(primerId + i, base.getCostoTotal(), fecha, pedido.getIdUsuario(), base.getNombreProducto(), base.getRestaurante());
+						if(base.getMenu()!=null){
+							item.setMenu(base.getMenu());
+							listMenus.add(base.getMenu());
+						}else{
+							item.setProducto(base.getProducto());
+							listProductos.add(base.getProducto());
+						}
+						pedidos.add(item);
+					}
+					daoPedido.addPedidos(pedidos);
+
+					pedido.setId(primerId + nombres.size() - 1);
+					pedido.setVoMenus(listMenus);
+					pedido.setVoProductos(listProductos);
+					pedido.setCostoTotal();
+					pedido.setFecha(fecha);
+					pedido.setNumProductos();
+					daoPedido.addPedidoMesa(pedido);
+					return null;
+				}
+			});
+			terminarReservas(reservas, true);
 		} finally {
-			try {
-				daoEquivalencia.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
-			}
+			terminarReservas(reservas, false);
 		}
 	}
 
-	public void updateEquivalenciaProducto(EquivalenciaProducto equivalencia) throws Exception{
-		DAOTablaEquivalenciaProducto daoEquivalencia = new DAOTablaEquivalenciaProducto();
-		try 
-		{
-			this.conn = darConexion();
-			daoEquivalencia.setConn(conn);
-			daoEquivalencia.updateEquivalencia(equivalencia);
-			conn.commit();
+	
+
 
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoEquivalencia.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	public List<Usuario> darUsuarios() throws Exception {
+		return ejecutor.ejecutar("darUsuarios", Modo.LECTURA, new Transaccion<List<Usuario>>() {
+			@Override
+			protected List<Usuario> ejecutar() throws Exception {
+				DAOTablaUsuarios daoUsuarios = usar(new DAOTablaUsuarios());
+				return daoUsuarios.darUsuarios();
 			}
-		}
+		});
 	}
 
-	public void deleteEquivalenciaProducto(EquivalenciaProducto equivalencia) throws Exception{
-		DAOTablaEquivalenciaProducto daoEquivalencia = new DAOTablaEquivalenciaProducto();
-		try 
-		{
-			this.conn = darConexion();
-			daoEquivalencia.setConn(conn);
-			daoEquivalencia.deleteEquivalencia(equivalencia);
-			conn.commit();
+	/**
+	 * Pasa los usuarios al receptor a medida que se leen, sin cargarlos todos en memoria. La conexion de la transaccion
+	 * queda prestada hasta que el receptor recibe la ultima fila.
+	 * @param receptor - destino de cada fila, por ejemplo la respuesta REST
+	 * @throws Exception - el error de la base de datos o del receptor
+	 */
+	public void recorrerUsuarios(final RowCursor.Receptor<Usuario> receptor) throws Exception {
+		ejecutor.ejecutar("recorrerUsuarios", Modo.LECTURA, new Transaccion<Integer>() {
+			@Override
+			protected Integer ejecutar() throws Exception {
+				DAOTablaUsuarios daoUsuarios = usar(new DAOTablaUsuarios());
+				return daoUsuarios.recorrerUsuarios().recorrer(receptor);
+			}
+		});
+	}
 
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoEquivalencia.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	/**
+	 * Da una pagina de los usuarios ordenados por numero de identificacion, con paginacion por llave (ver PageToken).
+	 * @param despues - token after que se recibio con la pagina anterior, null para la primera
+	 * @param limit - filas de la pagina, null para PageToken.LIMITE_DEFECTO
+	 * @return la pagina, con el token de la siguiente si hay mas filas
+	 * @throws Exception - si el token o el limite no son validos, o cualquier error de la base de datos
+	 */
+	public Pagina<Usuario> darUsuarios(String despues, Integer limit) throws Exception {
+		final Integer llave = PageToken.leerEntero("usuarios", despues);
+		final int limite = PageToken.limite(limit);
+		return ejecutor.ejecutar("darUsuariosPagina", Modo.LECTURA, new Transaccion<Pagina<Usuario>>() {
+			@Override
+			protected Pagina<Usuario> ejecutar() throws Exception {
+				DAOTablaUsuarios daoUsuarios = usar(new DAOTablaUsuarios());
+				List<Usuario> filas = daoUsuarios.darUsuarios(llave, limite + 1);
+				return PageToken.pagina("usuarios", filas, limite, new PageToken.Llave<Usuario>() {
+					@Override
+					public String de(Usuario fila) {
+						return String.valueOf(fila.getId());
+					}
+				});
 			}
-		}
+		});
+	}
+
+	public List<EquivalenciaIngrediente> darEquivalenciasIngrediente() throws Exception {
+		return ejecutor.ejecutar("darEquivalenciasIngrediente", Modo.LECTURA, new Transaccion<List<EquivalenciaIngrediente>>() {
+			@Override
+			protected List<EquivalenciaIngrediente> ejecutar() throws Exception {
+				DAOTablaEquivalenciaIngrediente daoEquivalencia = usar(new DAOTablaEquivalenciaIngrediente());
+				return daoEquivalencia.darEquivalencias();
+			}
+		});
+	}
 
+	public List<EquivalenciaIngrediente> buscarEquivalenciasIngredientePorName(final String name) throws Exception {
+		return ejecutor.ejecutar("buscarEquivalenciasIngredientePorName", Modo.LECTURA, new Transaccion<List<EquivalenciaIngrediente>>() {
+			@Override
+			protected List<EquivalenciaIngrediente> ejecutar() throws Exception {
+				DAOTablaEquivalenciaIngrediente daoEquivalencia = usar(new DAOTablaEquivalenciaIngrediente());
+				return daoEquivalencia.buscarEquivalenciasPorNombre(name);
+			}
+		});
 	}
 
-	public List<Consulta9> darConsulta9(Consulta9 consulta) throws Exception {
-		List<Consulta9> consultas;
-		DAOConsultas daoConsultas = new DAOConsultas();
-		try 
-		{
-			this.conn = darConexion();
-			daoConsultas.setConn(conn);
-			consultas = daoConsultas.darConsulta9(consulta);
+	public void addEquivalenciaIngrediente(final EquivalenciaIngrediente equivalencia) throws Exception {
+		ejecutor.ejecutar("addEquivalenciaIngrediente", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaEquivalenciaIngrediente daoEquivalencia = usar(new DAOTablaEquivalenciaIngrediente());
+				daoEquivalencia.addEquivalencia(equivalencia);
+				return null;
+			}
+		});
+	}
 
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoConsultas.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	public void updateEquivalenciaIngrediente(final EquivalenciaIngrediente equivalencia) throws Exception {
+		ejecutor.ejecutar("updateEquivalenciaIngrediente", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaEquivalenciaIngrediente daoEquivalencia = usar(new DAOTablaEquivalenciaIngrediente());
+				daoEquivalencia.updateEquivalencia(equivalencia);
+				return null;
 			}
-		}
-		return consultas;
-	}
-
-	public List<Consulta10> darConsulta10(Consulta10 consulta) throws Exception {
-		List<Consulta10> consultas;
-		DAOConsultas daoConsultas = new DAOConsultas();
-		try 
-		{
-			this.conn = darConexion();
-			daoConsultas.setConn(conn);
-			consultas = daoConsultas.darConsulta10(consulta);
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoConsultas.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		});
+	}
+
+	public void deleteEquivalenciaIngrediente(final EquivalenciaIngrediente equivalencia) throws Exception {
+		ejecutor.ejecutar("deleteEquivalenciaIngrediente", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaEquivalenciaIngrediente daoEquivalencia = usar(new DAOTablaEquivalenciaIngrediente());
+				daoEquivalencia.deleteEquivalencia(equivalencia);
+				return null;
 			}
-		}
-		return consultas;
-	}
-
-	public List<Consulta11> darConsulta11() throws Exception{
-		List<Consulta11> consultas;
-		DAOConsultas daoConsultas = new DAOConsultas();
-		try 
-		{
-			this.conn = darConexion();
-			daoConsultas.setConn(conn);
-			consultas = daoConsultas.darConsulta11();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoConsultas.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		});
+	}
+
+	public List<EquivalenciaProducto> darEquivalenciasProducto() throws Exception {
+		return ejecutor.ejecutar("darEquivalenciasProducto", Modo.LECTURA, new Transaccion<List<EquivalenciaProducto>>() {
+			@Override
+			protected List<EquivalenciaProducto> ejecutar() throws Exception {
+				DAOTablaEquivalenciaProducto daoEquivalencia = usar(new DAOTablaEquivalenciaProducto());
+				return daoEquivalencia.darEquivalencias();
 			}
-		}
-		return consultas;
+		});
+	}
+
+	/**
+	 * Pasa las equivalencias de productos al receptor a medida que se leen, sin cargarlas todas en memoria. La conexion de la transaccion
+	 * queda prestada hasta que el receptor recibe la ultima fila.
+	 * @param receptor - destino de cada fila, por ejemplo la respuesta REST
+	 * @throws Exception - el error de la base de datos o del receptor
+	 */
+	public void recorrerEquivalenciasProducto(final RowCursor.Receptor<EquivalenciaProducto> receptor) throws Exception {
+		ejecutor.ejecutar("recorrerEquivalenciasProducto", Modo.LECTURA, new Transaccion<Integer>() {
+			@Override
+			protected Integer ejecutar() throws Exception {
+				DAOTablaEquivalenciaProducto daoEquivalencia = usar(new DAOTablaEquivalenciaProducto());
+				return daoEquivalencia.recorrerEquivalencias().recorrer(receptor);
+			}
+		});
+	}
+
+	public PedidoMesa buscarPedidoMesaId(final int id) throws Exception {
+		return ejecutor.ejecutar("buscarPedidoMesaId", Modo.LECTURA, new Transaccion<PedidoMesa>() {
+			@Override
+			protected PedidoMesa ejecutar() throws Exception {
+				DAOTablaPedidos daoPedidos = usar(new DAOTablaPedidos());
+				return daoPedidos.buscarPedidoMesaPorId(id);
+			}
+		});
+	}
+
+	public List<EquivalenciaProducto> buscarEquivalenciasProductoPorName(final String name) throws Exception {
+		return ejecutor.ejecutar("buscarEquivalenciasProductoPorName", Modo.LECTURA, new Transaccion<List<EquivalenciaProducto>>() {
+			@Override
+			protected List<EquivalenciaProducto> ejecutar() throws Exception {
+				DAOTablaEquivalenciaProducto daoEquivalencia = usar(new DAOTablaEquivalenciaProducto());
+				return daoEquivalencia.buscarEquivalenciasPorNombre(name);
+			}
+		});
+	}
+
+	public void addEquivalenciaProducto(final EquivalenciaProducto equivalencia) throws Exception {
+		ejecutor.ejecutar("addEquivalenciaProducto", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaEquivalenciaProducto daoEquivalencia = usar(new DAOTablaEquivalenciaProducto());
+				daoEquivalencia.addEquivalencia(equivalencia);
+				return null;
+			}
+		});
+	}
+
+	public void updateEquivalenciaProducto(final EquivalenciaProducto equivalencia) throws Exception {
+		ejecutor.ejecutar("updateEquivalenciaProducto", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaEquivalenciaProducto daoEquivalencia = usar(new DAOTablaEquivalenciaProducto());
+				daoEquivalencia.updateEquivalencia(equivalencia);
+				return null;
+			}
+		});
+	}
+
+	public void deleteEquivalenciaProducto(final EquivalenciaProducto equivalencia) throws Exception {
+		ejecutor.ejecutar("deleteEquivalenciaProducto", Modo.ESCRITURA, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				DAOTablaEquivalenciaProducto daoEquivalencia = usar(new DAOTablaEquivalenciaProducto());
+				daoEquivalencia.deleteEquivalencia(equivalencia);
+				return null;
+			}
+		});
+	}
+
+	public List<Consulta9> darConsulta9(final Consulta9 consulta) throws Exception {
+		return ejecutor.ejecutar("darConsulta9", Modo.LECTURA, new Transaccion<List<Consulta9>>() {
+			@Override
+			protected List<Consulta9> ejecutar() throws Exception {
+				DAOConsultas daoConsultas = usar(new DAOConsultas());
+				return daoConsultas.darConsulta9(consulta);
+			}
+		});
+	}
+
+	public List<Consulta10> darConsulta10(final Consulta10 consulta) throws Exception {
+		return ejecutor.ejecutar("darConsulta10", Modo.LECTURA, new Transaccion<List<Consulta10>>() {
+			@Override
+			protected List<Consulta10> ejecutar() throws Exception {
+				DAOConsultas daoConsultas = usar(new DAOConsultas());
+				return daoConsultas.darConsulta10(consulta);
+			}
+		});
+	}
+
+	public List<Consulta11> darConsulta11() throws Exception {
+		return ejecutor.ejecutar("darConsulta11", Modo.LECTURA, new Transaccion<List<Consulta11>>() {
+			@Override
+			protected List<Consulta11> ejecutar() throws Exception {
+				DAOConsultas daoConsultas = usar(new DAOConsultas());
+				return daoConsultas.darConsulta11();
+			}
+		});
 	}
 
 	public List<Consulta12> darConsulta12() throws Exception {
-		List<Consulta12> consultas;
-		DAOConsultas daoConsultas = new DAOConsultas();
-		try 
-		{
-			this.conn = darConexion();
-			daoConsultas.setConn(conn);
-			consultas = daoConsultas.darConsulta12();
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoConsultas.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		return ejecutor.ejecutar("darConsulta12", Modo.LECTURA, new Transaccion<List<Consulta12>>() {
+			@Override
+			protected List<Consulta12> ejecutar() throws Exception {
+				DAOConsultas daoConsultas = usar(new DAOConsultas());
+				return daoConsultas.darConsulta12();
 			}
-		}
-		return consultas;
+		});
 	}
 
 	public ListaProductos darProductosLocales() throws Exception {
-		List<ProductoIter5> productos= new ArrayList<>();
-		ArrayList<Producto> productosLocales;
-		DAOTablaProductos daoProductos = new DAOTablaProductos();
-		try 
-		{
-			this.conn = darConexion();
-			daoProductos.setConn(conn);
-			productosLocales = daoProductos.darProductos();
-			Iterator<Producto> iter = productosLocales.iterator();
-			while(iter.hasNext()){
-				Producto l = iter.next();
-				productos.add(new ProductoIter5("Rotonda 1",l.getNombre(),0, l.getPrecioVenta(), l.getCostoProduccion(), null ,l.getTiempoPreparacion(),null, l.getDescripcion(), l.getDisponible().intValue(),null, l.getMaximo().intValue()));
-			}
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoProductos.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+		return ejecutor.ejecutar("darProductosLocales", Modo.LECTURA, new Transaccion<ListaProductos>() {
+			@Override
+			protected ListaProductos ejecutar() throws Exception {
+				List<ProductoIter5> productos= new ArrayList<>();
+				DAOTablaProductos daoProductos = usar(new DAOTablaProductos());
+				ArrayList<Producto> productosLocales = daoProductos.darProductos();
+				Iterator<Producto> iter = productosLocales.iterator();
+				while(iter.hasNext()){
+					Producto l = iter.next();
+					productos.add(new ProductoIter5("Rotonda 1",l.getNombre(),0, l.getPrecioVenta(), l.getCostoProduccion(), null ,l.getTiempoPreparacion(),null, l.getDescripcion(), l.getDisponible().intValue(),null, l.getMaximo().intValue()));
+				}
+				return new ListaProductos(productos);
 			}
-		}
-		return new ListaProductos(productos);
+		});
 	}
 	
+	/**
+	 * Metodo que da los productos locales junto con los de las rotondas pares. Los de los pares salen de la copia
+	 * local de sus catalogos que mantiene RotondAndesDistributed; solo si no se tiene ninguna se les consulta por JMS.
+	 * @return ListaProductos - productos locales y remotos
+	 * @throws Exception - cualquier error al consultar los productos locales
+	 */
 	public ListaProductos darProductos() throws Exception {
-		ListaProductos remL = darProductosLocales();
-		try
-		{
-			ListaProductos resp = dtm.getRemoteVideos();
-			System.out.println(resp.getProductos().size());
-			remL.getProductos().addAll(resp.getProductos());
-		}
-		catch(NonReplyException e)
-		{
-			System.out.println("ALGO PASO ");
-			
-		}
-		return remL;
+		return ejecutor.ejecutar("darProductos", Modo.SIN_CONEXION, new Transaccion<ListaProductos>() {
+			@Override
+			protected ListaProductos ejecutar() throws Exception {
+				ListaProductos remL = darProductosLocales();
+				ListaProductos remotos = dtm.getCatalogoRemoto();
+				if(remotos != null) {
+					remL.getProductos().addAll(remotos.getProductos());
+					return remL;
+				}
+				try
+				{
+					ListaProductos resp = dtm.getRemoteVideos();
+					LOG.debug("Productos remotos: {}", resp.getProductos().size());
+					remL.getProductos().addAll(resp.getProductos());
+				}
+				catch(NonReplyException e)
+				{
+					LOG.warn("Sin respuesta de las otras rotondas: {}", e.getMessage());
+
+				}
+				return remL;
+			}
+		});
 	}
 	
-	public ListaUtilidad utilidad(String nombre , String fecha,String fecha2) throws Exception {
-		ListaUtilidad consultas;
-		DAOConsultas daoConsultas = new DAOConsultas();
-		try 
-		{
-			this.conn = darConexion();
-			daoConsultas.setConn(conn);
-			consultas = new ListaUtilidad(daoConsultas.darUtilidad(nombre , fecha, fecha2));
-
-		} catch (SQLException e) {
-			System.err.println("SQLException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} catch (Exception e) {
-			System.err.println("GeneralException:" + e.getMessage());
-			e.printStackTrace();
-			throw e;
-		} finally {
-			try {
-				daoConsultas.cerrarRecursos();
-				if(this.conn!=null)
-					this.conn.close();
-			} catch (SQLException exception) {
-				System.err.println("SQLException closing resources:" + exception.getMessage());
-				exception.printStackTrace();
-				throw exception;
+	public ListaUtilidad utilidad(final String nombre, final String fecha, final String fecha2) throws Exception {
+		return ejecutor.ejecutar("utilidad", Modo.LECTURA, new Transaccion<ListaUtilidad>() {
+			@Override
+			protected ListaUtilidad ejecutar() throws Exception {
+				DAOConsultas daoConsultas = usar(new DAOConsultas());
+				return new ListaUtilidad(daoConsultas.darUtilidad(nombre , fecha, fecha2));
 			}
-		}
-		return consultas;
+		});
 	}
 	
-	public ListaUtilidad darUtilidadRemote(String nombre, String fechaI, String fechaF) throws Exception {
-		
-			ListaUtilidad remL = utilidad(nombre, fechaI, fechaF);
-
-			try
-			{
-				ListaUtilidad resp = dtm.getRemoteUtilidad(nombre, fechaI, fechaF);
-				remL.getUtilidades().addAll(resp.getUtilidades());
-			}
-			catch(NonReplyException e)
-			{
-				e.printStackTrace();
+	public ListaUtilidad darUtilidadRemote(final String nombre, final String fechaI, final String fechaF) throws Exception {
+		return ejecutor.ejecutar("darUtilidadRemote", Modo.SIN_CONEXION, new Transaccion<ListaUtilidad>() {
+			@Override
+			protected ListaUtilidad ejecutar() throws Exception {
+				ListaUtilidad remL = utilidad(nombre, fechaI, fechaF);
+
+				try
+				{
+					ListaUtilidad resp = dtm.getRemoteUtilidad(nombre, fechaI, fechaF);
+					remL.getUtilidades().addAll(resp.getUtilidades());
+				}
+				catch(NonReplyException e)
+				{
+					LOG.warn("Sin respuesta de las otras rotondas: {}", e.getMessage());
+				}
+				return remL;
 			}
-			return remL;
-		}
+		});
+	}
 	
-	public void deleteRestauranteRemote(String nombre) throws Exception {
-		
-		deleteRestauranteRemote(nombre);
-
-		try
-		{
-			dtm.getRemoteDelete(nombre);
-		}
-		catch(NonReplyException e)
-		{
-			e.printStackTrace();
-		}
+	public void deleteRestauranteRemote(final String nombre) throws Exception {
+		ejecutor.ejecutar("deleteRestauranteRemote", Modo.SIN_CONEXION, new Transaccion<Void>() {
+			@Override
+			protected Void ejecutar() throws Exception {
+				deleteRestaurante(nombre);
+
+				try
+				{
+					dtm.getRemoteDelete(nombre);
+				}
+				catch(NonReplyException e)
+				{
+					LOG.warn("Sin respuesta de las otras rotondas: {}", e.getMessage());
+				}
+				return null;
+			}
+		});
 	}
 }
 
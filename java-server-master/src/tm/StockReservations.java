@@ -0,0 +1,479 @@
+package tm;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dao.DAOTablaReservas;
+import log.Logger;
+import vos.EstadisticasStock;
+
+/**
+ * Reservas de existencias (RESTAURANTE_PRODUCTO.DISPONIBLES) en memoria.
+ * Un pedido reserva sus unidades contra contadores atomicos repartidos en celdas y deja la reserva en la bitacora
+ * STOCK_RESERVA dentro de su propia transaccion; asi ningun pedido toma el bloqueo de la fila del producto.
+ * Un hilo descarga la bitacora cada stock.intervaloDescarga milisegundos: reclama las reservas confirmadas,
+ * descuenta DISPONIBLES en un batch y borra el lote en la misma transaccion. Al arrancar se descarga lo que haya
+ * quedado en la bitacora, por eso una caida del servidor no pierde ni repite descuentos.
+ * Cada stock.intervaloReconciliacion milisegundos los contadores se comparan con la base de datos
+ * (DISPONIBLES recortado a MAXIMO menos lo pendiente en la bitacora) y se corrigen, lo que recoge los cambios
+ * hechos por fuera de la aplicacion. Los contadores son de este servidor: si varios servidores comparten la misma
+ * base de datos debe usarse stock.activo= false.
+ */
+public class StockReservations {
+
+	private static final Logger LOG = Logger.get(StockReservations.class);
+
+	/**
+	 * Atributo estatico que contiene el path relativo del archivo que tiene los datos de la conexion
+	 */
+	private static final String CONNECTION_DATA_FILE_NAME_REMOTE = "/conexion.properties";
+
+	/**
+	 * Enteros por celda; cada celda ocupa su propia linea de cache de 64 bytes
+	 */
+	private static final int ANCHO_CELDA = 16;
+
+	private static final int UNIDADES = 0;
+
+	private static final int EN_VUELO = 1;
+
+	private static final int VERSION = 2;
+
+	/**
+	 * Unica instancia, creada por init(String)
+	 */
+	private static StockReservations instance;
+
+	private final ConnectionPool pool;
+
+	private final int celdas;
+
+	private final long intervaloReconciliacion;
+
+	private final ConcurrentHashMap<String, Existencias> existencias = new ConcurrentHashMap<String, Existencias>();
+
+	private final AtomicLong generacion = new AtomicLong();
+
+	private final ScheduledExecutorService descargas;
+
+	/**
+	 * Solo lo usa el hilo que descarga, dentro de descargar()
+	 */
+	private long ultimaReconciliacion;
+
+	private final AtomicLong reservas = new AtomicLong();
+	private final AtomicLong rechazos = new AtomicLong();
+	private final AtomicLong liberadas = new AtomicLong();
+	private final AtomicLong lotes = new AtomicLong();
+	private final AtomicLong unidadesDescargadas = new AtomicLong();
+	private final AtomicLong ajustes = new AtomicLong();
+	private final AtomicLong erroresDescarga = new AtomicLong();
+
+	/**
+	 * Crea las reservas, descarga lo que haya quedado pendiente en la bitacora y programa las descargas periodicas.
+	 * @param pool - pool del que se toman las conexiones para descargar
+	 * @param celdas - numero de celdas por producto, se redondea a una potencia de 2
+	 * @param intervaloDescarga - milisegundos entre descargas de la bitacora
+	 * @param intervaloReconciliacion - milisegundos entre comparaciones de los contadores con la base de datos
+	 */
+	public StockReservations(ConnectionPool pool, int celdas, long intervaloDescarga, long intervaloReconciliacion) {
+		this.pool = pool;
+		int n = 1;
+		while(n < celdas)
+			n <<= 1;
+		this.celdas = n;
+		this.intervaloReconciliacion = intervaloReconciliacion;
+		this.ultimaReconciliacion = System.currentTimeMillis();
+		descargar();
+
+		descargas = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "rotondandes-stock");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		descargas.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				descargar();
+			}
+		}, intervaloDescarga, intervaloDescarga, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Crea las reservas de la aplicacion con los parametros stock.* del archivo conexion.properties.
+	 * Necesita que el ConnectionPool ya este inicializado. Si la tabla STOCK_RESERVA no existe (falta correr
+	 * Docs/Reservas.sql) no crea las reservas y los pedidos siguen descontando las existencias directamente.
+	 * @param path - path absoluto de la carpeta WEB-INF/ConnectionData
+	 * @return las reservas creadas, o null si stock.activo es false o no existe la bitacora
+	 * @throws Exception - si no se puede leer la configuracion o no hay pool de conexiones
+	 */
+	public static synchronized StockReservations init(String path) throws Exception {
+		if(instance == null) {
+			Properties prop = new Properties();
+			FileInputStream in = new FileInputStream(new File(path + CONNECTION_DATA_FILE_NAME_REMOTE));
+			try {
+				prop.load(in);
+			} finally {
+				in.close();
+			}
+			if(!Boolean.parseBoolean(prop.getProperty("stock.activo", "true").trim()))
+				return null;
+			ConnectionPool pool = ConnectionPool.getInstance();
+			if(pool == null)
+				throw new Exception("Las reservas de existencias necesitan el pool de conexiones");
+			if(!existeBitacora(pool)) {
+				LOG.warn("stock.activo= true pero no existe la tabla STOCK_RESERVA (ver Docs/Reservas.sql): "
+						+ "los pedidos descuentan las existencias directamente");
+				return null;
+			}
+			int celdas = Integer.parseInt(prop.getProperty("stock.celdas", "8").trim());
+			long intervaloDescarga = Long.parseLong(prop.getProperty("stock.intervaloDescarga", "1000").trim());
+			long intervaloReconciliacion = Long.parseLong(prop.getProperty("stock.intervaloReconciliacion", "30000").trim());
+			instance = new StockReservations(pool, celdas, intervaloDescarga, intervaloReconciliacion);
+		}
+		return instance;
+	}
+
+	/**
+	 * @return true si la bitacora STOCK_RESERVA se puede consultar con una conexion del pool
+	 */
+	private static boolean existeBitacora(ConnectionPool pool) throws SQLException {
+		Connection conn = pool.getConnection();
+		DAOTablaReservas dao = new DAOTablaReservas();
+		try {
+			dao.setConn(conn);
+			return dao.existeBitacora();
+		} finally {
+			dao.cerrarRecursos();
+			conn.close();
+		}
+	}
+
+	/**
+	 * @return las reservas de la aplicacion o null si no se han inicializado, en cuyo caso los pedidos
+	 * descuentan las existencias directamente en la base de datos
+	 */
+	public static StockReservations getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Detiene las descargas periodicas y descarga por ultima vez la bitacora.
+	 */
+	public void close() {
+		descargas.shutdownNow();
+		try {
+			descargas.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		descargar();
+		synchronized(StockReservations.class) {
+			if(instance == this)
+				instance = null;
+		}
+	}
+
+	/**
+	 * Reserva unidades de un producto o menu sin tocar RESTAURANTE_PRODUCTO. Quien reserva debe registrar la reserva
+	 * en STOCK_RESERVA en su transaccion y despues del commit llamar confirmar(), o liberar() si la transaccion falla.
+	 * @param conn - conexion de la transaccion, se usa solo si hay que cargar las existencias del producto
+	 * @param nombre - nombre del producto o menu
+	 * @param cantidad - unidades a reservar
+	 * @return la reserva, o null si el producto no existe o no alcanzan las existencias
+	 * @throws SQLException - si no se pueden cargar las existencias del producto
+	 */
+	public Reserva reservar(Connection conn, String nombre, int cantidad) throws SQLException {
+		Existencias e = obtener(conn, nombre);
+		if(e == null) {
+			rechazos.incrementAndGet();
+			return null;
+		}
+		int propia = (int) Thread.currentThread().getId() & (celdas - 1);
+		e.sumar(propia, VERSION, 1);
+		e.sumar(propia, EN_VUELO, cantidad);
+		int[] tomadas = new int[celdas];
+		int faltan = cantidad;
+		for(int k = 0; k < celdas && faltan > 0; k++) {
+			int celda = (propia + k) & (celdas - 1);
+			int t = e.tomar(celda, faltan);
+			tomadas[celda] += t;
+			faltan -= t;
+		}
+		if(faltan > 0) {
+			e.sumar(propia, VERSION, 1);
+			e.devolver(tomadas);
+			e.sumar(propia, EN_VUELO, -cantidad);
+			rechazos.incrementAndGet();
+			return null;
+		}
+		reservas.incrementAndGet();
+		return new Reserva(e, propia, cantidad, tomadas);
+	}
+
+	/**
+	 * Olvida los contadores de un producto o menu; se vuelven a cargar de la base de datos en la siguiente reserva.
+	 * @param nombre - nombre del producto o menu que cambio
+	 */
+	public void invalidar(String nombre) {
+		generacion.incrementAndGet();
+		existencias.remove(nombre);
+	}
+
+	/**
+	 * Olvida los contadores de todos los productos.
+	 */
+	public void invalidarTodo() {
+		generacion.incrementAndGet();
+		existencias.clear();
+	}
+
+	/**
+	 * Descarga la bitacora a RESTAURANTE_PRODUCTO y, si ya toca, reconcilia los contadores con la base de datos.
+	 * Si falla la transaccion se deshace completa y el lote se vuelve a intentar en la siguiente descarga.
+	 */
+	public synchronized void descargar() {
+		Connection conn = null;
+		DAOTablaReservas dao = new DAOTablaReservas();
+		try {
+			conn = pool.getConnection();
+			conn.setAutoCommit(false);
+			dao.setConn(conn);
+			long lote = UUID.randomUUID().getMostSignificantBits();
+			if(dao.reclamarLote(lote) > 0) {
+				Map<String, Integer> unidades = dao.darLote(lote);
+				dao.aplicarLote(unidades);
+				dao.borrarLote(lote);
+				conn.commit();
+				lotes.incrementAndGet();
+				for(Integer u : unidades.values())
+					unidadesDescargadas.addAndGet(u);
+			}
+			long ahora = System.currentTimeMillis();
+			if(ahora - ultimaReconciliacion >= intervaloReconciliacion) {
+				reconciliar(conn, dao);
+				ultimaReconciliacion = ahora;
+			}
+		} catch (SQLException e) {
+			erroresDescarga.incrementAndGet();
+			LOG.error("SQLException descargando reservas de existencias: {}", e.getMessage());
+			try {
+				if(conn != null)
+					conn.rollback();
+			} catch (SQLException e2) {
+				LOG.error("SQLException rolling back: {}", e2.getMessage());
+			}
+		} finally {
+			dao.cerrarRecursos();
+			try {
+				if(conn != null)
+					conn.close();
+			} catch (SQLException e) {
+				LOG.error("SQLException closing resources: {}", e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Compara cada contador con DISPONIBLES (recortado a MAXIMO) menos lo pendiente en la bitacora.
+	 * Un producto solo se corrige si no tiene reservas en curso y nadie reservo mientras se leia la base de datos;
+	 * si no, se deja para la siguiente reconciliacion.
+	 */
+	private void reconciliar(Connection conn, DAOTablaReservas dao) throws SQLException {
+		for(Existencias e : existencias.values()) {
+			int version = e.leer(VERSION);
+			int[] fila = dao.darExistencias(e.nombre);
+			if(fila == null) {
+				existencias.remove(e.nombre, e);
+				continue;
+			}
+			int disponibles = fila[0];
+			if(disponibles > fila[1]) {
+				dao.ajustarAMaximo(e.nombre);
+				disponibles = fila[1];
+				ajustes.incrementAndGet();
+			}
+			int pendientes = dao.darReservasPendientes(e.nombre);
+			conn.commit();
+			if(e.leer(EN_VUELO) != 0)
+				continue;
+			int enMemoria = e.leer(UNIDADES);
+			if(e.leer(VERSION) != version)
+				continue;
+			int diferencia = Math.max(0, disponibles - pendientes) - enMemoria;
+			if(diferencia > 0)
+				e.devolver(diferencia);
+			else if(diferencia < 0)
+				e.quitar(-diferencia);
+			if(diferencia != 0) {
+				ajustes.incrementAndGet();
+				LOG.info("Reconciliacion de existencias de {}: {}", e.nombre, diferencia);
+			}
+		}
+	}
+
+	/**
+	 * @return EstadisticasStock - contadores de reservas, descargas y ajustes
+	 */
+	public EstadisticasStock darEstadisticas() {
+		long disponibles = 0;
+		for(Existencias e : existencias.values())
+			disponibles += e.leer(UNIDADES);
+		return new EstadisticasStock(existencias.size(), disponibles, reservas.get(), rechazos.get(), liberadas.get(),
+				lotes.get(), unidadesDescargadas.get(), ajustes.get(), erroresDescarga.get());
+	}
+
+	/**
+	 * Da los contadores de un producto, cargandolos de la base de datos si no estan en memoria.
+	 */
+	private Existencias obtener(Connection conn, String nombre) throws SQLException {
+		Existencias e = existencias.get(nombre);
+		if(e != null)
+			return e;
+		long generacionLectura = generacion.get();
+		DAOTablaReservas dao = new DAOTablaReservas();
+		dao.setConn(conn);
+		try {
+			int[] fila = dao.darExistencias(nombre);
+			if(fila == null)
+				return null;
+			int pendientes = dao.darReservasPendientes(nombre);
+			Existencias nuevas = new Existencias(nombre);
+			nuevas.devolver(Math.max(0, Math.min(fila[0], fila[1]) - pendientes));
+			e = existencias.putIfAbsent(nombre, nuevas);
+			if(e != null)
+				return e;
+			if(generacion.get() != generacionLectura)
+				existencias.remove(nombre, nuevas);
+			return nuevas;
+		} finally {
+			dao.cerrarRecursos();
+		}
+	}
+
+	/**
+	 * Contadores de un producto: por celda las unidades disponibles, las unidades reservadas sin confirmar
+	 * y una version que cambia con cada reserva, confirmacion o liberacion.
+	 */
+	private final class Existencias {
+
+		private final String nombre;
+
+		private final AtomicIntegerArray valores = new AtomicIntegerArray(celdas * ANCHO_CELDA);
+
+		private Existencias(String nombre) {
+			this.nombre = nombre;
+		}
+
+		private void sumar(int celda, int campo, int delta) {
+			valores.addAndGet(celda * ANCHO_CELDA + campo, delta);
+		}
+
+		private int leer(int campo) {
+			int total = 0;
+			for(int c = 0; c < celdas; c++)
+				total += valores.get(c * ANCHO_CELDA + campo);
+			return total;
+		}
+
+		/**
+		 * Toma a lo sumo maximo unidades de una celda.
+		 * @return unidades tomadas
+		 */
+		private int tomar(int celda, int maximo) {
+			int i = celda * ANCHO_CELDA + UNIDADES;
+			while(true) {
+				int actual = valores.get(i);
+				if(actual <= 0)
+					return 0;
+				int t = Math.min(actual, maximo);
+				if(valores.compareAndSet(i, actual, actual - t))
+					return t;
+			}
+		}
+
+		private void devolver(int[] tomadas) {
+			for(int c = 0; c < tomadas.length; c++)
+				if(tomadas[c] > 0)
+					sumar(c, UNIDADES, tomadas[c]);
+		}
+
+		/**
+		 * Reparte unidades entre las celdas.
+		 */
+		private void devolver(int unidades) {
+			int parte = unidades / celdas;
+			for(int c = 0; c < celdas; c++)
+				sumar(c, UNIDADES, c == 0 ? parte + unidades % celdas : parte);
+		}
+
+		/**
+		 * Quita unidades de las celdas que tengan.
+		 */
+		private void quitar(int unidades) {
+			for(int c = 0; c < celdas && unidades > 0; c++)
+				unidades -= tomar(c, unidades);
+		}
+	}
+
+	/**
+	 * Unidades reservadas por una transaccion. Se cierra una sola vez, con confirmar() o liberar().
+	 */
+	public final class Reserva {
+
+		private final Existencias existencias;
+
+		private final int celda;
+
+		private final int cantidad;
+
+		private final int[] tomadas;
+
+		private final AtomicBoolean terminada = new AtomicBoolean();
+
+		private Reserva(Existencias existencias, int celda, int cantidad, int[] tomadas) {
+			this.existencias = existencias;
+			this.celda = celda;
+			this.cantidad = cantidad;
+			this.tomadas = tomadas;
+		}
+
+		/**
+		 * Se llama despues del commit de la transaccion que registro la reserva en STOCK_RESERVA.
+		 */
+		public void confirmar() {
+			if(terminada.compareAndSet(false, true)) {
+				existencias.sumar(celda, VERSION, 1);
+				existencias.sumar(celda, EN_VUELO, -cantidad);
+			}
+		}
+
+		/**
+		 * Devuelve las unidades si la transaccion no hizo commit. No hace nada si la reserva ya se confirmo.
+		 */
+		public void liberar() {
+			if(terminada.compareAndSet(false, true)) {
+				existencias.sumar(celda, VERSION, 1);
+				existencias.devolver(tomadas);
+				existencias.sumar(celda, EN_VUELO, -cantidad);
+				liberadas.incrementAndGet();
+			}
+		}
+	}
+}
@@ -0,0 +1,290 @@
+package tm;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dao.DAO;
+import dao.TransactionContext;
+import log.Logger;
+import metrics.FlightEvents;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import metrics.StripedCounter;
+import trace.Span;
+import trace.Tracer;
+import vos.EstadisticasTransaccion;
+
+/**
+ * Ejecuta las transacciones de RotondAndesTm con las mismas reglas para todas:
+ * <ul>
+ * <li>LECTURA: la conexion se marca de solo lectura y no se confirma nada.</li>
+ * <li>ESCRITURA: la conexion sale de autocommit; se hace commit si la transaccion termina y rollback si falla.</li>
+ * <li>SIN_CONEXION: la operacion no toca la base de datos directamente (cache o consultas a otras rotondas),
+ * solo se mide.</li>
+ * </ul>
+ * Cada sentencia que los DAO preparan dentro de la transaccion recibe el timeout de la transaccion: tx.timeoutLectura
+ * o tx.timeoutEscritura segundos segun el modo, o tx.timeout.&lt;nombre&gt; si la transaccion tiene uno propio.
+ * Por cada nombre se guardan ejecuciones, errores, tiempos y filas leidas y modificadas; la latencia tambien queda en
+ * el histograma rotondandes_tm_transaction_seconds de /rest/metrics y, si se esta grabando con JFR, en un evento
+ * rotondandes.Transaccion. Si el hilo esta dentro de una traza (trace.Tracer) la transaccion es un tramo de tipo tm.
+ */
+public class TransactionExecutor {
+
+	private static final Logger LOG = Logger.get(TransactionExecutor.class);
+
+	/**
+	 * Modo en el que se ejecuta una transaccion
+	 */
+	public enum Modo {
+		LECTURA, ESCRITURA, SIN_CONEXION
+	}
+
+	/**
+	 * Trabajo de una transaccion. Los DAO que usa se piden con usar(), que les asigna la conexion de la transaccion
+	 * y los cierra al terminar.
+	 * @param <T> - tipo del resultado de la transaccion
+	 */
+	public abstract static class Transaccion<T> {
+
+		private Connection conn;
+
+		private final List<DAO> daos = new ArrayList<DAO>(2);
+
+		/**
+		 * @param dao - DAO nuevo
+		 * @return el mismo DAO con la conexion de la transaccion
+		 */
+		protected <D extends DAO> D usar(D dao) {
+			if(conn == null)
+				throw new IllegalStateException("La transaccion no tiene conexion");
+			dao.setConn(conn);
+			daos.add(dao);
+			return dao;
+		}
+
+		/**
+		 * @return la conexion de la transaccion, null en modo SIN_CONEXION
+		 */
+		protected Connection getConn() {
+			return conn;
+		}
+
+		/**
+		 * Ejecuta la transaccion. No debe confirmar ni cerrar la conexion.
+		 * @return el resultado de la transaccion
+		 * @throws Exception - cualquier error, con el mensaje para el cliente
+		 */
+		protected abstract T ejecutar() throws Exception;
+
+		private void cerrar() {
+			for(DAO dao : daos)
+				dao.cerrarRecursos();
+		}
+	}
+
+	private final String url;
+
+	private final String user;
+
+	private final String password;
+
+	private final int timeoutLectura;
+
+	private final int timeoutEscritura;
+
+	private final Properties prop;
+
+	private final ConcurrentHashMap<String, Contador> contadores = new ConcurrentHashMap<String, Contador>();
+
+	/**
+	 * @param prop - propiedades de conexion.properties
+	 * @throws ClassNotFoundException - si no se puede cargar el driver
+	 */
+	public TransactionExecutor(Properties prop) throws ClassNotFoundException {
+		this.prop = prop;
+		this.url = prop.getProperty("url");
+		this.user = prop.getProperty("usuario");
+		this.password = prop.getProperty("clave");
+		this.timeoutLectura = Integer.parseInt(prop.getProperty("tx.timeoutLectura", "30").trim());
+		this.timeoutEscritura = Integer.parseInt(prop.getProperty("tx.timeoutEscritura", "15").trim());
+		Class.forName(prop.getProperty("driver"));
+	}
+
+	/**
+	 * Ejecuta una transaccion.
+	 * @param nombre - nombre de la transaccion en las estadisticas y en tx.timeout.&lt;nombre&gt;
+	 * @param modo - modo de la transaccion
+	 * @param transaccion - trabajo de la transaccion
+	 * @return el resultado de la transaccion
+	 * @throws Exception - el error de la transaccion, despues de hacer rollback
+	 */
+	public <T> T ejecutar(String nombre, Modo modo, Transaccion<T> transaccion) throws Exception {
+		Contador contador = darContador(nombre, modo);
+		long inicio = System.nanoTime();
+		Object evento = FlightEvents.iniciarTransaccion();
+		Span span = Tracer.iniciar(nombre, "tm");
+		TransactionContext contexto = TransactionContext.iniciar(contador.timeout);
+		Connection conn = null;
+		boolean exito = false;
+		try {
+			if(modo != Modo.SIN_CONEXION) {
+				conn = darConexion();
+				if(modo == Modo.LECTURA)
+					conn.setReadOnly(true);
+				else
+					conn.setAutoCommit(false);
+				transaccion.conn = conn;
+			}
+			T resultado = transaccion.ejecutar();
+			if(modo == Modo.ESCRITURA)
+				conn.commit();
+			exito = true;
+			return resultado;
+		} catch (SQLException e) {
+			LOG.error("SQLException en {}: {}", nombre, e.getMessage(), e);
+			rollback(conn, modo);
+			throw e;
+		} catch (Exception e) {
+			LOG.warn("GeneralException en {}: {}", nombre, e.getMessage());
+			LOG.debug("Pila de la excepcion de {}", nombre, e);
+			rollback(conn, modo);
+			throw e;
+		} finally {
+			transaccion.cerrar();
+			try {
+				if(conn!=null)
+					conn.close();
+			} catch (SQLException exception) {
+				LOG.error("SQLException closing resources: {}", exception.getMessage(), exception);
+			}
+			contexto.terminar();
+			contador.registrar(System.nanoTime() - inicio, exito, contexto);
+			FlightEvents.transaccion(evento, nombre, modo.name(), exito, contexto.getFilasLeidas(), contexto.getFilasAfectadas());
+			if(span != null)
+				span.atributo("modo", modo.name()).atributo("filasLeidas", contexto.getFilasLeidas())
+						.atributo("filasAfectadas", contexto.getFilasAfectadas());
+			Tracer.terminar(span, !exito);
+		}
+	}
+
+	/**
+	 * @return EstadisticasTransaccion de cada transaccion ejecutada, de mayor a menor tiempo total
+	 */
+	public List<EstadisticasTransaccion> darEstadisticas() {
+		List<EstadisticasTransaccion> estadisticas = new ArrayList<EstadisticasTransaccion>();
+		for(Contador c : contadores.values())
+			estadisticas.add(c.darEstadisticas());
+		Collections.sort(estadisticas, new Comparator<EstadisticasTransaccion>() {
+			@Override
+			public int compare(EstadisticasTransaccion a, EstadisticasTransaccion b) {
+				return Double.compare(b.getTotal(), a.getTotal());
+			}
+		});
+		return estadisticas;
+	}
+
+	/**
+	 * Metodo que  retorna una conexion a la base de datos. Si startup.ContextListener ya creo el pool
+	 * la conexion sale de ahi y cerrarla la devuelve al pool.
+	 * @return Connection - la conexion a la base de datos
+	 * @throws SQLException - Cualquier error que se genere durante la conexion a la base de datos
+	 */
+	private Connection darConexion() throws SQLException {
+		ConnectionPool pool = ConnectionPool.getInstance();
+		if(pool != null)
+			return pool.getConnection();
+		LOG.debug("Connecting to: {} With user: {}", url, user);
+		return DriverManager.getConnection(url, user, password);
+	}
+
+	/**
+	 * Deshace una transaccion de escritura sin ocultar el error que la hizo fallar.
+	 */
+	private static void rollback(Connection conn, Modo modo) {
+		if(conn == null || modo != Modo.ESCRITURA)
+			return;
+		try {
+			conn.rollback();
+		} catch (SQLException e) {
+			LOG.error("SQLException rolling back: {}", e.getMessage());
+		}
+	}
+
+	private Contador darContador(String nombre, Modo modo) {
+		Contador contador = contadores.get(nombre);
+		if(contador == null) {
+			String propio = prop.getProperty("tx.timeout." + nombre);
+			int timeout = propio != null ? Integer.parseInt(propio.trim())
+					: modo == Modo.ESCRITURA ? timeoutEscritura : timeoutLectura;
+			Contador nuevo = new Contador(nombre, modo, modo == Modo.SIN_CONEXION && propio == null ? 0 : timeout);
+			contador = contadores.putIfAbsent(nombre, nuevo);
+			if(contador == null)
+				contador = nuevo;
+		}
+		return contador;
+	}
+
+	/**
+	 * Contadores de un nombre de transaccion
+	 */
+	private static class Contador {
+
+		private final String nombre;
+
+		private final Modo modo;
+
+		private final int timeout;
+
+		private final LatencyHistogram latencia;
+		private final StripedCounter errores;
+		private final StripedCounter nanosTotal = new StripedCounter();
+		private final AtomicLong nanosMaximo = new AtomicLong();
+		private final StripedCounter filasLeidas;
+		private final StripedCounter filasAfectadas;
+
+		private Contador(String nombre, Modo modo, int timeout) {
+			this.nombre = nombre;
+			this.modo = modo;
+			this.timeout = timeout;
+			Metrics metrics = Metrics.getInstance();
+			latencia = metrics.histograma("rotondandes_tm_transaction_seconds", "Duracion de las transacciones de RotondAndesTm",
+					"transaccion", nombre, "modo", modo.name());
+			errores = metrics.contador("rotondandes_tm_errors_total", "Transacciones de RotondAndesTm que terminaron en error",
+					"transaccion", nombre);
+			filasLeidas = metrics.contador("rotondandes_tm_rows_total", "Filas leidas y modificadas por las transacciones",
+					"transaccion", nombre, "tipo", "leidas");
+			filasAfectadas = metrics.contador("rotondandes_tm_rows_total", "Filas leidas y modificadas por las transacciones",
+					"transaccion", nombre, "tipo", "afectadas");
+		}
+
+		private void registrar(long nanos, boolean exito, TransactionContext contexto) {
+			latencia.registrar(nanos);
+			if(!exito)
+				errores.increment();
+			nanosTotal.add(nanos);
+			long maximo;
+			while(nanos > (maximo = nanosMaximo.get()) && !nanosMaximo.compareAndSet(maximo, nanos));
+			if(contexto.getFilasLeidas() > 0)
+				filasLeidas.add(contexto.getFilasLeidas());
+			if(contexto.getFilasAfectadas() > 0)
+				filasAfectadas.add(contexto.getFilasAfectadas());
+		}
+
+		private EstadisticasTransaccion darEstadisticas() {
+			LatencyHistogram.Instantanea h = latencia.instantanea();
+			long n = h.darTotal();
+			double total = nanosTotal.sum() / 1e6;
+			return new EstadisticasTransaccion(nombre, modo.name(), timeout, n, errores.sum(), n == 0 ? 0 : total / n,
+					h.darPercentil(0.5) / 1e3, h.darPercentil(0.99) / 1e3, nanosMaximo.get() / 1e6, total,
+					filasLeidas.sum(), filasAfectadas.sum());
+		}
+	}
+}
@@ -0,0 +1,211 @@
+package tm;
+
+import java.lang.reflect.Method;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import log.Logger;
+
+/**
+ * Hilos en los que corre el trabajo bloqueante (JDBC y esperas a los pares) que no debe ocupar los hilos del
+ * contenedor ni el de entrega de JMS. Tiene dos modos, que se eligen con hilos.modo en conexion.properties:
+ * <ul>
+ * <li>plataforma: un pool fijo de hilos con una cola acotada.</li>
+ * <li>virtual: un hilo virtual por tarea. Las tareas que corren al tiempo las limita un semaforo del tamano del pool
+ * de conexiones (pool.maximo), asi la concurrencia depende de la base de datos y no del numero de hilos. Requiere una
+ * JVM con hilos virtuales (Java 21); en una anterior se usa el modo plataforma.</li>
+ * </ul>
+ * En ambos modos se rechazan con RejectedExecutionException las tareas que no caben en la cola.
+ */
+public class WorkerThreads {
+
+	private static final Logger LOG = Logger.get(WorkerThreads.class);
+
+	public static final String PLATAFORMA = "plataforma";
+
+	public static final String VIRTUAL = "virtual";
+
+	private final String nombre;
+
+	private final ExecutorService ejecutor;
+
+	/**
+	 * Permisos para correr en modo virtual; null en modo plataforma
+	 */
+	private final Semaphore permisos;
+
+	/**
+	 * Tareas que pueden estar pendientes en modo virtual, corriendo o esperando permiso
+	 */
+	private final int limite;
+
+	private final AtomicInteger pendientes = new AtomicInteger();
+
+	private WorkerThreads(String nombre, ExecutorService ejecutor, Semaphore permisos, int limite) {
+		this.nombre = nombre;
+		this.ejecutor = ejecutor;
+		this.permisos = permisos;
+		this.limite = limite;
+	}
+
+	/**
+	 * @param nombre - prefijo del nombre de los hilos
+	 * @param hilos - hilos del pool
+	 * @param cola - tareas que pueden esperar un hilo libre
+	 * @return hilos de trabajo en modo plataforma
+	 */
+	public static WorkerThreads plataforma(final String nombre, int hilos, int cola) {
+		final AtomicInteger numero = new AtomicInteger();
+		ThreadPoolExecutor ejecutor = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(cola), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, nombre + "-" + numero.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		ejecutor.allowCoreThreadTimeOut(true);
+		return new WorkerThreads(nombre, ejecutor, null, hilos + cola);
+	}
+
+	/**
+	 * @param nombre - prefijo del nombre de los hilos
+	 * @param simultaneas - tareas que pueden correr al tiempo
+	 * @param cola - tareas que pueden esperar permiso
+	 * @return hilos de trabajo en modo virtual
+	 * @throws UnsupportedOperationException - si la JVM no tiene hilos virtuales
+	 */
+	public static WorkerThreads virtuales(String nombre, int simultaneas, int cola) {
+		return new WorkerThreads(nombre, ejecutorVirtual(nombre), new Semaphore(simultaneas), simultaneas + cola);
+	}
+
+	/**
+	 * Crea los hilos de trabajo segun hilos.modo. En modo virtual corren al tiempo tantas tareas como conexiones tiene
+	 * el pool (pool.maximo).
+	 * @param nombre - prefijo del nombre de los hilos
+	 * @param prop - conexion.properties
+	 * @param hilos - hilos del pool en modo plataforma
+	 * @param cola - tareas que pueden esperar
+	 * @return los hilos de trabajo
+	 */
+	public static WorkerThreads crear(String nombre, Properties prop, int hilos, int cola) {
+		if(esVirtual(prop))
+			return virtuales(nombre, Integer.parseInt(prop.getProperty("pool.maximo", "20").trim()), cola);
+		return plataforma(nombre, hilos, cola);
+	}
+
+	/**
+	 * @param prop - conexion.properties
+	 * @return true si hilos.modo es virtual y la JVM tiene hilos virtuales
+	 */
+	public static boolean esVirtual(Properties prop) {
+		String modo = prop.getProperty("hilos.modo", PLATAFORMA).trim();
+		if(!modo.equals(VIRTUAL))
+			return false;
+		if(hayHilosVirtuales())
+			return true;
+		LOG.warn("hilos.modo=virtual necesita Java 21 o posterior; se usan hilos de plataforma en {}", System.getProperty("java.version"));
+		return false;
+	}
+
+	/**
+	 * @return true si la JVM tiene hilos virtuales
+	 */
+	public static boolean hayHilosVirtuales() {
+		try {
+			Thread.class.getMethod("ofVirtual");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Envia una tarea a los hilos de trabajo.
+	 * @param tarea - trabajo que se ejecuta en otro hilo
+	 * @return el futuro de la tarea, que se puede cancelar
+	 * @throws RejectedExecutionException - si la cola esta llena o los hilos se detuvieron
+	 */
+	public Future<?> enviar(final Runnable tarea) {
+		if(permisos == null)
+			return ejecutor.submit(tarea);
+		if(pendientes.incrementAndGet() > limite) {
+			pendientes.decrementAndGet();
+			throw new RejectedExecutionException(nombre + ": " + limite + " tareas pendientes");
+		}
+		FutureTask<Void> futuro = new FutureTask<Void>(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					permisos.acquire();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				try {
+					tarea.run();
+				} finally {
+					permisos.release();
+				}
+			}
+		}, null) {
+			/**
+			 * Devuelve el puesto al terminar, fallar o cancelarse, tambien si se cancela antes de empezar a correr.
+			 */
+			@Override
+			protected void done() {
+				pendientes.decrementAndGet();
+			}
+		};
+		try {
+			ejecutor.execute(futuro);
+			return futuro;
+		} catch (RejectedExecutionException e) {
+			pendientes.decrementAndGet();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return plataforma o virtual
+	 */
+	public String getModo() {
+		return permisos == null ? PLATAFORMA : VIRTUAL;
+	}
+
+	/**
+	 * Detiene los hilos; las tareas en curso se interrumpen.
+	 */
+	public void close() {
+		ejecutor.shutdownNow();
+	}
+
+	/**
+	 * Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(nombre + "-", 1).factory()), por reflexion para que
+	 * el proyecto siga compilando con Java 7.
+	 */
+	private static ExecutorService ejecutorVirtual(String nombre) {
+		try {
+			Object constructor = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			constructor = builder.getMethod("name", String.class, long.class).invoke(constructor, nombre + "-", 1L);
+			ThreadFactory fabrica = (ThreadFactory) builder.getMethod("factory").invoke(constructor);
+			Method porTarea = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			return (ExecutorService) porTarea.invoke(null, fabrica);
+		} catch (NoSuchMethodException e) {
+			throw new UnsupportedOperationException("La JVM no tiene hilos virtuales", e);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("No se pudo crear el ejecutor de hilos virtuales", e);
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package trace;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import log.Logger;
+
+/**
+ * Escribe los tramos terminados en un archivo, un objeto JSON por linea:
+ * {"traza":..,"span":..,"padre":..,"nodo":..,"nombre":..,"tipo":..,"inicio":..,"duracion":..,"error":..,"atributos":{..}}
+ * con inicio en microsegundos desde 1970 y duracion en microsegundos.
+ * Los hilos que terminan tramos solo los ponen en una cola acotada; un hilo propio los escribe. Si la cola esta llena
+ * el tramo se descarta y se cuenta, para que un disco lento no frene las llamadas.
+ */
+public class FileSpanExporter {
+
+	private static final Logger LOG = Logger.get(FileSpanExporter.class);
+
+	private final String nodo;
+
+	private final ArrayBlockingQueue<Span> cola;
+
+	private final AtomicLong descartados = new AtomicLong();
+
+	private final Writer writer;
+
+	private final Thread hilo;
+
+	private volatile boolean activo = true;
+
+	/**
+	 * @param archivo - archivo al que se agregan los tramos
+	 * @param nodo - nombre del nodo en cada tramo
+	 * @param capacidad - tramos que pueden esperar en la cola
+	 * @throws IOException - si no se puede abrir el archivo
+	 */
+	public FileSpanExporter(File archivo, String nodo, int capacidad) throws IOException {
+		this.nodo = nodo;
+		this.cola = new ArrayBlockingQueue<Span>(capacidad);
+		this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(archivo, true), "UTF-8"));
+		this.hilo = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				escribir();
+			}
+		}, "exportador-trazas");
+		hilo.setDaemon(true);
+		hilo.start();
+	}
+
+	/**
+	 * @param span - tramo terminado
+	 */
+	void exportar(Span span) {
+		if(!activo || !cola.offer(span))
+			descartados.incrementAndGet();
+	}
+
+	long darDescartados() {
+		return descartados.get();
+	}
+
+	/**
+	 * Escribe lo que queda en la cola y cierra el archivo.
+	 */
+	void close() {
+		activo = false;
+		try {
+			hilo.join(5000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void escribir() {
+		StringBuilder b = new StringBuilder(512);
+		try {
+			while(activo || !cola.isEmpty()) {
+				Span span = cola.poll(200, TimeUnit.MILLISECONDS);
+				if(span == null)
+					continue;
+				b.setLength(0);
+				formatear(span, b);
+				writer.write(b.toString());
+				if(cola.isEmpty())
+					writer.flush();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			LOG.error("IOException escribiendo trazas: {}", e.getMessage());
+		} finally {
+			try {
+				writer.close();
+			} catch (IOException e) {
+				LOG.error("IOException cerrando archivo de trazas: {}", e.getMessage());
+			}
+		}
+	}
+
+	private void formatear(Span span, StringBuilder b) {
+		b.append("{\"traza\":");
+		texto(span.getTraza(), b);
+		b.append(",\"span\":");
+		texto(span.getId(), b);
+		b.append(",\"padre\":");
+		texto(span.getPadre(), b);
+		b.append(",\"nodo\":");
+		texto(nodo, b);
+		b.append(",\"nombre\":");
+		texto(span.getNombre(), b);
+		b.append(",\"tipo\":");
+		texto(span.getTipo(), b);
+		b.append(",\"inicio\":").append(span.getInicio());
+		b.append(",\"duracion\":").append(span.getDuracion());
+		b.append(",\"error\":").append(span.isError());
+		List<String> atributos = span.getAtributos();
+		if(atributos != null) {
+			b.append(",\"atributos\":{");
+			for(int i = 0; i < atributos.size(); i += 2) {
+				if(i > 0)
+					b.append(',');
+				texto(atributos.get(i), b);
+				b.append(':');
+				texto(atributos.get(i + 1), b);
+			}
+			b.append('}');
+		}
+		b.append("}\n");
+	}
+
+	private static void texto(String s, StringBuilder b) {
+		if(s == null) {
+			b.append("null");
+			return;
+		}
+		b.append('"');
+		for(int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if(c == '"' || c == '\\')
+				b.append('\\').append(c);
+			else if(c == '\n')
+				b.append("\\n");
+			else if(c == '\r')
+				b.append("\\r");
+			else if(c == '\t')
+				b.append("\\t");
+			else if(c < 0x20)
+				b.append(String.format("\\u%04x", (int) c));
+			else
+				b.append(c);
+		}
+		b.append('"');
+	}
+}
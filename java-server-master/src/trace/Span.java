@@ -0,0 +1,112 @@
+package trace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tramo medido de una traza: una llamada REST, una transaccion, una ejecucion de SQL o un mensaje JMS.
+ * Los tramos de un hilo forman una pila; el que se inicia mientras otro esta abierto queda como su hijo.
+ * Se crean y terminan con Tracer.
+ */
+public class Span {
+
+	private final String traza;
+
+	private final String id;
+
+	private final String padre;
+
+	private final String nombre;
+
+	private final String tipo;
+
+	/**
+	 * Microsegundos desde 1970 al iniciar, para ordenar tramos de distintos nodos
+	 */
+	private final long inicio;
+
+	private final long inicioNanos;
+
+	private long duracion;
+
+	private boolean error;
+
+	private List<String> atributos;
+
+	/**
+	 * Tramo que estaba abierto en el hilo cuando se inicio este
+	 */
+	final Span anterior;
+
+	Span(String traza, String id, String padre, String nombre, String tipo, Span anterior) {
+		this.traza = traza;
+		this.id = id;
+		this.padre = padre;
+		this.nombre = nombre;
+		this.tipo = tipo;
+		this.anterior = anterior;
+		this.inicio = System.currentTimeMillis() * 1000L;
+		this.inicioNanos = System.nanoTime();
+	}
+
+	/**
+	 * Agrega un atributo que se exporta con el tramo.
+	 * @param nombre - nombre del atributo
+	 * @param valor - valor del atributo
+	 * @return el mismo tramo
+	 */
+	public Span atributo(String nombre, Object valor) {
+		if(atributos == null)
+			atributos = new ArrayList<String>(4);
+		atributos.add(nombre);
+		atributos.add(valor == null ? null : valor.toString());
+		return this;
+	}
+
+	void terminar(boolean error) {
+		this.duracion = (System.nanoTime() - inicioNanos) / 1000L;
+		this.error = error;
+	}
+
+	public String getTraza() {
+		return traza;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getPadre() {
+		return padre;
+	}
+
+	public String getNombre() {
+		return nombre;
+	}
+
+	public String getTipo() {
+		return tipo;
+	}
+
+	public long getInicio() {
+		return inicio;
+	}
+
+	/**
+	 * @return duracion en microsegundos
+	 */
+	public long getDuracion() {
+		return duracion;
+	}
+
+	public boolean isError() {
+		return error;
+	}
+
+	/**
+	 * @return nombres y valores de los atributos intercalados, o null si no tiene
+	 */
+	List<String> getAtributos() {
+		return atributos;
+	}
+}
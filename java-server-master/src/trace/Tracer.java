@@ -0,0 +1,195 @@
+package trace;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.net.InetAddress;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Trazas de extremo a extremo de las llamadas a RotondAndes.
+ * rest.TraceFilter inicia una traza por cada llamada REST (o continua la del encabezado X-Trace-Id); dentro de ella
+ * el TransactionExecutor abre un tramo por transaccion, InstrumentedStatement uno por ejecucion de SQL y los MDB uno
+ * por cada ExchangeMsg que envian. El id de la traza y del tramo viajan en el ExchangeMsg, asi que el procesamiento
+ * en la rotonda que lo recibe queda en la misma traza. Cada nodo escribe sus tramos en su archivo (FileSpanExporter);
+ * juntando los archivos por traza se reconstruye el tiempo de una llamada en todos los nodos.
+ * Lo crea startup.ContextListener con los parametros traza.* de conexion.properties; sin el, o con traza.activa=
+ * false, los metodos de inicio retornan null y terminar(null, ...) no hace nada.
+ */
+public class Tracer {
+
+	/**
+	 * Atributo estatico que contiene el path relativo del archivo que tiene los datos de la conexion
+	 */
+	private static final String CONNECTION_DATA_FILE_NAME_REMOTE = "/conexion.properties";
+
+	private static final ThreadLocal<Span> ACTUAL = new ThreadLocal<Span>();
+
+	private static volatile Tracer instance;
+
+	private final String nodo;
+
+	private final FileSpanExporter exporter;
+
+	/**
+	 * @param nodo - nombre del nodo en los tramos exportados
+	 * @param exporter - destino de los tramos terminados
+	 */
+	public Tracer(String nodo, FileSpanExporter exporter) {
+		this.nodo = nodo;
+		this.exporter = exporter;
+	}
+
+	/**
+	 * Crea el trazador de la aplicacion con los parametros traza.* del archivo conexion.properties.
+	 * @param path - path absoluto de la carpeta WEB-INF/ConnectionData
+	 * @return el trazador creado, o null si traza.activa es false
+	 * @throws Exception - si no se puede leer la configuracion o abrir el archivo de tramos
+	 */
+	public static synchronized Tracer init(String path) throws Exception {
+		if(instance == null) {
+			Properties prop = new Properties();
+			FileInputStream in = new FileInputStream(new File(path + CONNECTION_DATA_FILE_NAME_REMOTE));
+			try {
+				prop.load(in);
+			} finally {
+				in.close();
+			}
+			if(!Boolean.parseBoolean(prop.getProperty("traza.activa", "true").trim()))
+				return null;
+			String nodo = prop.getProperty("traza.nodo", "").trim();
+			if(nodo.isEmpty())
+				nodo = InetAddress.getLocalHost().getHostName();
+			String archivo = prop.getProperty("traza.archivo", "").trim();
+			if(archivo.isEmpty())
+				archivo = new File(System.getProperty("java.io.tmpdir"), "rotondandes-trazas.jsonl").getPath();
+			int cola = Integer.parseInt(prop.getProperty("traza.cola", "10000").trim());
+			instance = new Tracer(nodo, new FileSpanExporter(new File(archivo), nodo, cola));
+		}
+		return instance;
+	}
+
+	/**
+	 * @return el trazador de la aplicacion o null si no esta activo
+	 */
+	public static Tracer getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Detiene el exportador despues de escribir los tramos pendientes.
+	 */
+	public static synchronized void close() {
+		if(instance != null) {
+			instance.exporter.close();
+			instance = null;
+		}
+	}
+
+	/**
+	 * Inicia un tramo sin padre en este hilo, o con un padre de otro nodo.
+	 * @param nombre - nombre del tramo
+	 * @param tipo - rest, tm, sql o jms
+	 * @param traza - id de la traza que se continua, o null para iniciar una nueva
+	 * @param padre - id del tramo padre en otro nodo, o null
+	 * @return el tramo, o null si el trazador no esta activo
+	 */
+	public static Span iniciarRaiz(String nombre, String tipo, String traza, String padre) {
+		if(instance == null)
+			return null;
+		Span span = new Span(traza == null || traza.isEmpty() ? nuevoId(16) : traza, nuevoId(8), padre, nombre, tipo, ACTUAL.get());
+		ACTUAL.set(span);
+		return span;
+	}
+
+	/**
+	 * Inicia un tramo hijo del tramo abierto en este hilo.
+	 * @param nombre - nombre del tramo
+	 * @param tipo - rest, tm, sql o jms
+	 * @return el tramo, o null si el hilo no esta dentro de una traza
+	 */
+	public static Span iniciar(String nombre, String tipo) {
+		Span actual = ACTUAL.get();
+		if(actual == null || instance == null)
+			return null;
+		Span span = new Span(actual.getTraza(), nuevoId(8), actual.getId(), nombre, tipo, actual);
+		ACTUAL.set(span);
+		return span;
+	}
+
+	/**
+	 * Inicia en este hilo un tramo hijo de un tramo abierto en otro hilo, por ejemplo el de una llamada REST que se
+	 * atiende en rest.AsyncExecutor.
+	 * @param padre - tramo padre, o null
+	 * @param nombre - nombre del tramo
+	 * @param tipo - rest, tm, sql o jms
+	 * @return el tramo, o null si no hay padre o el trazador no esta activo
+	 */
+	public static Span iniciar(Span padre, String nombre, String tipo) {
+		if(padre == null || instance == null)
+			return null;
+		Span span = new Span(padre.getTraza(), nuevoId(8), padre.getId(), nombre, tipo, ACTUAL.get());
+		ACTUAL.set(span);
+		return span;
+	}
+
+	/**
+	 * Saca un tramo de la pila de este hilo sin terminarlo, para que otro hilo lo termine despues.
+	 * @param span - tramo abierto en este hilo; si es null no hace nada
+	 */
+	public static void soltar(Span span) {
+		if(span != null && ACTUAL.get() == span) {
+			if(span.anterior == null)
+				ACTUAL.remove();
+			else
+				ACTUAL.set(span.anterior);
+		}
+	}
+
+	/**
+	 * @return el tramo abierto en este hilo, o null
+	 */
+	public static Span actual() {
+		return ACTUAL.get();
+	}
+
+	/**
+	 * Termina un tramo, lo saca de la pila del hilo y lo exporta.
+	 * @param span - tramo de iniciar() o iniciarRaiz(); si es null no hace nada
+	 * @param error - si lo que se midio termino en error
+	 */
+	public static void terminar(Span span, boolean error) {
+		if(span == null)
+			return;
+		span.terminar(error);
+		soltar(span);
+		Tracer tracer = instance;
+		if(tracer != null)
+			tracer.exporter.exportar(span);
+	}
+
+	/**
+	 * @return nombre de este nodo en los tramos
+	 */
+	public String getNodo() {
+		return nodo;
+	}
+
+	/**
+	 * @return tramos que no se escribieron porque la cola del exportador estaba llena
+	 */
+	public long darDescartados() {
+		return exporter.darDescartados();
+	}
+
+	private static String nuevoId(int bytes) {
+		StringBuilder b = new StringBuilder(bytes * 2);
+		for(int i = 0; i < bytes; i += 4) {
+			String hex = Integer.toHexString(ThreadLocalRandom.current().nextInt());
+			for(int j = hex.length(); j < 8; j++)
+				b.append('0');
+			b.append(hex);
+		}
+		return b.toString();
+	}
+}
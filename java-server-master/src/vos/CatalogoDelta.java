@@ -0,0 +1,69 @@
+package vos;
+
+import java.util.List;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+/**
+ * Cambios del catalogo de productos de una rotonda que se publican a las demas (status CATALOG_DELTA).
+ * epoca identifica el arranque del servidor que publica; version crece con cada publicacion de esa epoca.
+ * Un delta con completo = true trae todo el catalogo y reemplaza lo que se tenga de esa rotonda; uno parcial trae
+ * solo los productos que cambiaron y los nombres de los que ya no existen, y se aplica solo si anterior es la
+ * version que se tiene.
+ */
+public class CatalogoDelta {
+
+	@JsonProperty(value="epoca")
+	private long epoca;
+
+	@JsonProperty(value="version")
+	private long version;
+
+	@JsonProperty(value="anterior")
+	private long anterior;
+
+	@JsonProperty(value="completo")
+	private boolean completo;
+
+	@JsonProperty(value="productos")
+	private List<ProductoIter5> productos;
+
+	@JsonProperty(value="eliminados")
+	private List<String> eliminados;
+
+	public CatalogoDelta(@JsonProperty(value="epoca")long epoca, @JsonProperty(value="version")long version,
+			@JsonProperty(value="anterior")long anterior, @JsonProperty(value="completo")boolean completo,
+			@JsonProperty(value="productos")List<ProductoIter5> productos, @JsonProperty(value="eliminados")List<String> eliminados)
+	{
+		this.epoca = epoca;
+		this.version = version;
+		this.anterior = anterior;
+		this.completo = completo;
+		this.productos = productos;
+		this.eliminados = eliminados;
+	}
+
+	public long getEpoca() {
+		return epoca;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public long getAnterior() {
+		return anterior;
+	}
+
+	public boolean isCompleto() {
+		return completo;
+	}
+
+	public List<ProductoIter5> getProductos() {
+		return productos;
+	}
+
+	public List<String> getEliminados() {
+		return eliminados;
+	}
+}
@@ -0,0 +1,56 @@
+package vos;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+/**
+ * Ejecucion de SQL que supero sql.umbralLento, con los valores de sus parametros en orden.
+ * fecha es el momento en que termino, en milisegundos desde 1970; duracion esta en milisegundos.
+ */
+public class ConsultaLenta {
+
+	@JsonProperty(value="fecha")
+	private long fecha;
+
+	@JsonProperty(value="duracion")
+	private double duracion;
+
+	@JsonProperty(value="sql")
+	private String sql;
+
+	@JsonProperty(value="parametros")
+	private String parametros;
+
+	@JsonProperty(value="error")
+	private boolean error;
+
+	public ConsultaLenta(@JsonProperty(value="fecha")long fecha, @JsonProperty(value="duracion")double duracion,
+			@JsonProperty(value="sql")String sql, @JsonProperty(value="parametros")String parametros,
+			@JsonProperty(value="error")boolean error)
+	{
+		this.fecha = fecha;
+		this.duracion = duracion;
+		this.sql = sql;
+		this.parametros = parametros;
+		this.error = error;
+	}
+
+	public long getFecha() {
+		return fecha;
+	}
+
+	public double getDuracion() {
+		return duracion;
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	public String getParametros() {
+		return parametros;
+	}
+
+	public boolean isError() {
+		return error;
+	}
+}
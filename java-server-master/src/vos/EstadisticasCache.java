@@ -0,0 +1,72 @@
+package vos;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+/**
+ * Contadores de una region del cache del catalogo que se exponen en /rest/admin/catalogo
+ */
+public class EstadisticasCache {
+
+	@JsonProperty(value="region")
+	private String region;
+
+	@JsonProperty(value="entradas")
+	private int entradas;
+
+	@JsonProperty(value="maximo")
+	private int maximo;
+
+	@JsonProperty(value="aciertos")
+	private long aciertos;
+
+	@JsonProperty(value="fallos")
+	private long fallos;
+
+	@JsonProperty(value="desalojos")
+	private long desalojos;
+
+	@JsonProperty(value="expirados")
+	private long expirados;
+
+	public EstadisticasCache(@JsonProperty(value="region")String region, @JsonProperty(value="entradas")int entradas,
+			@JsonProperty(value="maximo")int maximo, @JsonProperty(value="aciertos")long aciertos,
+			@JsonProperty(value="fallos")long fallos, @JsonProperty(value="desalojos")long desalojos,
+			@JsonProperty(value="expirados")long expirados)
+	{
+		this.region = region;
+		this.entradas = entradas;
+		this.maximo = maximo;
+		this.aciertos = aciertos;
+		this.fallos = fallos;
+		this.desalojos = desalojos;
+		this.expirados = expirados;
+	}
+
+	public String getRegion() {
+		return region;
+	}
+
+	public int getEntradas() {
+		return entradas;
+	}
+
+	public int getMaximo() {
+		return maximo;
+	}
+
+	public long getAciertos() {
+		return aciertos;
+	}
+
+	public long getFallos() {
+		return fallos;
+	}
+
+	public long getDesalojos() {
+		return desalojos;
+	}
+
+	public long getExpirados() {
+		return expirados;
+	}
+}
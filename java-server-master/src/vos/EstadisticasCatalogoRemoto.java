@@ -0,0 +1,72 @@
+package vos;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+/**
+ * Estado de la copia del catalogo de una rotonda par que se expone en /rest/admin/catalogoRemoto.
+ */
+public class EstadisticasCatalogoRemoto {
+
+	@JsonProperty(value="par")
+	private String par;
+
+	@JsonProperty(value="version")
+	private long version;
+
+	@JsonProperty(value="productos")
+	private int productos;
+
+	@JsonProperty(value="edad")
+	private long edad;
+
+	@JsonProperty(value="deltas")
+	private long deltas;
+
+	@JsonProperty(value="completos")
+	private long completos;
+
+	@JsonProperty(value="desfases")
+	private long desfases;
+
+	public EstadisticasCatalogoRemoto(@JsonProperty(value="par")String par, @JsonProperty(value="version")long version,
+			@JsonProperty(value="productos")int productos, @JsonProperty(value="edad")long edad,
+			@JsonProperty(value="deltas")long deltas, @JsonProperty(value="completos")long completos,
+			@JsonProperty(value="desfases")long desfases)
+	{
+		this.par = par;
+		this.version = version;
+		this.productos = productos;
+		this.edad = edad;
+		this.deltas = deltas;
+		this.completos = completos;
+		this.desfases = desfases;
+	}
+
+	public String getPar() {
+		return par;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public int getProductos() {
+		return productos;
+	}
+
+	public long getEdad() {
+		return edad;
+	}
+
+	public long getDeltas() {
+		return deltas;
+	}
+
+	public long getCompletos() {
+		return completos;
+	}
+
+	public long getDesfases() {
+		return desfases;
+	}
+}
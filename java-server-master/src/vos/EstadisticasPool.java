@@ -0,0 +1,115 @@
+package vos;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+/**
+ * Foto del estado del pool de conexiones que se expone en /rest/admin/pool
+ */
+public class EstadisticasPool {
+
+	@JsonProperty(value="prestadas")
+	private int prestadas;
+
+	@JsonProperty(value="inactivas")
+	private int inactivas;
+
+	@JsonProperty(value="esperando")
+	private int esperando;
+
+	@JsonProperty(value="minimo")
+	private int minimo;
+
+	@JsonProperty(value="maximo")
+	private int maximo;
+
+	@JsonProperty(value="creadas")
+	private long creadas;
+
+	@JsonProperty(value="destruidas")
+	private long destruidas;
+
+	@JsonProperty(value="prestamos")
+	private long prestamos;
+
+	@JsonProperty(value="timeouts")
+	private long timeouts;
+
+	@JsonProperty(value="fugas")
+	private long fugas;
+
+	@JsonProperty(value="validacionesFallidas")
+	private long validacionesFallidas;
+
+	@JsonProperty(value="esperaPromedioMs")
+	private double esperaPromedioMs;
+
+	public EstadisticasPool(@JsonProperty(value="prestadas")int prestadas, @JsonProperty(value="inactivas")int inactivas,
+			@JsonProperty(value="esperando")int esperando, @JsonProperty(value="minimo")int minimo,
+			@JsonProperty(value="maximo")int maximo, @JsonProperty(value="creadas")long creadas,
+			@JsonProperty(value="destruidas")long destruidas, @JsonProperty(value="prestamos")long prestamos,
+			@JsonProperty(value="timeouts")long timeouts, @JsonProperty(value="fugas")long fugas,
+			@JsonProperty(value="validacionesFallidas")long validacionesFallidas,
+			@JsonProperty(value="esperaPromedioMs")double esperaPromedioMs)
+	{
+		this.prestadas = prestadas;
+		this.inactivas = inactivas;
+		this.esperando = esperando;
+		this.minimo = minimo;
+		this.maximo = maximo;
+		this.creadas = creadas;
+		this.destruidas = destruidas;
+		this.prestamos = prestamos;
+		this.timeouts = timeouts;
+		this.fugas = fugas;
+		this.validacionesFallidas = validacionesFallidas;
+		this.esperaPromedioMs = esperaPromedioMs;
+	}
+
+	public int getPrestadas() {
+		return prestadas;
+	}
+
+	public int getInactivas() {
+		return inactivas;
+	}
+
+	public int getEsperando() {
+		return esperando;
+	}
+
+	public int getMinimo() {
+		return minimo;
+	}
+
+	public int getMaximo() {
+		return maximo;
+	}
+
+	public long getCreadas() {
+		return creadas;
+	}
+
+	public long getDestruidas() {
+		return destruidas;
+	}
+
+	public long getPrestamos() {
+		return prestamos;
+	}
+
+	public long getTimeouts() {
+		return timeouts;
+	}
+
+	public long getFugas() {
+		return fugas;
+	}
+
+	public long getValidacionesFallidas() {
+		return validacionesFallidas;
+	}
+
+	public double getEsperaPromedioMs() {
+		return esperaPromedioMs;
+	}
+}
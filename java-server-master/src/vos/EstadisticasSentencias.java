@@ -0,0 +1,56 @@
+package vos;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+/**
+ * Contadores del cache de sentencias preparadas que se exponen en /rest/admin/sentencias.
+ * preparaciones es el numero de veces que se le pidio a la base de datos analizar un SQL.
+ */
+public class EstadisticasSentencias {
+
+	@JsonProperty(value="solicitudes")
+	private long solicitudes;
+
+	@JsonProperty(value="preparaciones")
+	private long preparaciones;
+
+	@JsonProperty(value="aciertos")
+	private long aciertos;
+
+	@JsonProperty(value="desalojos")
+	private long desalojos;
+
+	@JsonProperty(value="tasaAciertos")
+	private double tasaAciertos;
+
+	public EstadisticasSentencias(@JsonProperty(value="solicitudes")long solicitudes, @JsonProperty(value="preparaciones")long preparaciones,
+			@JsonProperty(value="aciertos")long aciertos, @JsonProperty(value="desalojos")long desalojos,
+			@JsonProperty(value="tasaAciertos")double tasaAciertos)
+	{
+		this.solicitudes = solicitudes;
+		this.preparaciones = preparaciones;
+		this.aciertos = aciertos;
+		this.desalojos = desalojos;
+		this.tasaAciertos = tasaAciertos;
+	}
+
+	public long getSolicitudes() {
+		return solicitudes;
+	}
+
+	public long getPreparaciones() {
+		return preparaciones;
+	}
+
+	public long getAciertos() {
+		return aciertos;
+	}
+
+	public long getDesalojos() {
+		return desalojos;
+	}
+
+	public double getTasaAciertos() {
+		return tasaAciertos;
+	}
+}
@@ -0,0 +1,74 @@
+package vos;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+/**
+ * Tiempos de una forma de SQL de los DAO que se exponen en /rest/admin/sql.
+ * La huella es el SQL con los literales reemplazados por ?; ejemplo es uno de los textos que la produjeron.
+ * Los tiempos estan en milisegundos.
+ */
+public class EstadisticasSql {
+
+	@JsonProperty(value="huella")
+	private String huella;
+
+	@JsonProperty(value="ejemplo")
+	private String ejemplo;
+
+	@JsonProperty(value="ejecuciones")
+	private long ejecuciones;
+
+	@JsonProperty(value="errores")
+	private long errores;
+
+	@JsonProperty(value="promedio")
+	private double promedio;
+
+	@JsonProperty(value="maximo")
+	private double maximo;
+
+	@JsonProperty(value="total")
+	private double total;
+
+	public EstadisticasSql(@JsonProperty(value="huella")String huella, @JsonProperty(value="ejemplo")String ejemplo,
+			@JsonProperty(value="ejecuciones")long ejecuciones, @JsonProperty(value="errores")long errores,
+			@JsonProperty(value="promedio")double promedio, @JsonProperty(value="maximo")double maximo,
+			@JsonProperty(value="total")double total)
+	{
+		this.huella = huella;
+		this.ejemplo = ejemplo;
+		this.ejecuciones = ejecuciones;
+		this.errores = errores;
+		this.promedio = promedio;
+		this.maximo = maximo;
+		this.total = total;
+	}
+
+	public String getHuella() {
+		return huella;
+	}
+
+	public String getEjemplo() {
+		return ejemplo;
+	}
+
+	public long getEjecuciones() {
+		return ejecuciones;
+	}
+
+	public long getErrores() {
+		return errores;
+	}
+
+	public double getPromedio() {
+		return promedio;
+	}
+
+	public double getMaximo() {
+		return maximo;
+	}
+
+	public double getTotal() {
+		return total;
+	}
+}
@@ -0,0 +1,90 @@
+package vos;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+/**
+ * Contadores de las reservas de existencias en memoria que se exponen en /rest/admin/stock.
+ * disponibles es la suma de las unidades que quedan en los contadores de los productos cargados.
+ */
+public class EstadisticasStock {
+
+	@JsonProperty(value="productos")
+	private int productos;
+
+	@JsonProperty(value="disponibles")
+	private long disponibles;
+
+	@JsonProperty(value="reservas")
+	private long reservas;
+
+	@JsonProperty(value="rechazos")
+	private long rechazos;
+
+	@JsonProperty(value="liberadas")
+	private long liberadas;
+
+	@JsonProperty(value="lotes")
+	private long lotes;
+
+	@JsonProperty(value="unidadesDescargadas")
+	private long unidadesDescargadas;
+
+	@JsonProperty(value="ajustes")
+	private long ajustes;
+
+	@JsonProperty(value="erroresDescarga")
+	private long erroresDescarga;
+
+	public EstadisticasStock(@JsonProperty(value="productos")int productos, @JsonProperty(value="disponibles")long disponibles,
+			@JsonProperty(value="reservas")long reservas, @JsonProperty(value="rechazos")long rechazos,
+			@JsonProperty(value="liberadas")long liberadas, @JsonProperty(value="lotes")long lotes,
+			@JsonProperty(value="unidadesDescargadas")long unidadesDescargadas, @JsonProperty(value="ajustes")long ajustes,
+			@JsonProperty(value="erroresDescarga")long erroresDescarga)
+	{
+		this.productos = productos;
+		this.disponibles = disponibles;
+		this.reservas = reservas;
+		this.rechazos = rechazos;
+		this.liberadas = liberadas;
+		this.lotes = lotes;
+		this.unidadesDescargadas = unidadesDescargadas;
+		this.ajustes = ajustes;
+		this.erroresDescarga = erroresDescarga;
+	}
+
+	public int getProductos() {
+		return productos;
+	}
+
+	public long getDisponibles() {
+		return disponibles;
+	}
+
+	public long getReservas() {
+		return reservas;
+	}
+
+	public long getRechazos() {
+		return rechazos;
+	}
+
+	public long getLiberadas() {
+		return liberadas;
+	}
+
+	public long getLotes() {
+		return lotes;
+	}
+
+	public long getUnidadesDescargadas() {
+		return unidadesDescargadas;
+	}
+
+	public long getAjustes() {
+		return ajustes;
+	}
+
+	public long getErroresDescarga() {
+		return erroresDescarga;
+	}
+}
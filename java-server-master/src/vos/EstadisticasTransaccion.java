@@ -0,0 +1,114 @@
+package vos;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+/**
+ * Contadores de una transaccion de RotondAndesTm que se exponen en /rest/admin/transacciones.
+ * Los tiempos estan en milisegundos.
+ */
+public class EstadisticasTransaccion {
+
+	@JsonProperty(value="nombre")
+	private String nombre;
+
+	@JsonProperty(value="modo")
+	private String modo;
+
+	@JsonProperty(value="timeout")
+	private int timeout;
+
+	@JsonProperty(value="ejecuciones")
+	private long ejecuciones;
+
+	@JsonProperty(value="errores")
+	private long errores;
+
+	@JsonProperty(value="promedio")
+	private double promedio;
+
+	@JsonProperty(value="p50")
+	private double p50;
+
+	@JsonProperty(value="p99")
+	private double p99;
+
+	@JsonProperty(value="maximo")
+	private double maximo;
+
+	@JsonProperty(value="total")
+	private double total;
+
+	@JsonProperty(value="filasLeidas")
+	private long filasLeidas;
+
+	@JsonProperty(value="filasAfectadas")
+	private long filasAfectadas;
+
+	public EstadisticasTransaccion(@JsonProperty(value="nombre")String nombre, @JsonProperty(value="modo")String modo,
+			@JsonProperty(value="timeout")int timeout, @JsonProperty(value="ejecuciones")long ejecuciones,
+			@JsonProperty(value="errores")long errores, @JsonProperty(value="promedio")double promedio,
+			@JsonProperty(value="p50")double p50, @JsonProperty(value="p99")double p99, @JsonProperty(value="maximo")double maximo, @JsonProperty(value="total")double total,
+			@JsonProperty(value="filasLeidas")long filasLeidas, @JsonProperty(value="filasAfectadas")long filasAfectadas)
+	{
+		this.nombre = nombre;
+		this.modo = modo;
+		this.timeout = timeout;
+		this.ejecuciones = ejecuciones;
+		this.errores = errores;
+		this.promedio = promedio;
+		this.p50 = p50;
+		this.p99 = p99;
+		this.maximo = maximo;
+		this.total = total;
+		this.filasLeidas = filasLeidas;
+		this.filasAfectadas = filasAfectadas;
+	}
+
+	public String getNombre() {
+		return nombre;
+	}
+
+	public String getModo() {
+		return modo;
+	}
+
+	public int getTimeout() {
+		return timeout;
+	}
+
+	public long getEjecuciones() {
+		return ejecuciones;
+	}
+
+	public long getErrores() {
+		return errores;
+	}
+
+	public double getPromedio() {
+		return promedio;
+	}
+
+	public double getP50() {
+		return p50;
+	}
+
+	public double getP99() {
+		return p99;
+	}
+
+	public double getMaximo() {
+		return maximo;
+	}
+
+	public double getTotal() {
+		return total;
+	}
+
+	public long getFilasLeidas() {
+		return filasLeidas;
+	}
+
+	public long getFilasAfectadas() {
+		return filasAfectadas;
+	}
+}
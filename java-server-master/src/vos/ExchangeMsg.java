@@ -1,7 +1,14 @@
 package vos;
 
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
 import org.codehaus.jackson.annotate.JsonProperty;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
 
+/**
+ * Mensaje entre rotondas. traceId y spanId llevan la traza de la llamada que lo origino (ver trace.Tracer);
+ * solo se escriben si hay traza y se ignoran los campos que no se conocen, para hablar con rotondas sin trazas.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class ExchangeMsg 
 {
 	@JsonProperty(value="routingkey")
@@ -19,6 +26,12 @@ public class ExchangeMsg
 	@JsonProperty(value="msgId")
 	private String msgId;
 	
+	@JsonProperty(value="traceId")
+	private String traceId;
+	
+	@JsonProperty(value="spanId")
+	private String spanId;
+	
 	public ExchangeMsg(@JsonProperty(value="routingkey") String queue, @JsonProperty(value="sender") String sender, @JsonProperty(value="payload") String payload, 
 						@JsonProperty(value="status") String status, @JsonProperty(value="msgId") String msgId) 
 	{
@@ -75,6 +88,28 @@ public class ExchangeMsg
 	public void setMsgId(String msgId) {
 		this.msgId = msgId;
 	}
+
+
+	@JsonSerialize(include=JsonSerialize.Inclusion.NON_NULL)
+	public String getTraceId() {
+		return traceId;
+	}
+
+
+	public void setTraceId(String traceId) {
+		this.traceId = traceId;
+	}
+
+
+	@JsonSerialize(include=JsonSerialize.Inclusion.NON_NULL)
+	public String getSpanId() {
+		return spanId;
+	}
+
+
+	public void setSpanId(String spanId) {
+		this.spanId = spanId;
+	}
 	
 	
 
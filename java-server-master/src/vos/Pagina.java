@@ -0,0 +1,40 @@
+package vos;
+
+import java.util.List;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+/**
+ * Una pagina de un listado con paginacion por llave: las filas de la pagina y el token para pedir la siguiente,
+ * que es null en la ultima.
+ * @param <T> - tipo de las filas
+ */
+public class Pagina<T> {
+
+	@JsonProperty(value="elementos")
+	private List<T> elementos;
+
+	@JsonProperty(value="siguiente")
+	private String siguiente;
+
+	public Pagina(@JsonProperty(value="elementos") List<T> elementos, @JsonProperty(value="siguiente") String siguiente) {
+		this.elementos = elementos;
+		this.siguiente = siguiente;
+	}
+
+	public List<T> getElementos() {
+		return elementos;
+	}
+
+	public void setElementos(List<T> elementos) {
+		this.elementos = elementos;
+	}
+
+	public String getSiguiente() {
+		return siguiente;
+	}
+
+	public void setSiguiente(String siguiente) {
+		this.siguiente = siguiente;
+	}
+}
@@ -0,0 +1,59 @@
+package vos;
+
+import java.util.List;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+/**
+ * Reporte de /rest/admin/sql: las formas de SQL con mas tiempo total y con mayor tiempo maximo en la ventana,
+ * y las ultimas ejecuciones que superaron el umbral. umbral y ventana estan en milisegundos.
+ */
+public class ReporteSql {
+
+	@JsonProperty(value="umbral")
+	private long umbral;
+
+	@JsonProperty(value="ventana")
+	private long ventana;
+
+	@JsonProperty(value="porTotal")
+	private List<EstadisticasSql> porTotal;
+
+	@JsonProperty(value="porMaximo")
+	private List<EstadisticasSql> porMaximo;
+
+	@JsonProperty(value="lentas")
+	private List<ConsultaLenta> lentas;
+
+	public ReporteSql(@JsonProperty(value="umbral")long umbral, @JsonProperty(value="ventana")long ventana,
+			@JsonProperty(value="porTotal")List<EstadisticasSql> porTotal,
+			@JsonProperty(value="porMaximo")List<EstadisticasSql> porMaximo,
+			@JsonProperty(value="lentas")List<ConsultaLenta> lentas)
+	{
+		this.umbral = umbral;
+		this.ventana = ventana;
+		this.porTotal = porTotal;
+		this.porMaximo = porMaximo;
+		this.lentas = lentas;
+	}
+
+	public long getUmbral() {
+		return umbral;
+	}
+
+	public long getVentana() {
+		return ventana;
+	}
+
+	public List<EstadisticasSql> getPorTotal() {
+		return porTotal;
+	}
+
+	public List<EstadisticasSql> getPorMaximo() {
+		return porMaximo;
+	}
+
+	public List<ConsultaLenta> getLentas() {
+		return lentas;
+	}
+}